@@ -0,0 +1,48 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/Lanzador.java
+package com.mycompany.pasteleria.desktop;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Punto de entrada para ejecutar con JavaFX en el classpath (jar + lib/, runtime jlink, CDS).
+ * El lanzador de Java rechaza una clase main que extiende Application si javafx.graphics
+ * no está como módulo; esta clase no lo hace y delega en MainApp.
+ * En la corrida de entrenamiento CDS ({@code -Dpasteleria.cds.training=true}) arma además un
+ * límite duro: si la app no salió sola en {@value #LIMITE_ENTRENAMIENTO_S} s (arranque colgado,
+ * sin display, etc.) la JVM termina con código 2 y {@code mvn package} falla en vez de colgarse.
+ */
+public final class Lanzador {
+
+  private static final Logger LOG = Logger.getLogger(Lanzador.class.getName());
+  private static final int LIMITE_ENTRENAMIENTO_S = 120;
+
+  private Lanzador() {}
+
+  public static void main(String[] args) {
+    if (!MainApp.ENTRENAMIENTO_CDS) {
+      MainApp.main(args);
+      return;
+    }
+    armarLimiteEntrenamiento();
+    try {
+      MainApp.main(args);
+    } catch (Throwable ex) {
+      // p.ej. sin display: el toolkit no arranca
+      LOG.log(Level.SEVERE, "Entrenamiento CDS: no se pudo iniciar la app", ex);
+      System.exit(1);
+    }
+  }
+
+  private static void armarLimiteEntrenamiento() {
+    Timer t = new Timer("cds-limite", true); // daemon: no retiene la JVM si sale antes
+    t.schedule(new TimerTask() {
+      @Override public void run() {
+        LOG.severe("Entrenamiento CDS: la app no terminó en " + LIMITE_ENTRENAMIENTO_S + " s; se aborta");
+        System.exit(2);
+      }
+    }, LIMITE_ENTRENAMIENTO_S * 1000L);
+  }
+}
@@ -1,12 +1,10 @@
 // RUTA: src/main/java/com/mycompany/pasteleria/desktop/controller/AsignarDeliveryController.java
 package com.mycompany.pasteleria.desktop.controller;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mycompany.pasteleria.desktop.config.AppConfig;
-import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.EstadoRepartidores;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
@@ -14,12 +12,12 @@ import javafx.stage.Stage;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Diálogo para asignar un repartidor a un pedido.
  * - Muestra datos del cliente/dirección (solo lectura).
- * - Carga repartidores activos desde delivery_person.
+ * - Repartidores activos y su carga desde EstadoRepartidores (en memoria): abrir es instantáneo.
+ * - Modo automático: elige al de menor carga (O(1)) y se actualiza si cambian las cargas.
  * - Devuelve resultado vía propiedades del Stage:
  *   result_ok, id_pedido, id_delivery, hora_salida.
  */
@@ -29,16 +27,28 @@ public class AsignarDeliveryController {
   @FXML private Label lblCliente, lblTelefono, lblDireccion, lblDistrito, lblReferencia;
   @FXML private ComboBox<DeliveryItem> cbDelivery;
   @FXML private TextField txtHoraSalida;
+  @FXML private CheckBox chkAuto;
+  @FXML private Label lblCarga;
 
-  // --- Estado / API ---
-  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
-  private final ObjectMapper om = new ObjectMapper();
+  // --- Estado ---
+  private final EstadoRepartidores estado = EstadoRepartidores.get();
+  private final Runnable oyente = this::pintarRepartidores;
 
   private int idPedido;
 
-  /** Item para el ComboBox (id + nombre completo). */
-  public record DeliveryItem(int id, String nombre) {
-    @Override public String toString(){ return nombre; }
+  /** Item para el ComboBox (id + nombre completo + pedidos en ruta). */
+  public record DeliveryItem(int id, String nombre, int enRuta, LocalTime ultimaSalida) {
+    @Override public String toString(){ return nombre + " · " + (enRuta == 0 ? "libre" : enRuta + " en ruta"); }
+  }
+
+  @FXML
+  public void initialize() {
+    chkAuto.selectedProperty().addListener((o, a, auto) -> {
+      cbDelivery.setDisable(auto);
+      if (auto) pintarRepartidores();
+    });
+    cbDelivery.setDisable(chkAuto.isSelected());
+    cbDelivery.getSelectionModel().selectedItemProperty().addListener((o, a, d) -> pintarCarga(d));
   }
 
   /** Cargado por el caller (PedidosController) con los datos del pedido/cliente. */
@@ -59,33 +69,45 @@ public class AsignarDeliveryController {
     // Sugerir hora actual HH:mm
     txtHoraSalida.setText(LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
 
-    cargarRepartidoresActivos();
+    // lo que ya hay en memoria se pinta ya; el caché avisa cuando cambia algo
+    estado.addListener(oyente);
+    pintarRepartidores();
+    if (!estado.isCargado()) {
+      estado.recargar().exceptionally(ex -> {
+        Platform.runLater(() -> show("No se pudieron cargar repartidores:\n" + ex.getMessage(), Alert.AlertType.ERROR));
+        return null;
+      });
+    }
   }
 
-  private void cargarRepartidoresActivos() {
-    Task<List<Map<String,Object>>> t = new Task<>() {
-      @Override protected List<Map<String, Object>> call() throws Exception {
-        // Usa getRespWithCount (tu ApiClient no expone get())
-        String path = "/delivery_person?select=id_delivery,nombre,apellido,activo&activo=eq.true&order=nombre.asc";
-        var resp = api.getRespWithCount(path);
-        if (resp.statusCode()<200 || resp.statusCode()>=300) {
-          throw new RuntimeException("HTTP "+resp.statusCode()+"\n"+resp.body());
-        }
-        return om.readValue(resp.body(), new TypeReference<List<Map<String,Object>>>(){});
-      }
-    };
-    t.setOnSucceeded(e -> {
-      var items = t.getValue().stream().map(m -> {
-        int id = Integer.parseInt(String.valueOf(m.get("id_delivery")));
-        String nom = String.valueOf(m.getOrDefault("nombre","")).trim();
-        String ape = String.valueOf(m.getOrDefault("apellido","")).trim();
-        return new DeliveryItem(id, (nom+" "+ape).trim());
-      }).toList();
-      cbDelivery.setItems(FXCollections.observableArrayList(items));
-      if (!items.isEmpty()) cbDelivery.getSelectionModel().selectFirst();
-    });
-    t.setOnFailed(e -> show("No se pudieron cargar repartidores:\n"+t.getException().getMessage(), Alert.AlertType.ERROR));
-    new Thread(t,"delivery-load").start();
+  /** Rellena el combo desde el caché conservando la selección manual (o eligiendo el de menor carga). */
+  private void pintarRepartidores() {
+    DeliveryItem antes = cbDelivery.getSelectionModel().getSelectedItem();
+    List<DeliveryItem> items = estado.activos().stream()
+        .map(r -> new DeliveryItem(r.id(), r.nombre(), r.enRuta(), r.ultimaSalida()))
+        .toList();
+    cbDelivery.setItems(FXCollections.observableArrayList(items));
+    if (items.isEmpty()) {
+      lblCarga.setText(estado.isCargado() ? "No hay repartidores activos." : "Cargando repartidores…");
+      return;
+    }
+
+    int elegir = antes == null ? items.get(0).id() : antes.id();
+    if (chkAuto.isSelected()) {
+      EstadoRepartidores.Repartidor menor = estado.menosCargado();
+      if (menor != null) elegir = menor.id();
+    }
+    for (DeliveryItem d : items) {
+      if (d.id() == elegir) { cbDelivery.getSelectionModel().select(d); return; }
+    }
+    cbDelivery.getSelectionModel().selectFirst();
+  }
+
+  private void pintarCarga(DeliveryItem d) {
+    if (d == null) return;
+    String txt = d.enRuta() == 0 ? "Sin pedidos en ruta" : d.enRuta() + " pedido(s) en ruta";
+    if (d.ultimaSalida() != null) txt += " · última salida " + Fechas.hhmm(d.ultimaSalida());
+    lblCarga.setText(txt);
   }
 
   @FXML
@@ -103,6 +125,7 @@ public class AsignarDeliveryController {
   }
 
   private void close(boolean ok, Integer idDelivery, String hora) {
+    estado.removeListener(oyente);
     Stage st = (Stage) cbDelivery.getScene().getWindow();
     st.getProperties().put("result_ok", ok);
     st.getProperties().put("id_pedido", idPedido);
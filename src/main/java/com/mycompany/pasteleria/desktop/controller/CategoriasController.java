@@ -6,13 +6,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.model.Categoria;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
 
@@ -41,10 +41,10 @@ public class CategoriasController {
     @FXML
     public void initialize() {
         // columnas
-        colId.setCellValueFactory(p -> new javafx.beans.property.SimpleStringProperty(
+        colId.setCellValueFactory(p -> ValorFijo.de(
                 String.valueOf(p.getValue().id_categoria)));
-        colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
-        colDesc.setCellValueFactory(new PropertyValueFactory<>("descripcion"));
+        colNombre.setCellValueFactory(p -> ValorFijo.de(p.getValue().nombre));
+        colDesc.setCellValueFactory(p -> ValorFijo.de(p.getValue().descripcion));
 
         // que la tabla use el ancho disponible
         tbl.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
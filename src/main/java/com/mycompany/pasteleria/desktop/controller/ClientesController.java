@@ -0,0 +1,443 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/controller/ClientesController.java
+package com.mycompany.pasteleria.desktop.controller;
+
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.model.Cliente;
+import com.mycompany.pasteleria.desktop.model.Producto;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.CatalogoProductos;
+import com.mycompany.pasteleria.desktop.service.DirectorioClientes;
+import com.mycompany.pasteleria.desktop.service.Exportador;
+import com.mycompany.pasteleria.desktop.service.HistorialClientes;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.DialogoExportacion;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Directorio de clientes.
+ * - Todo en memoria (DirectorioClientes): se filtra mientras se escribe, sin HTTP por tecla.
+ * - Nombre, email o teléfono; con 4 dígitos o menos busca por el final del teléfono.
+ * - La tabla es virtual: sólo existen las filas visibles aunque haya miles de clientes.
+ * - Panel derecho: historial del seleccionado (HistorialClientes, agregado local incremental)
+ *   y próximos cumpleaños para promociones.
+ */
+public class ClientesController implements CicloVida {
+
+    // ---------- top ----------
+    @FXML private TextField txtBuscar;
+    @FXML private Button btnBuscar, btnNuevo, btnExportar;
+
+    // ---------- tabla ----------
+    @FXML private TableView<Cliente> tblClientes;
+    @FXML private TableColumn<Cliente, String> colNombre, colTelefono, colDireccion;
+    @FXML private TableColumn<Cliente, Integer> colPedidos;
+    @FXML private TableColumn<Cliente, Cliente> colAcciones;
+
+    // ---------- historial ----------
+    @FXML private Label lblHistCliente, lblHistPedidos, lblHistGasto, lblHistTicket, lblHistNota, lblCumples;
+    @FXML private ListView<HistorialClientes.PedidoCliente> lstHistPedidos;
+    @FXML private ListView<HistorialClientes.Favorito> lstHistFavoritos;
+    @FXML private ListView<DirectorioClientes.Cumple> lstCumples;
+
+    // ---------- bottom ----------
+    @FXML private Label lblRango;
+    @FXML private ProgressIndicator loader;
+
+    // ---------- http ----------
+    private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+
+    private final DirectorioClientes directorio = DirectorioClientes.get();
+    private final Runnable alCambiarDirectorio = () -> {
+        if (loader == null || !loader.isVisible()) filtrar();
+        pintarCumples();
+    };
+
+    private final HistorialClientes historial = HistorialClientes.get();
+    private final Runnable alCambiarHistorial = () -> {
+        tblClientes.refresh(); // columna Pedidos
+        pintarHistorial(tblClientes.getSelectionModel().getSelectedItem());
+    };
+
+    private static final int DIAS_CUMPLE = 14;
+
+    private String filtro = "";
+
+    // =========================================================
+    // init
+    // =========================================================
+    @FXML
+    public void initialize() {
+        tblClientes.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+        colNombre.setCellValueFactory(p -> ValorFijo.de(p.getValue().getNombreCompleto()));
+        colTelefono.setCellValueFactory(p -> ValorFijo.de(p.getValue().getTelefonoFmt()));
+        colDireccion.setCellValueFactory(p -> ValorFijo.de(p.getValue().getDireccionFull()));
+        colPedidos.setCellValueFactory(p -> ValorFijo.de(historial.pedidos(p.getValue().id_cliente)));
+        colAcciones.setCellValueFactory(p -> ValorFijo.de(p.getValue()));
+        colAcciones.setCellFactory(c -> new CeldaAcciones());
+        colAcciones.setSortable(false);
+        // la dirección absorbe el ancho sobrante
+        colDireccion.setMaxWidth(Double.MAX_VALUE);
+
+        // type-ahead en memoria; Enter en la búsqueda salta a la tabla
+        txtBuscar.textProperty().addListener((o, old, v) -> {
+            filtro = (v == null) ? "" : v.trim();
+            if (directorio.isCargado()) filtrar();
+        });
+        txtBuscar.setOnAction(e -> {
+            buscar();
+            if (!tblClientes.getItems().isEmpty()) {
+                tblClientes.requestFocus();
+                tblClientes.getSelectionModel().selectFirst();
+            }
+        });
+        tblClientes.setOnKeyPressed(e -> {
+            if (e.getCode() == KeyCode.ENTER) verDetalle(tblClientes.getSelectionModel().getSelectedItem());
+        });
+        tblClientes.setRowFactory(tv -> {
+            TableRow<Cliente> row = new TableRow<>();
+            row.setOnMouseClicked(e -> {
+                if (e.getClickCount() == 2 && !row.isEmpty()) verDetalle(row.getItem());
+            });
+            return row;
+        });
+
+        // historial + cumpleaños
+        tblClientes.getSelectionModel().selectedItemProperty().addListener((o, old, c) -> pintarHistorial(c));
+        lstHistPedidos.setCellFactory(lv -> new ListCell<>() {
+            @Override protected void updateItem(HistorialClientes.PedidoCliente p, boolean empty) {
+                super.updateItem(p, empty);
+                setText(empty || p == null ? null
+                        : "#" + p.idPedido() + " · " + (p.fecha() == null ? "—" : Fechas.diaMes(p.fecha()))
+                          + " · " + p.estado() + " · " + soles(p.totalCent()));
+            }
+        });
+        lstHistFavoritos.setCellFactory(lv -> new ListCell<>() {
+            @Override protected void updateItem(HistorialClientes.Favorito f, boolean empty) {
+                super.updateItem(f, empty);
+                setText(empty || f == null ? null : nombreProducto(f.idProducto()) + " × " + f.unidades());
+            }
+        });
+        lstCumples.setCellFactory(lv -> new ListCell<>() {
+            @Override protected void updateItem(DirectorioClientes.Cumple c, boolean empty) {
+                super.updateItem(c, empty);
+                if (empty || c == null) { setText(null); return; }
+                String cuando = c.enDias() == 0 ? "Hoy" : c.enDias() == 1 ? "Mañana" : Fechas.diaMes(c.fecha());
+                setText(cuando + " · " + c.cliente().getNombreCompleto() + " · " + c.cliente().getTelefonoFmt());
+            }
+        });
+        lstCumples.setOnMouseClicked(e -> {
+            DirectorioClientes.Cumple c = lstCumples.getSelectionModel().getSelectedItem();
+            if (e.getClickCount() == 2 && c != null) seleccionar(c.cliente());
+        });
+        pintarHistorial(null);
+
+        directorio.addListener(alCambiarDirectorio);
+        historial.addListener(alCambiarHistorial);
+        historial.iniciar();
+        if (directorio.isCargado()) { filtrar(); pintarCumples(); } else load();
+    }
+
+    // =========================================================
+    // acciones top
+    // =========================================================
+    @FXML
+    public void buscar() {
+        filtro = (txtBuscar.getText() == null) ? "" : txtBuscar.getText().trim();
+        if (directorio.isCargado()) filtrar(); else load();
+    }
+
+    private void load() {
+        setLoading(true);
+        directorio.recargar().whenComplete((v, ex) -> Platform.runLater(() -> {
+            setLoading(false);
+            if (ex != null) {
+                Throwable c = (ex.getCause() != null) ? ex.getCause() : ex;
+                lblRango.setText("No se pudo cargar el directorio.");
+                alert("No se pudieron cargar los clientes:\n" + c.getMessage());
+                if (!directorio.isCargado()) return;
+            }
+            filtrar();
+            pintarCumples();
+        }));
+    }
+
+    /** Aplica el filtro sobre el directorio en memoria y conserva la selección si sigue visible. */
+    private void filtrar() {
+        Cliente sel = tblClientes.getSelectionModel().getSelectedItem();
+        long t0 = System.nanoTime();
+        List<Cliente> res = directorio.buscar(filtro, 0);
+        double ms = (System.nanoTime() - t0) / 1_000_000.0;
+
+        // copia: ordenar por columna reordena la lista de la tabla, no la del directorio
+        tblClientes.setItems(FXCollections.observableArrayList(res));
+        if (sel != null) {
+            int i = res.indexOf(sel);
+            if (i >= 0) tblClientes.getSelectionModel().select(i);
+        }
+        int total = directorio.total();
+        lblRango.setText(filtro.isEmpty()
+                ? total + " clientes"
+                : String.format(Locale.ROOT, "%d de %d clientes · %.2f ms", res.size(), total, ms));
+    }
+
+    // =========================================================
+    // historial / cumpleaños
+    // =========================================================
+    private void pintarHistorial(Cliente c) {
+        if (c == null) {
+            lblHistCliente.setText("Selecciona un cliente");
+            lblHistPedidos.setText("—");
+            lblHistGasto.setText("—");
+            lblHistTicket.setText("—");
+            lblHistNota.setText(historial.isCargado() ? "" : "Cargando historial de pedidos…");
+            lstHistPedidos.getItems().clear();
+            lstHistFavoritos.getItems().clear();
+            return;
+        }
+        HistorialClientes.Resumen r = historial.resumen(c.id_cliente);
+        lblHistCliente.setText(c.getNombreCompleto());
+        lblHistPedidos.setText(String.valueOf(r.pedidos()));
+        lblHistGasto.setText(soles(r.gastoCent()));
+        lblHistTicket.setText(r.pedidos() == 0 ? "—" : soles(r.ticketPromedioCent()));
+
+        StringBuilder nota = new StringBuilder();
+        if (!historial.isCargado()) nota.append("Cargando historial de pedidos…");
+        else if (r.ultimo() != null) nota.append("Último pedido: ").append(Fechas.diaMes(r.ultimo()))
+                .append(' ').append(r.ultimo().getYear());
+        else nota.append("Sin pedidos registrados");
+        if (r.anulados() > 0) nota.append(" · ").append(r.anulados()).append(" anulado(s)");
+        if (c.fecha_cumple != null) nota.append(" · Cumple: ").append(Fechas.diaMes(c.fecha_cumple));
+        lblHistNota.setText(nota.toString());
+
+        lstHistPedidos.getItems().setAll(r.recientes());
+        lstHistFavoritos.getItems().setAll(r.favoritos());
+    }
+
+    private void pintarCumples() {
+        List<DirectorioClientes.Cumple> cumples = directorio.proximosCumples(LocalDate.now(), DIAS_CUMPLE);
+        lstCumples.getItems().setAll(cumples);
+        lblCumples.setText("Próximos cumpleaños (" + DIAS_CUMPLE + " días): " + cumples.size());
+    }
+
+    /** Muestra al cliente en la tabla (limpia el filtro si hace falta). */
+    private void seleccionar(Cliente c) {
+        if (!tblClientes.getItems().contains(c)) txtBuscar.clear();
+        tblClientes.getSelectionModel().select(c);
+        tblClientes.scrollTo(c);
+        tblClientes.requestFocus();
+    }
+
+    private static String nombreProducto(int idProducto) {
+        Producto p = CatalogoProductos.get().porId(idProducto);
+        return (p != null && p.nombre != null && !p.nombre.isBlank()) ? p.nombre : "Producto #" + idProducto;
+    }
+
+    private static String soles(long cent) {
+        return "S/ " + BigDecimal.valueOf(cent, 2).toPlainString();
+    }
+
+    // =========================================================
+    // nuevo cliente
+    // =========================================================
+    @FXML
+    public void nuevoCliente() {
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Nuevo cliente");
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
+
+        TextField txtNom = new TextField();
+        TextField txtApe = new TextField();
+        TextField txtTel = new TextField();
+        TextField txtEmail = new TextField();
+        TextField txtDist = new TextField();
+        TextField txtDir = new TextField();
+        TextField txtRef = new TextField();
+        DatePicker dpCumple = new DatePicker();
+        dpCumple.setPromptText("Opcional");
+
+        // si se buscó un teléfono y no apareció, se propone para el alta
+        if (!filtro.isEmpty() && filtro.matches("[0-9 +()\\-]{6,}")) txtTel.setText(filtro);
+        else if (!filtro.isEmpty() && !filtro.contains("@")) txtNom.setText(filtro);
+
+        GridPane gp = new GridPane();
+        gp.setHgap(10);
+        gp.setVgap(10);
+        gp.setPadding(new Insets(10));
+        int r = 0;
+        gp.add(new Label("Nombre:"), 0, r);     gp.add(txtNom, 1, r++);
+        gp.add(new Label("Apellido:"), 0, r);   gp.add(txtApe, 1, r++);
+        gp.add(new Label("Teléfono:"), 0, r);   gp.add(txtTel, 1, r++);
+        gp.add(new Label("Email:"), 0, r);      gp.add(txtEmail, 1, r++);
+        gp.add(new Label("Distrito:"), 0, r);   gp.add(txtDist, 1, r++);
+        gp.add(new Label("Dirección:"), 0, r);  gp.add(txtDir, 1, r++);
+        gp.add(new Label("Referencia:"), 0, r); gp.add(txtRef, 1, r++);
+        gp.add(new Label("Cumpleaños:"), 0, r); gp.add(dpCumple, 1, r);
+        GridPane.setHgrow(txtNom, Priority.ALWAYS);
+        GridPane.setHgrow(txtDir, Priority.ALWAYS);
+        dialog.getDialogPane().setContent(gp);
+        Platform.runLater(txtNom::requestFocus);
+
+        var res = dialog.showAndWait();
+        if (res.isEmpty() || res.get() != ButtonType.OK) return;
+
+        String nombre = txt(txtNom);
+        String telefono = txt(txtTel);
+        if (nombre.isBlank()) { alert("El nombre es obligatorio."); return; }
+        if (telefono.isBlank()) { alert("El teléfono es obligatorio."); return; }
+        LocalDate cumple = dpCumple.getValue();
+
+        StringBuilder json = new StringBuilder("[{");
+        json.append("\"nombre\":\"").append(esc(nombre)).append("\"");
+        json.append(",\"apellido\":\"").append(esc(txt(txtApe))).append("\"");
+        json.append(",\"telefono\":\"").append(esc(telefono)).append("\"");
+        campo(json, "email", txt(txtEmail));
+        campo(json, "distrito", txt(txtDist));
+        campo(json, "direccion", txt(txtDir));
+        campo(json, "referencia", txt(txtRef));
+        if (cumple != null) campo(json, "fecha_cumple", cumple.toString());
+        json.append("}]");
+
+        setLoading(true);
+        Task<Cliente> t = new Task<>() {
+            @Override protected Cliente call() throws Exception {
+                var resp = api.postJson("/cliente?select=" + ApiClient.urlEncode(
+                        "id_cliente,nombre,apellido,email,telefono,distrito,direccion,referencia,fecha_registro,fecha_cumple"),
+                        json.toString());
+                ApiClient.require2xx(resp, "POST /cliente");
+                Cliente[] creados = Json.MAPPER.readValue(resp.body(), Cliente[].class);
+                return creados.length > 0 ? creados[0] : null;
+            }
+        };
+        t.setOnSucceeded(e -> {
+            setLoading(false);
+            Cliente c = t.getValue();
+            if (c != null) {
+                directorio.agregar(c); // el listener refresca la tabla
+                txtBuscar.setText(telefono);
+            }
+            info("Cliente creado");
+        });
+        t.setOnFailed(e -> {
+            setLoading(false);
+            alert("No se pudo crear el cliente:\n" + t.getException().getMessage());
+        });
+        new Thread(t, "post-cliente").start();
+    }
+
+    // =========================================================
+    // exportar
+    // =========================================================
+    /** Exporta exactamente los clientes que coinciden con la búsqueda actual (la misma del directorio). */
+    @FXML
+    public void exportar() {
+        Exportador.Consulta consulta = Exportador.clientes("");
+        if (!filtro.isEmpty()) {
+            List<Cliente> res = directorio.buscar(filtro, 0);
+            List<Integer> ids = new ArrayList<>(res.size());
+            for (Cliente c : res) ids.add(c.id_cliente);
+            consulta = consulta.soloClaves(ids);
+        }
+        DialogoExportacion.exportar(
+                (tblClientes != null && tblClientes.getScene() != null) ? tblClientes.getScene().getWindow() : null,
+                api, "clientes", consulta
+        );
+    }
+
+    // =========================================================
+    // detalle / acciones por fila
+    // =========================================================
+    private void verDetalle(Cliente c) {
+        if (c == null) return;
+        String cumple = c.fecha_cumple == null ? "—" : Fechas.diaMes(c.fecha_cumple);
+        info(c.getNombreCompleto()
+                + "\nTeléfono: " + c.getTelefonoFmt()
+                + "\nEmail: " + c.getEmailSafe()
+                + "\nDirección: " + c.getDireccionFull()
+                + "\nCumpleaños: " + cumple
+                + "\nRegistrado: " + c.getFechaRegistroCorta());
+    }
+
+    private static void copiar(String s) {
+        ClipboardContent cc = new ClipboardContent();
+        cc.putString(s);
+        Clipboard.getSystemClipboard().setContent(cc);
+    }
+
+    /** Botones reutilizados por fila visible (la celda cambia de cliente, los nodos no). */
+    private final class CeldaAcciones extends TableCell<Cliente, Cliente> {
+        private final Button btnCopiar = new Button("Copiar tel.");
+        private final Button btnVer = new Button("Ver");
+        private final HBox box = new HBox(6, btnCopiar, btnVer);
+
+        CeldaAcciones() {
+            box.setAlignment(Pos.CENTER);
+            btnCopiar.getStyleClass().add("btn-ghost");
+            btnVer.getStyleClass().add("btn-ghost");
+            btnCopiar.setOnAction(e -> {
+                Cliente c = getItem();
+                if (c != null && !"—".equals(c.getTelefonoFmt())) copiar(c.getTelefonoFmt());
+            });
+            btnVer.setOnAction(e -> verDetalle(getItem()));
+        }
+
+        @Override protected void updateItem(Cliente c, boolean empty) {
+            super.updateItem(c, empty);
+            setGraphic(empty || c == null ? null : box);
+        }
+    }
+
+    // ====== ciclo de vida ======
+    @Override
+    public void onShow() {
+        Platform.runLater(txtBuscar::requestFocus);
+        if (directorio.isCargado()) pintarCumples(); // puede haber cambiado el día
+    }
+
+    @Override
+    public void onDispose() {
+        directorio.removeListener(alCambiarDirectorio);
+        historial.removeListener(alCambiarHistorial);
+    }
+
+    // =========================================================
+    // util
+    // =========================================================
+    private static String txt(TextField f) { return f.getText() == null ? "" : f.getText().trim(); }
+    private static String esc(String x) { return x == null ? "" : x.replace("\\", "\\\\").replace("\"", "\\\""); }
+
+    private static void campo(StringBuilder json, String nombre, String valor) {
+        if (valor == null || valor.isBlank()) return;
+        json.append(",\"").append(nombre).append("\":\"").append(esc(valor)).append("\"");
+    }
+
+    private void setLoading(boolean v) {
+        if (loader != null) loader.setVisible(v);
+        if (btnBuscar   != null) btnBuscar.setDisable(v);
+        if (btnNuevo    != null) btnNuevo.setDisable(v);
+        if (btnExportar != null) btnExportar.setDisable(v);
+    }
+
+    private void alert(String m) { new Alert(Alert.AlertType.ERROR, m, ButtonType.OK).showAndWait(); }
+    private void info(String m)  { new Alert(Alert.AlertType.INFORMATION, m, ButtonType.OK).showAndWait(); }
+}
@@ -5,15 +5,19 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.MetricasCocina;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import com.mycompany.pasteleria.desktop.ui.Vistas;
+import com.mycompany.pasteleria.desktop.util.Fechas;
 import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
-import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.util.Callback;
 
@@ -24,23 +28,23 @@ import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class CocinaController {
+public class CocinaController implements CicloVida {
 
     // IZQ: cards
-    @FXML private TilePane grid;
+    private TilePane grid;
 
     // DER: resumen + acciones
-    @FXML private Label lblPedido, lblEstado, lblCliente, lblFecPed, lblFecEnt, lblHorEnt, lblTotalPedido;
-    @FXML private TextArea txtComentarios;
-    @FXML private Button btnEnPrep, btnServido;
+    private Label lblPedido, lblEstado, lblCliente, lblFecPed, lblFecEnt, lblHorEnt, lblTotalPedido;
+    private TextArea txtComentarios;
+    private Button btnEnPrep, btnServido;
 
     // Detalle (2 columnas)
-    @FXML private TableView<RowDetalle> tblDetalle;
-    @FXML private TableColumn<RowDetalle, String> colProd;
-    @FXML private TableColumn<RowDetalle, String> colCant;
+    private TableView<RowDetalle> tblDetalle;
+    private TableColumn<RowDetalle, String> colProd;
+    private TableColumn<RowDetalle, String> colCant;
 
-    @FXML private Button btnRefrescar;
-    @FXML private ProgressIndicator loader;
+    private Button btnRefrescar;
+    private ProgressIndicator loader;
 
     private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
     private final ObjectMapper om = new ObjectMapper();
@@ -50,21 +54,169 @@ public class CocinaController {
     private final Map<Integer, Node> cardById = new HashMap<>();
 
     private Task<?> loadPedidosTask, loadDetalleTask, patchTask;
+    private long ocultaDesde = 0;
 
     // ====== modelo para la tabla de detalle ======
     public static class RowDetalle {
         private final String producto;
         private final String cantidad;
+        private final ValorFijo.Celdas celdas = new ValorFijo.Celdas(2);
         public RowDetalle(String p, String c){ this.producto = p; this.cantidad = c; }
         public String getProducto(){ return producto; }
         public String getCantidad(){ return cantidad; }
+        public ObservableValue<String> productoProperty(){ return celdas.get(0, producto); }
+        public ObservableValue<String> cantidadProperty(){ return celdas.get(1, cantidad); }
     }
 
-    @FXML
-    public void initialize() {
+    // ============================================================
+    // VISTA (armada en código; se precarga al iniciar el Shell)
+    // ============================================================
+    /** Arma la vista (tarjetas a la izquierda, resumen + detalle a la derecha, overlay) y la inicializa. */
+    public static Vistas.Vista<CocinaController> crearVista() {
+        CocinaController c = new CocinaController();
+
+        // top
+        Label titulo = new Label("Cocina");
+        titulo.getStyleClass().add("title");
+        c.btnRefrescar = new Button("Refrescar");
+        c.btnRefrescar.getStyleClass().add("btn-ghost");
+        HBox top = new HBox(8, titulo, espacio(), c.btnRefrescar);
+        top.setAlignment(Pos.CENTER_LEFT);
+
+        // IZQ: tarjetas (crece hasta 2 columnas, ~560 px)
+        c.grid = new TilePane(12, 12);
+        c.grid.setPrefColumns(2);
+        Label tituloIzq = new Label("Pedidos en cocina");
+        tituloIzq.setStyle("-fx-font-weight:600;");
+        ScrollPane scrollIzq = new ScrollPane(c.grid);
+        scrollIzq.setFitToWidth(true);
+        scrollIzq.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        scrollIzq.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        VBox.setVgrow(scrollIzq, Priority.ALWAYS);
+        VBox izq = new VBox(8, tituloIzq, scrollIzq);
+        izq.setMinWidth(272);
+        izq.setPrefWidth(300);
+        izq.setMaxWidth(560);
+
+        // DER: resumen
+        c.lblPedido = new Label();
+        c.lblPedido.setStyle("-fx-font-weight:700;");
+        c.lblEstado = new Label();
+        c.lblCliente = new Label();
+        c.lblCliente.setWrapText(true);
+        c.lblCliente.setMaxWidth(Double.MAX_VALUE);
+        c.lblFecPed = new Label();
+        c.lblFecEnt = new Label();
+        c.lblHorEnt = new Label();
+        GridPane datos = new GridPane();
+        datos.setHgap(12);
+        datos.setVgap(6);
+        datos.getColumnConstraints().setAll(
+                columnaResumen(26, 60, false), columnaResumen(24, 80, true),
+                columnaResumen(26, 60, false), columnaResumen(24, 80, true));
+        datos.add(new Label("Pedido:"), 0, 0);
+        datos.add(c.lblPedido, 1, 0);
+        datos.add(new Label("Estado:"), 2, 0);
+        datos.add(c.lblEstado, 3, 0);
+        datos.add(new Label("Cliente:"), 0, 1);
+        datos.add(c.lblCliente, 1, 1);
+        datos.add(new Label("Fecha pedido:"), 0, 2);
+        datos.add(c.lblFecPed, 1, 2);
+        datos.add(new Label("Fecha entrega:"), 2, 2);
+        datos.add(c.lblFecEnt, 3, 2);
+        datos.add(new Label("Hora entrega:"), 0, 3);
+        datos.add(c.lblHorEnt, 1, 3);
+
+        c.btnEnPrep = new Button("En preparación");
+        c.btnEnPrep.getStyleClass().add("btn-info");
+        c.btnServido = new Button("Servido");
+        c.btnServido.getStyleClass().add("btn-success");
+        c.lblTotalPedido = new Label();
+        c.lblTotalPedido.setStyle("-fx-font-weight:700;");
+        HBox acciones = new HBox(8, muted("Acciones:"), c.btnEnPrep, c.btnServido, espacio(),
+                muted("Total:"), c.lblTotalPedido);
+        acciones.setAlignment(Pos.CENTER_LEFT);
+
+        c.txtComentarios = new TextArea();
+        c.txtComentarios.setEditable(false);
+        c.txtComentarios.setWrapText(true);
+        c.txtComentarios.setPrefRowCount(3);
+        VBox resumen = tarjeta(10, datos, acciones, muted("Comentarios"), c.txtComentarios);
+
+        // DER: detalle (sólo 2 columnas)
+        c.colProd = new TableColumn<>("Producto");
+        c.colCant = new TableColumn<>("Cant.");
+        c.colCant.getStyleClass().add("align-center");
+        c.colCant.setPrefWidth(120);
+        c.tblDetalle = new TableView<>();
+        c.tblDetalle.setPlaceholder(new Label("Selecciona un pedido para ver su detalle."));
+        VBox.setVgrow(c.tblDetalle, Priority.ALWAYS);
+        Label tituloDetalle = new Label("Detalle");
+        tituloDetalle.setStyle("-fx-font-weight:600;");
+        VBox detalle = tarjeta(8, tituloDetalle, c.tblDetalle);
+        VBox.setVgrow(detalle, Priority.ALWAYS);
+
+        VBox contenidoDer = new VBox(12, resumen, detalle);
+        contenidoDer.setFillWidth(true);
+        ScrollPane der = new ScrollPane(contenidoDer);
+        der.setFitToWidth(true);
+        der.setHbarPolicy(ScrollPane.ScrollBarPolicy.NEVER);
+        der.setVbarPolicy(ScrollPane.ScrollBarPolicy.AS_NEEDED);
+        der.setMinWidth(320);
+
+        SplitPane split = new SplitPane(izq, der);
+        split.setDividerPositions(0.28);
+
+        VBox principal = new VBox(12, top, split);
+        principal.setFillWidth(true);
+        principal.setPadding(new Insets(16));
+
+        // overlay de carga
+        c.loader = new ProgressIndicator();
+        c.loader.setVisible(false);
+        c.loader.setMaxSize(80, 80);
+        Region velo = new Region();
+        velo.getStyleClass().add("overlay");
+        velo.visibleProperty().bind(c.loader.visibleProperty());
+        StackPane overlay = new StackPane(velo, c.loader);
+        overlay.setPickOnBounds(false);
+
+        StackPane root = new StackPane(principal, overlay);
+        c.initialize();
+        return new Vistas.Vista<>(root, c);
+    }
+
+    private static ColumnConstraints columnaResumen(double porcentaje, double min, boolean crece) {
+        ColumnConstraints cc = new ColumnConstraints();
+        cc.setPercentWidth(porcentaje);
+        cc.setMinWidth(min);
+        if (crece) cc.setHgrow(Priority.ALWAYS);
+        return cc;
+    }
+
+    private static Pane espacio() {
+        Pane p = new Pane();
+        HBox.setHgrow(p, Priority.ALWAYS);
+        return p;
+    }
+
+    private static Label muted(String texto) {
+        Label l = new Label(texto);
+        l.getStyleClass().add("label-muted");
+        return l;
+    }
+
+    private static VBox tarjeta(double espacio, Node... hijos) {
+        VBox v = new VBox(espacio, hijos);
+        v.getStyleClass().add("card");
+        v.setPadding(new Insets(12));
+        return v;
+    }
+
+    private void initialize() {
         // 1. CONFIGURAR TABLA (esto era lo que faltaba)
-        colProd.setCellValueFactory(new PropertyValueFactory<>("producto"));
-        colCant.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
+        colProd.setCellValueFactory(c -> c.getValue().productoProperty());
+        colCant.setCellValueFactory(c -> c.getValue().cantidadProperty());
         tblDetalle.getColumns().setAll(colProd, colCant);
         tblDetalle.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
@@ -83,11 +235,9 @@ public class CocinaController {
     }
 
     // ============================================================
-    // ACCIONES DESDE FXML
+    // ACCIONES
     // ============================================================
-    @FXML private void toEnPreparacion(){ cambiarEstado("EN_PREPARACION"); }
-    @FXML private void toServido(){       cambiarEstado("SERVIDO"); }
-    @FXML public void refrescar(){ cargarPedidos(); }
+    public void refrescar(){ cargarPedidos(); }
 
     // ============================================================
     // CARGAR PEDIDOS (los que están en cocina o en preparación)
@@ -277,6 +427,7 @@ public class CocinaController {
             }
         };
         patchTask.setOnSucceeded(e -> {
+            MetricasCocina.get().registrar(id, nuevo);
             info("Pedido " + id + " → " + nuevo);
             refrescar();
         });
@@ -313,9 +464,9 @@ public class CocinaController {
         lblEstado.getStyleClass().removeIf(cn -> cn.startsWith("badge--"));
         lblEstado.getStyleClass().addAll("badge", cssBadgeFor(est));
         lblCliente.setText(cliente.isBlank()? "—" : cliente);
-        lblFecPed.setText(fechaBonita(s(m.get("fecha_pedido"))));
-        lblFecEnt.setText(fechaBonita(s(m.get("fecha_entrega"))));
-        lblHorEnt.setText(horaBonita(s(m.get("hora_entrega"))));
+        lblFecPed.setText(Fechas.diaMes(Fechas.epochMs(s(m.get("fecha_pedido")))));
+        lblFecEnt.setText(Fechas.diaMes(Fechas.fecha(s(m.get("fecha_entrega")))));
+        lblHorEnt.setText(Fechas.hhmm(Fechas.hora(s(m.get("hora_entrega")))));
         txtComentarios.setText(s(m.get("comentarios")));
         lblTotalPedido.setText(money(parseBD(m.get("total"))));
     }
@@ -330,6 +481,26 @@ public class CocinaController {
         return null;
     }
 
+    // ============================================================
+    // CICLO DE VIDA
+    // ============================================================
+    @Override
+    public void onHide() {
+        // oculta: no seguir leyendo en segundo plano
+        ocultaDesde = System.currentTimeMillis();
+        if (loadPedidosTask != null && loadPedidosTask.isRunning()) {
+            cancelar(loadPedidosTask);
+            ocultaDesde = 1; // quedó a medias: recargar al volver
+            setLoading(false);
+        }
+    }
+
+    @Override
+    public void onShow() {
+        if (CicloVida.vencida(ocultaDesde)) refrescar();
+        ocultaDesde = 0;
+    }
+
     private void setLoading(boolean v){
         if (!Platform.isFxApplicationThread()) {
             Platform.runLater(() -> setLoading(v));
@@ -360,20 +531,6 @@ public class CocinaController {
         if (v==null) v = BigDecimal.ZERO;
         return "S/ " + v.setScale(2, RoundingMode.HALF_UP).toPlainString();
     }
-    private static String fechaBonita(String iso){
-        if (iso==null||iso.isBlank()) return "—";
-        String s = iso;
-        int t = s.indexOf('T'); if (t>0) s = s.substring(0,t);
-        if (s.length()<10) return s;
-        String dd = s.substring(8,10);
-        int m = 1; try { m = Integer.parseInt(s.substring(5,7)); } catch(Exception ignored){}
-        String[] MES = {"ene","feb","mar","abr","may","jun","jul","ago","sep","oct","nov","dic"};
-        return dd + " " + MES[Math.max(1,Math.min(12,m))-1];
-    }
-    private static String horaBonita(String time){
-        if (time==null||time.isBlank()) return "—";
-        return time.length()>=5? time.substring(0,5) : time;
-    }
 
     private void showError(String m){
         if (!Platform.isFxApplicationThread()) { Platform.runLater(() -> showError(m)); return; }
@@ -3,7 +3,6 @@ package com.mycompany.pasteleria.desktop.controller;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.text.Normalizer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -13,6 +12,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.util.Textos;
 
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -28,7 +29,7 @@ import javafx.scene.layout.StackPane;
  * Dashboard simple: lee TODOS los pedidos (solo campo estado)
  * y los cuenta en memoria. No usa GROUP BY para evitar el 400.
  */
-public class DashboardController {
+public class DashboardController implements CicloVida {
 
     // ====== UI (10 estados fijos) ======
     @FXML private Label lblEnRevision;
@@ -55,6 +56,9 @@ public class DashboardController {
     // para no traer infinito
     private static final int MAX_ROWS = 2000;
 
+    private Task<List<Map<String, Object>>> cargaTask;
+    private long ocultaDesde = 0;
+
     @FXML
     public void initialize() {
         if (btnRefrescar != null) {
@@ -74,6 +78,7 @@ public class DashboardController {
                 + "&order=estado.asc"
                 + "&limit=" + MAX_ROWS;
 
+        if (cargaTask != null && cargaTask.isRunning()) cargaTask.cancel(true);
         Task<List<Map<String, Object>>> t = new Task<>() {
             @Override
             protected List<Map<String, Object>> call() throws Exception {
@@ -99,6 +104,7 @@ public class DashboardController {
             showError("No se pudo cargar estados de pedidos.\n" + msg);
         });
 
+        cargaTask = t;
         new Thread(t, "dash-estados-pedidos").start();
     }
 
@@ -139,6 +145,24 @@ public class DashboardController {
         lblNoEncontrado.setText(   String.valueOf(counts.get("NO_ENCONTRADO")) );
     }
 
+    // ====== ciclo de vida ======
+    @Override
+    public void onHide() {
+        // oculta: no seguir leyendo en segundo plano
+        ocultaDesde = System.currentTimeMillis();
+        if (cargaTask != null && cargaTask.isRunning()) {
+            cargaTask.cancel(true);
+            ocultaDesde = 1; // quedó a medias: recargar al volver
+            setLoading(false);
+        }
+    }
+
+    @Override
+    public void onShow() {
+        if (CicloVida.vencida(ocultaDesde)) cargar();
+        ocultaDesde = 0;
+    }
+
     // ====== helpers ======
     private void setLoading(boolean v) {
         if (!Platform.isFxApplicationThread()) {
@@ -156,8 +180,7 @@ public class DashboardController {
     /** Normaliza a MAYÚSCULAS_SIN_TILDES_Y_CON_GUIONES_BAJOS */
     private static String normalizar(String s) {
         if (s == null) return "SIN_ESTADO";
-        String n = Normalizer.normalize(s, Normalizer.Form.NFD)
-                .replaceAll("\\p{M}", "");              // sin tildes
+        String n = Textos.sinTildes(s);                 // sin tildes
         n = n.toUpperCase(Locale.ROOT);                 // mayúsculas
         n = n.replace(' ', '_').replace('-', '_');      // espacios y guiones
         n = n.replaceAll("_+", "_");                    // evitar __
@@ -7,12 +7,15 @@ import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.model.ImagenProducto;
 import com.mycompany.pasteleria.desktop.model.Producto;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.ImageCache;
+import com.mycompany.pasteleria.desktop.service.Miniaturas;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.image.ImageView;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -24,12 +27,14 @@ public class ImagenesProductoController {
 
   @FXML private Label lblTitulo;
   @FXML private TableView<ImagenProducto> tbl;
-  @FXML private TableColumn<ImagenProducto, String> colOrden, colUrl;
+  @FXML private TableColumn<ImagenProducto, String> colOrden, colUrl, colMini;
+  @FXML private ImageView imgDetalle;
   @FXML private TextField txtUrl;
   @FXML private ProgressIndicator loader;
 
   private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
   private final ObjectMapper om = new ObjectMapper();
+  private final ImageCache imagenes = ImageCache.get();
 
   private Producto producto;
   private List<ImagenProducto> cache = new ArrayList<>();
@@ -42,9 +47,33 @@ public class ImagenesProductoController {
 
   @FXML
   public void initialize() {
-    colOrden.setCellValueFactory(ip -> new javafx.beans.property.SimpleStringProperty(
+    colOrden.setCellValueFactory(ip -> ValorFijo.de(
         String.valueOf(ip.getValue().orden == null ? 0 : ip.getValue().orden)));
-    colUrl.setCellValueFactory(new PropertyValueFactory<>("url"));
+    colUrl.setCellValueFactory(ip -> ValorFijo.de(ip.getValue().url));
+
+    // miniatura 48px (generada una vez y servida desde la caché)
+    colMini.setCellValueFactory(ip -> ValorFijo.de(ip.getValue().url));
+    colMini.setCellFactory(col -> new TableCell<>() {
+      private final ImageView iv = new ImageView();
+      {
+        iv.setFitWidth(Miniaturas.Tamano.TABLE.lado);
+        iv.setFitHeight(Miniaturas.Tamano.TABLE.lado);
+        iv.setPreserveRatio(true);
+      }
+      @Override protected void updateItem(String url, boolean empty) {
+        super.updateItem(url, empty);
+        if (empty || url == null || url.isBlank()) { setGraphic(null); return; }
+        imagenes.cargarEn(iv, url, Miniaturas.Tamano.TABLE);
+        setGraphic(iv);
+      }
+    });
+
+    // vista previa en tamaño detalle
+    tbl.getSelectionModel().selectedItemProperty().addListener((o, old, sel) -> {
+      if (imgDetalle == null) return;
+      if (sel == null || sel.url == null || sel.url.isBlank()) imgDetalle.setImage(null);
+      else imagenes.cargarEn(imgDetalle, sel.url, Miniaturas.Tamano.DETAIL);
+    });
   }
 
   private void cargar() {
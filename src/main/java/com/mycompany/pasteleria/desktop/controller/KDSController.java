@@ -6,6 +6,11 @@ import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.model.DetallePedido;
 import com.mycompany.pasteleria.desktop.model.Pedido;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.MetricasCocina;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.RelojCocina;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
@@ -19,10 +24,6 @@ import javafx.scene.layout.VBox;
 import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
-import java.time.OffsetDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.stream.Collectors;
@@ -31,7 +32,7 @@ import java.util.stream.Collectors;
  * KDS (tarjetas) no rompe tu CocinaController (tablas).
  * Muestra pedidos en estados: COCINA, COCINANDO, opcionalmente COCINADO si filtras "TODOS".
  */
-public class KDSController {
+public class KDSController implements CicloVida {
 
   // UI
   @FXML private ComboBox<String> cbFiltro;
@@ -39,15 +40,32 @@ public class KDSController {
   @FXML private Button btnRefrescar;
   @FXML private TilePane grid;
   @FXML private ProgressIndicator loader;
+  @FXML private Label lblMetKds, lblMetCocina;
 
   // Estado
   private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
-  private final ObjectMapper om = new ObjectMapper();
+  private final ObjectMapper om = Json.MAPPER;
   private volatile boolean destroyed = false;
 
   // AutoRefresh
   private ScheduledExecutorService scheduler;
   private ScheduledFuture<?> autoTask;
+  private long ocultaDesde = 0;
+  private Task<List<Pedido>> loadTask;
+
+  // Reloj compartido: contadores de tarjetas y tira de métricas, una vez por segundo
+  private static final long AVISO_MS = 10 * 60_000L;   // >= 10 min: ámbar
+  private static final long TARDE_MS = 20 * 60_000L;   // >= 20 min: rojo
+  private final RelojCocina.Oyente oyenteReloj = this::tick;
+  private final List<TimerTarjeta> timers = new ArrayList<>();
+
+  // Métricas: sondeo cada 15 s (hilo del scheduler), tira repintada con el reloj
+  private static final MetricasCocina.Estacion[] ESTACIONES = MetricasCocina.Estacion.values(); // values() clona
+  private final MetricasCocina metricas = MetricasCocina.get();
+  private ScheduledFuture<?> metricasTask;
+  private final MetricasCocina.Resumen[] resumen = { new MetricasCocina.Resumen(), new MetricasCocina.Resumen() };
+  private final MetricasCocina.Resumen[] mostrado = { new MetricasCocina.Resumen(), new MetricasCocina.Resumen() };
+  private final boolean[] pintado = new boolean[2];
 
   // Cache para minimizar parpadeos
   private Map<Integer, Node> cardById = new HashMap<>();
@@ -68,6 +86,9 @@ public class KDSController {
       return t;
     });
 
+    iniciarMetricas();
+    RelojCocina.get().agregar(oyenteReloj);
+
     refrescar();
   }
 
@@ -87,6 +108,55 @@ public class KDSController {
     }
   }
 
+  /* =================== Métricas =================== */
+
+  private void iniciarMetricas() {
+    if (metricasTask == null || metricasTask.isCancelled()) {
+      metricasTask = scheduler.scheduleWithFixedDelay(() -> {
+        try {
+          metricas.sondear(api);
+        } catch (Exception ignore) {
+          // sin red: la tira sigue con lo último observado
+        }
+      }, 0, 15, TimeUnit.SECONDS);
+    }
+  }
+
+  private void detenerMetricas() {
+    if (metricasTask != null) { metricasTask.cancel(true); metricasTask = null; }
+  }
+
+  private void tick(long ahora) {
+    for (int i = 0; i < timers.size(); i++) timers.get(i).pintar(ahora);
+    pintarMetricas(ahora);
+  }
+
+  /** Resumen en objetos reutilizados; el texto sólo se arma si cambió algún valor. */
+  private void pintarMetricas(long ahora) {
+    for (int k = 0; k < ESTACIONES.length; k++) {
+      metricas.resumen(ESTACIONES[k], ahora, resumen[k]);
+      if (pintado[k] && !resumen[k].distinto(mostrado[k])) continue;
+      mostrado[k].copiarDe(resumen[k]);
+      pintado[k] = true;
+      Label l = (k == 0) ? lblMetKds : lblMetCocina;
+      if (l != null) l.setText(textoMetricas(ESTACIONES[k] == MetricasCocina.Estacion.KDS ? "KDS" : "Cocina", resumen[k]));
+    }
+  }
+
+  private static String textoMetricas(String estacion, MetricasCocina.Resumen r) {
+    return estacion + ": cola " + r.enCola
+        + " · en preparación " + r.enPreparacion
+        + " · p50 " + mmss(r.p50Ms)
+        + " · p90 " + mmss(r.p90Ms)
+        + " · " + r.listosUltimaHora + " listos/h";
+  }
+
+  private static String mmss(long ms) {
+    if (ms < 0) return "—";
+    long s = ms / 1000;
+    return String.format("%02d:%02d", s / 60, s % 60);
+  }
+
   private void loadPedidosAsync() {
     setLoading(true);
 
@@ -110,6 +180,7 @@ public class KDSController {
         + "&order=fecha_pedido.asc"
         + "&limit=48";
 
+    if (loadTask != null && loadTask.isRunning()) loadTask.cancel(true);
     Task<List<Pedido>> task = new Task<>() {
       @Override protected List<Pedido> call() throws Exception {
         var resp = api.getResp(path);
@@ -132,6 +203,7 @@ public class KDSController {
           (task.getException() != null ? task.getException().getMessage() : ""));
     });
 
+    loadTask = task;
     new Thread(task, "kds-load").start();
   }
 
@@ -139,6 +211,7 @@ public class KDSController {
     // Mantener orden pero reusar nodos si ya existen por id
     Map<Integer, Node> next = new HashMap<>();
     grid.getChildren().clear();
+    timers.clear();
 
     for (Pedido p : pedidos) {
       int id = Optional.ofNullable(p.id_pedido).orElse(-1);
@@ -150,8 +223,10 @@ public class KDSController {
       }
       next.put(id, card);
       grid.getChildren().add(card);
+      timers.add((TimerTarjeta) card.getProperties().get("timer"));
     }
     cardById = next;
+    tick(System.currentTimeMillis());
   }
 
   private Node buildCard(Pedido p) {
@@ -164,8 +239,10 @@ public class KDSController {
     Label lblNro = new Label("Pedido #" + safe(p.id_pedido));
     lblNro.setStyle("-fx-font-weight:600;");
 
-    Label lblTimer = new Label(elapsedFrom(p.fecha_pedido));
+    Label lblTimer = new Label("—");
     lblTimer.getStyleClass().add("label-muted");
+    TimerTarjeta timer = new TimerTarjeta(lblTimer);
+    timer.setFecha(p.fecha_pedido);
     HBox spacer = new HBox(); HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
 
     // Estado badge
@@ -199,7 +276,7 @@ public class KDSController {
 
     // Guardar referencias en propiedades del nodo para updates
     card.getProperties().put("id", p.id_pedido);
-    card.getProperties().put("lblTimer", lblTimer);
+    card.getProperties().put("timer", timer);
     card.getProperties().put("lblEstado", lblEstado);
     card.getProperties().put("lblResumen", lblResumen);
     card.getProperties().put("lblNotas", lblNotas);
@@ -209,12 +286,12 @@ public class KDSController {
   }
 
   private void updateCard(Node card, Pedido p) {
-    Label lblTimer = (Label) card.getProperties().get("lblTimer");
+    TimerTarjeta timer = (TimerTarjeta) card.getProperties().get("timer");
     Label lblEstado = (Label) card.getProperties().get("lblEstado");
     Label lblResumen = (Label) card.getProperties().get("lblResumen");
     Label lblNotas = (Label) card.getProperties().get("lblNotas");
 
-    if (lblTimer != null) lblTimer.setText(elapsedFrom(p.fecha_pedido));
+    if (timer != null) timer.setFecha(p.fecha_pedido); // ya viene en epoch ms (Json.EpochMs)
 
     if (lblEstado != null) {
       lblEstado.setText(mapEstadoUi(p.estado));
@@ -239,6 +316,7 @@ public class KDSController {
       }
     };
     t.setOnSucceeded(e -> {
+      metricas.registrar(idPedido, nuevo);
       info("Estado actualizado a " + nuevo);
       refrescar();
     });
@@ -249,6 +327,51 @@ public class KDSController {
     new Thread(t, "kds-patch").start();
   }
 
+  /**
+   * Contador de una tarjeta: hora del pedido ya parseada y último segundo/nivel pintados,
+   * para tocar el Label sólo cuando su texto o su color cambian.
+   */
+  private static final class TimerTarjeta {
+    private final Label lbl;
+    private long desdeMs = Fechas.SIN_FECHA;
+    private long segPintado = -1;
+    private int nivel = -1;
+
+    TimerTarjeta(Label lbl) { this.lbl = lbl; }
+
+    void setFecha(long epochMs) {
+      if (epochMs == desdeMs) return;
+      desdeMs = epochMs;
+      segPintado = -1;
+    }
+
+    void pintar(long ahora) {
+      if (desdeMs == Fechas.SIN_FECHA) {
+        if (segPintado != -2) { lbl.setText("—"); segPintado = -2; }
+        return;
+      }
+      long ms = Math.max(0, ahora - desdeMs);
+      long seg = ms / 1000;
+      if (seg != segPintado) {
+        segPintado = seg;
+        lbl.setText(texto(seg));
+      }
+      int n = ms >= TARDE_MS ? 2 : ms >= AVISO_MS ? 1 : 0;
+      if (n != nivel) {
+        nivel = n;
+        lbl.getStyleClass().removeAll("kds-timer--aviso", "kds-timer--tarde");
+        if (n == 1) lbl.getStyleClass().add("kds-timer--aviso");
+        if (n == 2) lbl.getStyleClass().add("kds-timer--tarde");
+      }
+    }
+
+    /** "mm:ss min" sin Formatter (se llama cada segundo por tarjeta). */
+    private static String texto(long seg) {
+      long mm = seg / 60, ss = seg % 60;
+      return (mm < 10 ? "0" : "") + mm + (ss < 10 ? ":0" : ":") + ss + " min";
+    }
+  }
+
   /* =================== Helpers =================== */
 
   private void setLoading(boolean v){
@@ -263,27 +386,6 @@ public class KDSController {
   private static String enc(String x){ return URLEncoder.encode(x, StandardCharsets.UTF_8); }
   private static String safe(Object o){ return o==null? "—" : String.valueOf(o); }
 
-  private String elapsedFrom(String fechaPedidoIso) {
-    try {
-      if (fechaPedidoIso == null || fechaPedidoIso.isBlank()) return "—";
-      // Acepta '2025-10-23T10:20:00+00:00' o sin zona
-      OffsetDateTime odt = OffsetDateTime.parse(normalizeIso(fechaPedidoIso));
-      long secs = Duration.between(odt, OffsetDateTime.now(ZoneId.systemDefault())).getSeconds();
-      if (secs < 0) secs = 0;
-      long mm = secs / 60;
-      long ss = secs % 60;
-      return String.format("%02d:%02d min", mm, ss);
-    } catch (Exception e) {
-      return "—";
-    }
-  }
-
-  private String normalizeIso(String s) {
-    // Si viene “2025-10-23 10:20:00”, lo pasamos a “2025-10-23T10:20:00Z” (asume UTC)
-    if (s.contains("T")) return s;
-    return s.trim().replace(' ', 'T') + "Z";
-  }
-
   private String resumenProductos(Pedido p) {
     // Traer 1–2 productos rápido (sin bloquear mucho). Si quieres exactitud, podríamos cachear por pedido.
     try {
@@ -305,8 +407,8 @@ public class KDSController {
 
   private String notitas(Pedido p) {
     // Si tu esquema tiene notas en pedido o detalle, aquí las pones. Por ahora placeholder:
-    String fecha = safe(p.fecha_entrega);
-    String hora  = safe(p.hora_entrega);
+    String fecha = Fechas.diaMes(p.fecha_entrega);
+    String hora  = Fechas.hhmm(p.hora_entrega);
     if (!fecha.equals("—") || !hora.equals("—")) {
       return "Entrega: " + fecha + (hora.equals("—") ? "" : (" " + hora));
     }
@@ -343,10 +445,39 @@ public class KDSController {
   }
 
   /* === Ciclo de vida === */
+  @Override
+  public void onHide() {
+    // oculto: sin polling ni lecturas en curso
+    ocultaDesde = System.currentTimeMillis();
+    if (autoTask != null) { autoTask.cancel(true); autoTask = null; }
+    detenerMetricas();
+    RelojCocina.get().quitar(oyenteReloj);
+    if (loadTask != null && loadTask.isRunning()) {
+      loadTask.cancel(true);
+      ocultaDesde = 1; // quedó a medias: recargar al volver
+      setLoading(false);
+    }
+  }
+
+  @Override
+  public void onShow() {
+    if (destroyed) return;
+    if (CicloVida.vencida(ocultaDesde)) refrescar();
+    ocultaDesde = 0;
+    if (chkAutoRefresh.isSelected() && autoTask == null) toggleAutoRefresh(true);
+    iniciarMetricas();
+    RelojCocina.get().agregar(oyenteReloj);
+  }
+
+  @Override
+  public void onDispose() { onClose(); }
+
   @FXML
   public void onClose() {
     destroyed = true;
     if (autoTask != null) autoTask.cancel(true);
+    detenerMetricas();
+    RelojCocina.get().quitar(oyenteReloj);
     if (scheduler != null) scheduler.shutdownNow();
   }
 }
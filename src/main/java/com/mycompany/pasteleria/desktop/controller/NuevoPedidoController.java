@@ -2,10 +2,18 @@
 package com.mycompany.pasteleria.desktop.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.pasteleria.desktop.model.Producto;
+import com.mycompany.pasteleria.desktop.service.CatalogoProductos;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
+import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.Priority;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -20,11 +28,15 @@ public class NuevoPedidoController {
   @FXML private Label lblTotal;
 
   private final List<Row> items = new ArrayList<>();
+  private final CatalogoProductos catalogo = CatalogoProductos.get();
+
+  private static final int MAX_SUGERENCIAS = 12;
 
   public static class Row {
     private final String producto;
     private final String cantidad;
     private final String precio; // unitario
+    private final ValorFijo.Celdas celdas = new ValorFijo.Celdas(4);
     public Row(String p, String c, String pr){ this.producto=p; this.cantidad=c; this.precio=pr; }
     public String getProducto(){ return producto; }
     public String getCantidad(){ return cantidad; }
@@ -37,34 +49,102 @@ public class NuevoPedidoController {
       } catch(Exception e){ return money(BigDecimal.ZERO); }
     }
     private static String money(BigDecimal v){ return "S/ " + v.setScale(2, RoundingMode.HALF_UP).toPlainString(); }
+
+    public ObservableValue<String> productoProperty(){ return celdas.get(0, producto); }
+    public ObservableValue<String> cantidadProperty(){ return celdas.get(1, cantidad); }
+    public ObservableValue<String> precioProperty(){ return celdas.get(2, precio); }
+    public ObservableValue<String> subProperty(){ return celdas.get(3, this::getSub); }
   }
 
   @FXML
   public void initialize() {
-    colProd.setCellValueFactory(new PropertyValueFactory<>("producto"));
-    colCant.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
-    colPrecio.setCellValueFactory(new PropertyValueFactory<>("precio"));
-    colSub.setCellValueFactory(new PropertyValueFactory<>("sub"));
+    colProd.setCellValueFactory(c -> c.getValue().productoProperty());
+    colCant.setCellValueFactory(c -> c.getValue().cantidadProperty());
+    colPrecio.setCellValueFactory(c -> c.getValue().precioProperty());
+    colSub.setCellValueFactory(c -> c.getValue().subProperty());
 
     tblItems.setItems(FXCollections.observableArrayList(items));
     recalcTotal();
+
+    // el catálogo se carga una vez en segundo plano; la búsqueda luego es en memoria
+    catalogo.iniciar();
   }
 
   @FXML
   public void addItem() {
-    TextInputDialog d = new TextInputDialog();
+    Dialog<ButtonType> d = new Dialog<>();
     d.setTitle("Añadir ítem");
-    d.setHeaderText(null);
-    d.setContentText("Formato: producto|cantidad|precio_unitario");
-    d.getEditor().setPromptText("Torta Selva Negra|1|45.00");
+    d.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
+
+    TextField txtProd = new TextField();
+    txtProd.setPromptText(catalogo.isCargado() ? "Escribe para buscar (ej. selva)" : "Cargando catálogo...");
+    ListView<Producto> lst = new ListView<>();
+    lst.setPrefHeight(220);
+    lst.setCellFactory(lv -> new ListCell<>() {
+      @Override protected void updateItem(Producto p, boolean empty) {
+        super.updateItem(p, empty);
+        setText((empty || p == null) ? null
+            : p.getNombreOrDash() + "  —  S/ " + p.getPrecioBD().setScale(2, RoundingMode.HALF_UP).toPlainString());
+      }
+    });
+    TextField txtCant = new TextField("1");
+    TextField txtPrecio = new TextField();
+    txtPrecio.setPromptText("45.00");
+
+    // type-ahead: cada tecla filtra el índice en memoria (sin HTTP)
+    txtProd.textProperty().addListener((o, old, v) ->
+        lst.getItems().setAll(catalogo.buscar(v, null, true, MAX_SUGERENCIAS)));
+    lst.getSelectionModel().selectedItemProperty().addListener((o, old, p) -> {
+      if (p != null) txtPrecio.setText(p.getPrecioBD().setScale(2, RoundingMode.HALF_UP).toPlainString());
+    });
+    txtProd.setOnKeyPressed(ev -> {
+      if (ev.getCode() == KeyCode.DOWN && !lst.getItems().isEmpty()) {
+        lst.requestFocus();
+        lst.getSelectionModel().selectFirst();
+      }
+    });
+    txtProd.setOnAction(ev -> {
+      if (!lst.getItems().isEmpty()) lst.getSelectionModel().selectFirst();
+      txtCant.requestFocus();
+      txtCant.selectAll();
+    });
+    lst.setOnMouseClicked(ev -> { if (ev.getClickCount() == 2) { txtCant.requestFocus(); txtCant.selectAll(); } });
+    lst.setOnKeyPressed(ev -> { if (ev.getCode() == KeyCode.ENTER) { txtCant.requestFocus(); txtCant.selectAll(); } });
+
+    GridPane gp = new GridPane();
+    gp.setHgap(10);
+    gp.setVgap(8);
+    gp.setPadding(new Insets(10));
+    gp.add(new Label("Producto:"), 0, 0);
+    gp.add(txtProd, 1, 0);
+    gp.add(lst, 1, 1);
+    gp.add(new Label("Cantidad:"), 0, 2);
+    gp.add(txtCant, 1, 2);
+    gp.add(new Label("Precio unit.:"), 0, 3);
+    gp.add(txtPrecio, 1, 3);
+    GridPane.setHgrow(txtProd, Priority.ALWAYS);
+    GridPane.setHgrow(lst, Priority.ALWAYS);
+    d.getDialogPane().setContent(gp);
+    lst.getItems().setAll(catalogo.buscar("", null, true, MAX_SUGERENCIAS));
+    Platform.runLater(txtProd::requestFocus);
+
     var res = d.showAndWait();
-    if (res.isEmpty()) return;
-    String[] parts = res.get().split("\\|");
-    if (parts.length < 3) {
-      new Alert(Alert.AlertType.ERROR, "Formato inválido").showAndWait();
+    if (res.isEmpty() || res.get() != ButtonType.OK) return;
+
+    Producto sel = lst.getSelectionModel().getSelectedItem();
+    String producto = (sel != null) ? sel.getNombreOrDash() : txtProd.getText().trim();
+    String cantidad = txtCant.getText() == null ? "" : txtCant.getText().trim();
+    String precio = txtPrecio.getText() == null ? "" : txtPrecio.getText().trim();
+    if (producto.isBlank() || parseInt(cantidad) == null || parseInt(cantidad) <= 0) {
+      new Alert(Alert.AlertType.ERROR, "Producto y cantidad (entero > 0) son obligatorios").showAndWait();
+      return;
+    }
+    try { new BigDecimal(precio.replace(",", ".")); }
+    catch (Exception e) {
+      new Alert(Alert.AlertType.ERROR, "Precio inválido").showAndWait();
       return;
     }
-    items.add(new Row(parts[0].trim(), parts[1].trim(), parts[2].trim()));
+    items.add(new Row(producto, cantidad, precio));
     tblItems.getItems().setAll(items);
     recalcTotal();
   }
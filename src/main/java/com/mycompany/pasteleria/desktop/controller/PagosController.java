@@ -5,22 +5,33 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.DialogoExportacion;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import com.mycompany.pasteleria.desktop.service.ConciliacionPagos;
+import com.mycompany.pasteleria.desktop.service.Exportador;
+import com.mycompany.pasteleria.desktop.service.IndiceHuellasComprobantes;
+import com.mycompany.pasteleria.desktop.ui.VisorComprobante;
+import com.mycompany.pasteleria.desktop.util.Fechas;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.beans.value.ObservableValue;
+import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
 import javafx.scene.layout.Region;
-import javafx.scene.web.WebEngine;
-import javafx.scene.web.WebView;
+import javafx.scene.layout.VBox;
 
 import java.awt.Desktop;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.time.LocalDate;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,10 +43,12 @@ import java.util.stream.Collectors;
  *  - El panel derecho tiene "Monto comprobante" (TextField) para guardar en pagos.monto
  *  - Filtrado por pedidos.estado (por defecto EN_REVISION). Ignora pagos.estado_pago
  *  - Tras aprobar o marcar no válido, la fila desaparece (INNER JOIN al filtrar)
+ *  - Modo lote: selección múltiple, decisiones en cola local, avance automático
+ *    y un solo PATCH por estado (id_pedido=in.(...)) al confirmar
  * POR QUÉ:
  *  - Cumple UX pedida: datos reales del pedido y edición del monto de pago.
  * ============================================================ */
-public class PagosController {
+public class PagosController implements CicloVida {
 
   // ---------- UI ----------
   @FXML private TextField txtBuscar;
@@ -46,19 +59,25 @@ public class PagosController {
 
   @FXML private Label lblRango;
 
-  @FXML private WebView webComprobante;
-  @FXML private Label lblUrl, lblTotalPedido, lblDiferencia;
+  @FXML private VisorComprobante visorComprobante;
+  @FXML private Label lblUrl, lblTotalPedido, lblDiferencia, lblDuplicado;
   @FXML private TextField txtMontoComprobante;
 
   @FXML private Button btnBuscar, btnRefrescar, btnPrev, btnNext;
   @FXML private Button btnAprobar, btnPagoNoValido;
 
+  // modo lote
+  @FXML private ToggleButton tglLote;
+  @FXML private Label lblCola;
+  @FXML private Button btnConfirmarLote, btnDescartarLote;
+
   @FXML private ProgressIndicator loader;
   @FXML private Region shade;
 
   // ---------- Estado ----------
   private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
   private final ObjectMapper om = new ObjectMapper();
+  private final IndiceHuellasComprobantes huellas = IndiceHuellasComprobantes.get();
 
   private int limit = 20;
   private int offset = 0;
@@ -69,12 +88,17 @@ public class PagosController {
 
   private Task<List<Map<String,Object>>> consultaTask;
   private Task<Void> patchTask;
+  private long ocultaDesde = 0;
 
   private List<Map<String,Object>> ultimaRespuesta = List.of();
 
+  // cola local de decisiones del modo lote: id_pedido -> nuevo estado (orden de decisión)
+  private final Map<String,String> decisiones = new LinkedHashMap<>();
+
   // ---------- Fila de tabla (usa TOTAL de pedido, no pagos.monto) ----------
   public static class Row {
     private final String idPago, idPedido, totalPedido, metodo, estadoPedido, subido, url;
+    private final ValorFijo.Celdas celdas = new ValorFijo.Celdas(5);
     public Row(String idPago, String idPedido, String totalPedido,
                String metodo, String estadoPedido, String subido, String url) {
       this.idPago=idPago; this.idPedido=idPedido; this.totalPedido=totalPedido;
@@ -87,6 +111,13 @@ public class PagosController {
     public String getEstado(){ return estadoPedido; }
     public String getSubido(){ return subido; }
     public String getUrl(){ return url; }
+
+    // valores de celda cacheados (sin asignaciones al desplazar)
+    public ObservableValue<String> idPedidoProperty(){ return celdas.get(0, idPedido); }
+    public ObservableValue<String> montoProperty(){ return celdas.get(1, totalPedido); }
+    public ObservableValue<String> metodoProperty(){ return celdas.get(2, metodo); }
+    public ObservableValue<String> estadoProperty(){ return celdas.get(3, estadoPedido); }
+    public ObservableValue<String> subidoProperty(){ return celdas.get(4, subido); }
   }
 
   // ============================================================
@@ -108,11 +139,11 @@ public class PagosController {
     });
 
     // Columnas → propiedades de Row
-    colIdPedido.setCellValueFactory(new PropertyValueFactory<>("idPedido"));
-    colMetodo.setCellValueFactory(new PropertyValueFactory<>("metodo"));
-    colEstado.setCellValueFactory(new PropertyValueFactory<>("estado"));
-    colSubido.setCellValueFactory(new PropertyValueFactory<>("subido"));
-    colMonto.setCellValueFactory(new PropertyValueFactory<>("monto")); // ahora es pedidos.total mostrado
+    colIdPedido.setCellValueFactory(c -> c.getValue().idPedidoProperty());
+    colMetodo.setCellValueFactory(c -> c.getValue().metodoProperty());
+    colEstado.setCellValueFactory(c -> c.getValue().estadoProperty());
+    colSubido.setCellValueFactory(c -> c.getValue().subidoProperty());
+    colMonto.setCellValueFactory(c -> c.getValue().montoProperty()); // ahora es pedidos.total mostrado
 
     // Alineación visual y "badges" por estado (usa CSS .badge y variantes)
     colMonto.setStyle("-fx-alignment: CENTER-RIGHT;");
@@ -138,6 +169,22 @@ public class PagosController {
       }
     });
 
+    // Filas ya decididas en el lote (verde/rojo) hasta confirmar
+    tbl.setRowFactory(tv -> new TableRow<>() {
+      @Override protected void updateItem(Row r, boolean empty) {
+        super.updateItem(r, empty);
+        getStyleClass().removeAll("fila-lote-aprobado", "fila-lote-rechazado");
+        if (empty || r == null) return;
+        String d = decisiones.get(r.getIdPedido());
+        if ("APROBADO".equals(d))            getStyleClass().add("fila-lote-aprobado");
+        else if ("PAGO_NO_VALIDO".equals(d)) getStyleClass().add("fila-lote-rechazado");
+      }
+    });
+
+    // Modo lote
+    if (tglLote != null) tglLote.selectedProperty().addListener((o, a, on) -> cambiarModoLote(on));
+    cambiarModoLote(false);
+
     // Forzar exactamente 5 columnas (evita columnas “fantasma”)
     tbl.getColumns().setAll(colIdPedido, colMonto, colMetodo, colEstado, colSubido);
 
@@ -150,6 +197,8 @@ public class PagosController {
         }
       }
       pintarDetalle(pagoMap);
+      revisarDuplicado(newV, pagoMap);
+      precargarVecinos();
       actualizarBotones();
     });
       // 1) Política compatible con todas las versiones
@@ -261,6 +310,7 @@ public class PagosController {
   @FXML public void pagoNoValido()  { accionEstadoDesdeSeleccion("PAGO_NO_VALIDO"); }
 
   private void accionEstadoDesdeSeleccion(String nuevo) {
+    if (enModoLote()) { decidirSeleccion(nuevo); return; }
     Row r = tbl.getSelectionModel().getSelectedItem();
     if (r == null) { alert("Selecciona un pago."); return; }
     cambiarEstadoPedido(r.getIdPedido(), nuevo);
@@ -292,6 +342,274 @@ public class PagosController {
     new Thread(patchTask,"pedidos-estado-patch").start();
   }
 
+  // ============================================================
+  // MODO LOTE (cola local + PATCH masivo)
+  // ============================================================
+  private boolean enModoLote() { return tglLote != null && tglLote.isSelected(); }
+
+  private void cambiarModoLote(boolean on) {
+    tbl.getSelectionModel().setSelectionMode(on ? SelectionMode.MULTIPLE : SelectionMode.SINGLE);
+    if (!on && !decisiones.isEmpty()) {
+      var ok = new Alert(Alert.AlertType.CONFIRMATION,
+          "Hay " + decisiones.size() + " decisiones sin confirmar. ¿Descartarlas?",
+          ButtonType.YES, ButtonType.NO).showAndWait();
+      if (ok.isEmpty() || ok.get() != ButtonType.YES) { tglLote.setSelected(true); return; }
+      decisiones.clear();
+      tbl.refresh();
+    }
+    for (Control c : new Control[]{ lblCola, btnConfirmarLote, btnDescartarLote }) {
+      if (c != null) { c.setVisible(on); c.setManaged(on); }
+    }
+    actualizarCola();
+  }
+
+  /** Anota la decisión para todas las filas seleccionadas y pasa a la siguiente pendiente. */
+  private void decidirSeleccion(String nuevo) {
+    var sel = new ArrayList<>(tbl.getSelectionModel().getSelectedIndices());
+    if (sel.isEmpty()) { alert("Selecciona uno o más pagos."); return; }
+    int ultimo = -1;
+    for (int i : sel) {
+      Row r = tbl.getItems().get(i);
+      if (r.getIdPedido() == null || r.getIdPedido().isBlank()) continue;
+      decisiones.remove(r.getIdPedido());          // re-decidir la mueve al final
+      decisiones.put(r.getIdPedido(), nuevo);
+      ultimo = Math.max(ultimo, i);
+    }
+    tbl.refresh();
+    actualizarCola();
+    avanzar(ultimo);
+  }
+
+  /** Selecciona la siguiente fila sin decisión (su comprobante ya está precargado). */
+  private void avanzar(int desde) {
+    var items = tbl.getItems();
+    for (int i = desde + 1; i < items.size(); i++) {
+      if (!decisiones.containsKey(items.get(i).getIdPedido())) {
+        tbl.getSelectionModel().clearAndSelect(i);
+        tbl.scrollTo(Math.max(0, i - 2));
+        return;
+      }
+    }
+    // página terminada: seguir con la siguiente (las decisiones se conservan por id_pedido)
+    if (offset + limit < total) paginaSiguiente();
+    else tbl.getSelectionModel().clearSelection();
+  }
+
+  @FXML
+  public void descartarLote() {
+    decisiones.clear();
+    tbl.refresh();
+    actualizarCola();
+  }
+
+  @FXML
+  public void confirmarLote() {
+    if (decisiones.isEmpty()) return;
+    // agrupar por estado: como máximo un PATCH por estado
+    Map<String, List<String>> porEstado = new LinkedHashMap<>();
+    decisiones.forEach((id, est) -> porEstado.computeIfAbsent(est, k -> new ArrayList<>()).add(id));
+    Map<String,String> enviadas = new LinkedHashMap<>(decisiones);
+
+    cancelar(patchTask);
+    setLoading(true);
+    patchTask = new Task<>() {
+      @Override protected Void call() throws Exception {
+        for (var e : porEstado.entrySet()) {
+          String ids = String.join(",", e.getValue());
+          String body = "{\"estado\":\"" + e.getKey() + "\"}";
+          var resp = api.patchJson("/pedidos?id_pedido=in.(" + ids + ")", body);
+          int code = resp.statusCode();
+          if (code != 200 && code != 204) {
+            throw new RuntimeException("Error HTTP " + code + " (" + e.getKey() + ")\n" + resp.body());
+          }
+          // lo ya aplicado sale de la cola aunque falle el siguiente grupo
+          Platform.runLater(() -> e.getValue().forEach(decisiones::remove));
+        }
+        return null;
+      }
+    };
+    patchTask.setOnSucceeded(ev -> {
+      long ap = enviadas.values().stream().filter("APROBADO"::equals).count();
+      if (lblCola != null) lblCola.setText("Lote aplicado: " + ap + " aprobados · " + (enviadas.size() - ap) + " no válidos");
+      offset = 0;
+      consultar();
+    });
+    patchTask.setOnFailed(ev -> {
+      setLoading(false);
+      tbl.refresh();
+      actualizarCola();
+      Throwable ex = Optional.ofNullable(patchTask.getException()).orElse(new RuntimeException("Error desconocido"));
+      showError("No se pudo aplicar el lote.\n" + ex.getMessage());
+    });
+    new Thread(patchTask, "pedidos-estado-lote").start();
+  }
+
+  private void actualizarCola() {
+    long ap = decisiones.values().stream().filter("APROBADO"::equals).count();
+    long no = decisiones.size() - ap;
+    if (lblCola != null) lblCola.setText("En cola: " + ap + " aprobados · " + no + " no válidos");
+    if (btnConfirmarLote != null) {
+      btnConfirmarLote.setText("Confirmar (" + decisiones.size() + ")");
+      btnConfirmarLote.setDisable(decisiones.isEmpty());
+    }
+    if (btnDescartarLote != null) btnDescartarLote.setDisable(decisiones.isEmpty());
+  }
+
+  // ============================================================
+  // EXPORTAR (mismos filtros que la tabla, todas las páginas)
+  // ============================================================
+  @FXML
+  public void exportar() {
+    boolean usarInner = estadoSeleccionado != null
+        && !estadoSeleccionado.isBlank()
+        && !"TODOS".equalsIgnoreCase(estadoSeleccionado);
+    StringBuilder filtros = new StringBuilder();
+    if (usarInner) filtros.append("&pedido.estado=eq.").append(enc(estadoSeleccionado));
+    String term = s(filtro).trim();
+    if (!term.isBlank()) {
+      if (term.chars().allMatch(Character::isDigit)) filtros.append("&id_pedido=eq.").append(term);
+      else filtros.append("&metodo=ilike.").append(enc("%"+term+"%"));
+    }
+    DialogoExportacion.exportar(
+        txtBuscar.getScene() != null ? txtBuscar.getScene().getWindow() : null,
+        api, "pagos", Exportador.pagos(filtros.toString(), usarInner)
+    );
+  }
+
+  // ============================================================
+  // CONCILIACIÓN DEL DÍA (pagos vs. total del pedido)
+  // ============================================================
+  @FXML
+  public void conciliarDia() {
+    ConciliacionPagos motor = new ConciliacionPagos();
+
+    Dialog<Void> d = new Dialog<>();
+    d.setTitle("Conciliar pagos del día");
+    d.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+    d.setResizable(true);
+
+    DatePicker dp = new DatePicker(LocalDate.now());
+    Button btnAnalizar = new Button("Analizar");
+    Button btnAprobarExactos = new Button("Aprobar exactos (0)");
+    btnAprobarExactos.getStyleClass().add("btn-success");
+    btnAprobarExactos.setDisable(true);
+    ProgressIndicator pi = new ProgressIndicator();
+    pi.setMaxSize(24, 24);
+    pi.setVisible(false);
+    Label lblResumen = new Label("—");
+    lblResumen.getStyleClass().add("label-muted");
+
+    TableView<ConciliacionPagos.Linea> tv = new TableView<>();
+    tv.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+    tv.setPlaceholder(new Label("Elige un día y pulsa Analizar."));
+    tv.getColumns().setAll(List.of(
+        colConc("N° Pedido", l -> String.valueOf(l.pago().idPedido())),
+        colConc("Método",    l -> l.pago().metodo()),
+        colConc("Monto",     l -> cent(l.pago().montoCent())),
+        colConc("Total",     l -> cent(l.pago().totalCent())),
+        colConc("Diferencia", l -> l.resultado() == ConciliacionPagos.Resultado.SIN_MONTO ? "—"
+            : (l.diferenciaCent() >= 0 ? "+" : "-") + cent(Math.abs(l.diferenciaCent())).replace("S/ ", "")),
+        colConc("Resultado", l -> l.resultado().name()),
+        colConc("Estado",    l -> l.pago().estadoPedido()),
+        colConc("Dup. de pago", l -> l.duplicadoDe() == 0 ? "" : String.valueOf(l.duplicadoDe()))
+    ));
+    tv.setPrefSize(820, 420);
+
+    final ConciliacionPagos.Informe[] informe = { null };
+    // análisis en curso: se cancela al cerrar el diálogo (la aprobación, en cambio, se deja terminar)
+    final Task<?>[] analisis = { null };
+    d.setOnHidden(ev -> cancelar(analisis[0]));
+
+    btnAnalizar.setOnAction(e -> {
+      LocalDate dia = dp.getValue() == null ? LocalDate.now() : dp.getValue();
+      btnAnalizar.setDisable(true);
+      btnAprobarExactos.setDisable(true);
+      pi.setVisible(true);
+      Task<ConciliacionPagos.Informe> t = new Task<>() {
+        @Override protected ConciliacionPagos.Informe call() throws Exception {
+          return motor.conciliar(dia, n -> updateMessage("Leídos " + n + " pagos..."));
+        }
+      };
+      analisis[0] = t;
+      lblResumen.textProperty().bind(t.messageProperty());
+      t.setOnSucceeded(ev -> {
+        lblResumen.textProperty().unbind();
+        pi.setVisible(false);
+        btnAnalizar.setDisable(false);
+        informe[0] = t.getValue();
+        var c = informe[0].conteo();
+        lblResumen.setText(informe[0].lineas().size() + " pagos · exactos " + c.get(ConciliacionPagos.Resultado.EXACTO)
+            + " · faltan " + c.get(ConciliacionPagos.Resultado.FALTA)
+            + " · exceden " + c.get(ConciliacionPagos.Resultado.EXCEDE)
+            + " · sin monto " + c.get(ConciliacionPagos.Resultado.SIN_MONTO)
+            + " · duplicados " + c.get(ConciliacionPagos.Resultado.DUPLICADO));
+        tv.setItems(FXCollections.observableArrayList(informe[0].lineas()));
+        int n = informe[0].pedidosExactosEnRevision().size();
+        btnAprobarExactos.setText("Aprobar exactos (" + n + ")");
+        btnAprobarExactos.setDisable(n == 0);
+      });
+      t.setOnFailed(ev -> {
+        lblResumen.textProperty().unbind();
+        pi.setVisible(false);
+        btnAnalizar.setDisable(false);
+        lblResumen.setText("—");
+        showError("No se pudo conciliar.\n" + (t.getException() != null ? t.getException().getMessage() : ""));
+      });
+      new Thread(t, "pagos-conciliacion").start();
+    });
+
+    btnAprobarExactos.setOnAction(e -> {
+      if (informe[0] == null) return;
+      List<Long> ids = informe[0].pedidosExactosEnRevision();
+      if (ids.isEmpty()) return;
+      var ok = new Alert(Alert.AlertType.CONFIRMATION,
+          "¿Aprobar " + ids.size() + " pedidos cuyo pago coincide exacto con el total?",
+          ButtonType.YES, ButtonType.NO).showAndWait();
+      if (ok.isEmpty() || ok.get() != ButtonType.YES) return;
+      btnAprobarExactos.setDisable(true);
+      pi.setVisible(true);
+      Task<Integer> t = new Task<>() {
+        @Override protected Integer call() throws Exception { return motor.aprobar(ids); }
+      };
+      t.setOnSucceeded(ev -> {
+        pi.setVisible(false);
+        lblResumen.setText("Aprobados " + t.getValue() + " pedidos. Vuelve a analizar para actualizar.");
+        btnAprobarExactos.setText("Aprobar exactos (0)");
+        consultar();
+      });
+      t.setOnFailed(ev -> {
+        pi.setVisible(false);
+        btnAprobarExactos.setDisable(false);
+        showError("No se pudo aprobar.\n" + (t.getException() != null ? t.getException().getMessage() : ""));
+      });
+      new Thread(t, "pagos-aprobar-exactos").start();
+    });
+
+    HBox top = new HBox(8, new Label("Día:"), dp, btnAnalizar, pi);
+    top.setAlignment(Pos.CENTER_LEFT);
+    Region sp = new Region();
+    HBox.setHgrow(sp, Priority.ALWAYS);
+    HBox bottom = new HBox(8, lblResumen, sp, btnAprobarExactos);
+    bottom.setAlignment(Pos.CENTER_LEFT);
+    VBox box = new VBox(10, top, tv, bottom);
+    box.setPadding(new Insets(10));
+    VBox.setVgrow(tv, Priority.ALWAYS);
+    d.getDialogPane().setContent(box);
+    d.showAndWait();
+  }
+
+  private static TableColumn<ConciliacionPagos.Linea, String> colConc(
+      String titulo, java.util.function.Function<ConciliacionPagos.Linea, String> f) {
+    TableColumn<ConciliacionPagos.Linea, String> c = new TableColumn<>(titulo);
+    c.setCellValueFactory(cd -> ValorFijo.de(f.apply(cd.getValue())));
+    return c;
+  }
+
+  private static String cent(long c) {
+    if (c == ConciliacionPagos.SIN) return "S/ —";
+    return money(BigDecimal.valueOf(c, 2));
+  }
+
   // ============================================================
   // CONSULTA (pagos + embed pedidos). INNER cuando hay filtro.
   // ============================================================
@@ -367,7 +685,7 @@ public class PagosController {
       String metodo    = s(String.valueOf(m.getOrDefault("metodo","")));
       String url       = s(String.valueOf(m.getOrDefault("comprobante_url","")));
       String fechaIso  = s(String.valueOf(m.getOrDefault("fecha_registro","")));
-      String subido    = fechaBonita(fechaIso);
+      String subido    = Fechas.fechaHora(Fechas.epochMs(fechaIso)); // hora local; ordena bien como texto
 
       String totalPedidoTxt = "S/ —";
       String estadoPedido = "—";
@@ -384,6 +702,12 @@ public class PagosController {
 
     tbl.setItems(FXCollections.observableArrayList(rows));
 
+    // indexar huellas de la página en segundo plano (pool acotado, no bloquea la UI)
+    for (var m : pagos) {
+      huellas.indexar(parseLong(String.valueOf(m.get("id_pago"))), parseLong(String.valueOf(m.get("id_pedido"))),
+          s(String.valueOf(m.getOrDefault("comprobante_url", ""))), centimos(m));
+    }
+
     int from = total==0? 0 : offset+1;
     int to = Math.min(offset+limit, Math.max(total, offset+rows.size()));
     if (lblRango != null) lblRango.setText("Mostrando " + from + "–" + to + " de " + total);
@@ -404,12 +728,8 @@ public class PagosController {
       if (po instanceof Map<?,?> p) totalPedido = getBigDecimal(p.get("total"));
     }
 
-    WebEngine eng = (webComprobante!=null)? webComprobante.getEngine() : null;
-    if (eng != null) {
-      if (url.isBlank())
-        eng.loadContent("<html><body style='font-family:sans-serif;color:#666;padding:16px'>Sin comprobante</body></html>");
-      else eng.load(url);
-    }
+    // visor ligero: imagen decodificada fuera del hilo FX (WebView sólo para HTML/PDF)
+    if (visorComprobante != null) visorComprobante.mostrar(url);
 
     if (lblUrl != null)          lblUrl.setText(url.isBlank()? "—" : url);
     if (lblTotalPedido != null)  lblTotalPedido.setText(totalPedido==null? "S/ —" : money(totalPedido));
@@ -429,12 +749,60 @@ public class PagosController {
     }
   }
 
+  /** Busca (fuera del hilo FX) comprobantes casi idénticos en otros pedidos. */
+  private void revisarDuplicado(Row r, Map<String,Object> pago) {
+    if (lblDuplicado == null) return;
+    lblDuplicado.setVisible(false);
+    lblDuplicado.setManaged(false);
+    if (r == null) return;
+    long idPago = parseLong(r.getIdPago());
+    huellas.buscarDuplicados(idPago, parseLong(r.getIdPedido()), r.getUrl(), centimos(pago)).thenAccept(list -> Platform.runLater(() -> {
+      Row actual = tbl.getSelectionModel().getSelectedItem();
+      if (list.isEmpty() || actual == null || parseLong(actual.getIdPago()) != idPago) return;
+      var c = list.get(0);
+      lblDuplicado.setText("Posible duplicado: mismo comprobante que el pedido " + c.idPedido()
+          + (list.size() > 1 ? " (+" + (list.size() - 1) + ")" : ""));
+      lblDuplicado.setVisible(true);
+      lblDuplicado.setManaged(true);
+    }));
+  }
+
+  /** Decodifica en segundo plano los comprobantes de la fila anterior y siguiente. */
+  private void precargarVecinos() {
+    if (visorComprobante == null) return;
+    int i = tbl.getSelectionModel().getSelectedIndex();
+    var items = tbl.getItems();
+    if (i < 0 || items == null) return;
+    if (i + 1 < items.size()) visorComprobante.precargar(items.get(i + 1).getUrl());
+    if (i - 1 >= 0)           visorComprobante.precargar(items.get(i - 1).getUrl());
+  }
+
   private void actualizarBotones() {
     boolean has = tbl.getSelectionModel().getSelectedItem() != null;
     if (btnAprobar!=null)       btnAprobar.setDisable(!has);
     if (btnPagoNoValido!=null)  btnPagoNoValido.setDisable(!has);
   }
 
+  // ============================================================
+  // CICLO DE VIDA (lo llama el Shell)
+  // ============================================================
+  @Override
+  public void onHide() {
+    // oculta: no seguir leyendo en segundo plano
+    ocultaDesde = System.currentTimeMillis();
+    if (consultaTask != null && consultaTask.isRunning()) {
+      cancelar(consultaTask);
+      ocultaDesde = 1; // quedó a medias: recargar al volver
+      setLoading(false);
+    }
+  }
+
+  @Override
+  public void onShow() {
+    if (CicloVida.vencida(ocultaDesde)) consultar();
+    ocultaDesde = 0;
+  }
+
   // ============================================================
   // HELPERS (UI, formato y parsing)
   // ============================================================
@@ -452,10 +820,14 @@ public class PagosController {
     if (btnNext      != null) btnNext.setDisable(dis);
     if (btnAprobar   != null) btnAprobar.setDisable(dis);
     if (btnPagoNoValido != null) btnPagoNoValido.setDisable(dis);
+    if (tglLote      != null) tglLote.setDisable(dis);
+    if (btnConfirmarLote != null) btnConfirmarLote.setDisable(dis || decisiones.isEmpty());
+    if (btnDescartarLote != null) btnDescartarLote.setDisable(dis || decisiones.isEmpty());
     if (txtMontoComprobante != null) txtMontoComprobante.setDisable(dis);
   }
 
   private static String s(String x){ return x==null? "" : x; }
+  private static long parseLong(String x){ try { return Long.parseLong(s(x).trim()); } catch(Exception e){ return 0; } }
   private static String enc(String x){ return URLEncoder.encode(x, StandardCharsets.UTF_8); }
 
   private static Optional<Integer> parseTotal(String contentRange) {
@@ -466,6 +838,12 @@ public class PagosController {
     } catch(Exception e){ return Optional.empty(); }
   }
 
+  /** pagos.monto en céntimos para el índice de huellas. */
+  private static long centimos(Map<String,Object> pago) {
+    BigDecimal m = pago == null ? null : getBigDecimal(pago.get("monto"));
+    return m == null ? IndiceHuellasComprobantes.SIN_MONTO : m.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+  }
+
   private static BigDecimal getBigDecimal(Object v) {
     try {
       if (v == null) return null;
@@ -488,17 +866,6 @@ public class PagosController {
     return "S/ " + v.setScale(2, RoundingMode.HALF_UP).toPlainString();
   }
 
-  private static String fechaBonita(String isoDateTime) {
-    if (isoDateTime == null || isoDateTime.isBlank()) return "—";
-    String s = isoDateTime.trim();
-    int dot = s.indexOf('.');
-    if (dot > 0) s = s.substring(0, dot);
-    if (s.endsWith("Z")) s = s.substring(0, s.length()-1);
-    s = s.replace('T', ' ');
-    int len = Math.min(16, s.length());
-    return s.substring(0, len);
-  }
-
   private void alert(String m){
     if (!Platform.isFxApplicationThread()) { Platform.runLater(() -> alert(m)); return; }
     new Alert(Alert.AlertType.ERROR, m, ButtonType.OK).showAndWait();
@@ -4,20 +4,38 @@ package com.mycompany.pasteleria.desktop.controller;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.model.Pedido;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.EstadoRepartidores;
+import com.mycompany.pasteleria.desktop.service.Exportador;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.DialogoExportacion;
+import com.mycompany.pasteleria.desktop.ui.ListaPaginada;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import com.mycompany.pasteleria.desktop.ui.Vistas;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
 import javafx.application.Platform;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -25,13 +43,29 @@ import java.util.stream.Collectors;
  * - Tabla con MÁXIMO 7 columnas visibles (nosotros usamos 6).
  * - Filtro múltiple de estados.
  * - Búsqueda por número (server) o por cliente (client-side).
- * - Acciones: enviar a cocina, asignar delivery.
+ * - Paginado (Anterior/Siguiente) o desplazamiento continuo por bloques (ListaPaginada).
+ * - Acciones: enviar a cocina, asignar delivery, planificar el reparto de todos los pendientes.
+ * La vista se arma en código ({@link #crearVista()}), no desde FXML: es la más abierta y
+ * el Shell la precarga al iniciar.
  */
-public class PedidosController {
+public class PedidosController implements CicloVida {
 
     // =================== CONSTANTES ===================
     private static final String ENDPOINT_PEDIDOS = "/pedidos";
     private static final String FXML_ASIGNAR_DELIVERY = "/com/mycompany/pasteleria/desktop/view/AsignarDelivery.fxml";
+    private static final String FXML_PLAN_REPARTO = "/com/mycompany/pasteleria/desktop/view/PlanReparto.fxml";
+
+    // SELECT con embed de cliente (!inner cuando se filtra por nombre en el servidor)
+    private static final String SELECT =
+            "id_pedido,fecha_pedido,fecha_entrega,hora_entrega,estado," +
+            "direccion,distrito,referencia," +
+            "cliente:cliente(nombre,apellido,telefono)";
+    private static final String SELECT_INNER = SELECT.replace("cliente:cliente(", "cliente:cliente!inner(");
+
+    // desplazamiento continuo: bloques de 200 filas, hasta 15 bloques (3000 filas) en memoria
+    private static final int BLOQUE = 200;
+    private static final int MAX_BLOQUES = 15;
+    private static final Row CARGANDO = new Row("…", "Cargando…", Fechas.SIN_FECHA, null, null, "", "", "", "", "");
 
     // todos los estados que tú usas
     private static final List<String> ESTADOS_SOPORTADOS = List.of(
@@ -54,20 +88,25 @@ public class PedidosController {
     );
 
     // =================== UI ===================
-    @FXML private TextField txtBuscar;
-    @FXML private MenuButton btnEstados;
+    private TextField txtBuscar;
+    private MenuButton btnEstados;
 
-    @FXML private TableView<Row> tbl;
-    @FXML private TableColumn<Row, String> colNum, colCliente, colFecPed, colFecEnt, colHorEnt, colEstado;
+    private TableView<Row> tbl;
+    private TableColumn<Row, String> colNum, colCliente, colEstado;
+    // fechas tipadas: ordenan por valor y se formatean al pintar la celda (Fechas cachea los textos)
+    private TableColumn<Row, Long> colFecPed;
+    private TableColumn<Row, LocalDate> colFecEnt;
+    private TableColumn<Row, LocalTime> colHorEnt;
 
-    @FXML private Label lblRango;
-    @FXML private ProgressIndicator loader;
+    private Label lblRango;
+    private ProgressIndicator loader;
 
-    @FXML private Button btnBuscar, btnRefrescar, btnPrev, btnNext, btnToCocina, btnAsignar;
+    private Button btnBuscar, btnRefrescar, btnPrev, btnNext, btnToCocina, btnAsignar, btnPlanReparto;
+    private CheckBox chkContinuo;
 
     // =================== ESTADO ===================
     private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
-    private final ObjectMapper om = new ObjectMapper();
+    private final ObjectMapper om = Json.MAPPER;
 
     private final LinkedHashSet<String> estados = new LinkedHashSet<>();
     private String filtroTexto = "";
@@ -76,19 +115,28 @@ public class PedidosController {
     private int offset = 0;
     private int total  = 0;
 
-    private Task<List<Map<String,Object>>> consultaTask;
+    private Task<List<Pedido>> consultaTask;
     private Task<Void> patchTask;
+    private long ocultaDesde = 0;
+
+    // modo continuo
+    private ListaPaginada<Row> continua;
+    private volatile String consultaContinua = "";
 
     // =================== DTO FILA ===================
     public static class Row {
-        private final String num, cliente, fecPed, fecEnt, horEnt, estado;
+        private final String num, cliente, estado;
+        private final long fecPed;          // epoch ms
+        private final LocalDate fecEnt;
+        private final LocalTime horEnt;
         private final String direccion, distrito, referencia, telefono;
+        private final ValorFijo.Celdas celdas = new ValorFijo.Celdas(6);
 
         public Row(String num,
                    String cliente,
-                   String fecPed,
-                   String fecEnt,
-                   String horEnt,
+                   long fecPed,
+                   LocalDate fecEnt,
+                   LocalTime horEnt,
                    String estado,
                    String direccion,
                    String distrito,
@@ -108,26 +156,118 @@ public class PedidosController {
 
         public String getNum()        { return num; }
         public String getCliente()    { return cliente; }
-        public String getFecPed()     { return fecPed; }
-        public String getFecEnt()     { return fecEnt; }
-        public String getHorEnt()     { return horEnt; }
+        public long getFecPed()       { return fecPed; }
+        public LocalDate getFecEnt()  { return fecEnt; }
+        public LocalTime getHorEnt()  { return horEnt; }
         public String getEstado()     { return estado; }
         public String getDireccion()  { return direccion; }
         public String getDistrito()   { return distrito; }
         public String getReferencia() { return referencia; }
         public String getTelefono()   { return telefono; }
+
+        // valores de celda cacheados: desplazar la tabla no crea propiedades nuevas
+        public ObservableValue<String> numProperty()     { return celdas.get(0, num); }
+        public ObservableValue<String> clienteProperty() { return celdas.get(1, cliente); }
+        public ObservableValue<Long> fecPedProperty()         { return celdas.get(2, fecPed); }
+        public ObservableValue<LocalDate> fecEntProperty()    { return celdas.get(3, fecEnt); }
+        public ObservableValue<LocalTime> horEntProperty()    { return celdas.get(4, horEnt); }
+        public ObservableValue<String> estadoProperty()  { return celdas.get(5, estado); }
+    }
+
+    // =================== VISTA ===================
+    /** Arma la vista (topbar, tabla con overlay de carga, acciones + paginación) y la inicializa. */
+    public static Vistas.Vista<PedidosController> crearVista() {
+        PedidosController c = new PedidosController();
+
+        // topbar: título + buscar + multifiltro de estados
+        Label titulo = new Label("Pedidos");
+        titulo.setStyle("-fx-font-size:16; -fx-font-weight:700;");
+        c.txtBuscar = new TextField();
+        c.txtBuscar.setPromptText("Buscar N° o cliente...");
+        c.txtBuscar.setPrefWidth(280);
+        c.btnEstados = new MenuButton("Filtrar estados");
+        c.btnEstados.setMnemonicParsing(false);
+        c.btnBuscar = boton("Buscar", c::buscar);
+        c.btnRefrescar = boton("Refrescar", c::refrescar);
+        HBox top = fila(titulo, espacio(), c.txtBuscar, c.btnEstados, c.btnBuscar, c.btnRefrescar,
+                boton("Exportar...", c::exportar));
+
+        // tabla + overlay de carga
+        c.tbl = new TableView<>();
+        c.tbl.setPrefHeight(520);
+        c.colNum = columna("N°", 90);
+        c.colCliente = columna("Cliente", 260);
+        c.colFecPed = columna("Fecha pedido", 140);
+        c.colFecEnt = columna("Fecha entrega", 140);
+        c.colHorEnt = columna("Hora entrega", 120);
+        c.colEstado = columna("Estado", 150);
+        c.tbl.getColumns().setAll(List.of(c.colNum, c.colCliente, c.colFecPed, c.colFecEnt, c.colHorEnt, c.colEstado));
+        c.tbl.setPlaceholder(new Label("Sin pedidos. Ajusta filtros o refresca."));
+        c.loader = new ProgressIndicator();
+        c.loader.setVisible(false);
+        c.loader.setMaxSize(80, 80);
+        Region velo = new Region();
+        velo.setStyle("-fx-background-color: rgba(0,0,0,0.06);");
+        velo.visibleProperty().bind(c.loader.visibleProperty());
+        StackPane centro = new StackPane(c.tbl, velo, c.loader);
+        VBox.setVgrow(centro, Priority.ALWAYS);
+
+        // acciones + paginación
+        c.btnToCocina = boton("Enviar a cocina", c::toEnCocina);
+        c.btnAsignar = boton("Asignar delivery", c::asignarDelivery);
+        c.btnPlanReparto = boton("Planificar reparto...", c::planificarReparto);
+        c.chkContinuo = new CheckBox("Desplazamiento continuo");
+        c.chkContinuo.setMnemonicParsing(false);
+        c.lblRango = new Label("Mostrando —");
+        c.btnPrev = boton("Anterior", c::paginaAnterior);
+        c.btnNext = boton("Siguiente", c::paginaSiguiente);
+        HBox bottom = fila(new Label("Acciones:"), c.btnToCocina, c.btnAsignar, c.btnPlanReparto, espacio(),
+                c.chkContinuo, c.lblRango, c.btnPrev, c.btnNext);
+
+        VBox root = new VBox(12, top, centro, bottom);
+        root.setFillWidth(true);
+        root.setPadding(new Insets(12));
+
+        c.initialize();
+        return new Vistas.Vista<>(root, c);
+    }
+
+    private static Button boton(String texto, Runnable accion) {
+        Button b = new Button(texto);
+        b.setOnAction(e -> accion.run());
+        return b;
+    }
+
+    private static HBox fila(Node... hijos) {
+        HBox h = new HBox(8, hijos);
+        h.setAlignment(Pos.CENTER_LEFT);
+        return h;
+    }
+
+    private static Pane espacio() {
+        Pane p = new Pane();
+        HBox.setHgrow(p, Priority.ALWAYS);
+        return p;
+    }
+
+    private static <T> TableColumn<Row, T> columna(String titulo, double ancho) {
+        TableColumn<Row, T> col = new TableColumn<>(titulo);
+        col.setPrefWidth(ancho);
+        return col;
     }
 
     // =================== INIT ===================
-    @FXML
-    public void initialize() {
+    private void initialize() {
         // 1) columnas
-        colNum.setCellValueFactory(c -> prop(c.getValue().getNum()));
-        colCliente.setCellValueFactory(c -> prop(c.getValue().getCliente()));
-        colFecPed.setCellValueFactory(c -> prop(c.getValue().getFecPed()));
-        colFecEnt.setCellValueFactory(c -> prop(c.getValue().getFecEnt()));
-        colHorEnt.setCellValueFactory(c -> prop(c.getValue().getHorEnt()));
-        colEstado.setCellValueFactory(c -> prop(c.getValue().getEstado()));
+        colNum.setCellValueFactory(c -> c.getValue().numProperty());
+        colCliente.setCellValueFactory(c -> c.getValue().clienteProperty());
+        colFecPed.setCellValueFactory(c -> c.getValue().fecPedProperty());
+        colFecEnt.setCellValueFactory(c -> c.getValue().fecEntProperty());
+        colHorEnt.setCellValueFactory(c -> c.getValue().horEntProperty());
+        colFecPed.setCellFactory(col -> celda(Fechas::diaMes));
+        colFecEnt.setCellFactory(col -> celda(Fechas::diaMes));
+        colHorEnt.setCellFactory(col -> celda(Fechas::hhmm));
+        colEstado.setCellValueFactory(c -> c.getValue().estadoProperty());
 
         // 2) forzar máximo de columnas visibles
         ensureMaxColumns(7);
@@ -142,50 +282,57 @@ public class PedidosController {
             txtBuscar.setOnAction(e -> buscar());
         }
 
-        // 5) carga inicial
+        // 5) desplazamiento continuo (en vez de Anterior/Siguiente)
+        if (chkContinuo != null) {
+            chkContinuo.selectedProperty().addListener((o, a, b) -> cambiarModo(b));
+        }
+
+        // 6) carga inicial
         refrescar();
     }
 
     // =================== ACCIONES BÁSICAS ===================
-    @FXML public void buscar()           { filtroTexto = s(txtBuscar.getText()); offset = 0; consultar(); }
-    @FXML public void refrescar()        { offset = 0; consultar(); }
-    @FXML public void paginaAnterior()   { if (offset - limit >= 0) { offset -= limit; consultar(); } }
-    @FXML public void paginaSiguiente()  { if (offset + limit < total) { offset += limit; consultar(); } }
+    public void buscar()           { filtroTexto = s(txtBuscar.getText()); offset = 0; consultar(); }
+    public void refrescar()        { offset = 0; consultar(); }
+    public void paginaAnterior()   { if (offset - limit >= 0) { offset -= limit; consultar(); } }
+    public void paginaSiguiente()  { if (offset + limit < total) { offset += limit; consultar(); } }
+
+    /** Exporta todos los pedidos que cumplen los filtros actuales (no sólo la página), en streaming. */
+    public void exportar() {
+        String term = s(filtroTexto).trim();
+        boolean termEsNumero = !term.isBlank() && term.chars().allMatch(Character::isDigit);
+        String filtroNombre = termEsNumero ? "" : filtroClienteServidor(term);
+        StringBuilder filtros = new StringBuilder();
+        appendFiltros(filtros, term, termEsNumero);
+        filtros.append(filtroNombre);
+        DialogoExportacion.exportar(
+                tbl.getScene() != null ? tbl.getScene().getWindow() : null,
+                api, "pedidos", Exportador.pedidos(filtros.toString(), !filtroNombre.isEmpty())
+        );
+    }
 
     // =================== CONSULTA A SUPABASE ===================
     private void consultar() {
+        if (isContinuo()) {
+            consultarContinuo();
+            return;
+        }
         cancelar(consultaTask);
         setLoading(true);
 
-        // SELECT con embed de cliente
-        String select =
-                "id_pedido,fecha_pedido,fecha_entrega,hora_entrega,estado," +
-                "direccion,distrito,referencia," +
-                "cliente:cliente(nombre,apellido,telefono)";
-
         StringBuilder path = new StringBuilder(ENDPOINT_PEDIDOS)
-                .append("?select=").append(enc(select))
+                .append("?select=").append(enc(SELECT))
                 .append("&order=").append(enc("fecha_pedido.desc"))
                 .append("&limit=").append(limit)
                 .append("&offset=").append(offset);
 
-        // filtro por estados -> /pedidos?estado=in.(APROBADO,EN_COCINA,...)
-        if (!estados.isEmpty()) {
-            // aquí NO rompemos nada, mandamos los valores tal cual
-            String in = String.join(",", estados);
-            path.append("&estado=in.(").append(in).append(")");
-        }
-
-        // filtro por número
         String term = s(filtroTexto).trim();
         boolean termEsNumero = !term.isBlank() && term.chars().allMatch(Character::isDigit);
-        if (termEsNumero) {
-            path.append("&id_pedido=eq.").append(term);
-        }
+        appendFiltros(path, term, termEsNumero);
 
         consultaTask = new Task<>() {
             @Override
-            protected List<Map<String, Object>> call() throws Exception {
+            protected List<Pedido> call() throws Exception {
                 var resp = api.getRespWithCount(path.toString());
                 int code = resp.statusCode();
                 String body = resp.body();
@@ -197,14 +344,14 @@ public class PedidosController {
                 String cr = resp.headers().firstValue("Content-Range").orElse("");
                 total = parseTotal(cr).orElse(0);
 
-                List<Map<String,Object>> list = om.readValue(body, new TypeReference<List<Map<String,Object>>>(){});
+                List<Pedido> list = om.readValue(body, new TypeReference<List<Pedido>>(){});
 
                 // si el usuario puso texto, filtramos por nombre+apellido en memoria
                 if (!term.isBlank() && !termEsNumero) {
                     String t = term.toLowerCase();
-                    list = list.stream().filter(m -> {
-                        Map<String,Object> c = castMap(m.get("cliente"));
-                        String full = (s(c.get("nombre")) + " " + s(c.get("apellido"))).toLowerCase().trim();
+                    list = list.stream().filter(p -> {
+                        Pedido.ClienteEmb c = p.cliente;
+                        String full = c == null ? "" : (s(c.nombre) + " " + s(c.apellido)).toLowerCase().trim();
                         return full.contains(t);
                     }).collect(Collectors.toList());
                 }
@@ -214,7 +361,7 @@ public class PedidosController {
         };
 
         consultaTask.setOnSucceeded(e -> {
-            List<Map<String,Object>> datos = consultaTask.getValue();
+            List<Pedido> datos = consultaTask.getValue();
             pintarTabla(datos, term, termEsNumero);
             setLoading(false);
             markMenuStates();
@@ -230,7 +377,118 @@ public class PedidosController {
         new Thread(consultaTask, "pedidos-consulta").start();
     }
 
-    private void pintarTabla(List<Map<String,Object>> datos, String term, boolean termEsNumero) {
+    /** Filtros comunes: estados y número de pedido. */
+    private void appendFiltros(StringBuilder path, String term, boolean termEsNumero) {
+        // filtro por estados -> /pedidos?estado=in.(APROBADO,EN_COCINA,...)
+        if (!estados.isEmpty()) {
+            // aquí NO rompemos nada, mandamos los valores tal cual
+            String in = String.join(",", estados);
+            path.append("&estado=in.(").append(in).append(")");
+        }
+
+        // filtro por número
+        if (termEsNumero) {
+            path.append("&id_pedido=eq.").append(term);
+        }
+    }
+
+    // =================== DESPLAZAMIENTO CONTINUO ===================
+    private boolean isContinuo() {
+        return chkContinuo != null && chkContinuo.isSelected();
+    }
+
+    private void cambiarModo(boolean continuo) {
+        cancelar(consultaTask);
+        setLoading(false);
+        for (Button b : new Button[] { btnPrev, btnNext }) {
+            if (b == null) continue;
+            b.setVisible(!continuo);
+            b.setManaged(!continuo);
+        }
+        // la lista virtual no se puede ordenar en memoria: el orden lo pone el servidor
+        tbl.getSortOrder().clear();
+        for (TableColumn<Row, ?> c : tbl.getColumns()) c.setSortable(!continuo);
+        if (!continuo) {
+            continua = null;
+            tbl.setItems(FXCollections.observableArrayList());
+        }
+        offset = 0;
+        consultar();
+    }
+
+    /**
+     * Modo continuo: la tabla usa una ListaPaginada que pide bloques a medida que se desplaza.
+     * Con el mismo filtro se recargan los bloques visibles (conserva la posición);
+     * con un filtro nuevo se vuelve al inicio. El nombre de cliente se filtra en el servidor.
+     */
+    private void consultarContinuo() {
+        cancelar(consultaTask);
+        setLoading(false); // sin overlay: las filas llegan por bloques
+        String term = s(filtroTexto).trim();
+        boolean termEsNumero = !term.isBlank() && term.chars().allMatch(Character::isDigit);
+        String filtroNombre = termEsNumero ? "" : filtroClienteServidor(term);
+
+        StringBuilder path = new StringBuilder(ENDPOINT_PEDIDOS)
+                .append("?select=").append(enc(filtroNombre.isEmpty() ? SELECT : SELECT_INNER))
+                .append("&order=").append(enc("fecha_pedido.desc,id_pedido.desc"));
+        appendFiltros(path, term, termEsNumero);
+        path.append(filtroNombre);
+
+        String nueva = path.toString();
+        boolean mismoFiltro = continua != null && nueva.equals(consultaContinua);
+        consultaContinua = nueva;
+
+        if (continua == null) {
+            continua = new ListaPaginada<>(this::cargarBloque, CARGANDO, BLOQUE, MAX_BLOQUES);
+            continua.setOnTotal(this::actualizarRangoContinuo);
+            continua.setOnError(ex -> alert("No se pudo cargar pedidos.\n" + ex.getMessage()));
+        }
+        if (tbl.getItems() != continua) tbl.setItems(continua);
+        ensureMaxColumns(7);
+        markMenuStates();
+
+        if (mismoFiltro) {
+            continua.recargar();
+        } else {
+            if (lblRango != null) lblRango.setText("Cargando…");
+            continua.reiniciar();
+            tbl.scrollTo(0);
+        }
+    }
+
+    /** Corre en un hilo de ListaPaginada. Sólo el primer bloque pide count=exact. */
+    private ListaPaginada.Bloque<Row> cargarBloque(int desde, int cuantos, boolean conTotal) throws Exception {
+        String path = consultaContinua + "&limit=" + cuantos + "&offset=" + desde;
+        var resp = conTotal ? api.getRespWithCount(path) : api.getResp(path);
+        ApiClient.require2xx(resp, "GET /pedidos (continuo)");
+        int tot = conTotal
+                ? parseTotal(resp.headers().firstValue("Content-Range").orElse("")).orElse(-1)
+                : -1;
+        List<Pedido> list = om.readValue(resp.body(), new TypeReference<List<Pedido>>(){});
+        List<Row> rows = new ArrayList<>(list.size());
+        for (Pedido p : list) rows.add(toRow(p));
+        return new ListaPaginada.Bloque<>(rows, tot);
+    }
+
+    private void actualizarRangoContinuo() {
+        if (lblRango != null && continua != null) {
+            lblRango.setText(continua.size() + " pedidos");
+        }
+    }
+
+    /** cliente.and=(or(nombre.ilike.*a*,apellido.ilike.*a*),...) — cada palabra en nombre o apellido. */
+    private static String filtroClienteServidor(String term) {
+        List<String> conds = new ArrayList<>();
+        for (String t : term.trim().split("\\s+")) {
+            String x = t.replaceAll("[,().*\"\\\\]", "");
+            if (!x.isEmpty()) {
+                conds.add("or(nombre.ilike.*" + x + "*,apellido.ilike.*" + x + "*)");
+            }
+        }
+        return conds.isEmpty() ? "" : "&cliente.and=" + enc("(" + String.join(",", conds) + ")");
+    }
+
+    private void pintarTabla(List<Pedido> datos, String term, boolean termEsNumero) {
         List<Row> rows = datos.stream().map(this::toRow).collect(Collectors.toList());
 
         tbl.setItems(FXCollections.observableArrayList(rows));
@@ -251,35 +509,41 @@ public class PedidosController {
         }
     }
 
-    private Row toRow(Map<String,Object> m) {
-        String id   = String.valueOf(m.get("id_pedido"));
-        Map<String,Object> c = castMap(m.get("cliente"));
-        String full = (s(c.get("nombre")) + " " + s(c.get("apellido"))).trim();
-        String tel  = s(c.get("telefono"));
+    private Row toRow(Pedido p) {
+        String tel = p.cliente == null ? "" : s(p.cliente.telefono);
 
         return new Row(
-                id,
-                full.isBlank() ? "—" : full,
-                fechaBonita(s(m.get("fecha_pedido"))),
-                fechaBonita(s(m.get("fecha_entrega"))),
-                horaBonita(s(m.get("hora_entrega"))),
-                s(m.get("estado")).isBlank()? "—" : s(m.get("estado")),
-                s(m.get("direccion")),
-                s(m.get("distrito")),
-                s(m.get("referencia")),
+                String.valueOf(p.id_pedido),
+                p.getNombreCliente(),
+                p.fecha_pedido,
+                p.fecha_entrega,
+                p.hora_entrega,
+                s(p.estado).isBlank()? "—" : p.estado,
+                s(p.direccion),
+                s(p.distrito),
+                s(p.referencia),
                 tel
         );
     }
 
+    /** Celda de sólo lectura que formatea el valor tipado (null = "—"). */
+    private static <T> TableCell<Row, T> celda(Function<T, String> formato) {
+        return new TableCell<>() {
+            @Override protected void updateItem(T v, boolean empty) {
+                super.updateItem(v, empty);
+                setText(empty ? null : formato.apply(v));
+            }
+        };
+    }
+
     // =================== CAMBIAR ESTADO ===================
-    @FXML
     public void toEnCocina() {
         cambiarEstadoSeleccion("EN_COCINA");
     }
 
     private void cambiarEstadoSeleccion(String nuevo) {
         Row r = tbl.getSelectionModel().getSelectedItem();
-        if (r == null) {
+        if (r == null || r == CARGANDO) {
             alert("Selecciona un pedido.");
             return;
         }
@@ -316,24 +580,16 @@ public class PedidosController {
     }
 
     // =================== ASIGNAR DELIVERY ===================
-    @FXML
     public void asignarDelivery() {
         Row r = tbl.getSelectionModel().getSelectedItem();
-        if (r == null) {
+        if (r == null || r == CARGANDO) {
             alert("Selecciona un pedido.");
             return;
         }
 
         try {
-            var url = getClass().getResource(FXML_ASIGNAR_DELIVERY);
-            if (url == null) {
-                alert("Falta el archivo AsignarDelivery.fxml");
-                return;
-            }
-
-            FXMLLoader loader = new FXMLLoader(url);
-            Parent root = loader.load();
-            AsignarDeliveryController ctrl = loader.getController();
+            Vistas.Vista<AsignarDeliveryController> v = Vistas.cargar(FXML_ASIGNAR_DELIVERY);
+            AsignarDeliveryController ctrl = v.controller();
 
             // pasamos datos de envío
             ctrl.setPedidoData(
@@ -344,7 +600,7 @@ public class PedidosController {
 
             Dialog<ButtonType> dlg = new Dialog<>();
             dlg.setTitle("Asignar delivery");
-            dlg.getDialogPane().setContent(root);
+            dlg.getDialogPane().setContent(v.root());
             dlg.showAndWait();
 
             // el diálogo deja los datos en las props de la ventana
@@ -392,6 +648,7 @@ public class PedidosController {
             };
 
             patchTask.setOnSucceeded(e -> {
+                EstadoRepartidores.get().registrar(idDelivery, hora);
                 info("Pedido asignado.");
                 consultar();
             });
@@ -410,6 +667,27 @@ public class PedidosController {
         }
     }
 
+    /** Reparto en bloque: agrupa por distrito, ordena rutas y asigna todo de una vez (PlanRepartoController). */
+    public void planificarReparto() {
+        try {
+            Vistas.Vista<PlanRepartoController> v = Vistas.cargar(FXML_PLAN_REPARTO);
+
+            Dialog<ButtonType> dlg = new Dialog<>();
+            dlg.setTitle("Planificar reparto");
+            dlg.setResizable(true);
+            dlg.getDialogPane().setContent(v.root());
+            dlg.showAndWait();
+
+            var props = dlg.getDialogPane().getScene().getWindow().getProperties();
+            if (Boolean.TRUE.equals(props.get("result_ok"))) {
+                info("Pedidos asignados: " + props.getOrDefault("asignados", 0));
+                consultar();
+            }
+        } catch (Exception ex) {
+            alert("No se pudo abrir el planificador.\n" + ex.getMessage());
+        }
+    }
+
     // =================== MENÚ DE ESTADOS ===================
     private void buildEstadosMenu(List<String> opciones) {
         btnEstados.getItems().clear();
@@ -438,6 +716,24 @@ public class PedidosController {
                 : "Estados (" + estados.size() + ")");
     }
 
+    // =================== CICLO DE VIDA ===================
+    @Override
+    public void onHide() {
+        // oculta: no seguir leyendo en segundo plano
+        ocultaDesde = System.currentTimeMillis();
+        if (consultaTask != null && consultaTask.isRunning()) {
+            cancelar(consultaTask);
+            ocultaDesde = 1; // quedó a medias: recargar al volver
+            setLoading(false);
+        }
+    }
+
+    @Override
+    public void onShow() {
+        if (CicloVida.vencida(ocultaDesde)) consultar();
+        ocultaDesde = 0;
+    }
+
     // =================== HELPERS ===================
     private void setLoading(boolean v) {
         if (!Platform.isFxApplicationThread()) {
@@ -453,6 +749,7 @@ public class PedidosController {
         if (btnNext     != null) btnNext.setDisable(v);
         if (btnToCocina != null) btnToCocina.setDisable(v);
         if (btnAsignar  != null) btnAsignar.setDisable(v);
+        if (btnPlanReparto != null) btnPlanReparto.setDisable(v);
         if (btnEstados  != null) btnEstados.setDisable(v);
     }
 
@@ -474,32 +771,6 @@ public class PedidosController {
         }
     }
 
-    private static final String[] MES = {
-            "ene","feb","mar","abr","may","jun","jul","ago","sep","oct","nov","dic"
-    };
-
-    private static String fechaBonita(String iso) {
-        if (iso == null || iso.isBlank()) return "—";
-        String s = iso;
-        int t = s.indexOf('T');
-        if (t > 0) s = s.substring(0, t);
-        if (s.length() < 10) return s;
-        String dd = s.substring(8, 10);
-        int m = 1;
-        try { m = Integer.parseInt(s.substring(5, 7)); } catch (Exception ignored) {}
-        return dd + " " + MES[Math.max(1, Math.min(12, m)) - 1];
-    }
-
-    private static String horaBonita(String time) {
-        if (time == null || time.isBlank()) return "—";
-        if (time.length() >= 5) return time.substring(0, 5); // HH:mm:ss → HH:mm
-        try {
-            return LocalTime.parse(time).format(DateTimeFormatter.ofPattern("HH:mm"));
-        } catch (Exception e) {
-            return time;
-        }
-    }
-
     private void alert(String m) {
         if (!Platform.isFxApplicationThread()) {
             Platform.runLater(() -> alert(m));
@@ -533,13 +804,4 @@ public class PedidosController {
         tbl.getColumns().setAll(colNum, colCliente, colFecPed, colFecEnt, colHorEnt, colEstado);
         tbl.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
     }
-
-    @SuppressWarnings("unchecked")
-    private Map<String,Object> castMap(Object o) {
-        return (o instanceof Map) ? (Map<String,Object>) o : Map.of();
-    }
-
-    private javafx.beans.property.SimpleStringProperty prop(String v) {
-        return new javafx.beans.property.SimpleStringProperty(v);
-    }
 }
@@ -0,0 +1,200 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/controller/PlanRepartoController.java
+package com.mycompany.pasteleria.desktop.controller;
+
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto.Confirmacion;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto.Parada;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto.Plan;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto.Repartidor;
+import com.mycompany.pasteleria.desktop.service.PlanificadorReparto.Ruta;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.scene.control.*;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
+import javafx.stage.Stage;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Diálogo "Planificar reparto": todos los pedidos por repartir divididos entre los repartidores elegidos.
+ * - Carga pedidos y repartidores una vez; recalcular (cambiar selección) no vuelve a la red.
+ * - Muestra cada ruta en orden de visita y permite copiar las hojas de ruta.
+ * - Asignar todo: una sola inserción en bloque (PlanificadorReparto.confirmar); si falla, se revierte
+ *   y se avisa qué pedidos no se pudieron revertir.
+ * Devuelve resultado vía propiedades de la ventana: result_ok, asignados.
+ */
+public class PlanRepartoController {
+
+  @FXML private ListView<Repartidor> lstRepartidores;
+  @FXML private TextField txtHoraSalida;
+  @FXML private Label lblResumen;
+  @FXML private TreeView<String> treePlan;
+  @FXML private Button btnCalcular, btnCopiar, btnAsignar;
+  @FXML private ProgressIndicator loader;
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+  private final PlanificadorReparto planificador = new PlanificadorReparto(api);
+
+  private volatile List<Parada> paradas = List.of();
+  private Plan plan;
+
+  @FXML
+  public void initialize() {
+    lstRepartidores.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    lstRepartidores.getSelectionModel().getSelectedItems()
+        .addListener((ListChangeListener<Repartidor>) c -> calcular());
+    txtHoraSalida.setText(LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm")));
+    treePlan.setRoot(new TreeItem<>());
+    cargar();
+  }
+
+  private void cargar() {
+    setLoading(true);
+    Task<List<Repartidor>> t = new Task<>() {
+      @Override protected List<Repartidor> call() throws Exception {
+        paradas = planificador.cargarParadas();
+        return planificador.cargarRepartidores();
+      }
+    };
+    t.setOnSucceeded(e -> {
+      setLoading(false);
+      lstRepartidores.setItems(FXCollections.observableArrayList(t.getValue()));
+      lstRepartidores.getSelectionModel().selectAll(); // dispara calcular()
+      if (t.getValue().isEmpty()) lblResumen.setText("No hay repartidores activos.");
+    });
+    t.setOnFailed(e -> {
+      setLoading(false);
+      lblResumen.setText("No se pudo cargar.");
+      show("No se pudieron cargar pedidos/repartidores:\n" + t.getException().getMessage(), Alert.AlertType.ERROR);
+    });
+    new Thread(t, "reparto-carga").start();
+  }
+
+  /** Recalcula en memoria (milisegundos para unos cientos de paradas). */
+  @FXML
+  public void calcular() {
+    List<Repartidor> elegidos = List.copyOf(lstRepartidores.getSelectionModel().getSelectedItems());
+    TreeItem<String> raiz = treePlan.getRoot();
+    raiz.getChildren().clear();
+    plan = null;
+    if (paradas.isEmpty() || elegidos.isEmpty()) {
+      lblResumen.setText(paradas.isEmpty() ? "No hay pedidos APROBADO/SERVIDO con dirección."
+          : paradas.size() + " pedidos por repartir. Elige al menos un repartidor.");
+      actualizarBotones();
+      return;
+    }
+
+    plan = planificador.planificar(paradas, elegidos);
+    double km = 0;
+    for (Ruta r : plan.rutas()) {
+      km += r.km();
+      TreeItem<String> nodo = new TreeItem<>(String.format(Locale.ROOT, "%s — %d paradas, ~%.1f km",
+          r.repartidor().nombre(), r.paradas().size(), r.km()));
+      int n = 1;
+      for (Parada p : r.paradas()) {
+        String dir = p.direccion() + (p.distrito().isBlank() ? "" : ", " + p.distrito());
+        nodo.getChildren().add(new TreeItem<>(n++ + ". #" + p.idPedido() + "  " + p.cliente() + "  ·  " + dir
+            + (p.ubicada() ? "" : "  [sin ubicar]")));
+      }
+      nodo.setExpanded(true);
+      raiz.getChildren().add(nodo);
+    }
+    lblResumen.setText(String.format(Locale.ROOT, "%d pedidos en %d rutas (~%.1f km en línea recta)%s",
+        plan.paradas(), plan.rutas().size(), km,
+        plan.sinUbicar() == 0 ? "" : " · " + plan.sinUbicar() + " sin ubicar (distrito desconocido) van al final"));
+    actualizarBotones();
+  }
+
+  @FXML
+  public void copiar() {
+    if (plan == null) return;
+    StringBuilder sb = new StringBuilder();
+    for (Ruta r : plan.rutas()) {
+      if (sb.length() > 0) sb.append(System.lineSeparator());
+      sb.append(PlanificadorReparto.hojaDeRuta(r, hora()));
+    }
+    ClipboardContent cc = new ClipboardContent();
+    cc.putString(sb.toString());
+    Clipboard.getSystemClipboard().setContent(cc);
+    show("Hojas de ruta copiadas al portapapeles.", Alert.AlertType.INFORMATION);
+  }
+
+  @FXML
+  public void cancelar() { close(false, 0); }
+
+  @FXML
+  public void confirmar() {
+    if (plan == null || plan.paradas() == 0) { show("No hay nada que asignar.", Alert.AlertType.WARNING); return; }
+    String hora = hora();
+    if (!hora.matches("^\\d{2}:\\d{2}$")) { show("Hora inválida. Usa HH:mm", Alert.AlertType.WARNING); return; }
+
+    Plan p = plan;
+    setLoading(true);
+    Task<Confirmacion> t = new Task<>() {
+      @Override protected Confirmacion call() throws Exception { return planificador.confirmar(p, hora); }
+    };
+    t.setOnSucceeded(e -> {
+      setLoading(false);
+      Confirmacion c = t.getValue();
+      if (!c.ok()) {
+        show("No se pudo asignar el plan:\n" + c.error() + "\n\n" + (c.sinRevertir().isEmpty()
+            ? "Ningún pedido quedó asignado; puedes volver a intentarlo."
+            : "Estos pedidos quedaron ASIGNADO sin repartidor; revísalos en Pedidos: " + ids(c.sinRevertir())),
+            Alert.AlertType.ERROR);
+        return;
+      }
+      if (!c.omitidos().isEmpty()) {
+        show("Se asignaron " + c.asignados() + " pedidos.\nNo se asignaron " + c.omitidos().size()
+            + " porque cambiaron de estado en otro puesto: " + ids(c.omitidos()), Alert.AlertType.WARNING);
+      }
+      close(true, c.asignados());
+    });
+    t.setOnFailed(e -> {
+      setLoading(false);
+      show("No se pudo asignar el plan:\n" + t.getException().getMessage(), Alert.AlertType.ERROR);
+    });
+    new Thread(t, "reparto-confirmar").start();
+  }
+
+  /* =================== Helpers =================== */
+
+  private static String ids(List<Integer> ids) {
+    StringBuilder sb = new StringBuilder();
+    for (Integer id : ids) sb.append(sb.length() == 0 ? "#" : ", #").append(id);
+    return sb.toString();
+  }
+
+  private String hora() { return txtHoraSalida.getText() == null ? "" : txtHoraSalida.getText().trim(); }
+
+  private void actualizarBotones() {
+    boolean hay = plan != null && plan.paradas() > 0;
+    btnCopiar.setDisable(!hay || loader.isVisible());
+    btnAsignar.setDisable(!hay || loader.isVisible());
+  }
+
+  private void setLoading(boolean v) {
+    if (!Platform.isFxApplicationThread()) { Platform.runLater(() -> setLoading(v)); return; }
+    loader.setVisible(v);
+    lstRepartidores.setDisable(v);
+    btnCalcular.setDisable(v);
+    actualizarBotones();
+  }
+
+  private void close(boolean ok, int asignados) {
+    Stage st = (Stage) treePlan.getScene().getWindow();
+    st.getProperties().put("result_ok", ok);
+    st.getProperties().put("asignados", asignados);
+    st.close();
+  }
+
+  private void show(String m, Alert.AlertType t) { new Alert(t, m, ButtonType.OK).showAndWait(); }
+}
@@ -7,30 +7,35 @@ import com.mycompany.pasteleria.desktop.config.AppConfig;
 import com.mycompany.pasteleria.desktop.model.Categoria;
 import com.mycompany.pasteleria.desktop.model.Producto;
 import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.CatalogoProductos;
+import com.mycompany.pasteleria.desktop.service.Exportador;
+import com.mycompany.pasteleria.desktop.service.ImageCache;
+import com.mycompany.pasteleria.desktop.service.ImportadorProductos;
+import com.mycompany.pasteleria.desktop.service.Miniaturas;
+import com.mycompany.pasteleria.desktop.ui.CardGrid;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.DialogoExportacion;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+import com.mycompany.pasteleria.desktop.ui.Vistas;
 import javafx.application.Platform;
-import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.Parent;
+import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
+import javafx.stage.Window;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
-public class ProductosController {
+public class ProductosController implements CicloVida {
 
     // ---------- top ----------
     @FXML private ComboBox<Categoria> cbCategoria;
@@ -39,14 +44,13 @@ public class ProductosController {
     @FXML private Button btnBuscar, btnRefrescar, btnNuevo;
 
     // ---------- center ----------
-    @FXML private ScrollPane cardsScroll;
-    @FXML private TilePane   cardGrid;
+    @FXML private CardGrid<Producto> cardGrid;
 
     @FXML private TableView<Producto> tbl;
     @FXML private TableColumn<Producto, String> colId, colNombre, colCategoria, colPrecio, colStock, colEstado, colDesc;
 
     // ---------- bottom ----------
-    @FXML private Button btnPrecio, btnStock, btnEstado, btnImagenes, btnExport;
+    @FXML private Button btnPrecio, btnStock, btnEstado, btnImagenes, btnImport, btnExport;
 
     // ---------- loader ----------
     @FXML private ProgressIndicator loader;
@@ -55,6 +59,13 @@ public class ProductosController {
     private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
     private final ObjectMapper om = new ObjectMapper();
 
+    // catálogo compartido (índice en memoria, sin HTTP por tecla)
+    private final CatalogoProductos catalogo = CatalogoProductos.get();
+    // refrescos en segundo plano del catálogo; oculta sólo se anota y se repinta al volver
+    private final Runnable alCambiarCatalogo = this::alCambiarCatalogo;
+    private boolean visible = true;
+    private boolean catalogoPendiente = false;
+
     // datos en memoria
     private List<Producto> pagina = List.of();
     private String  filtroNombre      = "";
@@ -64,11 +75,9 @@ public class ProductosController {
     private ViewMode mode = ViewMode.CARDS;
 
     // ---------- layout tarjetas ----------
-    private static final double MIN_CARD_W   = 200; 
+    private static final double MIN_CARD_W   = 200;
     private static final double MAX_CARD_W   = 380;
     private static final double HGAP         = 12;
-    private static final double GRID_PADDING = 20;
-    private double lastViewportWidth = 0;
 
     private static final String CARD_BASE_STYLE =
             "-fx-background-color:white; -fx-background-radius:12; -fx-padding:10;" +
@@ -76,12 +85,17 @@ public class ProductosController {
     private static final String CARD_SELECTED_STYLE =
             CARD_BASE_STYLE + " -fx-border-color:#2563eb; -fx-border-width:2; -fx-border-radius:12;";
 
-    private final Map<Integer, VBox>      cardById = new HashMap<>();
-    private final Map<Integer, ImageView> imgById  = new HashMap<>();
+    // claves de imágenes precargadas (siguiente pantalla según dirección del scroll)
+    private Set<String> precargadas = new HashSet<>();
+
+    // un solo menú contextual para todas las tarjetas
+    private final ContextMenu menuCarta = new ContextMenu();
+    private Producto menuProducto = null;
+
     private Producto selected = null;
 
-    // imagen por defecto
-    private static final String IMG_FALLBACK = "https://picsum.photos/seed/pasteleria-noimage/512/512";
+    // imágenes: caché compartida (memoria + disco) de miniaturas de tamaño fijo
+    private final ImageCache imagenes = ImageCache.get();
 
     // =========================================================
     // init
@@ -91,18 +105,22 @@ public class ProductosController {
 
         // --- tabla ---
         tbl.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
-        colId.setCellValueFactory(p -> new SimpleStringProperty(String.valueOf(p.getValue().id_producto)));
-        colNombre.setCellValueFactory(new PropertyValueFactory<>("nombre"));
-        colCategoria.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().getNombreCategoria()));
-        colPrecio.setCellValueFactory(p -> new SimpleStringProperty(p.getValue().getPrecioBD().setScale(2).toPlainString()));
-        colStock.setCellValueFactory(p -> new SimpleStringProperty(String.valueOf(p.getValue().stock == null ? 0 : p.getValue().stock)));
-        colEstado.setCellValueFactory(new PropertyValueFactory<>("estado"));
-        colDesc.setCellValueFactory(new PropertyValueFactory<>("descripcion"));
+        colId.setCellValueFactory(p -> ValorFijo.de(String.valueOf(p.getValue().id_producto)));
+        colNombre.setCellValueFactory(p -> ValorFijo.de(p.getValue().nombre));
+        colCategoria.setCellValueFactory(p -> ValorFijo.de(p.getValue().getNombreCategoria()));
+        colPrecio.setCellValueFactory(p -> ValorFijo.de(p.getValue().getPrecioBD().setScale(2).toPlainString()));
+        colStock.setCellValueFactory(p -> ValorFijo.de(String.valueOf(p.getValue().stock == null ? 0 : p.getValue().stock)));
+        colEstado.setCellValueFactory(p -> ValorFijo.de(p.getValue().estado));
+        colDesc.setCellValueFactory(p -> ValorFijo.de(p.getValue().descripcion));
         // esta columna absorbe el ancho sobrante
         colDesc.setMaxWidth(Double.MAX_VALUE);
 
-        // buscar con enter
+        // buscar con enter + type-ahead en memoria
         txtBuscar.setOnAction(e -> buscar());
+        txtBuscar.textProperty().addListener((o, old, v) -> {
+            filtroNombre = (v == null) ? "" : v.trim();
+            if (catalogo.isCargado()) aplicarFiltros();
+        });
 
         // combo categorías
         cbCategoria.setButtonCell(new ListCell<>() {
@@ -119,7 +137,7 @@ public class ProductosController {
         });
         cbCategoria.valueProperty().addListener((o, old, v) -> {
             filtroCategoriaId = (v == null) ? null : v.id_categoria;
-            load();
+            if (catalogo.isCargado()) aplicarFiltros(); else load();
         });
 
         // vista por defecto
@@ -127,20 +145,47 @@ public class ProductosController {
         tglTable.setSelected(false);
         syncCenterVisibility();
 
-        // responsivo en scroll
-        cardsScroll.viewportBoundsProperty().addListener((obs, old, nb) -> {
-            lastViewportWidth = nb.getWidth();
-            updateGridLayout(lastViewportWidth);
-        });
-        cardGrid.widthProperty().addListener((obs, o, w) -> {
-            lastViewportWidth = w.doubleValue();
-            updateGridLayout(lastViewportWidth);
-        });
+        // grilla virtualizada: sólo las tarjetas visibles existen
+        cardGrid.setAnchos(MIN_CARD_W, MAX_CARD_W);
+        cardGrid.setGap(HGAP);
+        cardGrid.setCardFactory(CartaProducto::new);
+        cardGrid.setOnDesplazamiento(this::precargarSiguientePantalla);
+        buildMenuCarta();
+
+        catalogo.addListener(alCambiarCatalogo);
 
         // cargar
         loadCategorias();
     }
 
+    private void alCambiarCatalogo() {
+        if (!visible) { catalogoPendiente = true; return; }
+        if (loader == null || !loader.isVisible()) aplicarFiltros();
+    }
+
+    // =========================================================
+    // ciclo de vida (Shell)
+    // =========================================================
+    @Override
+    public void onShow() {
+        visible = true;
+        if (catalogoPendiente) {
+            catalogoPendiente = false;
+            alCambiarCatalogo();
+        }
+    }
+
+    @Override
+    public void onHide() {
+        visible = false;
+    }
+
+    @Override
+    public void onDispose() {
+        onHide();
+        catalogo.removeListener(alCambiarCatalogo);
+    }
+
     // =========================================================
     // cambio de vista
     // =========================================================
@@ -164,8 +209,8 @@ public class ProductosController {
 
     private void syncCenterVisibility() {
         boolean cards = (mode == ViewMode.CARDS);
-        cardsScroll.setVisible(cards);
-        cardsScroll.setManaged(cards);
+        cardGrid.setVisible(cards);
+        cardGrid.setManaged(cards);
         tbl.setVisible(!cards);
         tbl.setManaged(!cards);
     }
@@ -176,7 +221,7 @@ public class ProductosController {
     @FXML
     public void buscar() {
         filtroNombre = (txtBuscar.getText() == null) ? "" : txtBuscar.getText().trim();
-        load();
+        if (catalogo.isCargado()) aplicarFiltros(); else load();
     }
 
     @FXML
@@ -203,7 +248,7 @@ public class ProductosController {
                         cbCategoria.setItems(FXCollections.observableArrayList(items));
                         cbCategoria.getSelectionModel().selectFirst();
                         setLoading(false);
-                        load();
+                        if (catalogo.isCargado()) aplicarFiltros(); else load();
                     });
                 } else {
                     Platform.runLater(() -> {
@@ -217,156 +262,160 @@ public class ProductosController {
         new Thread(t, "load-categorias").start();
     }
 
+    /** Recarga el catálogo desde el servidor (refrescar / tras editar) y re-aplica filtros. */
     private void load() {
         setLoading(true);
+        catalogo.recargar().whenComplete((v, ex) -> Platform.runLater(() -> {
+            setLoading(false);
+            if (ex != null) {
+                Throwable c = (ex.getCause() != null) ? ex.getCause() : ex;
+                alert("No se pudo cargar productos.\n" + c.getMessage());
+                return;
+            }
+            aplicarFiltros();
+        }));
+    }
 
-        String select = enc("id_producto,nombre,descripcion,precio,stock,id_categoria,estado,imagen_url,categoria:categorias(nombre)");
-        StringBuilder path = new StringBuilder("/productos?select=").append(select).append("&order=nombre.asc");
-
-        // filtro por categoría (solo por id)
-        if (filtroCategoriaId != null) {
-            path.append("&id_categoria=eq.").append(filtroCategoriaId);
+    /** Filtra en memoria (texto + categoría) sobre el índice del catálogo. */
+    private void aplicarFiltros() {
+        List<Producto> list = catalogo.buscar(filtroNombre, filtroCategoriaId, false, 0);
+        pagina = list;
+        if (mode == ViewMode.CARDS) {
+            buildCards(list);
+        } else {
+            tbl.setItems(FXCollections.observableArrayList(list));
         }
 
-        // filtro por texto: SOLO nombre y descripción
-        if (filtroNombre != null && !filtroNombre.isBlank()) {
-            String like = "*" + filtroNombre.trim() + "*";
-            String v = URLEncoder.encode(like, StandardCharsets.UTF_8)
-                    .replace("+", "%20")
-                    .replace("%2A", "*");
-            // ojo: aquí ya NO metemos categoria.nombre... porque eso te daba PGRST100
-            path.append("&or=(nombre.ilike.").append(v)
-                    .append(",descripcion.ilike.").append(v)
-                    .append(")");
+        // mantener selección si se puede
+        if (selected != null) {
+            Producto keep = list.stream()
+                    .filter(p -> Objects.equals(p.id_producto, selected.id_producto))
+                    .findFirst()
+                    .orElse(null);
+            if (keep != null) setSelected(keep);
+            else clearSelected();
         }
-
-        Task<Void> task = new Task<>() {
-            @Override protected Void call() throws Exception {
-                var resp = api.getResp(path.toString());
-                int code = resp.statusCode();
-                if (code >= 200 && code < 300) {
-                    List<Producto> list = om.readValue(resp.body(), new TypeReference<List<Producto>>() {});
-                    Platform.runLater(() -> {
-                        pagina = list;
-                        if (mode == ViewMode.CARDS) {
-                            buildCards(list);
-                        } else {
-                            tbl.setItems(FXCollections.observableArrayList(list));
-                        }
-
-                        // mantener selección si se puede
-                        if (selected != null) {
-                            Producto keep = list.stream()
-                                    .filter(p -> Objects.equals(p.id_producto, selected.id_producto))
-                                    .findFirst()
-                                    .orElse(null);
-                            if (keep != null) setSelected(keep);
-                            else clearSelected();
-                        }
-
-                        setLoading(false);
-                    });
-                } else {
-                    Platform.runLater(() -> {
-                        setLoading(false);
-                        alert("HTTP " + code + "\n" + resp.body());
-                    });
-                }
-                return null;
-            }
-        };
-        new Thread(task, "load-productos").start();
     }
 
     // =========================================================
     // tarjetas
     // =========================================================
     private void buildCards(List<Producto> list) {
-        cardGrid.getChildren().clear();
-        cardById.clear();
-        imgById.clear();
-        if (list == null) return;
+        for (String k : precargadas) imagenes.soltar(k);
+        precargadas = new HashSet<>();
+        cardGrid.setItemsPlano(list);
+    }
+
+    /**
+     * Precarga las imágenes de la pantalla siguiente (hacia donde se desplaza el usuario),
+     * con prioridad = distancia al viewport, y suelta las precargas que ya no aplican.
+     */
+    private void precargarSiguientePantalla(int dir) {
+        int a = cardGrid.primeraFilaVisible();
+        int b = cardGrid.ultimaFilaVisible();
+        int n = Math.max(1, b - a + 1);
+        int desde = (dir > 0) ? b + 1 : a - n;
+        int hasta = (dir > 0) ? b + n : a - 1;
+
+        Set<String> nuevas = new HashSet<>();
+        for (int fila = Math.max(0, desde); fila <= hasta; fila++) {
+            int prio = cardGrid.distanciaAlViewport(fila);
+            for (Producto p : cardGrid.fila(fila)) {
+                String k = imagenes.precargar(p.imagen_url, Miniaturas.Tamano.CARD, prio);
+                if (k == null) continue;
+                if (precargadas.remove(k)) imagenes.soltar(k); // ya la reteníamos: no contar doble
+                nuevas.add(k);
+            }
+        }
+        for (String k : precargadas) imagenes.soltar(k);
+        precargadas = nuevas;
+    }
+
+    private void buildMenuCarta() {
+        MenuItem itEdit   = new MenuItem("Editar...");
+        MenuItem itPrecio = new MenuItem("Editar precio...");
+        MenuItem itStock  = new MenuItem("Sumar stock...");
+        MenuItem itEstado = new MenuItem("Cambiar estado...");
+        MenuItem itImg    = new MenuItem("Imágenes...");
+        itEdit.setOnAction(e -> { if (menuProducto != null) editarProductoFull(menuProducto); });
+        itPrecio.setOnAction(e -> { if (menuProducto != null) editarPrecioProducto(menuProducto); });
+        itStock.setOnAction(e -> { if (menuProducto != null) sumarStockProducto(menuProducto); });
+        itEstado.setOnAction(e -> { if (menuProducto != null) cambiarEstadoProducto(menuProducto); });
+        itImg.setOnAction(e -> { if (menuProducto != null) gestionarImagenesProducto(menuProducto); });
+        menuCarta.getItems().addAll(itEdit, new SeparatorMenuItem(),
+                itPrecio, itStock, itEstado, new SeparatorMenuItem(), itImg);
+    }
 
-        for (Producto p : list) {
-            VBox card = new VBox(8);
+    /** Tarjeta reciclable: los nodos se crean una vez y se re-enlazan al producto visible. */
+    private final class CartaProducto implements CardGrid.Carta<Producto> {
+        private final VBox card = new VBox(8);
+        private final ImageView iv = new ImageView();
+        private final Label name = new Label();
+        private final Label cat = new Label();
+        private final Label precio = new Label();
+        private final Label stock = new Label();
+        private final Label estado = new Label();
+        private Producto p;
+
+        CartaProducto() {
             card.setAlignment(Pos.TOP_LEFT);
             card.setPadding(new Insets(10));
             card.setMinWidth(MIN_CARD_W);
             card.setMaxWidth(MAX_CARD_W);
-            card.setStyle(CARD_BASE_STYLE);
-
-            ImageView iv = new ImageView(loadImageSafe(p.imagen_url));
             iv.setPreserveRatio(true);
             iv.setSmooth(true);
-
-            Label name = new Label((p.nombre == null || p.nombre.isBlank()) ? "—" : p.nombre);
             name.setStyle("-fx-font-weight:700; -fx-font-size:13px;");
             name.setWrapText(true);
-
-            Label cat = new Label(p.getNombreCategoria());
             cat.setStyle("-fx-opacity:0.75;");
+            card.getChildren().addAll(iv, name, cat, new HBox(10, precio, stock), estado);
 
-            int stock = (p.stock == null) ? 0 : p.stock;
-            HBox meta = new HBox(10,
-                    new Label("S/ " + p.getPrecioBD().setScale(2).toPlainString()),
-                    new Label("Stock: " + stock)
-            );
+            card.setOnMouseClicked(ev -> {
+                if (p == null) return;
+                setSelected(p);
+                if (ev.getClickCount() == 2) editarProductoFull(p);
+            });
+            card.setOnContextMenuRequested(e -> {
+                if (p == null) return;
+                menuProducto = p;
+                menuCarta.show(card, e.getScreenX(), e.getScreenY());
+            });
+        }
+
+        @Override public Node nodo() { return card; }
+
+        @Override public void mostrar(Producto p, double ancho) {
+            mostrar(p, ancho, -1);
+        }
+
+        @Override public void mostrar(Producto p, double ancho, int fila) {
+            this.p = p;
+            boolean sel = selected != null && Objects.equals(selected.id_producto, p.id_producto);
+            card.setStyle(sel ? CARD_SELECTED_STYLE : CARD_BASE_STYLE);
+
+            double imgSize = Math.max(120, ancho - 20);
+            iv.setFitWidth(imgSize);
+            iv.setFitHeight(imgSize);
+            // las visibles primero; las que el VirtualFlow arma fuera de pantalla, después
+            int prio = (fila < 0) ? 0 : cardGrid.distanciaAlViewport(fila);
+            imagenes.cargarEn(iv, p.imagen_url, Miniaturas.Tamano.CARD, prio);
+
+            name.setText((p.nombre == null || p.nombre.isBlank()) ? "—" : p.nombre);
+            cat.setText(p.getNombreCategoria());
+            precio.setText("S/ " + p.getPrecioBD().setScale(2).toPlainString());
+            stock.setText("Stock: " + ((p.stock == null) ? 0 : p.stock));
 
             boolean activo = p.estado != null && p.estado.equalsIgnoreCase("ACTIVO");
-            Label estado = new Label(p.estado == null ? "—" : p.estado.toUpperCase());
+            estado.setText(p.estado == null ? "—" : p.estado.toUpperCase());
             estado.setStyle(
                     "-fx-background-radius:8; -fx-padding:2 8 2 8; -fx-font-size:11px; -fx-text-fill:white;" +
                             (activo ? "-fx-background-color:#16a34a;" : "-fx-background-color:#9ca3af;")
             );
-
-            card.setOnMouseClicked(ev -> {
-                setSelected(p);
-                if (ev.getClickCount() == 2) {
-                    editarProductoFull(p);
-                }
-            });
-
-            // menú contextual
-            ContextMenu cm = new ContextMenu();
-            MenuItem itEdit   = new MenuItem("Editar...");
-            MenuItem itPrecio = new MenuItem("Editar precio...");
-            MenuItem itStock  = new MenuItem("Sumar stock...");
-            MenuItem itEstado = new MenuItem("Cambiar estado...");
-            MenuItem itImg    = new MenuItem("Imágenes...");
-            itEdit.setOnAction(e -> editarProductoFull(p));
-            itPrecio.setOnAction(e -> editarPrecioProducto(p));
-            itStock.setOnAction(e -> sumarStockProducto(p));
-            itEstado.setOnAction(e -> cambiarEstadoProducto(p));
-            itImg.setOnAction(e -> gestionarImagenesProducto(p));
-            cm.getItems().addAll(itEdit, new SeparatorMenuItem(),
-                    itPrecio, itStock, itEstado, new SeparatorMenuItem(), itImg);
-            card.setOnContextMenuRequested(e -> cm.show(card, e.getScreenX(), e.getScreenY()));
-
-            card.getChildren().addAll(iv, name, cat, meta, estado);
-            cardGrid.getChildren().add(card);
-
-            cardById.put(p.id_producto, card);
-            imgById.put(p.id_producto, iv);
-
-            if (selected != null && Objects.equals(selected.id_producto, p.id_producto)) {
-                card.setStyle(CARD_SELECTED_STYLE);
-            }
         }
-
-        double w = (lastViewportWidth > 0)
-                ? lastViewportWidth
-                : cardsScroll.getViewportBounds().getWidth();
-        updateGridLayout(w);
     }
 
     private void setSelected(Producto p) {
-        if (selected != null) {
-            VBox old = cardById.get(selected.id_producto);
-            if (old != null) old.setStyle(CARD_BASE_STYLE);
-        }
         selected = p;
-        VBox now = cardById.get(p.id_producto);
-        if (now != null) now.setStyle(CARD_SELECTED_STYLE);
+        cardGrid.refresh();
 
         if (tbl.isVisible() && tbl.getItems() != null) {
             for (Producto row : tbl.getItems()) {
@@ -380,41 +429,8 @@ public class ProductosController {
     }
 
     private void clearSelected() {
-        if (selected != null) {
-            VBox c = cardById.get(selected.id_producto);
-            if (c != null) c.setStyle(CARD_BASE_STYLE);
-        }
         selected = null;
-    }
-
-    /** Ajusta número de columnas y ancho de cada tarjeta. */
-    private void updateGridLayout(double totalWidth) {
-        if (totalWidth <= 0) return;
-
-        double usable = Math.max(0, totalWidth - GRID_PADDING);
-        // cuántas tarjetas de 220 + gap caben
-        int cols = Math.max(1, (int) Math.floor((usable + HGAP) / (MIN_CARD_W + HGAP)));
-
-        // ancho real que le toca a cada tarjeta
-        double perWidth = (usable - (cols - 1) * HGAP) / cols;
-        // lo forzamos a min / max
-        perWidth = Math.max(MIN_CARD_W, Math.min(MAX_CARD_W, perWidth));
-
-        cardGrid.setHgap(HGAP);
-        cardGrid.setVgap(HGAP);
-        cardGrid.setPrefColumns(cols);
-
-        for (Map.Entry<Integer, VBox> e : cardById.entrySet()) {
-            VBox card = e.getValue();
-            card.setPrefWidth(perWidth);
-
-            ImageView iv = imgById.get(e.getKey());
-            if (iv != null) {
-                double imgSize = Math.max(120, perWidth - 20);
-                iv.setFitWidth(imgSize);
-                iv.setFitHeight(imgSize);
-            }
-        }
+        cardGrid.refresh();
     }
 
     // =========================================================
@@ -479,19 +495,12 @@ public class ProductosController {
 
     private void gestionarImagenesProducto(Producto p) {
         try {
-            var url = getClass().getResource("/com/mycompany/pasteleria/desktop/view/ImagenesProducto.fxml");
-            if (url == null) throw new IllegalStateException("Falta ImagenesProducto.fxml");
             Dialog<ButtonType> dlg = new Dialog<>();
             dlg.setTitle("Imágenes — " + p.nombre);
             dlg.getDialogPane().getButtonTypes().addAll(ButtonType.CLOSE);
-            FXMLLoader loader = new FXMLLoader(url);
-            Parent root = loader.load();
-            Object ctrl = loader.getController();
-            try {
-                var m = ctrl.getClass().getMethod("setProducto", com.mycompany.pasteleria.desktop.model.Producto.class);
-                m.invoke(ctrl, p);
-            } catch (NoSuchMethodException ignored) {}
-            dlg.getDialogPane().setContent(root);
+            Vistas.Vista<ImagenesProductoController> v = Vistas.cargar("ImagenesProducto.fxml");
+            v.controller().setProducto(p);
+            dlg.getDialogPane().setContent(v.root());
             dlg.showAndWait();
         } catch (Exception ex) {
             alert("No se pudo abrir gestor de imágenes.\n" + ex.getMessage());
@@ -500,20 +509,14 @@ public class ProductosController {
 
     private void abrirForm(Producto p) {
         try {
-            var url = getClass().getResource("/com/mycompany/pasteleria/desktop/view/ProductoForm.fxml");
-            if (url == null) throw new IllegalStateException("Falta ProductoForm.fxml");
-
             Dialog<ButtonType> dlg = new Dialog<>();
             dlg.setTitle(p == null ? "Nuevo producto" : "Editar producto");
             dlg.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
 
-            FXMLLoader loader = new FXMLLoader(url);
-            Parent root = loader.load();
-
-            var ctrl = loader.<ProductoFormController>getController();
-            ctrl.init(api, om, cargarCategoriasParaForm(), p);
+            Vistas.Vista<ProductoFormController> v = Vistas.cargar("ProductoForm.fxml");
+            v.controller().init(api, om, cargarCategoriasParaForm(), p);
 
-            dlg.getDialogPane().setContent(root);
+            dlg.getDialogPane().setContent(v.root());
             var res = dlg.showAndWait();
             if (res.isPresent() && res.get() == ButtonType.OK) {
                 load();
@@ -557,87 +560,88 @@ public class ProductosController {
         new Thread(t, "patch-productos").start();
     }
 
-    // =========================================================
-    // imagen segura
-    // =========================================================
-    private Image loadImageSafe(String raw) {
-        try {
-            String url = (raw == null) ? "" : raw.trim();
-            if (url.isEmpty()) {
-                return new Image(IMG_FALLBACK, 200, 200, true, true, true);
-            }
-            // ruta local
-            if (url.matches("^[A-Za-z]:\\\\.*")) {
-                File f = new File(url);
-                return new Image(f.toURI().toString(), 200, 200, true, true, true);
-            }
-            // recurso
-            if (!url.startsWith("http://") && !url.startsWith("https://")) {
-                var res = getClass().getResource(url.startsWith("/") ? url : "/" + url);
-                if (res != null) return new Image(res.toExternalForm(), 200, 200, true, true, true);
-                return new Image(IMG_FALLBACK, 200, 200, true, true, true);
-            }
-            // remota
-            url = url.replace(" ", "%20");
-            Image img = new Image(url, 200, 200, true, true, true);
-            if (img.isError()) return new Image(IMG_FALLBACK, 200, 200, true, true, true);
-            return img;
-        } catch (Exception ex) {
-            return new Image(IMG_FALLBACK, 200, 200, true, true, true);
-        }
-    }
-
     // =========================================================
     // util
     // =========================================================
     private static String enc(String x) { return URLEncoder.encode(x, StandardCharsets.UTF_8); }
     private static String esc(String x) { return x == null ? "" : x.replace("\"", "\\\""); }
 
+    /**
+     * Exporta en streaming los productos que cumplen los filtros. Con texto, exactamente los que
+     * muestra la vista (búsqueda en memoria por prefijos sin acentos), no una aproximación con ilike.
+     */
     @FXML
-    public void exportarCSV() {
-        var items = (mode == ViewMode.TABLE) ? tbl.getItems() : FXCollections.observableArrayList(pagina);
-        if (items == null || items.isEmpty()) {
-            alert("No hay datos para exportar.");
-            return;
+    public void exportar() {
+        String filtros = (filtroCategoriaId != null) ? "&id_categoria=eq." + filtroCategoriaId : "";
+        Exportador.Consulta consulta = Exportador.productos(filtros);
+        if (!filtroNombre.isBlank()) {
+            List<Integer> ids = new ArrayList<>(pagina.size());
+            for (Producto p : pagina) ids.add(p.id_producto);
+            consulta = consulta.soloClaves(ids);
         }
+        DialogoExportacion.exportar(
+                (cardGrid != null && cardGrid.getScene() != null) ? cardGrid.getScene().getWindow() : null,
+                api, "productos", consulta
+        );
+    }
 
+    /** Importa productos desde CSV (altas y cambios por lotes) y muestra el informe por fila. */
+    @FXML
+    public void importar() {
+        Window owner = (cardGrid != null && cardGrid.getScene() != null) ? cardGrid.getScene().getWindow() : null;
         FileChooser fc = new FileChooser();
-        fc.setTitle("Guardar productos (CSV)");
-        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV","*.csv"));
-        fc.setInitialFileName("productos.csv");
-        File f = fc.showSaveDialog(
-                (cardsScroll != null && cardsScroll.getScene() != null) ? cardsScroll.getScene().getWindow() : null
-        );
+        fc.setTitle("Importar productos (CSV)");
+        fc.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File f = fc.showOpenDialog(owner);
         if (f == null) return;
 
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(f, false))) {
-            bw.write("ID,Nombre,Categoría,Precio,Stock,Estado,Descripción,ImagenURL");
-            bw.newLine();
-            for (Producto p : items) {
-                String id     = String.valueOf(p.id_producto);
-                String nombre = (p.nombre == null) ? "" : p.nombre;
-                String cat    = p.getNombreCategoria();
-                String precio = p.getPrecioBD().setScale(2).toPlainString();
-                String stock  = String.valueOf(p.stock == null ? 0 : p.stock);
-                String estado = (p.estado == null) ? "" : p.estado;
-                String desc   = (p.descripcion == null) ? "" : p.descripcion;
-                String img    = (p.imagen_url == null) ? "" : p.imagen_url;
-
-                bw.write(csv(id)+","+csv(nombre)+","+csv(cat)+","+csv(precio)+","+csv(stock)+","+csv(estado)+","+csv(desc)+","+csv(img));
-                bw.newLine();
+        setLoading(true);
+        Task<ImportadorProductos.Informe> t = new Task<>() {
+            @Override
+            protected ImportadorProductos.Informe call() throws Exception {
+                return new ImportadorProductos(api).importar(f.toPath());
             }
-            info("Exportado: " + f.getAbsolutePath());
-        } catch (Exception ex) {
-            alert("Error al exportar: " + ex.getMessage());
-        }
+        };
+        t.setOnSucceeded(e -> {
+            setLoading(false);
+            mostrarInforme(t.getValue());
+        });
+        t.setOnFailed(e -> {
+            setLoading(false);
+            alert("No se pudo importar.\n" + t.getException().getMessage());
+        });
+        new Thread(t, "importar-productos").start();
     }
 
-    private static String csv(String s) {
-        String v = (s == null) ? "" : s;
-        if (v.contains(",") || v.contains("\"") || v.contains("\n")) {
-            v = "\"" + v.replace("\"","\"\"") + "\"";
+    private void mostrarInforme(ImportadorProductos.Informe inf) {
+        Dialog<Void> d = new Dialog<>();
+        d.setTitle("Importación de productos");
+        d.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+        d.setResizable(true);
+
+        Label resumen = new Label(inf.leidas() + " filas · " + inf.creadas() + " creadas · "
+                + inf.actualizadas() + " actualizadas · " + inf.problemas().size() + " con error");
+        VBox box = new VBox(10, resumen);
+        box.setPadding(new Insets(12));
+
+        if (!inf.problemas().isEmpty()) {
+            TableView<ImportadorProductos.Problema> tv = new TableView<>(FXCollections.observableArrayList(inf.problemas()));
+            TableColumn<ImportadorProductos.Problema, String> cLinea = new TableColumn<>("Línea");
+            cLinea.setCellValueFactory(c -> ValorFijo.de(String.valueOf(c.getValue().linea())));
+            cLinea.setPrefWidth(60);
+            TableColumn<ImportadorProductos.Problema, String> cNombre = new TableColumn<>("Producto");
+            cNombre.setCellValueFactory(c -> ValorFijo.de(c.getValue().nombre()));
+            cNombre.setPrefWidth(200);
+            TableColumn<ImportadorProductos.Problema, String> cMsg = new TableColumn<>("Error");
+            cMsg.setCellValueFactory(c -> ValorFijo.de(c.getValue().mensaje()));
+            cMsg.setPrefWidth(380);
+            tv.getColumns().setAll(List.of(cLinea, cNombre, cMsg));
+            tv.setPrefSize(680, 320);
+            VBox.setVgrow(tv, Priority.ALWAYS);
+            box.getChildren().add(tv);
         }
-        return v;
+        d.getDialogPane().setContent(box);
+        d.showAndWait();
     }
 
     private void setLoading(boolean v) {
@@ -650,11 +654,12 @@ public class ProductosController {
         if (tglCards     != null) tglCards.setDisable(v);
         if (tglTable     != null) tglTable.setDisable(v);
         if (tbl          != null) tbl.setDisable(v);
-        if (cardsScroll  != null) cardsScroll.setDisable(v);
+        if (cardGrid     != null) cardGrid.setDisable(v);
         if (btnPrecio    != null) btnPrecio.setDisable(v);
         if (btnStock     != null) btnStock.setDisable(v);
         if (btnEstado    != null) btnEstado.setDisable(v);
         if (btnImagenes  != null) btnImagenes.setDisable(v);
+        if (btnImport    != null) btnImport.setDisable(v);
         if (btnExport    != null) btnExport.setDisable(v);
     }
 
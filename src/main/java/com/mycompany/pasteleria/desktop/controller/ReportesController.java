@@ -0,0 +1,215 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/controller/ReportesController.java
+package com.mycompany.pasteleria.desktop.controller;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+
+import com.mycompany.pasteleria.desktop.model.Producto;
+import com.mycompany.pasteleria.desktop.service.AlmacenReportes;
+import com.mycompany.pasteleria.desktop.service.CatalogoProductos;
+import com.mycompany.pasteleria.desktop.service.ConsultaReportes;
+import com.mycompany.pasteleria.desktop.service.ConsultaReportes.Agrupacion;
+import com.mycompany.pasteleria.desktop.service.ConsultaReportes.Grupo;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.ValorFijo;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.concurrent.Task;
+import javafx.fxml.FXML;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+/**
+ * Reportes de ventas (día/mes, producto, distrito, método de pago).
+ * - Los datos vienen del almacén columnar local (AlmacenReportes): sin GROUP BY en Supabase.
+ * - Cambiar fechas/agrupación recalcula en memoria (fork-join); "Sincronizar" sólo trae lo nuevo.
+ */
+public class ReportesController implements CicloVida {
+
+    private static final Set<String> ANULADOS = Set.of("CANCELADO", "PAGO_NO_VALIDO");
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+    private static final int MAX_BARRAS_DIA = 62;
+
+    // ====== UI ======
+    @FXML private DatePicker dpDesde, dpHasta;
+    @FXML private ComboBox<String> cmbAgrupar;
+    @FXML private CheckBox chkSinAnulados;
+    @FXML private Button btnSincronizar;
+    @FXML private Label lblTotal, lblPedidos, lblTicket, lblEstado;
+    @FXML private BarChart<String, Number> chartPeriodo;
+    @FXML private ProgressIndicator loader;
+
+    @FXML private TableView<Grupo> tblProductos, tblDistritos, tblMetodos;
+    @FXML private TableColumn<Grupo, String> colProdNombre, colProdCant, colProdMonto;
+    @FXML private TableColumn<Grupo, String> colDistNombre, colDistCant, colDistMonto;
+    @FXML private TableColumn<Grupo, String> colMetNombre, colMetCant, colMetMonto;
+
+    // ====== estado ======
+    private final AlmacenReportes almacen = AlmacenReportes.get();
+    private Task<ConsultaReportes.Resultado> calculoTask;
+    private final Runnable alCambiarCatalogo = this::calcular;
+    private long ocultaDesde = 0;
+
+    @FXML
+    public void initialize() {
+        LocalDate hoy = LocalDate.now();
+        dpDesde.setValue(hoy.minusMonths(11).withDayOfMonth(1));
+        dpHasta.setValue(hoy);
+        cmbAgrupar.setItems(FXCollections.observableArrayList("Por mes", "Por día"));
+        cmbAgrupar.getSelectionModel().selectFirst();
+
+        columnas(colProdNombre, colProdCant, colProdMonto);
+        columnas(colDistNombre, colDistCant, colDistMonto);
+        columnas(colMetNombre, colMetCant, colMetMonto);
+        for (TableView<Grupo> t : List.of(tblProductos, tblDistritos, tblMetodos)) {
+            t.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_ALL_COLUMNS);
+        }
+
+        // recalcular en memoria al cambiar filtros
+        dpDesde.valueProperty().addListener((o, a, b) -> calcular());
+        dpHasta.valueProperty().addListener((o, a, b) -> calcular());
+        cmbAgrupar.valueProperty().addListener((o, a, b) -> calcular());
+        chkSinAnulados.selectedProperty().addListener((o, a, b) -> calcular());
+        CatalogoProductos.get().addListener(alCambiarCatalogo); // nombres de producto
+
+        // 1) lo que haya en disco (inmediato), 2) lo nuevo del servidor
+        almacen.cargarLocal().thenRun(() -> Platform.runLater(this::calcular));
+        sincronizar();
+    }
+
+    private static void columnas(TableColumn<Grupo, String> nombre, TableColumn<Grupo, String> cant,
+                                 TableColumn<Grupo, String> monto) {
+        nombre.setCellValueFactory(c -> ValorFijo.de(c.getValue().clave()));
+        cant.setCellValueFactory(c -> ValorFijo.de(String.valueOf(c.getValue().cantidad())));
+        monto.setCellValueFactory(c -> ValorFijo.de(money(c.getValue().centimos())));
+    }
+
+    // ====== sincronización ======
+    @FXML
+    public void sincronizar() {
+        boolean vacio = almacen.vista().nPedidos() == 0;
+        if (vacio) setLoading(true);
+        btnSincronizar.setDisable(true);
+        lblEstado.setText("Sincronizando…");
+        almacen.sincronizar(n -> Platform.runLater(() -> lblEstado.setText("Sincronizando… " + n + " filas")))
+                .whenComplete((v, ex) -> Platform.runLater(() -> {
+                    setLoading(false);
+                    btnSincronizar.setDisable(false);
+                    if (ex != null) {
+                        lblEstado.setText("Sin conexión: usando datos locales");
+                        if (vacio) showError("No se pudo sincronizar reportes.\n" + causa(ex).getMessage());
+                    }
+                    calcular();
+                }));
+    }
+
+    // ====== cálculo ======
+    private void calcular() {
+        LocalDate d = dpDesde.getValue(), h = dpHasta.getValue();
+        if (d == null || h == null) return;
+        if (h.isBefore(d)) { LocalDate t = d; d = h; h = t; }
+
+        Agrupacion ag = cmbAgrupar.getSelectionModel().getSelectedIndex() == 1 ? Agrupacion.DIA : Agrupacion.MES;
+        ConsultaReportes.Filtro f = new ConsultaReportes.Filtro(d, h, ag,
+                chkSinAnulados.isSelected() ? ANULADOS : Set.of());
+        AlmacenReportes.Vista vista = almacen.vista();
+
+        if (calculoTask != null && calculoTask.isRunning()) calculoTask.cancel(true);
+        calculoTask = new Task<>() {
+            @Override
+            protected ConsultaReportes.Resultado call() {
+                return ConsultaReportes.calcular(almacen, vista, f, ReportesController::nombreProducto);
+            }
+        };
+        Task<ConsultaReportes.Resultado> t = calculoTask;
+        t.setOnSucceeded(e -> pintar(t.getValue(), vista));
+        t.setOnFailed(e -> showError("No se pudo calcular el reporte.\n" + t.getException().getMessage()));
+        new Thread(t, "reportes-calculo").start();
+    }
+
+    private void pintar(ConsultaReportes.Resultado r, AlmacenReportes.Vista vista) {
+        lblTotal.setText(money(r.totalCent()));
+        lblPedidos.setText(String.valueOf(r.pedidos()));
+        lblTicket.setText(r.pedidos() == 0 ? money(0) : money(r.totalCent() / r.pedidos()));
+
+        // gráfico: con muchos días sólo se rotulan algunas barras
+        XYChart.Series<String, Number> serie = new XYChart.Series<>();
+        List<Grupo> periodo = r.porPeriodo();
+        int paso = Math.max(1, (periodo.size() + MAX_BARRAS_DIA - 1) / MAX_BARRAS_DIA);
+        for (int i = 0; i < periodo.size(); i += paso) {
+            long cent = 0;
+            int fin = Math.min(periodo.size(), i + paso);
+            for (int k = i; k < fin; k++) cent += periodo.get(k).centimos();
+            serie.getData().add(new XYChart.Data<>(periodo.get(i).clave(), BigDecimal.valueOf(cent, 2)));
+        }
+        chartPeriodo.getData().setAll(List.of(serie));
+
+        tblProductos.setItems(FXCollections.observableArrayList(r.porProducto()));
+        tblDistritos.setItems(FXCollections.observableArrayList(r.porDistrito()));
+        tblMetodos.setItems(FXCollections.observableArrayList(r.porMetodo()));
+
+        String sync = vista.sincronizadoMs() <= 0 ? "sin sincronizar"
+                : "sincronizado " + HORA.format(Instant.ofEpochMilli(vista.sincronizadoMs()).atZone(ZoneId.systemDefault()));
+        if (btnSincronizar.isDisabled()) sync = "sincronizando…";
+        lblEstado.setText(vista.nPedidos() + " pedidos en caché · " + sync + " · cálculo " + r.calculoMs() + " ms");
+    }
+
+    private static String nombreProducto(int idProducto) {
+        Producto p = CatalogoProductos.get().porId(idProducto);
+        return (p != null && p.nombre != null && !p.nombre.isBlank()) ? p.nombre : "Producto #" + idProducto;
+    }
+
+    // ====== ciclo de vida ======
+    @Override
+    public void onHide() {
+        ocultaDesde = System.currentTimeMillis();
+    }
+
+    @Override
+    public void onShow() {
+        if (CicloVida.vencida(ocultaDesde)) sincronizar();
+        ocultaDesde = 0;
+    }
+
+    @Override
+    public void onDispose() {
+        CatalogoProductos.get().removeListener(alCambiarCatalogo);
+        if (calculoTask != null) calculoTask.cancel(true);
+    }
+
+    // ====== helpers ======
+    private void setLoading(boolean v) {
+        if (loader != null) loader.setVisible(v);
+    }
+
+    private static String money(long cent) {
+        return "S/ " + BigDecimal.valueOf(cent, 2).toPlainString();
+    }
+
+    private static Throwable causa(Throwable ex) {
+        while (ex.getCause() != null && ex.getCause() != ex) ex = ex.getCause();
+        return ex;
+    }
+
+    private void showError(String msg) {
+        Platform.runLater(() ->
+                new Alert(Alert.AlertType.ERROR, msg, ButtonType.OK).showAndWait()
+        );
+    }
+}
@@ -1,17 +1,29 @@
 // RUTA: src/main/java/com/mycompany/pasteleria/desktop/controller/ShellController.java
 package com.mycompany.pasteleria.desktop.controller;
 
-import java.net.URL;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.mycompany.pasteleria.desktop.service.CatalogoProductos;
+import com.mycompany.pasteleria.desktop.service.DirectorioClientes;
+import com.mycompany.pasteleria.desktop.service.EstadoRepartidores;
+import com.mycompany.pasteleria.desktop.ui.CicloVida;
+import com.mycompany.pasteleria.desktop.ui.Vistas;
 import javafx.animation.FadeTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.ToggleButton;
 import javafx.scene.layout.StackPane;
 import javafx.util.Duration;
@@ -39,27 +51,69 @@ public class ShellController {
     @FXML private ToggleButton navProductos;
     @FXML private ToggleButton navConfig;
 
+    private static final Logger LOG = Logger.getLogger(ShellController.class.getName());
+
     // ========== CACHE ==========
-    private final Map<String, Parent> viewCache = new HashMap<>();
+    // orden de acceso (LRU): bajo presión de memoria se descartan las vistas menos usadas
+    private final LinkedHashMap<String, Parent> viewCache = new LinkedHashMap<>(16, 0.75f, true);
+    private static final double USO_HEAP_MAX = 0.75;
+    private static final int MAX_VISTAS = 8;
+
+    // ========== PRECARGA ==========
+    // vistas más usadas: FXML parseado (y su carga de datos lanzada) en segundo plano al iniciar
+    private final Map<String, CompletableFuture<Parent>> precargas = new ConcurrentHashMap<>();
+    private final ExecutorService precargaPool = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "shell-precarga");
+        t.setDaemon(true);
+        return t;
+    });
+    private String vistaActual;
+    private Parent vistaVisible;
 
     // ========== RUTAS FXML ==========
     private static final String FXML_DASHBOARD  = "/com/mycompany/pasteleria/desktop/view/Dashboard.fxml";
     private static final String FXML_PAGOS      = "/com/mycompany/pasteleria/desktop/view/Pagos.fxml";
-    private static final String FXML_PEDIDOS    = "/com/mycompany/pasteleria/desktop/view/Pedidos.fxml";
-    private static final String FXML_COCINA     = "/com/mycompany/pasteleria/desktop/view/Cocina.fxml";
+    private static final String FXML_PEDIDOS    = Vistas.PEDIDOS;   // armada en código
+    private static final String FXML_COCINA     = Vistas.COCINA;    // armada en código
     private static final String FXML_PRODUCTOS  = "/com/mycompany/pasteleria/desktop/view/Productos.fxml";
     private static final String FXML_CATEGORIAS = "/com/mycompany/pasteleria/desktop/view/Categorias.fxml";
+    private static final String FXML_CLIENTES   = "/com/mycompany/pasteleria/desktop/view/Clientes.fxml";
+    private static final String FXML_REPORTES   = "/com/mycompany/pasteleria/desktop/view/Reportes.fxml";
 
     // Vistas que todavía no existen: reciclamos
     private static final String FXML_REGISTRAR  = FXML_PEDIDOS;
     private static final String FXML_ENVIOS     = FXML_PEDIDOS;
-    private static final String FXML_REPORTES   = FXML_DASHBOARD;
 
     // ========== INIT ==========
     @FXML
     public void initialize() {
         // al iniciar, muestro el dashboard real
         showDashboard();
+
+        // después del primer frame: precargar Pedidos y Cocina + catálogo en memoria
+        Platform.runLater(this::precargarVistas);
+    }
+
+    /** Parsea en paralelo (fuera del hilo FX) las vistas más usadas y calienta cachés (catálogo, repartidores, clientes). */
+    private void precargarVistas() {
+        precargar("PEDIDOS", FXML_PEDIDOS);
+        precargar("COCINA", FXML_COCINA);
+        CatalogoProductos.get().iniciar();
+        EstadoRepartidores.get().iniciar();
+        DirectorioClientes.get().iniciar();
+    }
+
+    private void precargar(String key, String resourcePath) {
+        if (viewCache.containsKey(key) || precargas.containsKey(key)) return;
+        precargas.put(key, CompletableFuture.supplyAsync(() -> {
+            try {
+                Vistas.Vista<Object> v = Vistas.cargar(resourcePath);
+                v.root().getProperties().put(CicloVida.PROP_CONTROLLER, v.controller());
+                return v.root();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }, precargaPool));
     }
 
     // ========== TOPBAR ==========
@@ -164,11 +218,10 @@ public class ShellController {
 
     @FXML
     public void showClientes() {
-        // usas Categorias.fxml como “Clientes”
         go(
-            "CLIENTES",               // <-- key distinta
+            "CLIENTES",
             navClientes,
-            FXML_CATEGORIAS,
+            FXML_CLIENTES,
             "Clientes",
             "Inicio / Clientes"
         );
@@ -205,24 +258,50 @@ public class ShellController {
 
         // 1) marcar botón actual
         selectOnly(btn);
+        vistaActual = key;
+
+        // 2) precargada y aún en curso: spinner y se muestra al terminar (si sigue siendo la actual)
+        CompletableFuture<Parent> pre = precargas.get(key);
+        if (pre != null && !viewCache.containsKey(key) && !pre.isDone()) {
+            ProgressIndicator pi = new ProgressIndicator();
+            pi.setMaxSize(60, 60);
+            ocultar(vistaVisible);
+            vistaVisible = null;
+            contentPane.getChildren().setAll(pi);
+            titulos(title, breadcrumb);
+            pre.whenComplete((v, ex) -> Platform.runLater(() -> {
+                if (key.equals(vistaActual)) go(key, btn, resourcePath, title, breadcrumb);
+            }));
+            return;
+        }
 
-        // 2) cargar / obtener de cache
+        // 3) cargar / obtener de cache
         Parent view = loadView(key, resourcePath);
         if (view == null) {
             error("No se pudo cargar la vista: " + resourcePath);
             return;
         }
 
-        // 3) ponerlo en el centro
-        contentPane.getChildren().setAll(view);
+        // 4) ponerlo en el centro (la anterior se pausa, la nueva se reanuda)
+        if (vistaVisible != view) {
+            ocultar(vistaVisible);
+            vistaVisible = view;
+            contentPane.getChildren().setAll(view);
+            ciclo(view, CicloVida::onShow);
+        }
+        liberarSiHaceFalta(key);
 
-        // 4) animación
+        // 5) animación
         FadeTransition ft = new FadeTransition(Duration.millis(160), view);
         ft.setFromValue(0.0);
         ft.setToValue(1.0);
         ft.play();
 
-        // 5) actualizar títulos
+        // 6) actualizar títulos
+        titulos(title, breadcrumb);
+    }
+
+    private void titulos(String title, String breadcrumb) {
         if (lblTitle != null) {
             lblTitle.setText("Pastelería — " + title);
         }
@@ -236,12 +315,19 @@ public class ShellController {
             if (viewCache.containsKey(key)) {
                 return viewCache.get(key);
             }
-            URL url = getClass().getResource(resourcePath);
-            if (url == null) {
-                throw new IllegalStateException("No se encontró FXML: " + resourcePath);
+            // precargada en segundo plano: tomarla (si falló, se carga aquí como siempre)
+            CompletableFuture<Parent> pre = precargas.remove(key);
+            if (pre != null && pre.isDone() && !pre.isCompletedExceptionally()) {
+                Parent view = pre.join();
+                viewCache.put(key, view);
+                return view;
+            }
+            if (pre != null && pre.isCompletedExceptionally()) {
+                pre.exceptionally(ex -> { LOG.log(Level.WARNING, "Precarga fallida: " + key, ex); return null; });
             }
-            FXMLLoader loader = new FXMLLoader(url);
-            Parent view = loader.load();
+            Vistas.Vista<Object> v = Vistas.cargar(resourcePath);
+            Parent view = v.root();
+            view.getProperties().put(CicloVida.PROP_CONTROLLER, v.controller());
             viewCache.put(key, view);
             return view;
         } catch (Exception ex) {
@@ -250,6 +336,39 @@ public class ShellController {
         }
     }
 
+    // ========== CICLO DE VIDA ==========
+    private void ocultar(Parent view) {
+        if (view != null) ciclo(view, CicloVida::onHide);
+    }
+
+    private static void ciclo(Parent view, java.util.function.Consumer<CicloVida> accion) {
+        if (view.getProperties().get(CicloVida.PROP_CONTROLLER) instanceof CicloVida c) {
+            try {
+                accion.accept(c);
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Error en ciclo de vida de " + c.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+
+    /** Descarta vistas ocultas (LRU) si hay demasiadas o el heap está muy usado (> 75%). */
+    private void liberarSiHaceFalta(String actual) {
+        Runtime rt = Runtime.getRuntime();
+        Iterator<Map.Entry<String, Parent>> it = viewCache.entrySet().iterator();
+        while (it.hasNext()) {
+            long usado = rt.totalMemory() - rt.freeMemory();
+            boolean presion = (double) usado / rt.maxMemory() > USO_HEAP_MAX;
+            if (!presion && viewCache.size() <= MAX_VISTAS) break;
+            Map.Entry<String, Parent> e = it.next();
+            if (e.getKey().equals(actual)) continue;
+            ciclo(e.getValue(), CicloVida::onDispose);
+            it.remove();
+            LOG.info("Vista descartada de la caché: " + e.getKey() + (presion ? " (memoria)" : ""));
+            // el heap no baja hasta el próximo GC: por memoria, una vista por navegación
+            if (presion && viewCache.size() <= MAX_VISTAS) break;
+        }
+    }
+
     private void selectOnly(ToggleButton active) {
         // desactiva todos
         if (navDashboard != null) navDashboard.setSelected(false);
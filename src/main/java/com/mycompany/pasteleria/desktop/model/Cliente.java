@@ -3,15 +3,20 @@ package com.mycompany.pasteleria.desktop.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 
 /**
  * Cliente: campos públicos (compatibles con Jackson) + helpers seguros.
  * - Ignora campos desconocidos (resiliente a cambios del backend).
- * - Parsers opcionales para fechas (timestamp y date).
+ * - Fechas ya decodificadas al leer con {@link Json#MAPPER} (timestamp -> epoch ms, date -> LocalDate).
  * - Helpers para nombre completo, email/telefono mostrables.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -22,15 +27,17 @@ public class Cliente {
   public String  nombre;
   public String  apellido;
   public String  email;
+  @JsonProperty(access = JsonProperty.Access.WRITE_ONLY) // nunca se escribe (caché, exportes)
   public String  contrasena;      // ojo: NO mostrar en UI
   public String  telefono;
   public String  distrito;
   public String  direccion;
   public String  referencia;
-  /** timestamp con zona (ej. 2025-10-23T15:30:00+00:00) -> lo dejamos String para compatibilidad */
-  public String  fecha_registro;
-  /** date simple (ej. 2001-04-15) -> String para compatibilidad */
-  public String  fecha_cumple;
+  /** timestamp con zona (ej. 2025-10-23T15:30:00+00:00) como epoch ms; 0 = sin fecha */
+  @JsonDeserialize(using = Json.EpochMs.class)
+  public long    fecha_registro;
+  /** date simple (ej. 2001-04-15) */
+  public LocalDate fecha_cumple;
 
   // === Helpers opcionales (no rompen tu uso actual) ===
 
@@ -56,31 +63,22 @@ public class Cliente {
     return t.isEmpty() ? "—" : t;
   }
 
-  /** Fecha de registro parseada como OffsetDateTime (o null si no parsea). */
+  /** Fecha de registro en hora local (o null si no hay). */
   @JsonIgnore
   public OffsetDateTime getFechaRegistroDT() {
-    try {
-      if (isBlank(fecha_registro)) return null;
-      return OffsetDateTime.parse(fecha_registro);
-    } catch (Exception ignore) { return null; }
+    if (fecha_registro == Fechas.SIN_FECHA) return null;
+    return OffsetDateTime.ofInstant(Instant.ofEpochMilli(fecha_registro), ZoneId.systemDefault());
   }
 
   /** Fecha de registro corta “yyyy-MM-dd HH:mm” (o "—"). */
   @JsonIgnore
   public String getFechaRegistroCorta() {
-    OffsetDateTime odt = getFechaRegistroDT();
-    if (odt == null) return "—";
-    return odt.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+    return Fechas.fechaHora(fecha_registro);
   }
 
-  /** Fecha de cumpleaños como LocalDate (o null). */
+  /** Fecha de cumpleaños (o null). */
   @JsonIgnore
-  public LocalDate getFechaCumpleD() {
-    try {
-      if (isBlank(fecha_cumple)) return null;
-      return LocalDate.parse(fecha_cumple);
-    } catch (Exception ignore) { return null; }
-  }
+  public LocalDate getFechaCumpleD() { return fecha_cumple; }
 
   /** Dirección unificada (Distrito – Dirección (Referencia)) o "—". */
   @JsonIgnore
@@ -5,12 +5,16 @@ import java.math.RoundingMode;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
 
 /**
  * Modelo de la tabla "pagos".
  * Campos opcionales:
  *  - monto (si existe en tu tabla)
  *  - pedido (si haces join: pedido:pedidos(total,estado))
+ * fecha_registro llega decodificada a epoch ms (leer con {@link Json#MAPPER}).
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Pago {
@@ -19,7 +23,8 @@ public class Pago {
   public String  metodo;
   public String  estado_pago;
   public String  comprobante_url;
-  public String  fecha_registro;   // timestamptz ISO (lo dejamos como String)
+  @JsonDeserialize(using = Json.EpochMs.class)
+  public long    fecha_registro;   // timestamptz como epoch ms (0 = sin fecha)
 
   // Si tu tabla tiene columna NUMERIC/DECIMAL "monto", déjala así:
   public BigDecimal monto;         // puede venir null
@@ -38,6 +43,12 @@ public class Pago {
     return (monto == null) ? BigDecimal.ZERO : monto;
   }
 
+  /** "yyyy-MM-dd HH:mm" en hora local (o "—"). */
+  @JsonIgnore
+  public String getFechaRegistroCorta() {
+    return Fechas.fechaHora(fecha_registro);
+  }
+
   @JsonIgnore
   public static String money(BigDecimal v) {
     if (v == null) v = BigDecimal.ZERO;
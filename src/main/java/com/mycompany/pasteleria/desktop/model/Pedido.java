@@ -3,11 +3,16 @@ package com.mycompany.pasteleria.desktop.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
 
 /**
  * Pedido: compatible con Jackson por campos públicos.
@@ -15,6 +20,7 @@ import java.time.LocalTime;
  * - Ignora campos desconocidos (resiliencia a cambios en el backend).
  * - Enum de estado con "fromRaw" tolerante.
  * - Helpers seguros para nombre completo, total BigDecimal y fechas/horas.
+ * - Fechas decodificadas al leer (leer con {@link Json#MAPPER}): ordenar y pintar no vuelve a parsear texto.
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Pedido {
@@ -22,18 +28,22 @@ public class Pedido {
   // === Campos mapeados desde Supabase/PostgREST ===
   public Integer id_pedido;
   public Integer id_cliente;
-  /** timestamp ISO (ej. "2025-10-23T15:30:00") */
-  public String  fecha_pedido;
+  /** timestamp ISO (ej. "2025-10-23T15:30:00") como epoch ms; 0 = sin fecha */
+  @JsonDeserialize(using = Json.EpochMs.class)
+  public long    fecha_pedido;
   /** date ISO (ej. "2025-10-24") */
-  public String  fecha_entrega;
+  public LocalDate fecha_entrega;
   /** time ISO (ej. "16:30:00") */
-  public String  hora_entrega;
+  public LocalTime hora_entrega;
   /** REGISTRADO, COCINA, COCINANDO, COCINADO, ENTREGADO, CANCELADO */
   public String  estado;
   /** numeric/text; lo dejamos String para no romper nada */
   public String  total;
+  public String  direccion;
+  public String  distrito;
+  public String  referencia;
 
-  /** Relación embebida: cliente:cliente(nombre,apellido) */
+  /** Relación embebida: cliente:cliente(nombre,apellido[,telefono]) */
   public ClienteEmb cliente;
 
   @JsonIgnore
@@ -64,37 +74,20 @@ public class Pedido {
     return full.isEmpty() ? "—" : full;
   }
 
-  /** Fecha pedido como LocalDateTime (null si no parsea). */
+  /** Fecha pedido como LocalDateTime en hora local (null si no hay). */
   @JsonIgnore
   public LocalDateTime getFechaPedidoDT() {
-    try {
-      if (fecha_pedido == null || fecha_pedido.isBlank()) return null;
-      // Acepta "yyyy-MM-ddTHH:mm[:ss]"
-      String s = fecha_pedido.replace(' ', 'T');
-      return LocalDateTime.parse(s.length() == 16 ? s + ":00" : s);
-    } catch (Exception ignore) { return null; }
+    if (fecha_pedido == Fechas.SIN_FECHA) return null;
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(fecha_pedido), ZoneId.systemDefault());
   }
 
-  /** Fecha entrega como LocalDate (null si no parsea). */
+  /** Fecha entrega (null si no hay). */
   @JsonIgnore
-  public LocalDate getFechaEntregaD() {
-    try {
-      if (fecha_entrega == null || fecha_entrega.isBlank()) return null;
-      return LocalDate.parse(fecha_entrega);
-    } catch (Exception ignore) { return null; }
-  }
+  public LocalDate getFechaEntregaD() { return fecha_entrega; }
 
-  /** Hora entrega como LocalTime (null si no parsea). */
+  /** Hora entrega (null si no hay). */
   @JsonIgnore
-  public LocalTime getHoraEntregaT() {
-    try {
-      if (hora_entrega == null || hora_entrega.isBlank()) return null;
-      String s = hora_entrega;
-      // Normaliza "HH:mm" -> "HH:mm:00"
-      if (s.length() == 5) s = s + ":00";
-      return LocalTime.parse(s);
-    } catch (Exception ignore) { return null; }
-  }
+  public LocalTime getHoraEntregaT() { return hora_entrega; }
 
   private static String safe(String s) { return s == null ? "" : s; }
 
@@ -103,6 +96,7 @@ public class Pedido {
   public static class ClienteEmb {
     public String nombre;
     public String apellido;
+    public String telefono;
   }
 
   public enum Estado {
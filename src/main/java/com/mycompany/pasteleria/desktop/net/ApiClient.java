@@ -2,6 +2,7 @@
 package com.mycompany.pasteleria.desktop.net;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -119,6 +120,20 @@ public class ApiClient {
     return http.send(req, HttpResponse.BodyHandlers.ofString());
   }
 
+  /**
+   * Upsert masivo: POST de un arreglo JSON con resolución de duplicados por la clave
+   * (agregar "?on_conflict=col" al path si no es la PK). return=minimal: sin cuerpo de vuelta.
+   */
+  public HttpResponse<String> upsertJson(String pathAndQuery, String jsonArray) throws IOException, InterruptedException {
+    HttpRequest req = base(pathAndQuery)
+        .header("Content-Type", "application/json")
+        .header("Prefer", "resolution=merge-duplicates,return=minimal")
+        .POST(HttpRequest.BodyPublishers.ofString(jsonArray == null ? "[]" : jsonArray))
+        .timeout(requestTimeout)
+        .build();
+    return http.send(req, HttpResponse.BodyHandlers.ofString());
+  }
+
   /** PUT JSON (reemplazo). */
   public HttpResponse<String> putJson(String pathAndQuery, String json) throws IOException, InterruptedException {
     HttpRequest req = base(pathAndQuery)
@@ -181,6 +196,16 @@ public class ApiClient {
     return http.send(req, HttpResponse.BodyHandlers.ofByteArray());
   }
 
+  /** GET como stream: para leer listas grandes con el parser de streaming, sin armar el String entero. */
+  public HttpResponse<InputStream> getRespStream(String pathAndQuery) throws IOException, InterruptedException {
+    HttpRequest req = base(pathAndQuery)
+        .header("Accept", "application/json")
+        .GET()
+        .timeout(requestTimeout)
+        .build();
+    return http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+  }
+
   /** Lanza IOException si status no es 2xx, con contexto. */
   public static void require2xx(HttpResponse<?> resp, String context) throws IOException {
     int sc = resp.statusCode();
@@ -0,0 +1,512 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/AlmacenReportes.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Rutas;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Almacén local columnar para Reportes (y el historial por cliente, ver HistorialClientes).
+ * - pedidos, detalle_pedido y pagos se traen por keyset (id > último) y se guardan como
+ *   arreglos primitivos por columna; estado/distrito/método codificados con {@link Diccionario}.
+ * - Cada sincronización sólo pide filas nuevas, más estado/total de los pedidos recientes
+ *   (que todavía cambian). Se persiste en la caché local: al reiniciar no se relee el año.
+ * - Las consultas trabajan sobre una {@link Vista} inmutable (ver ConsultaReportes);
+ *   la sincronización corre en su propio hilo.
+ */
+public final class AlmacenReportes {
+
+  private static final Logger LOG = Logger.getLogger(AlmacenReportes.class.getName());
+  private static final AlmacenReportes INSTANCE = new AlmacenReportes();
+
+  /** Día sin fecha válida (no entra en ningún rango). */
+  public static final int SIN_DIA = Integer.MIN_VALUE;
+
+  private static final int MAGIC = 0x52505432; // "RPT2" (RPT1 no tenía id_cliente: se relee)
+  private static final int BLOQUE = 1000;
+  private static final int DIAS_REVISION = 21;
+
+  /** Columnas publicadas: arreglos de sólo lectura hasta n* (no se copian para consultar). */
+  public record Vista(
+      int nPedidos, int[] pId, int[] pDia, long[] pTotal, int[] pEstado, int[] pDistrito, int[] pCliente,
+      int nDetalle, int[] dFila, int[] dProducto, int[] dCantidad, long[] dImporte,
+      int nPagos, int[] gFila, int[] gMetodo, long[] gMonto,
+      long sincronizadoMs) {}
+
+  public final Diccionario estados;
+  public final Diccionario distritos;
+  public final Diccionario metodos;
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+  private final JsonFactory jf = new JsonFactory();
+  private final ZoneId zona = ZoneId.systemDefault();
+  private final Path archivo;
+
+  private final ExecutorService hilo = Executors.newSingleThreadExecutor(r -> {
+    Thread t = new Thread(r, "reportes-sync");
+    t.setDaemon(true);
+    return t;
+  });
+
+  // ---- columnas (sólo el hilo de sincronización escribe) ----
+  private int nP;
+  private int[] pId = new int[0], pDia = new int[0], pEstado = new int[0], pDistrito = new int[0], pCliente = new int[0];
+  private long[] pTotal = new long[0];
+
+  private int nD;
+  private int[] dPedido = new int[0], dFila = new int[0], dProducto = new int[0], dCantidad = new int[0];
+  private long[] dImporte = new long[0];
+
+  private int nG;
+  private int[] gPedido = new int[0], gFila = new int[0], gMetodo = new int[0];
+  private long[] gMonto = new long[0];
+
+  private long ultPedido, ultDetalle, ultPago;
+  private boolean leidoDeDisco;
+
+  private volatile Vista vista;
+  private volatile CompletableFuture<Vista> enCurso;
+
+  private AlmacenReportes() {
+    estados = new Diccionario();
+    distritos = new Diccionario();
+    metodos = new Diccionario();
+    Path dir = Rutas.cache("reportes");
+    archivo = (dir == null) ? null : dir.resolve("almacen.bin");
+    vista = publicar(0);
+  }
+
+  public static AlmacenReportes get() { return INSTANCE; }
+
+  public Vista vista() { return vista; }
+
+  /**
+   * Trae lo nuevo del servidor y publica una vista nueva. Si ya hay una sincronización
+   * en curso devuelve esa misma. {@code progreso} recibe filas leídas (puede ser null).
+   */
+  public synchronized CompletableFuture<Vista> sincronizar(IntConsumer progreso) {
+    CompletableFuture<Vista> f = enCurso;
+    if (f != null && !f.isDone()) return f;
+    f = CompletableFuture.supplyAsync(() -> {
+      try {
+        return sincronizarAhora(progreso);
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex.getMessage(), ex);
+      }
+    }, hilo);
+    enCurso = f;
+    return f;
+  }
+
+  /** Sólo lo guardado en disco (sin red); útil para pintar algo antes de sincronizar. */
+  public CompletableFuture<Vista> cargarLocal() {
+    return CompletableFuture.supplyAsync(() -> {
+      leerDisco();
+      return vista;
+    }, hilo);
+  }
+
+  /* ===================== Sincronización ===================== */
+
+  private Vista sincronizarAhora(IntConsumer progreso) throws IOException, InterruptedException {
+    leerDisco();
+    int[] leidas = { 0 };
+    IntConsumer avance = k -> {
+      leidas[0] += k;
+      if (progreso != null) progreso.accept(leidas[0]);
+    };
+
+    // 1) pedidos nuevos
+    ultPedido = leerTabla("/pedidos", "id_pedido,id_cliente,fecha_pedido,estado,distrito,total",
+        "id_pedido", ultPedido, "", new FilaPedido(), avance);
+
+    // 2) pedidos recientes: estado y total todavía cambian
+    String desde = LocalDate.now(zona).minusDays(DIAS_REVISION).toString();
+    leerTabla("/pedidos", "id_pedido,estado,total", "id_pedido", 0,
+        "&fecha_pedido=gte." + desde, new RevisionPedido(), avance);
+
+    // 3) detalle y pagos nuevos
+    ultDetalle = leerTabla("/detalle_pedido", "id_detalle,id_pedido,id_producto,cantidad,precio_unitario",
+        "id_detalle", ultDetalle, "", new FilaDetalle(), avance);
+    ultPago = leerTabla("/pagos", "id_pago,id_pedido,metodo,monto",
+        "id_pago", ultPago, "", new FilaPago(), avance);
+
+    // 4) filas hijas que llegaron antes que su pedido; copia antes de la primera escritura,
+    //    igual que RevisionPedido: la vista publicada comparte dFila/gFila y puede estar en un barrido
+    boolean copiado = false;
+    for (int i = 0; i < nD; i++) {
+      if (dFila[i] >= 0) continue;
+      int f = fila(dPedido[i]);
+      if (f < 0) continue;
+      if (!copiado) { dFila = Arrays.copyOf(dFila, dFila.length); copiado = true; }
+      dFila[i] = f;
+    }
+    copiado = false;
+    for (int i = 0; i < nG; i++) {
+      if (gFila[i] >= 0) continue;
+      int f = fila(gPedido[i]);
+      if (f < 0) continue;
+      if (!copiado) { gFila = Arrays.copyOf(gFila, gFila.length); copiado = true; }
+      gFila[i] = f;
+    }
+
+    vista = publicar(System.currentTimeMillis());
+    escribirDisco();
+    return vista;
+  }
+
+  private Vista publicar(long ms) {
+    return new Vista(nP, pId, pDia, pTotal, pEstado, pDistrito, pCliente,
+        nD, dFila, dProducto, dCantidad, dImporte,
+        nG, gFila, gMetodo, gMonto, ms);
+  }
+
+  /** Fila del pedido (búsqueda binaria: pId está ordenado porque se lee por id ascendente). */
+  private int fila(int idPedido) {
+    int i = Arrays.binarySearch(pId, 0, nP, idPedido);
+    return i >= 0 ? i : -1;
+  }
+
+  /* ===================== Lectura en streaming ===================== */
+
+  /** Lector de una fila JSON: recibe campo a campo y al final devuelve la clave de la fila. */
+  private interface Fila {
+    void campo(String nombre, JsonParser p, JsonToken t) throws IOException;
+    long fin();
+  }
+
+  /** Lee por keyset hasta agotar; devuelve la última clave vista. */
+  private long leerTabla(String tabla, String select, String clave, long desde, String extra,
+                         Fila fila, IntConsumer avance) throws IOException, InterruptedException {
+    long ultimo = desde;
+    while (true) {
+      if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+      String path = tabla + "?select=" + ApiClient.urlEncode(select)
+          + "&" + clave + "=gt." + ultimo + extra
+          + "&order=" + clave + ".asc&limit=" + BLOQUE;
+      var resp = api.getRespStream(path);
+      int n = 0;
+      try (InputStream in = resp.body()) {
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+          throw new IOException("HTTP " + resp.statusCode() + " en GET " + tabla + " (reportes): "
+              + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (JsonParser p = jf.createParser(in)) {
+          if (p.nextToken() == JsonToken.START_ARRAY) {
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+              while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                fila.campo(f, p, p.nextToken());
+              }
+              ultimo = Math.max(ultimo, fila.fin());
+              n++;
+            }
+          }
+        }
+      }
+      avance.accept(n);
+      if (n < BLOQUE) return ultimo;
+    }
+  }
+
+  private final class FilaPedido implements Fila {
+    int id, cliente, dia;
+    long total;
+    String estado, distrito;
+
+    { limpiar(); }
+
+    private void limpiar() { id = 0; cliente = 0; dia = SIN_DIA; total = 0; estado = ""; distrito = ""; }
+
+    @Override public void campo(String f, JsonParser p, JsonToken t) throws IOException {
+      switch (f) {
+        case "id_pedido"    -> id = p.getValueAsInt();
+        case "id_cliente"   -> cliente = p.getValueAsInt();
+        case "fecha_pedido" -> dia = dia(ConciliacionPagos.texto(p, t));
+        case "estado"       -> estado = ConciliacionPagos.texto(p, t);
+        case "distrito"     -> distrito = ConciliacionPagos.texto(p, t);
+        case "total"        -> total = cent(ConciliacionPagos.centimos(p, t));
+        default             -> p.skipChildren();
+      }
+    }
+
+    @Override public long fin() {
+      if (nP == pId.length) crecerPedidos();
+      pId[nP] = id;
+      pDia[nP] = dia;
+      pTotal[nP] = total;
+      pEstado[nP] = estados.codigo(estado);
+      pDistrito[nP] = distritos.codigo(distrito);
+      pCliente[nP] = cliente;
+      nP++;
+      int r = id;
+      limpiar();
+      return r;
+    }
+  }
+
+  /**
+   * Actualiza estado y total de pedidos ya cargados. Copia-en-escritura: al primer cambio
+   * copia pEstado/pTotal, así la vista publicada (que puede estar en pleno barrido fork-join)
+   * nunca ve un pedido con el estado nuevo y el total viejo. Una instancia por sincronización.
+   */
+  private final class RevisionPedido implements Fila {
+    int id;
+    long total = Long.MIN_VALUE;
+    String estado;
+    boolean copiado;
+
+    @Override public void campo(String f, JsonParser p, JsonToken t) throws IOException {
+      switch (f) {
+        case "id_pedido" -> id = p.getValueAsInt();
+        case "estado"    -> estado = ConciliacionPagos.texto(p, t);
+        case "total"     -> total = cent(ConciliacionPagos.centimos(p, t));
+        default          -> p.skipChildren();
+      }
+    }
+
+    @Override public long fin() {
+      int i = fila(id);
+      if (i >= 0) {
+        int e = (estado != null) ? estados.codigo(estado) : pEstado[i];
+        long t = (total != Long.MIN_VALUE) ? total : pTotal[i];
+        if (e != pEstado[i] || t != pTotal[i]) {
+          if (!copiado) {
+            pEstado = Arrays.copyOf(pEstado, pEstado.length);
+            pTotal = Arrays.copyOf(pTotal, pTotal.length);
+            copiado = true;
+          }
+          pEstado[i] = e;
+          pTotal[i] = t;
+        }
+      }
+      int r = id;
+      id = 0; total = Long.MIN_VALUE; estado = null;
+      return r;
+    }
+  }
+
+  private final class FilaDetalle implements Fila {
+    int id, pedido, producto, cantidad;
+    long precio;
+
+    @Override public void campo(String f, JsonParser p, JsonToken t) throws IOException {
+      switch (f) {
+        case "id_detalle"      -> id = p.getValueAsInt();
+        case "id_pedido"       -> pedido = p.getValueAsInt();
+        case "id_producto"     -> producto = p.getValueAsInt();
+        case "cantidad"        -> cantidad = p.getValueAsInt();
+        case "precio_unitario" -> precio = cent(ConciliacionPagos.centimos(p, t));
+        default                -> p.skipChildren();
+      }
+    }
+
+    @Override public long fin() {
+      if (nD == dPedido.length) crecerDetalle();
+      dPedido[nD] = pedido;
+      dFila[nD] = fila(pedido);
+      dProducto[nD] = producto;
+      dCantidad[nD] = cantidad;
+      dImporte[nD] = precio * cantidad;
+      nD++;
+      int r = id;
+      id = pedido = producto = cantidad = 0;
+      precio = 0;
+      return r;
+    }
+  }
+
+  private final class FilaPago implements Fila {
+    int id, pedido;
+    long monto;
+    String metodo = "";
+
+    @Override public void campo(String f, JsonParser p, JsonToken t) throws IOException {
+      switch (f) {
+        case "id_pago"   -> id = p.getValueAsInt();
+        case "id_pedido" -> pedido = p.getValueAsInt();
+        case "metodo"    -> metodo = ConciliacionPagos.texto(p, t);
+        case "monto"     -> monto = cent(ConciliacionPagos.centimos(p, t));
+        default          -> p.skipChildren();
+      }
+    }
+
+    @Override public long fin() {
+      if (nG == gPedido.length) crecerPagos();
+      gPedido[nG] = pedido;
+      gFila[nG] = fila(pedido);
+      gMetodo[nG] = metodos.codigo(metodo.toUpperCase(Locale.ROOT));
+      gMonto[nG] = monto;
+      nG++;
+      int r = id;
+      id = pedido = 0;
+      monto = 0;
+      metodo = "";
+      return r;
+    }
+  }
+
+  private static long cent(long c) { return c == ConciliacionPagos.SIN ? 0 : c; }
+
+  /** fecha/timestamp -> día epoch en la zona local. */
+  private static int dia(String iso) {
+    if (iso == null || iso.isBlank()) return SIN_DIA;
+    String s = iso.trim();
+    if (s.length() == 10) {
+      LocalDate d = Fechas.fecha(s);
+      return d == null ? SIN_DIA : (int) d.toEpochDay();
+    }
+    long ms = Fechas.epochMs(s);
+    return ms == Fechas.SIN_FECHA ? SIN_DIA : (int) Fechas.dia(ms).toEpochDay();
+  }
+
+  /* ===================== Crecimiento (copia: las vistas viejas siguen válidas) ===================== */
+
+  private static int nuevaCapacidad(int actual) { return Math.max(1024, actual + (actual >> 1)); }
+
+  private void crecerPedidos() {
+    int c = nuevaCapacidad(pId.length);
+    pId = Arrays.copyOf(pId, c);
+    pDia = Arrays.copyOf(pDia, c);
+    pTotal = Arrays.copyOf(pTotal, c);
+    pEstado = Arrays.copyOf(pEstado, c);
+    pDistrito = Arrays.copyOf(pDistrito, c);
+    pCliente = Arrays.copyOf(pCliente, c);
+  }
+
+  private void crecerDetalle() {
+    int c = nuevaCapacidad(dPedido.length);
+    dPedido = Arrays.copyOf(dPedido, c);
+    dFila = Arrays.copyOf(dFila, c);
+    dProducto = Arrays.copyOf(dProducto, c);
+    dCantidad = Arrays.copyOf(dCantidad, c);
+    dImporte = Arrays.copyOf(dImporte, c);
+  }
+
+  private void crecerPagos() {
+    int c = nuevaCapacidad(gPedido.length);
+    gPedido = Arrays.copyOf(gPedido, c);
+    gFila = Arrays.copyOf(gFila, c);
+    gMetodo = Arrays.copyOf(gMetodo, c);
+    gMonto = Arrays.copyOf(gMonto, c);
+  }
+
+  /* ===================== Persistencia ===================== */
+
+  private void leerDisco() {
+    if (leidoDeDisco) return;
+    leidoDeDisco = true;
+    if (archivo == null || !Files.isRegularFile(archivo)) return;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo), 1 << 16))) {
+      if (in.readInt() != MAGIC) return;
+      Diccionario e = Diccionario.leer(in), d = Diccionario.leer(in), m = Diccionario.leer(in);
+      long up = in.readLong(), ud = in.readLong(), ug = in.readLong();
+
+      int np = in.readInt();
+      int[] id = ints(in, np), dia = ints(in, np), est = ints(in, np), dis = ints(in, np), cli = ints(in, np);
+      long[] tot = longs(in, np);
+      int nd = in.readInt();
+      int[] dped = ints(in, nd), dprod = ints(in, nd), dcant = ints(in, nd);
+      long[] dimp = longs(in, nd);
+      int ng = in.readInt();
+      int[] gped = ints(in, ng), gmet = ints(in, ng);
+      long[] gmon = longs(in, ng);
+
+      // recodificar contra los diccionarios vivos (por si ya se agregó algo)
+      for (int i = 0; i < np; i++) { est[i] = estados.codigo(e.valor(est[i])); dis[i] = distritos.codigo(d.valor(dis[i])); }
+      for (int i = 0; i < ng; i++) gmet[i] = metodos.codigo(m.valor(gmet[i]));
+
+      nP = np; pId = id; pDia = dia; pEstado = est; pDistrito = dis; pCliente = cli; pTotal = tot;
+      nD = nd; dPedido = dped; dProducto = dprod; dCantidad = dcant; dImporte = dimp;
+      dFila = new int[nd];
+      for (int i = 0; i < nd; i++) dFila[i] = fila(dped[i]);
+      nG = ng; gPedido = gped; gMetodo = gmet; gMonto = gmon;
+      gFila = new int[ng];
+      for (int i = 0; i < ng; i++) gFila[i] = fila(gped[i]);
+      ultPedido = up; ultDetalle = ud; ultPago = ug;
+
+      vista = publicar(Files.getLastModifiedTime(archivo).toMillis());
+      LOG.info(() -> "Reportes: " + nP + " pedidos, " + nD + " detalles, " + nG + " pagos desde caché");
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo leer la caché de reportes; se relee del servidor", ex);
+      nP = nD = nG = 0;
+      ultPedido = ultDetalle = ultPago = 0;
+    }
+  }
+
+  private void escribirDisco() {
+    if (archivo == null) return;
+    Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+      out.writeInt(MAGIC);
+      estados.escribir(out);
+      distritos.escribir(out);
+      metodos.escribir(out);
+      out.writeLong(ultPedido);
+      out.writeLong(ultDetalle);
+      out.writeLong(ultPago);
+      out.writeInt(nP);
+      ints(out, pId, nP); ints(out, pDia, nP); ints(out, pEstado, nP); ints(out, pDistrito, nP); ints(out, pCliente, nP);
+      longs(out, pTotal, nP);
+      out.writeInt(nD);
+      ints(out, dPedido, nD); ints(out, dProducto, nD); ints(out, dCantidad, nD);
+      longs(out, dImporte, nD);
+      out.writeInt(nG);
+      ints(out, gPedido, nG); ints(out, gMetodo, nG);
+      longs(out, gMonto, nG);
+    } catch (IOException ex) {
+      LOG.log(Level.WARNING, "No se pudo guardar la caché de reportes", ex);
+      return;
+    }
+    try {
+      Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException ex) {
+      LOG.log(Level.WARNING, "No se pudo reemplazar la caché de reportes", ex);
+    }
+  }
+
+  private static int[] ints(DataInputStream in, int n) throws IOException {
+    int[] a = new int[n];
+    for (int i = 0; i < n; i++) a[i] = in.readInt();
+    return a;
+  }
+
+  private static long[] longs(DataInputStream in, int n) throws IOException {
+    long[] a = new long[n];
+    for (int i = 0; i < n; i++) a[i] = in.readLong();
+    return a;
+  }
+
+  private static void ints(DataOutputStream out, int[] a, int n) throws IOException {
+    for (int i = 0; i < n; i++) out.writeInt(a[i]);
+  }
+
+  private static void longs(DataOutputStream out, long[] a, int n) throws IOException {
+    for (int i = 0; i < n; i++) out.writeLong(a[i]);
+  }
+}
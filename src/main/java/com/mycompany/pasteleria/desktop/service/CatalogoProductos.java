@@ -0,0 +1,188 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/CatalogoProductos.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.model.Producto;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Textos;
+import javafx.application.Platform;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Catálogo de productos en memoria (compartido por Productos y Nuevo pedido).
+ * - Se carga UNA vez (todo /productos) y se refresca en segundo plano cada pocos minutos.
+ * - Índice por prefijo de tokens de nombre y descripción, normalizados sin tildes.
+ * - buscar(...) no hace HTTP: type-ahead en memoria, sub-milisegundo para cientos de ítems.
+ */
+public final class CatalogoProductos {
+
+  private static final Logger LOG = Logger.getLogger(CatalogoProductos.class.getName());
+  private static final CatalogoProductos INSTANCE = new CatalogoProductos();
+
+  private static final String SELECT =
+      "id_producto,nombre,descripcion,precio,stock,id_categoria,estado,imagen_url,categoria:categorias(nombre)";
+  private static final long REFRESCO_MIN = 5;
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+  private final ObjectMapper om = new ObjectMapper();
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "catalogo-refresh");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean iniciado = new AtomicBoolean(false);
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile Snapshot snap = Snapshot.VACIO;
+
+  private CatalogoProductos() {}
+
+  public static CatalogoProductos get() { return INSTANCE; }
+
+  /** Primera carga + refresco periódico (idempotente). */
+  public void iniciar() {
+    if (!iniciado.compareAndSet(false, true)) return;
+    scheduler.scheduleWithFixedDelay(this::recargarSilencioso, 0, REFRESCO_MIN, TimeUnit.MINUTES);
+  }
+
+  /** Fuerza una recarga (p.ej. tras editar un producto). Completa en el hilo del catálogo. */
+  public CompletableFuture<Void> recargar() {
+    iniciar();
+    CompletableFuture<Void> f = new CompletableFuture<>();
+    scheduler.execute(() -> {
+      try {
+        cargar();
+        f.complete(null);
+      } catch (Exception ex) {
+        f.completeExceptionally(ex);
+      }
+    });
+    return f;
+  }
+
+  public boolean isCargado() { return snap.cargado; }
+
+  /** Se llama en el hilo FX cada vez que llega una carga nueva. */
+  public void addListener(Runnable r) { listeners.add(Objects.requireNonNull(r)); }
+
+  public void removeListener(Runnable r) { listeners.remove(r); }
+
+  public List<Producto> todos() { return snap.productos; }
+
+  public Producto porId(Integer id) { return id == null ? null : snap.porId.get(id); }
+
+  /**
+   * Busca en memoria. Cada término del texto debe ser prefijo de algún token
+   * (nombre o descripción). Primero los que empiezan por el texto, luego el resto (orden por nombre).
+   */
+  public List<Producto> buscar(String texto, Integer idCategoria, boolean soloActivos, int max) {
+    Snapshot s = snap;
+    int limite = max <= 0 ? Integer.MAX_VALUE : max;
+    List<String> terminos = Textos.tokens(texto);
+
+    BitSet hits;
+    if (terminos.isEmpty()) {
+      hits = new BitSet(s.productos.size());
+      hits.set(0, s.productos.size());
+    } else {
+      hits = null;
+      for (String t : terminos) {
+        BitSet b = new BitSet(s.productos.size());
+        s.indice.prefijo(t, b);
+        if (hits == null) hits = b; else hits.and(b);
+        if (hits.isEmpty()) return List.of();
+      }
+    }
+
+    String q = Textos.paraBusqueda(texto);
+    List<Producto> primero = new ArrayList<>();
+    List<Producto> resto = new ArrayList<>();
+    for (int i = hits.nextSetBit(0); i >= 0; i = hits.nextSetBit(i + 1)) {
+      Producto p = s.productos.get(i);
+      if (idCategoria != null && !idCategoria.equals(p.id_categoria)) continue;
+      if (soloActivos && !p.isActivo()) continue;
+      if (!q.isEmpty() && s.nombres[i].startsWith(q)) {
+        primero.add(p);
+        if (primero.size() >= limite) break;
+      } else if (primero.size() + resto.size() < limite) {
+        resto.add(p);
+      }
+    }
+    primero.addAll(resto);
+    return primero.size() > limite ? primero.subList(0, limite) : primero;
+  }
+
+  /* ===================== Carga ===================== */
+
+  private void recargarSilencioso() {
+    try {
+      cargar();
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo refrescar el catálogo", ex);
+    }
+  }
+
+  private void cargar() throws Exception {
+    String path = "/productos?select=" + URLEncoder.encode(SELECT, StandardCharsets.UTF_8) + "&order=nombre.asc";
+    var resp = api.getResp(path, 2);
+    ApiClient.require2xx(resp, "GET /productos (catálogo)");
+    List<Producto> list = om.readValue(resp.body(), new TypeReference<List<Producto>>() {});
+    snap = Snapshot.de(list);
+    Platform.runLater(() -> listeners.forEach(Runnable::run));
+  }
+
+  /* ===================== Snapshot inmutable ===================== */
+
+  private static final class Snapshot {
+    static final Snapshot VACIO = new Snapshot(List.of(), new String[0], IndicePrefijos.VACIO, Map.of(), false);
+
+    final List<Producto> productos;
+    final String[] nombres;             // nombre normalizado por posición
+    final IndicePrefijos indice;
+    final Map<Integer, Producto> porId;
+    final boolean cargado;
+
+    private Snapshot(List<Producto> productos, String[] nombres, IndicePrefijos indice,
+                     Map<Integer, Producto> porId, boolean cargado) {
+      this.productos = productos;
+      this.nombres = nombres;
+      this.indice = indice;
+      this.porId = porId;
+      this.cargado = cargado;
+    }
+
+    static Snapshot de(List<Producto> list) {
+      List<Producto> prods = List.copyOf(list);
+      String[] nombres = new String[prods.size()];
+      Map<Integer, Producto> porId = new HashMap<>(prods.size() * 2);
+      IndicePrefijos.Builder b = new IndicePrefijos.Builder();
+      for (int i = 0; i < prods.size(); i++) {
+        Producto p = prods.get(i);
+        nombres[i] = Textos.paraBusqueda(p.nombre);
+        if (p.id_producto != null) porId.put(p.id_producto, p);
+        for (String t : Textos.tokens(p.nombre)) b.add(t, i);
+        for (String t : Textos.tokens(p.descripcion)) b.add(t, i);
+      }
+      return new Snapshot(prods, nombres, b.build(), Map.copyOf(porId), true);
+    }
+  }
+}
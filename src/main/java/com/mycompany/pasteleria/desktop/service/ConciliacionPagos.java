@@ -0,0 +1,245 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/ConciliacionPagos.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Conciliación de pagos vs. total del pedido para un día.
+ * - Lee /pagos (+ pedidos.total, estado) por keyset (id_pago > último) en bloques,
+ *   parseando en streaming: no arma el JSON completo ni Maps por fila.
+ * - Montos en céntimos (long); la clasificación corre en paralelo sobre arreglos.
+ * - Duplicados: misma comprobante_url, o mismo monto dentro de una ventana de minutos.
+ */
+public final class ConciliacionPagos {
+
+  public enum Resultado { EXACTO, FALTA, EXCEDE, SIN_MONTO, DUPLICADO }
+
+  /** Pago leído (montos en céntimos; SIN = no informado). */
+  public record Pago(long idPago, long idPedido, String metodo, String url, long epochMs,
+                     long montoCent, long totalCent, String estadoPedido) {}
+
+  /** Resultado por pago; {@code duplicadoDe} = id_pago del otro pago (0 si no aplica). */
+  public record Linea(Pago pago, Resultado resultado, long diferenciaCent, long duplicadoDe) {}
+
+  public record Informe(LocalDate dia, List<Linea> lineas, Map<Resultado, Integer> conteo) {
+    /** Pedidos EN_REVISION cuyo pago coincide exacto (candidatos a aprobar en bloque). */
+    public List<Long> pedidosExactosEnRevision() {
+      List<Long> out = new ArrayList<>();
+      for (Linea l : lineas) {
+        if (l.resultado() == Resultado.EXACTO && "EN_REVISION".equalsIgnoreCase(l.pago().estadoPedido())) {
+          out.add(l.pago().idPedido());
+        }
+      }
+      return out;
+    }
+  }
+
+  public static final long SIN = Long.MIN_VALUE;
+
+  private static final String SELECT =
+      "id_pago,id_pedido,metodo,comprobante_url,fecha_registro,monto,pedido:pedidos(total,estado)";
+  private static final int BLOQUE = 1000;
+  private static final int BLOQUE_PATCH = 200;
+  private static final long VENTANA_DUP_MS = 10L * 60 * 1000; // mismo monto en ±10 min
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+  private final JsonFactory jf = new JsonFactory();
+  private final ZoneId zona = ZoneId.systemDefault();
+
+  /* ===================== Lectura ===================== */
+
+  /**
+   * Concilia los pagos registrados en {@code dia} (zona local).
+   * {@code progreso} recibe la cantidad leída hasta el momento (puede ser null).
+   */
+  public Informe conciliar(LocalDate dia, IntConsumer progreso) throws IOException, InterruptedException {
+    String desde = dia.atStartOfDay(zona).toOffsetDateTime().toString();
+    String hasta = dia.plusDays(1).atStartOfDay(zona).toOffsetDateTime().toString();
+
+    List<Pago> pagos = new ArrayList<>();
+    long ultimo = 0;
+    while (true) {
+      if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+      String path = "/pagos?select=" + ApiClient.urlEncode(SELECT)
+          + "&fecha_registro=gte." + ApiClient.urlEncode(desde)
+          + "&fecha_registro=lt." + ApiClient.urlEncode(hasta)
+          + "&id_pago=gt." + ultimo
+          + "&order=id_pago.asc&limit=" + BLOQUE;
+      var resp = api.getRespStream(path);
+      int n;
+      try (InputStream in = resp.body()) {
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+          throw new IOException("HTTP " + resp.statusCode() + " en GET /pagos (conciliación): "
+              + new String(in.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8));
+        }
+        n = leerBloque(in, pagos);
+      }
+      if (progreso != null) progreso.accept(pagos.size());
+      if (n < BLOQUE) break;
+      ultimo = pagos.get(pagos.size() - 1).idPago();
+    }
+    return clasificar(dia, pagos);
+  }
+
+  private int leerBloque(InputStream in, List<Pago> out) throws IOException {
+    int n = 0;
+    try (JsonParser p = jf.createParser(in)) {
+      if (p.nextToken() != JsonToken.START_ARRAY) return 0;
+      while (p.nextToken() == JsonToken.START_OBJECT) {
+        long idPago = 0, idPedido = 0, fecha = 0, monto = SIN, total = SIN;
+        String metodo = "", url = "", estado = "";
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String f = p.currentName();
+          JsonToken t = p.nextToken();
+          switch (f) {
+            case "id_pago"         -> idPago = p.getValueAsLong();
+            case "id_pedido"       -> idPedido = p.getValueAsLong();
+            case "metodo"          -> metodo = texto(p, t);
+            case "comprobante_url" -> url = texto(p, t);
+            case "fecha_registro"  -> fecha = Fechas.epochMs(texto(p, t));
+            case "monto"           -> monto = centimos(p, t);
+            case "pedido" -> {
+              if (t == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                  String g = p.currentName();
+                  JsonToken u = p.nextToken();
+                  if ("total".equals(g)) total = centimos(p, u);
+                  else if ("estado".equals(g)) estado = texto(p, u);
+                  else p.skipChildren();
+                }
+              }
+            }
+            default -> p.skipChildren();
+          }
+        }
+        out.add(new Pago(idPago, idPedido, metodo, url, fecha, monto, total, estado));
+        n++;
+      }
+    }
+    return n;
+  }
+
+  static String texto(JsonParser p, JsonToken t) throws IOException {
+    return (t == JsonToken.VALUE_NULL) ? "" : p.getValueAsString("");
+  }
+
+  static long centimos(JsonParser p, JsonToken t) throws IOException {
+    if (t == JsonToken.VALUE_NULL) return SIN;
+    try {
+      BigDecimal v = (t == JsonToken.VALUE_STRING)
+          ? new BigDecimal(p.getText().trim().replace(',', '.'))
+          : p.getDecimalValue();
+      return v.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    } catch (Exception e) {
+      return SIN;
+    }
+  }
+
+  /* ===================== Clasificación ===================== */
+
+  /** Clasifica en paralelo. Público para poder reclasificar un lote ya leído. */
+  public static Informe clasificar(LocalDate dia, List<Pago> pagos) {
+    int n = pagos.size();
+    Pago[] arr = pagos.toArray(new Pago[0]);
+    long[] dupDe = new long[n];
+
+    // 1) misma URL de comprobante (el primero por id_pago es el "original")
+    Map<String, Pago> primeraUrl = new HashMap<>(n * 2);
+    for (int i = 0; i < n; i++) {
+      Pago p = arr[i];
+      if (p.url().isBlank()) continue;
+      Pago prev = primeraUrl.putIfAbsent(p.url(), p);
+      if (prev != null && prev.idPedido() != p.idPedido()) dupDe[i] = prev.idPago();
+    }
+
+    // 2) mismo monto en la ventana de tiempo (orden por monto, fecha; vecinos cercanos)
+    Integer[] orden = IntStream.range(0, n).boxed().toArray(Integer[]::new);
+    Arrays.sort(orden, Comparator.<Integer>comparingLong(i -> arr[i].montoCent())
+        .thenComparingLong(i -> arr[i].epochMs()));
+    for (int k = 1; k < n; k++) {
+      Pago a = arr[orden[k - 1]], b = arr[orden[k]];
+      if (a.montoCent() == SIN || a.montoCent() != b.montoCent()) continue;
+      if (a.idPedido() == b.idPedido()) continue; // mismo pedido: reintento, no duplicado
+      if (Math.abs(b.epochMs() - a.epochMs()) <= VENTANA_DUP_MS && dupDe[orden[k]] == 0) {
+        dupDe[orden[k]] = a.idPago();
+      }
+    }
+
+    // 3) diferencias y resultado (paralelo, sin estado compartido)
+    Linea[] lineas = new Linea[n];
+    IntStream.range(0, n).parallel().forEach(i -> {
+      Pago p = arr[i];
+      if (dupDe[i] != 0) {
+        long d = (p.montoCent() == SIN || p.totalCent() == SIN) ? 0 : p.montoCent() - p.totalCent();
+        lineas[i] = new Linea(p, Resultado.DUPLICADO, d, dupDe[i]);
+      } else if (p.montoCent() == SIN || p.totalCent() == SIN) {
+        lineas[i] = new Linea(p, Resultado.SIN_MONTO, 0, 0);
+      } else {
+        long d = p.montoCent() - p.totalCent();
+        Resultado r = d == 0 ? Resultado.EXACTO : (d < 0 ? Resultado.FALTA : Resultado.EXCEDE);
+        lineas[i] = new Linea(p, r, d, 0);
+      }
+    });
+
+    Map<Resultado, Integer> conteo = new EnumMap<>(Resultado.class);
+    for (Resultado r : Resultado.values()) conteo.put(r, 0);
+    for (Linea l : lineas) conteo.merge(l.resultado(), 1, Integer::sum);
+    return new Informe(dia, List.of(lineas), conteo);
+  }
+
+  /* ===================== Aprobación en bloque ===================== */
+
+  /**
+   * Pasa a APROBADO los pedidos dados, en PATCH de hasta 200 ids (id_pedido=in.(...)).
+   * Sólo toca los que siguen EN_REVISION; devuelve cuántos cambió realmente (filas que
+   * devuelve el PATCH con return=representation), no cuántos se pidieron.
+   */
+  public int aprobar(List<Long> idsPedido) throws IOException, InterruptedException {
+    int hechos = 0;
+    for (int i = 0; i < idsPedido.size(); i += BLOQUE_PATCH) {
+      List<Long> parte = idsPedido.subList(i, Math.min(idsPedido.size(), i + BLOQUE_PATCH));
+      StringBuilder ids = new StringBuilder();
+      for (Long id : parte) { if (ids.length() > 0) ids.append(','); ids.append(id); }
+      var resp = api.patchJson("/pedidos?id_pedido=in.(" + ids + ")&estado=eq.EN_REVISION&select=id_pedido",
+          "{\"estado\":\"APROBADO\"}");
+      ApiClient.require2xx(resp, "PATCH /pedidos (aprobar exactos)");
+      hechos += contarFilas(resp.body());
+    }
+    return hechos;
+  }
+
+  /** Cantidad de objetos en el arreglo JSON de la respuesta (0 si viene vacía). */
+  private int contarFilas(String body) throws IOException {
+    if (body == null || body.isBlank()) return 0;
+    int n = 0;
+    try (JsonParser p = jf.createParser(body)) {
+      if (p.nextToken() != JsonToken.START_ARRAY) return 0;
+      while (p.nextToken() == JsonToken.START_OBJECT) {
+        p.skipChildren();
+        n++;
+      }
+    }
+    return n;
+  }
+}
@@ -0,0 +1,211 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/ConsultaReportes.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Agregaciones de Reportes sobre una {@link AlmacenReportes.Vista}.
+ * - Primero una máscara de pedidos (rango de fechas + estados) con un barrido paralelo.
+ * - Luego cada agrupación (día, producto, distrito, método) es un fork-join sobre rangos de filas:
+ *   cada hoja suma en arreglos long[] indexados por código y los parciales se suman al unir.
+ * Sin objetos por fila ni HashMap en el bucle caliente.
+ */
+public final class ConsultaReportes {
+
+  private static final int UMBRAL = 16_384;
+
+  public enum Agrupacion { DIA, MES }
+
+  public record Filtro(LocalDate desde, LocalDate hasta, Agrupacion agrupacion, Set<String> estadosExcluidos) {}
+
+  /** Un grupo del informe: importe en céntimos y cantidad (unidades por producto; pedidos/pagos en el resto). */
+  public record Grupo(String clave, long centimos, long cantidad) {}
+
+  public record Resultado(List<Grupo> porPeriodo, List<Grupo> porProducto, List<Grupo> porDistrito,
+                          List<Grupo> porMetodo, long totalCent, long pedidos, long calculoMs) {}
+
+  private ConsultaReportes() {}
+
+  public static Resultado calcular(AlmacenReportes almacen, AlmacenReportes.Vista v, Filtro f,
+                                   IntFunction<String> nombreProducto) {
+    long t0 = System.nanoTime();
+    int d0 = (int) f.desde().toEpochDay();
+    int d1 = (int) f.hasta().toEpochDay();
+    int dias = Math.max(0, d1 - d0 + 1);
+
+    // estados excluidos por código
+    boolean[] excluido = new boolean[Math.max(1, almacen.estados.size())];
+    for (String e : f.estadosExcluidos()) {
+      int c = almacen.estados.buscar(e);
+      if (c >= 0 && c < excluido.length) excluido[c] = true;
+    }
+
+    // 1) máscara de pedidos
+    int nP = v.nPedidos();
+    boolean[] sel = new boolean[nP];
+    int[] pDia = v.pDia(), pEstado = v.pEstado();
+    ForkJoinPool.commonPool().invoke(new Barrido(0, nP, i -> {
+      int d = pDia[i];
+      int e = pEstado[i];
+      sel[i] = d >= d0 && d <= d1 && !(e < excluido.length && excluido[e]);
+    }));
+
+    // 2) agrupaciones en paralelo
+    int[] dFila = v.dFila(), dProducto = v.dProducto(), dCantidad = v.dCantidad();
+    long[] dImporte = v.dImporte(), pTotal = v.pTotal(), gMonto = v.gMonto();
+    int[] pDistrito = v.pDistrito(), gFila = v.gFila(), gMetodo = v.gMetodo();
+
+    int maxProd = 0;
+    for (int i = 0; i < v.nDetalle(); i++) maxProd = Math.max(maxProd, dProducto[i]);
+
+    Suma porDia = new Suma(0, nP, dias,
+        i -> sel[i] ? pDia[i] - d0 : -1, i -> pTotal[i], i -> 1);
+    Suma porProducto = new Suma(0, v.nDetalle(), maxProd + 1,
+        i -> { int r = dFila[i]; return (r >= 0 && r < nP && sel[r]) ? dProducto[i] : -1; },
+        i -> dImporte[i], i -> dCantidad[i]);
+    Suma porDistrito = new Suma(0, nP, Math.max(1, almacen.distritos.size()),
+        i -> sel[i] ? pDistrito[i] : -1, i -> pTotal[i], i -> 1);
+    Suma porMetodo = new Suma(0, v.nPagos(), Math.max(1, almacen.metodos.size()),
+        i -> { int r = gFila[i]; return (r >= 0 && r < nP && sel[r]) ? gMetodo[i] : -1; },
+        i -> gMonto[i], i -> 1);
+    ForkJoinTask.invokeAll(porDia, porProducto, porDistrito, porMetodo);
+
+    // 3) armar grupos
+    long[][] rDia = porDia.join();
+    long total = 0, pedidos = 0;
+    for (int k = 0; k < dias; k++) { total += rDia[0][k]; pedidos += rDia[1][k]; }
+
+    List<Grupo> periodo = f.agrupacion() == Agrupacion.MES
+        ? porMes(rDia, f.desde(), dias)
+        : porDia(rDia, f.desde(), dias);
+    List<Grupo> prod = grupos(porProducto.join(), nombreProducto);
+    List<Grupo> dist = grupos(porDistrito.join(), c -> etiqueta(almacen.distritos.valor(c)));
+    List<Grupo> met = grupos(porMetodo.join(), c -> etiqueta(almacen.metodos.valor(c)));
+
+    long ms = (System.nanoTime() - t0) / 1_000_000;
+    return new Resultado(periodo, prod, dist, met, total, pedidos, ms);
+  }
+
+  private static String etiqueta(String s) { return (s == null || s.isBlank()) ? "(sin dato)" : s; }
+
+  private static List<Grupo> porDia(long[][] r, LocalDate desde, int dias) {
+    List<Grupo> out = new ArrayList<>(dias);
+    for (int k = 0; k < dias; k++) out.add(new Grupo(desde.plusDays(k).toString(), r[0][k], r[1][k]));
+    return out;
+  }
+
+  private static List<Grupo> porMes(long[][] r, LocalDate desde, int dias) {
+    List<Grupo> out = new ArrayList<>();
+    YearMonth actual = null;
+    long cent = 0, cant = 0;
+    for (int k = 0; k < dias; k++) {
+      YearMonth ym = YearMonth.from(desde.plusDays(k));
+      if (!ym.equals(actual)) {
+        if (actual != null) out.add(new Grupo(actual.toString(), cent, cant));
+        actual = ym;
+        cent = cant = 0;
+      }
+      cent += r[0][k];
+      cant += r[1][k];
+    }
+    if (actual != null) out.add(new Grupo(actual.toString(), cent, cant));
+    return out;
+  }
+
+  /** Grupos no vacíos, de mayor a menor importe. */
+  private static List<Grupo> grupos(long[][] r, IntFunction<String> nombre) {
+    List<Grupo> out = new ArrayList<>();
+    for (int c = 0; c < r[0].length; c++) {
+      if (r[0][c] != 0 || r[1][c] != 0) out.add(new Grupo(nombre.apply(c), r[0][c], r[1][c]));
+    }
+    out.sort(Comparator.comparingLong(Grupo::centimos).reversed());
+    return out;
+  }
+
+  /* ===================== Fork-join ===================== */
+
+  // Las tareas fork-join heredan Serializable de ForkJoinTask, pero nunca se serializan:
+  // las funciones que reciben son lambdas sobre la vista en memoria, de ahí el transient.
+
+  /** Barrido paralelo sin resultado (p.ej. llenar la máscara). */
+  private static final class Barrido extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final int desde, hasta;
+    private final transient IntConsumer op;
+
+    Barrido(int desde, int hasta, IntConsumer op) {
+      this.desde = desde;
+      this.hasta = hasta;
+      this.op = op;
+    }
+
+    @Override
+    protected void compute() {
+      if (hasta - desde <= UMBRAL) {
+        for (int i = desde; i < hasta; i++) op.accept(i);
+        return;
+      }
+      int m = (desde + hasta) >>> 1;
+      invokeAll(new Barrido(desde, m, op), new Barrido(m, hasta, op));
+    }
+  }
+
+  /**
+   * Suma agrupada: r[0][g] = Σ valor, r[1][g] = Σ peso, para g = grupo(i) en [0, dominio).
+   * grupo(i) = -1 descarta la fila.
+   */
+  private static final class Suma extends RecursiveTask<long[][]> {
+    private static final long serialVersionUID = 1L;
+    private final int desde, hasta, dominio;
+    private final transient IntUnaryOperator grupo;
+    private final transient IntToLongFunction valor, peso;
+
+    Suma(int desde, int hasta, int dominio, IntUnaryOperator grupo,
+         IntToLongFunction valor, IntToLongFunction peso) {
+      this.desde = desde;
+      this.hasta = hasta;
+      this.dominio = dominio;
+      this.grupo = grupo;
+      this.valor = valor;
+      this.peso = peso;
+    }
+
+    @Override
+    protected long[][] compute() {
+      if (hasta - desde <= UMBRAL) {
+        long[] suma = new long[dominio];
+        long[] cant = new long[dominio];
+        for (int i = desde; i < hasta; i++) {
+          int g = grupo.applyAsInt(i);
+          if (g < 0 || g >= dominio) continue;
+          suma[g] += valor.applyAsLong(i);
+          cant[g] += peso.applyAsLong(i);
+        }
+        return new long[][] { suma, cant };
+      }
+      int m = (desde + hasta) >>> 1;
+      Suma izq = new Suma(desde, m, dominio, grupo, valor, peso);
+      izq.fork();
+      long[][] der = new Suma(m, hasta, dominio, grupo, valor, peso).compute();
+      long[][] r = izq.join();
+      for (int g = 0; g < dominio; g++) {
+        r[0][g] += der[0][g];
+        r[1][g] += der[1][g];
+      }
+      return r;
+    }
+  }
+}
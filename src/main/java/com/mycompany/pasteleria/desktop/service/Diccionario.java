@@ -0,0 +1,70 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/Diccionario.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Codificación por diccionario para columnas de texto con pocos valores distintos
+ * (estado, distrito, método de pago): la columna guarda un int por fila y el texto una sola vez.
+ * El código 0 es siempre "" (vacío / null). Escrituras sincronizadas; valor(c) no bloquea.
+ */
+public final class Diccionario {
+
+  private final Map<String, Integer> codigos = new HashMap<>();
+  private volatile String[] valores = new String[8];
+  private volatile int size = 0;
+
+  public Diccionario() {
+    codigo("");
+  }
+
+  /** Código del valor; lo agrega si es nuevo. */
+  public synchronized int codigo(String v) {
+    String k = (v == null) ? "" : v.trim();
+    Integer c = codigos.get(k);
+    if (c != null) return c;
+    int nuevo = size;
+    String[] arr = valores;
+    if (nuevo == arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+    arr[nuevo] = k;
+    valores = arr;
+    codigos.put(k, nuevo);
+    size = nuevo + 1;
+    return nuevo;
+  }
+
+  /** Código existente o -1 (no agrega). */
+  public synchronized int buscar(String v) {
+    Integer c = codigos.get(v == null ? "" : v.trim());
+    return c == null ? -1 : c;
+  }
+
+  public String valor(int codigo) {
+    String[] arr = valores;
+    return (codigo >= 0 && codigo < size) ? arr[codigo] : "";
+  }
+
+  public int size() { return size; }
+
+  /* ===================== Persistencia ===================== */
+
+  synchronized void escribir(DataOutputStream out) throws IOException {
+    out.writeInt(size);
+    for (int i = 0; i < size; i++) out.writeUTF(valores[i]);
+  }
+
+  static Diccionario leer(DataInputStream in) throws IOException {
+    Diccionario d = new Diccionario();
+    int n = in.readInt();
+    for (int i = 0; i < n; i++) {
+      int c = d.codigo(in.readUTF());
+      if (c != i) throw new IOException("Diccionario inconsistente");
+    }
+    return d;
+  }
+}
@@ -0,0 +1,391 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/DirectorioClientes.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.model.Cliente;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Json;
+import com.mycompany.pasteleria.desktop.util.Rutas;
+import com.mycompany.pasteleria.desktop.util.Textos;
+import javafx.application.Platform;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Directorio de clientes en memoria (tabla /cliente completa, sin "contrasena").
+ * - Caché en disco: al abrir se pinta lo guardado y luego se sincroniza.
+ * - Sincronización por keyset (id_cliente > último) cada 2 min; cada 30 min una lectura
+ *   completa para recoger ediciones y bajas (la tabla no tiene columna de modificación).
+ * - Índices por prefijo: tokens de nombre/apellido, email y dígitos del teléfono
+ *   (también invertidos, para buscar por los últimos dígitos). buscar(...) no hace HTTP.
+ * - Cumpleaños ordenados por día del año (precalculado por snapshot) para proximosCumples(...).
+ */
+public final class DirectorioClientes {
+
+  private static final Logger LOG = Logger.getLogger(DirectorioClientes.class.getName());
+  private static final DirectorioClientes INSTANCE = new DirectorioClientes();
+
+  private static final String SELECT =
+      "id_cliente,nombre,apellido,email,telefono,distrito,direccion,referencia,fecha_registro,fecha_cumple";
+  private static final int BLOQUE = 1000;
+  private static final long SYNC_SEG = 120;
+  private static final long COMPLETA_MS = TimeUnit.MINUTES.toMillis(30);
+  /** Hasta cuántos dígitos se busca sólo por final ("los últimos 4"). */
+  private static final int SUFIJO_MAX = 4;
+
+  /** Cumpleaños dentro del rango pedido: fecha = próxima celebración, enDias = 0 si es hoy. */
+  public record Cumple(Cliente cliente, LocalDate fecha, int enDias) {}
+
+  /** Formato del archivo en caché. */
+  private record Cache(long completaMs, int ultimoId, List<Cliente> clientes) {}
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+  private final Path archivo;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "clientes-sync");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean iniciado = new AtomicBoolean(false);
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  // ---- estado de trabajo (sólo el hilo de sincronización) ----
+  private final Map<Integer, Cliente> trabajo = new HashMap<>();
+  private int ultimoId;           // mayor id leído del servidor (no cuenta los de agregar)
+  private long completaMs;
+  private boolean leidoDeDisco;
+
+  private volatile Snapshot snap = Snapshot.VACIO;
+
+  private DirectorioClientes() {
+    Path dir = Rutas.cache("clientes");
+    archivo = (dir == null) ? null : dir.resolve("clientes.json");
+  }
+
+  public static DirectorioClientes get() { return INSTANCE; }
+
+  /** Primera carga + sincronización periódica (idempotente). */
+  public void iniciar() {
+    if (!iniciado.compareAndSet(false, true)) return;
+    scheduler.scheduleWithFixedDelay(this::sincronizarSilencioso, 0, SYNC_SEG, TimeUnit.SECONDS);
+  }
+
+  /** Lectura completa ya mismo (p.ej. botón Buscar con el directorio vacío). Completa en el hilo del directorio. */
+  public CompletableFuture<Void> recargar() {
+    iniciar();
+    CompletableFuture<Void> f = new CompletableFuture<>();
+    scheduler.execute(() -> {
+      try {
+        sincronizar(true);
+        f.complete(null);
+      } catch (Exception ex) {
+        f.completeExceptionally(ex);
+      }
+    });
+    return f;
+  }
+
+  /** Cliente recién creado desde esta PC: entra al índice sin esperar al próximo sondeo. */
+  public void agregar(Cliente c) {
+    if (c == null || c.id_cliente == null) return;
+    c.contrasena = null;
+    scheduler.execute(() -> {
+      trabajo.put(c.id_cliente, c);
+      publicar();
+    });
+  }
+
+  public boolean isCargado() { return snap.cargado; }
+
+  /** Se llama en el hilo FX cada vez que cambia el directorio. */
+  public void addListener(Runnable r) { listeners.add(Objects.requireNonNull(r)); }
+
+  public void removeListener(Runnable r) { listeners.remove(r); }
+
+  /** Todos, ordenados por nombre completo. */
+  public List<Cliente> todos() { return snap.clientes; }
+
+  public int total() { return snap.clientes.size(); }
+
+  public Cliente porId(Integer id) { return id == null ? null : snap.porId.get(id); }
+
+  /**
+   * Busca en memoria (orden por nombre).
+   * - Sólo dígitos (admite espacios, +, -, paréntesis): hasta 4 dígitos, por final del teléfono
+   *   (si nadie termina así, por inicio); más, por inicio o por final ("4321", "987 65", "51987...").
+   * - Con '@': por inicio del email.
+   * - Resto: cada término debe ser prefijo de algún token del nombre o apellido;
+   *   si no hay nada y es un solo término, se prueba como inicio del email.
+   */
+  public List<Cliente> buscar(String texto, int max) {
+    Snapshot s = snap;
+    int n = s.clientes.size();
+    int limite = max <= 0 ? Integer.MAX_VALUE : max;
+    String q = texto == null ? "" : texto.trim();
+    if (q.isEmpty()) return n > limite ? s.clientes.subList(0, limite) : s.clientes;
+
+    BitSet hits = new BitSet(n);
+    if (esTelefono(q)) {
+      String dig = digitos(q);
+      s.sufijos.prefijo(invertir(dig), hits);
+      if (dig.length() > SUFIJO_MAX || hits.isEmpty()) s.telefonos.prefijo(dig, hits);
+    } else if (q.indexOf('@') >= 0) {
+      s.emails.prefijo(Textos.paraBusqueda(q), hits);
+    } else {
+      List<String> terminos = Textos.tokens(q);
+      BitSet acc = null;
+      for (String t : terminos) {
+        BitSet b = new BitSet(n);
+        s.nombres.prefijo(t, b);
+        if (acc == null) acc = b; else acc.and(b);
+        if (acc.isEmpty()) break;
+      }
+      if (acc != null) hits = acc;
+      if (hits.isEmpty() && terminos.size() == 1) s.emails.prefijo(Textos.paraBusqueda(q), hits);
+    }
+
+    List<Cliente> out = new ArrayList<>(Math.min(hits.cardinality(), limite));
+    for (int i = hits.nextSetBit(0); i >= 0 && out.size() < limite; i = hits.nextSetBit(i + 1)) {
+      out.add(s.clientes.get(i));
+    }
+    return out;
+  }
+
+  /**
+   * Cumpleaños de hoy a hoy+dias, en orden. Búsqueda binaria del día de hoy en el índice
+   * (año bisiesto fijo: el 29/02 se celebra el 28/02 en años normales) y recorrido circular.
+   */
+  public List<Cumple> proximosCumples(LocalDate hoy, int dias) {
+    Snapshot s = snap;
+    int n = s.cumpleDia.length;
+    List<Cumple> out = new ArrayList<>();
+    if (n == 0 || dias < 0) return out;
+    int i = Arrays.binarySearch(s.cumpleDia, diaDelAnio(hoy.getMonthValue(), hoy.getDayOfMonth()));
+    if (i < 0) i = -(i + 1);
+    else while (i > 0 && s.cumpleDia[i - 1] == s.cumpleDia[i]) i--;
+    for (int k = 0; k < n; k++) {
+      Cliente c = s.cumpleCli[(i + k) % n];
+      MonthDay md = MonthDay.from(c.fecha_cumple);
+      LocalDate fecha = md.atYear(hoy.getYear());
+      if (fecha.isBefore(hoy)) fecha = md.atYear(hoy.getYear() + 1);
+      int en = (int) ChronoUnit.DAYS.between(hoy, fecha);
+      if (en > dias) break;
+      out.add(new Cumple(c, fecha, en));
+    }
+    return out;
+  }
+
+  /** Día del año en un año bisiesto (1..366): el orden no cambia de un año a otro. */
+  private static int diaDelAnio(int mes, int dia) { return LocalDate.of(2000, mes, dia).getDayOfYear(); }
+
+  /* ===================== Sincronización ===================== */
+
+  private void sincronizarSilencioso() {
+    try {
+      sincronizar(false);
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo sincronizar el directorio de clientes", ex);
+    }
+  }
+
+  private void sincronizar(boolean forzarCompleta) throws Exception {
+    if (!leidoDeDisco) {
+      leidoDeDisco = true;
+      if (leerDisco()) publicar(); // pintar ya lo guardado
+    }
+    long ahora = System.currentTimeMillis();
+    boolean completa = forzarCompleta || trabajo.isEmpty() || ahora - completaMs >= COMPLETA_MS;
+
+    List<Cliente> nuevos = leerDesde(completa ? 0 : ultimoId);
+    if (completa) {
+      trabajo.clear();
+      ultimoId = 0;
+      completaMs = ahora;
+    } else if (nuevos.isEmpty() && snap.cargado) {
+      return; // nada nuevo: no se republica ni se escribe
+    }
+    for (Cliente c : nuevos) {
+      trabajo.put(c.id_cliente, c);
+      ultimoId = Math.max(ultimoId, c.id_cliente);
+    }
+    publicar();
+    escribirDisco();
+  }
+
+  /** Keyset por id_cliente hasta agotar. */
+  private List<Cliente> leerDesde(int desde) throws Exception {
+    List<Cliente> out = new ArrayList<>();
+    int ultimo = desde;
+    while (true) {
+      String path = "/cliente?select=" + ApiClient.urlEncode(SELECT)
+          + "&id_cliente=gt." + ultimo + "&order=id_cliente.asc&limit=" + BLOQUE;
+      var resp = api.getResp(path, 2);
+      ApiClient.require2xx(resp, "GET /cliente (directorio)");
+      List<Cliente> bloque = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Cliente>>() {});
+      for (Cliente c : bloque) {
+        if (c.id_cliente == null) continue;
+        out.add(c);
+        ultimo = Math.max(ultimo, c.id_cliente);
+      }
+      if (bloque.size() < BLOQUE) return out;
+    }
+  }
+
+  private void publicar() {
+    snap = Snapshot.de(trabajo.values());
+    Platform.runLater(() -> listeners.forEach(Runnable::run));
+  }
+
+  /* ===================== Disco ===================== */
+
+  private boolean leerDisco() {
+    if (archivo == null || !Files.isRegularFile(archivo)) return false;
+    try {
+      Cache c = Json.MAPPER.readValue(archivo.toFile(), Cache.class);
+      if (c.clientes() == null || c.clientes().isEmpty()) return false;
+      for (Cliente cl : c.clientes()) if (cl.id_cliente != null) trabajo.put(cl.id_cliente, cl);
+      completaMs = c.completaMs();
+      ultimoId = c.ultimoId();
+      return !trabajo.isEmpty();
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "Caché de clientes ilegible; se vuelve a leer del servidor", ex);
+      trabajo.clear();
+      return false;
+    }
+  }
+
+  private void escribirDisco() {
+    if (archivo == null) return;
+    Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+    try {
+      Json.MAPPER.writeValue(tmp.toFile(), new Cache(completaMs, ultimoId, new ArrayList<>(trabajo.values())));
+      Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo guardar la caché de clientes", ex);
+    }
+  }
+
+  /* ===================== Helpers ===================== */
+
+  /** true si el texto es un teléfono: dígitos con separadores habituales y al menos un dígito. */
+  private static boolean esTelefono(String q) {
+    boolean alguno = false;
+    for (int i = 0; i < q.length(); i++) {
+      char c = q.charAt(i);
+      if (c >= '0' && c <= '9') alguno = true;
+      else if (c != ' ' && c != '+' && c != '-' && c != '(' && c != ')') return false;
+    }
+    return alguno;
+  }
+
+  static String digitos(String s) {
+    if (s == null) return "";
+    StringBuilder sb = new StringBuilder(s.length());
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= '0' && c <= '9') sb.append(c);
+    }
+    return sb.toString();
+  }
+
+  private static String invertir(String s) { return new StringBuilder(s).reverse().toString(); }
+
+  /* ===================== Snapshot inmutable ===================== */
+
+  private static final class Snapshot {
+    static final Snapshot VACIO = new Snapshot(List.of(), IndicePrefijos.VACIO, IndicePrefijos.VACIO,
+        IndicePrefijos.VACIO, IndicePrefijos.VACIO, Map.of(), new int[0], new Cliente[0], false);
+
+    final List<Cliente> clientes;
+    final IndicePrefijos nombres;     // tokens de nombre y apellido
+    final IndicePrefijos emails;      // email completo normalizado
+    final IndicePrefijos telefonos;   // dígitos (y sin el 51 inicial)
+    final IndicePrefijos sufijos;     // dígitos invertidos: prefijo = final del teléfono
+    final Map<Integer, Cliente> porId;
+    final int[] cumpleDia;            // día del año (bisiesto) ordenado
+    final Cliente[] cumpleCli;        // cliente de cada cumpleDia
+    final boolean cargado;
+
+    private Snapshot(List<Cliente> clientes, IndicePrefijos nombres, IndicePrefijos emails,
+                     IndicePrefijos telefonos, IndicePrefijos sufijos, Map<Integer, Cliente> porId,
+                     int[] cumpleDia, Cliente[] cumpleCli, boolean cargado) {
+      this.clientes = clientes;
+      this.nombres = nombres;
+      this.emails = emails;
+      this.telefonos = telefonos;
+      this.sufijos = sufijos;
+      this.porId = porId;
+      this.cumpleDia = cumpleDia;
+      this.cumpleCli = cumpleCli;
+      this.cargado = cargado;
+    }
+
+    static Snapshot de(Iterable<Cliente> fuente) {
+      List<Cliente> list = new ArrayList<>();
+      fuente.forEach(list::add);
+      Map<Integer, String> clave = new HashMap<>(list.size() * 2);
+      for (Cliente c : list) clave.put(c.id_cliente, Textos.paraBusqueda(c.getNombreCompleto()));
+      list.sort(Comparator.comparing((Cliente c) -> clave.get(c.id_cliente)).thenComparing(c -> c.id_cliente));
+
+      Map<Integer, Cliente> porId = new HashMap<>(list.size() * 2);
+      IndicePrefijos.Builder bn = new IndicePrefijos.Builder();
+      IndicePrefijos.Builder be = new IndicePrefijos.Builder();
+      IndicePrefijos.Builder bt = new IndicePrefijos.Builder();
+      IndicePrefijos.Builder bs = new IndicePrefijos.Builder();
+      for (int i = 0; i < list.size(); i++) {
+        Cliente c = list.get(i);
+        porId.put(c.id_cliente, c);
+        for (String t : Textos.tokens(c.nombre)) bn.add(t, i);
+        for (String t : Textos.tokens(c.apellido)) bn.add(t, i);
+        be.add(Textos.paraBusqueda(c.email), i);
+        String dig = digitos(c.telefono);
+        if (!dig.isEmpty()) {
+          bt.add(dig, i);
+          if (dig.length() == 11 && dig.startsWith("51")) bt.add(dig.substring(2), i);
+          bs.add(invertir(dig), i);
+        }
+      }
+
+      // cumpleaños: (día << 32 | posición) ordenado -> dos arreglos paralelos
+      long[] claves = new long[list.size()];
+      int nc = 0;
+      for (int i = 0; i < list.size(); i++) {
+        LocalDate f = list.get(i).fecha_cumple;
+        if (f != null) claves[nc++] = ((long) diaDelAnio(f.getMonthValue(), f.getDayOfMonth()) << 32) | i;
+      }
+      Arrays.sort(claves, 0, nc);
+      int[] cumpleDia = new int[nc];
+      Cliente[] cumpleCli = new Cliente[nc];
+      for (int k = 0; k < nc; k++) {
+        cumpleDia[k] = (int) (claves[k] >>> 32);
+        cumpleCli[k] = list.get((int) claves[k]);
+      }
+
+      return new Snapshot(List.copyOf(list), bn.build(), be.build(), bt.build(), bs.build(), Map.copyOf(porId),
+          cumpleDia, cumpleCli, true);
+    }
+  }
+}
@@ -0,0 +1,91 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/EscritorCsv.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * CSV RFC 4180 en UTF-8 (con BOM para que Excel detecte la codificación), escrito sobre un FileChannel
+ * con búfer de 64 KB. Cada campo se escapa carácter a carácter: sin concatenar líneas.
+ */
+final class EscritorCsv implements EscritorFilas {
+
+  private static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  private final Writer out;
+  private Exportador.Tipo[] tipos;
+
+  EscritorCsv(Path archivo) throws IOException {
+    FileChannel ch = FileChannel.open(archivo,
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    this.out = new BufferedWriter(Channels.newWriter(ch, StandardCharsets.UTF_8.newEncoder(), 1 << 16), 1 << 16);
+    out.write('\uFEFF');
+  }
+
+  @Override
+  public void cabecera(List<Exportador.Columna> columnas) throws IOException {
+    tipos = new Exportador.Tipo[columnas.size()];
+    for (int i = 0; i < columnas.size(); i++) {
+      if (i > 0) out.write(',');
+      campo(columnas.get(i).titulo());
+      tipos[i] = columnas.get(i).tipo();
+    }
+    out.write("\r\n");
+  }
+
+  @Override
+  public void fila(String[] valores) throws IOException {
+    for (int i = 0; i < valores.length; i++) {
+      if (i > 0) out.write(',');
+      String v = valores[i];
+      if (v == null) continue;
+      switch (tipos[i]) {
+        case FECHA_HORA -> {
+          LocalDateTime dt = Exportador.fechaHora(v);
+          campo(dt == null ? v : FECHA_HORA.format(dt));
+        }
+        case FECHA -> {
+          LocalDate d = Exportador.fecha(v);
+          campo(d == null ? v : d.toString());
+        }
+        default -> campo(v);
+      }
+    }
+    out.write("\r\n");
+  }
+
+  /** Escribe el campo, entre comillas sólo si hace falta. */
+  private void campo(String v) throws IOException {
+    boolean comillas = false;
+    for (int i = 0; i < v.length(); i++) {
+      char ch = v.charAt(i);
+      if (ch == ',' || ch == '"' || ch == '\n' || ch == '\r') { comillas = true; break; }
+    }
+    if (!comillas) {
+      out.write(v);
+      return;
+    }
+    out.write('"');
+    for (int i = 0; i < v.length(); i++) {
+      char ch = v.charAt(i);
+      if (ch == '"') out.write('"');
+      out.write(ch);
+    }
+    out.write('"');
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -0,0 +1,15 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/EscritorFilas.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/** Destino de una exportación: recibe la cabecera y luego las filas de a una (sin acumularlas). */
+interface EscritorFilas extends Closeable {
+
+  void cabecera(List<Exportador.Columna> columnas) throws IOException;
+
+  /** valores[i] corresponde a columnas[i]; null = celda vacía. El arreglo se reutiliza: no guardarlo. */
+  void fila(String[] valores) throws IOException;
+}
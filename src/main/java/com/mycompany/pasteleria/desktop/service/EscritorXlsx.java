@@ -0,0 +1,231 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/EscritorXlsx.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX en streaming (al estilo SXSSF, sin POI): la hoja se escribe fila a fila dentro del zip.
+ * - Textos como inlineStr: no hay tabla de cadenas compartidas que crezca en memoria.
+ * - Números y fechas como valores numéricos con estilo (Excel puede sumar/filtrar).
+ * - Al pasar el límite de filas de Excel se abre otra hoja; workbook y [Content_Types] se escriben al cerrar.
+ */
+final class EscritorXlsx implements EscritorFilas {
+
+  private static final int MAX_FILAS_HOJA = 1_048_576;
+  private static final LocalDate ORIGEN_EXCEL = LocalDate.of(1899, 12, 30);
+  private static final String NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+  // índices de cellXfs en styles.xml
+  private static final int S_FECHA_HORA = 1, S_DECIMAL = 2, S_FECHA = 3, S_CABECERA = 4;
+
+  private final ZipOutputStream zip;
+  private final Writer out;
+  private List<Exportador.Columna> columnas;
+  private int hojas = 0;
+  private int filaHoja = 0;
+
+  EscritorXlsx(Path archivo) throws IOException {
+    this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo), 1 << 16));
+    this.zip.setLevel(5); // el texto XML comprime bien; 5 es bastante más rápido que 9
+    this.out = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void cabecera(List<Exportador.Columna> columnas) throws IOException {
+    this.columnas = columnas;
+    abrirHoja();
+  }
+
+  @Override
+  public void fila(String[] valores) throws IOException {
+    if (filaHoja == MAX_FILAS_HOJA) {
+      cerrarHoja();
+      abrirHoja();
+    }
+    filaHoja++;
+    out.write("<row>");
+    for (int i = 0; i < valores.length; i++) {
+      String v = valores[i];
+      if (v == null || v.isEmpty()) {
+        out.write("<c/>");
+        continue;
+      }
+      switch (columnas.get(i).tipo()) {
+        case ENTERO -> numero(v, 0);
+        case DECIMAL -> numero(v, S_DECIMAL);
+        case FECHA_HORA -> {
+          LocalDateTime dt = Exportador.fechaHora(v);
+          if (dt == null) texto(v, 0);
+          else numero(serial(dt), S_FECHA_HORA);
+        }
+        case FECHA -> {
+          LocalDate d = Exportador.fecha(v);
+          if (d == null) texto(v, 0);
+          else numero(Long.toString(ChronoUnit.DAYS.between(ORIGEN_EXCEL, d)), S_FECHA);
+        }
+        default -> texto(v, 0);
+      }
+    }
+    out.write("</row>");
+  }
+
+  /* ===================== Hojas ===================== */
+
+  private void abrirHoja() throws IOException {
+    hojas++;
+    filaHoja = 1;
+    zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + hojas + ".xml"));
+    out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+    out.write("<worksheet xmlns=\"" + NS + "\">");
+    // cabecera fija al desplazarse
+    out.write("<sheetViews><sheetView workbookViewId=\"0\">"
+        + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+        + "</sheetView></sheetViews>");
+    out.write("<sheetData><row>");
+    for (Exportador.Columna c : columnas) texto(c.titulo(), S_CABECERA);
+    out.write("</row>");
+  }
+
+  private void cerrarHoja() throws IOException {
+    out.write("</sheetData></worksheet>");
+    out.flush();
+    zip.closeEntry();
+  }
+
+  /* ===================== Celdas ===================== */
+
+  private void numero(String v, int estilo) throws IOException {
+    if (!Exportador.esNumero(v)) {
+      texto(v, estilo == S_DECIMAL ? 0 : estilo);
+      return;
+    }
+    out.write(estilo == 0 ? "<c><v>" : "<c s=\"" + estilo + "\"><v>");
+    out.write(v);
+    out.write("</v></c>");
+  }
+
+  private void texto(String v, int estilo) throws IOException {
+    out.write(estilo == 0 ? "<c t=\"inlineStr\"><is><t xml:space=\"preserve\">"
+        : "<c t=\"inlineStr\" s=\"" + estilo + "\"><is><t xml:space=\"preserve\">");
+    escapar(v);
+    out.write("</t></is></c>");
+  }
+
+  /** Escapa XML y descarta caracteres de control no permitidos en XML 1.0. */
+  private void escapar(String v) throws IOException {
+    for (int i = 0; i < v.length(); i++) {
+      char ch = v.charAt(i);
+      switch (ch) {
+        case '&' -> out.write("&amp;");
+        case '<' -> out.write("&lt;");
+        case '>' -> out.write("&gt;");
+        default -> {
+          if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') out.write(ch);
+        }
+      }
+    }
+  }
+
+  /** Fecha-hora como número de serie de Excel (días desde 1899-12-30 + fracción del día). */
+  private static String serial(LocalDateTime dt) {
+    long dias = ChronoUnit.DAYS.between(ORIGEN_EXCEL, dt.toLocalDate());
+    double frac = dt.toLocalTime().toSecondOfDay() / 86_400d;
+    return Double.toString(dias + frac);
+  }
+
+  /* ===================== Cierre: partes fijas del paquete ===================== */
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (hojas == 0) {
+        columnas = (columnas == null) ? List.of() : columnas;
+        abrirHoja();
+      }
+      cerrarHoja();
+
+      StringBuilder tipos = new StringBuilder()
+          .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+          .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+          .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+          .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+          .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+          .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+      StringBuilder libro = new StringBuilder()
+          .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+          .append("<workbook xmlns=\"").append(NS)
+          .append("\" xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+      StringBuilder rels = new StringBuilder()
+          .append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+          .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+      for (int h = 1; h <= hojas; h++) {
+        tipos.append("<Override PartName=\"/xl/worksheets/sheet").append(h)
+            .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        libro.append("<sheet name=\"Hoja").append(h).append("\" sheetId=\"").append(h)
+            .append("\" r:id=\"rId").append(h).append("\"/>");
+        rels.append("<Relationship Id=\"rId").append(h)
+            .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+            .append(h).append(".xml\"/>");
+      }
+      rels.append("<Relationship Id=\"rId").append(hojas + 1)
+          .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+          .append("</Relationships>");
+      tipos.append("</Types>");
+      libro.append("</sheets></workbook>");
+
+      parte("[Content_Types].xml", tipos.toString());
+      parte("_rels/.rels",
+          "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+          + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+          + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+          + "</Relationships>");
+      parte("xl/workbook.xml", libro.toString());
+      parte("xl/_rels/workbook.xml.rels", rels.toString());
+      parte("xl/styles.xml", ESTILOS);
+    } finally {
+      out.close();
+    }
+  }
+
+  private void parte(String nombre, String xml) throws IOException {
+    zip.putNextEntry(new ZipEntry(nombre));
+    out.write(xml);
+    out.flush();
+    zip.closeEntry();
+  }
+
+  private static final String ESTILOS =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+      + "<styleSheet xmlns=\"" + NS + "\">"
+      + "<numFmts count=\"2\">"
+      + "<numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd hh:mm\"/>"
+      + "<numFmt numFmtId=\"165\" formatCode=\"yyyy-mm-dd\"/>"
+      + "</numFmts>"
+      + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+      + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+      + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>"
+      + "<fill><patternFill patternType=\"gray125\"/></fill></fills>"
+      + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+      + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+      + "<cellXfs count=\"5\">"
+      + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+      + "<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+      + "<xf numFmtId=\"4\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+      + "<xf numFmtId=\"165\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+      + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+      + "</cellXfs>"
+      + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+      + "</styleSheet>";
+}
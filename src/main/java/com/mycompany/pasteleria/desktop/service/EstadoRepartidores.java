@@ -0,0 +1,230 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/EstadoRepartidores.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+import com.mycompany.pasteleria.desktop.util.Json;
+import javafx.application.Platform;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Repartidores activos y su carga actual (asignaciones cuyo pedido sigue ASIGNADO/ENVIADO), en memoria.
+ * - Lista de repartidores: cada 10 min. Cargas: cada 30 s; sólo se mueven los que cambiaron.
+ * - registrar(...) suma al instante lo asignado desde esta PC (sin esperar al sondeo).
+ * - Cubetas por carga (índice = pedidos en ruta): menosCargado() es O(1); dentro de una cubeta
+ *   el orden es de llegada, así el que acaba de recibir un pedido pasa al final y la carga se reparte.
+ */
+public final class EstadoRepartidores {
+
+  private static final Logger LOG = Logger.getLogger(EstadoRepartidores.class.getName());
+  private static final EstadoRepartidores INSTANCE = new EstadoRepartidores();
+
+  private static final long CARGA_SEG = 30;
+  private static final int LISTA_CADA = 20; // sondeos de carga (20 x 30 s = 10 min)
+
+  /** Vista inmutable para la UI. ultimaSalida = hora_salida más tardía de sus pedidos en ruta (o null). */
+  public record Repartidor(int id, String nombre, int enRuta, LocalTime ultimaSalida) {}
+
+  private final ApiClient api = new ApiClient(AppConfig.SUPABASE_URL, AppConfig.SUPABASE_ANON_KEY);
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "repartidores-refresh");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean iniciado = new AtomicBoolean(false);
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  // ===== estado (bajo this) =====
+  private static final class Estado {
+    final int id;
+    String nombre;
+    int carga;
+    LocalTime salida;
+    Estado(int id) { this.id = id; }
+  }
+  private final Map<Integer, Estado> porId = new HashMap<>();
+  private final List<LinkedHashSet<Integer>> cubetas = new ArrayList<>();
+  private int min = 0;
+  private boolean cargado = false;
+  private int sondeos = 0;
+
+  private EstadoRepartidores() {}
+
+  public static EstadoRepartidores get() { return INSTANCE; }
+
+  /** Primera carga + refresco periódico (idempotente). */
+  public void iniciar() {
+    if (!iniciado.compareAndSet(false, true)) return;
+    scheduler.scheduleWithFixedDelay(this::refrescarSilencioso, 0, CARGA_SEG, TimeUnit.SECONDS);
+  }
+
+  /** Recarga completa (lista + cargas). Completa en el hilo del caché. */
+  public CompletableFuture<Void> recargar() {
+    iniciar();
+    CompletableFuture<Void> f = new CompletableFuture<>();
+    scheduler.execute(() -> {
+      try {
+        cargarLista();
+        cargarCargas(true);
+        f.complete(null);
+      } catch (Exception ex) {
+        f.completeExceptionally(ex);
+      }
+    });
+    return f;
+  }
+
+  public synchronized boolean isCargado() { return cargado; }
+
+  /** Se llama en el hilo FX cuando cambia la lista o alguna carga. */
+  public void addListener(Runnable r) { listeners.add(Objects.requireNonNull(r)); }
+
+  public void removeListener(Runnable r) { listeners.remove(r); }
+
+  /** Activos por nombre. */
+  public synchronized List<Repartidor> activos() {
+    List<Repartidor> out = new ArrayList<>(porId.size());
+    for (Estado e : porId.values()) out.add(vista(e));
+    out.sort((a, b) -> a.nombre().compareToIgnoreCase(b.nombre()));
+    return out;
+  }
+
+  /** El de menor carga (empate: el que lleva más tiempo sin recibir); null si no hay activos. */
+  public synchronized Repartidor menosCargado() {
+    if (porId.isEmpty()) return null;
+    Integer id = cubetas.get(min).iterator().next();
+    return vista(porId.get(id));
+  }
+
+  /** Asignación hecha desde esta PC: suma 1 al repartidor ya mismo. */
+  public void registrar(int idDelivery, String horaSalida) { registrar(idDelivery, horaSalida, 1); }
+
+  /** Igual, para varios pedidos del mismo repartidor (plan de reparto). */
+  public void registrar(int idDelivery, String horaSalida, int pedidos) {
+    if (pedidos <= 0) return;
+    boolean cambio;
+    synchronized (this) {
+      Estado e = porId.get(idDelivery);
+      cambio = e != null;
+      if (cambio) {
+        LocalTime h = Fechas.hora(horaSalida);
+        if (h != null && (e.salida == null || h.isAfter(e.salida))) e.salida = h;
+        mover(e, e.carga + pedidos);
+      }
+    }
+    if (cambio) avisar();
+  }
+
+  private static Repartidor vista(Estado e) { return new Repartidor(e.id, e.nombre, e.carga, e.salida); }
+
+  /* ===================== Cubetas ===================== */
+
+  private LinkedHashSet<Integer> cubeta(int carga) {
+    while (cubetas.size() <= carga) cubetas.add(new LinkedHashSet<>());
+    return cubetas.get(carga);
+  }
+
+  private void mover(Estado e, int nueva) {
+    cubeta(e.carga).remove(e.id);
+    e.carga = nueva;
+    cubeta(nueva).add(e.id); // al final: último en recibir
+    ajustarMin(nueva);
+  }
+
+  private void ajustarMin(int tocada) {
+    if (porId.isEmpty()) { min = 0; return; }
+    if (tocada < min) min = tocada;
+    while (cubetas.get(min).isEmpty()) min++;
+  }
+
+  /* ===================== Carga ===================== */
+
+  private void refrescarSilencioso() {
+    try {
+      boolean lista = sondeos++ % LISTA_CADA == 0;
+      if (lista) cargarLista();
+      cargarCargas(lista);
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo refrescar el estado de repartidores", ex);
+    }
+  }
+
+  private void cargarLista() throws Exception {
+    var resp = api.getResp("/delivery_person?select=id_delivery,nombre,apellido&activo=eq.true&order=nombre.asc", 2);
+    ApiClient.require2xx(resp, "GET /delivery_person (estado)");
+    List<Map<String, Object>> filas = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Map<String, Object>>>(){});
+
+    synchronized (this) {
+      Map<Integer, Estado> antes = new HashMap<>(porId);
+      porId.clear();
+      for (Map<String, Object> m : filas) {
+        if (!(m.get("id_delivery") instanceof Number n)) continue;
+        Estado e = antes.getOrDefault(n.intValue(), new Estado(n.intValue()));
+        String nombre = (s(m.get("nombre")) + " " + s(m.get("apellido"))).trim();
+        e.nombre = nombre.isEmpty() ? "#" + e.id : nombre;
+        porId.put(e.id, e);
+      }
+      // rearmar cubetas conservando el orden de llegada de los que siguen
+      List<LinkedHashSet<Integer>> viejas = new ArrayList<>(cubetas);
+      cubetas.clear();
+      for (LinkedHashSet<Integer> c : viejas) {
+        for (Integer id : c) { Estado e = porId.get(id); if (e != null) cubeta(e.carga).add(id); }
+      }
+      for (Estado e : porId.values()) if (!antes.containsKey(e.id)) cubeta(e.carga).add(e.id);
+      min = 0;
+      ajustarMin(0);
+    }
+  }
+
+  /** Cuenta pedidos en ruta por repartidor y mueve sólo a quienes cambiaron de carga. */
+  private void cargarCargas(boolean avisarSiempre) throws Exception {
+    var resp = api.getResp("/delivery_asignacion?select=id_delivery,hora_salida,pedido:pedidos!inner(estado)"
+        + "&pedido.estado=in.(ASIGNADO,ENVIADO)", 2);
+    ApiClient.require2xx(resp, "GET /delivery_asignacion (carga)");
+    List<Map<String, Object>> filas = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Map<String, Object>>>(){});
+
+    Map<Integer, Integer> cuenta = new HashMap<>();
+    Map<Integer, LocalTime> salida = new HashMap<>();
+    for (Map<String, Object> m : filas) {
+      if (!(m.get("id_delivery") instanceof Number n)) continue;
+      cuenta.merge(n.intValue(), 1, Integer::sum);
+      LocalTime h = Fechas.hora(s(m.get("hora_salida")));
+      if (h != null) salida.merge(n.intValue(), h, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    boolean cambio;
+    synchronized (this) {
+      cambio = avisarSiempre || !cargado;
+      for (Estado e : porId.values()) {
+        int c = cuenta.getOrDefault(e.id, 0);
+        LocalTime h = salida.get(e.id);
+        if (!Objects.equals(h, e.salida)) { e.salida = h; cambio = true; }
+        if (c != e.carga) { mover(e, c); cambio = true; }
+      }
+      cargado = true;
+    }
+    if (cambio) avisar();
+  }
+
+  private void avisar() { Platform.runLater(() -> listeners.forEach(Runnable::run)); }
+
+  private static String s(Object o) { return o == null ? "" : String.valueOf(o).trim(); }
+}
@@ -0,0 +1,303 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/Exportador.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Fechas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Exportación en streaming (CSV / XLSX) de cualquier tabla de Supabase.
+ * - Recorre el servidor por keyset (clave=gt.último, order=clave.asc): sin OFFSET ni copia completa en memoria.
+ * - Cada página se parsea token a token y cada fila se escribe al archivo en cuanto se lee
+ *   (un único String[] reutilizado por fila).
+ * - Se escribe a "archivo.part" y se mueve al final; si falla o se cancela, no queda un archivo a medias.
+ * - Con {@link Consulta#soloClaves} se exportan exactamente las filas de una búsqueda hecha en memoria
+ *   (tokens sin acentos, prefijos) que PostgREST no sabe reproducir con ilike.
+ */
+public final class Exportador {
+
+  private static final int BLOQUE = 1000;
+  private static final ZoneId ZONA = ZoneId.systemDefault();
+
+  public enum Formato {
+    CSV("csv"), XLSX("xlsx");
+
+    public final String extension;
+
+    Formato(String extension) { this.extension = extension; }
+
+    /** Formato según la extensión del archivo (XLSX por defecto). */
+    public static Formato de(Path archivo) {
+      String n = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+      return n.endsWith(".csv") ? CSV : XLSX;
+    }
+  }
+
+  /** Tipo de columna: decide formato numérico / fecha en XLSX. */
+  public enum Tipo { TEXTO, ENTERO, DECIMAL, FECHA, FECHA_HORA }
+
+  /** campo: nombre en el JSON; "embebido.campo" para relaciones (p.ej. "cliente.nombre"). */
+  public record Columna(String campo, String titulo, Tipo tipo) {}
+
+  /**
+   * Qué exportar: tabla, select, clave numérica para el keyset y filtros PostgREST ("&a=eq.1...").
+   * {@code claves}: si no es null, sólo se escriben las filas cuya clave está en el conjunto.
+   */
+  public record Consulta(String tabla, String select, String clave, String filtros, List<Columna> columnas,
+                         Set<Long> claves) {
+
+    public Consulta(String tabla, String select, String clave, String filtros, List<Columna> columnas) {
+      this(tabla, select, clave, filtros, columnas, null);
+    }
+
+    /** La misma consulta, restringida a estas claves (p.ej. el resultado visible de una búsqueda local). */
+    public Consulta soloClaves(Collection<? extends Number> ids) {
+      Set<Long> s = new HashSet<>(ids.size() * 2);
+      for (Number id : ids) if (id != null) s.add(id.longValue());
+      return new Consulta(tabla, select, clave, filtros, columnas, Set.copyOf(s));
+    }
+  }
+
+  /** Avance y cancelación (se consulta entre filas). */
+  public interface Progreso {
+    void avance(long filas, long total);
+    boolean cancelado();
+  }
+
+  /* ===================== Consultas predefinidas ===================== */
+
+  /** Pedidos con cliente embebido. clienteInner: usar !inner cuando los filtros tocan al cliente. */
+  public static Consulta pedidos(String filtros, boolean clienteInner) {
+    String embed = clienteInner ? "cliente:cliente!inner(nombre,apellido,telefono)" : "cliente:cliente(nombre,apellido,telefono)";
+    return new Consulta("/pedidos",
+        "id_pedido,fecha_pedido,fecha_entrega,hora_entrega,estado,total,distrito,direccion,referencia," + embed,
+        "id_pedido", filtros,
+        List.of(
+            new Columna("id_pedido", "N° Pedido", Tipo.ENTERO),
+            new Columna("fecha_pedido", "Fecha pedido", Tipo.FECHA_HORA),
+            new Columna("fecha_entrega", "Fecha entrega", Tipo.FECHA),
+            new Columna("hora_entrega", "Hora entrega", Tipo.TEXTO),
+            new Columna("estado", "Estado", Tipo.TEXTO),
+            new Columna("total", "Total", Tipo.DECIMAL),
+            new Columna("cliente.nombre", "Nombre", Tipo.TEXTO),
+            new Columna("cliente.apellido", "Apellido", Tipo.TEXTO),
+            new Columna("cliente.telefono", "Teléfono", Tipo.TEXTO),
+            new Columna("distrito", "Distrito", Tipo.TEXTO),
+            new Columna("direccion", "Dirección", Tipo.TEXTO),
+            new Columna("referencia", "Referencia", Tipo.TEXTO)));
+  }
+
+  /** Pagos con estado/total del pedido. pedidoInner: usar !inner cuando se filtra por pedido.estado. */
+  public static Consulta pagos(String filtros, boolean pedidoInner) {
+    String embed = pedidoInner ? "pedido:pedidos!inner(total,estado)" : "pedido:pedidos(total,estado)";
+    return new Consulta("/pagos",
+        "id_pago,id_pedido,fecha_registro,metodo,monto,comprobante_url," + embed,
+        "id_pago", filtros,
+        List.of(
+            new Columna("id_pago", "N° Pago", Tipo.ENTERO),
+            new Columna("id_pedido", "N° Pedido", Tipo.ENTERO),
+            new Columna("fecha_registro", "Fecha registro", Tipo.FECHA_HORA),
+            new Columna("metodo", "Método", Tipo.TEXTO),
+            new Columna("monto", "Monto", Tipo.DECIMAL),
+            new Columna("pedido.total", "Total pedido", Tipo.DECIMAL),
+            new Columna("pedido.estado", "Estado pedido", Tipo.TEXTO),
+            new Columna("comprobante_url", "Comprobante", Tipo.TEXTO)));
+  }
+
+  /** Clientes (nunca se pide "contrasena"). */
+  public static Consulta clientes(String filtros) {
+    return new Consulta("/cliente",
+        "id_cliente,nombre,apellido,email,telefono,distrito,direccion,referencia,fecha_registro,fecha_cumple",
+        "id_cliente", filtros,
+        List.of(
+            new Columna("id_cliente", "ID", Tipo.ENTERO),
+            new Columna("nombre", "Nombre", Tipo.TEXTO),
+            new Columna("apellido", "Apellido", Tipo.TEXTO),
+            new Columna("email", "Email", Tipo.TEXTO),
+            new Columna("telefono", "Teléfono", Tipo.TEXTO),
+            new Columna("distrito", "Distrito", Tipo.TEXTO),
+            new Columna("direccion", "Dirección", Tipo.TEXTO),
+            new Columna("referencia", "Referencia", Tipo.TEXTO),
+            new Columna("fecha_registro", "Fecha registro", Tipo.FECHA_HORA),
+            new Columna("fecha_cumple", "Cumpleaños", Tipo.FECHA)));
+  }
+
+  public static Consulta productos(String filtros) {
+    return new Consulta("/productos",
+        "id_producto,nombre,precio,stock,estado,descripcion,imagen_url,categoria:categorias(nombre)",
+        "id_producto", filtros,
+        List.of(
+            new Columna("id_producto", "ID", Tipo.ENTERO),
+            new Columna("nombre", "Nombre", Tipo.TEXTO),
+            new Columna("categoria.nombre", "Categoría", Tipo.TEXTO),
+            new Columna("precio", "Precio", Tipo.DECIMAL),
+            new Columna("stock", "Stock", Tipo.ENTERO),
+            new Columna("estado", "Estado", Tipo.TEXTO),
+            new Columna("descripcion", "Descripción", Tipo.TEXTO),
+            new Columna("imagen_url", "ImagenURL", Tipo.TEXTO)));
+  }
+
+  /* ===================== Motor ===================== */
+
+  private final ApiClient api;
+  private final JsonFactory jf = new JsonFactory();
+
+  public Exportador(ApiClient api) {
+    this.api = api;
+  }
+
+  /**
+   * Exporta la consulta completa a destino. Devuelve las filas escritas.
+   * Lanza CancellationException si progreso.cancelado() se vuelve true.
+   */
+  public long exportar(Consulta c, Formato formato, Path destino, Progreso progreso)
+      throws IOException, InterruptedException {
+    List<Columna> cols = c.columnas();
+    Map<String, Integer> indice = new HashMap<>();
+    for (int i = 0; i < cols.size(); i++) indice.put(cols.get(i).campo(), i);
+    Integer iClave = indice.get(c.clave());
+    if (iClave == null) throw new IllegalArgumentException("La clave " + c.clave() + " debe ser una columna exportada");
+
+    Set<Long> claves = c.claves();
+    long total = (claves != null) ? claves.size() : contar(c);
+    progreso.avance(0, total);
+
+    Path parcial = destino.resolveSibling(destino.getFileName() + ".part");
+    String filtros = c.filtros() == null ? "" : c.filtros();
+    if (claves != null && !claves.isEmpty()) {
+      // acotar el recorrido al rango de claves pedidas
+      filtros += "&" + c.clave() + "=gte." + Collections.min(claves) + "&" + c.clave() + "=lte." + Collections.max(claves);
+    }
+    String select = ApiClient.urlEncode(c.select());
+    String[] valores = new String[cols.size()];
+    long filas = 0, ultimo = Long.MIN_VALUE;
+    boolean ok = false;
+
+    try (EscritorFilas out = formato == Formato.CSV ? new EscritorCsv(parcial) : new EscritorXlsx(parcial)) {
+      out.cabecera(cols);
+      while (claves == null || filas < claves.size()) {
+        verificar(progreso);
+        String path = c.tabla() + "?select=" + select + filtros
+            + (ultimo == Long.MIN_VALUE ? "" : "&" + c.clave() + "=gt." + ultimo)
+            + "&order=" + c.clave() + ".asc&limit=" + BLOQUE;
+        var resp = api.getRespStream(path);
+        int n = 0;
+        try (InputStream in = resp.body()) {
+          if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+            throw new IOException("HTTP " + resp.statusCode() + " en GET " + c.tabla() + " (exportar): "
+                + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+          }
+          try (JsonParser p = jf.createParser(in)) {
+            if (p.nextToken() == JsonToken.START_ARRAY) {
+              while (p.nextToken() == JsonToken.START_OBJECT) {
+                Arrays.fill(valores, null);
+                leerObjeto(p, null, indice, valores);
+                ultimo = Long.parseLong(valores[iClave]);
+                n++;
+                if (claves != null && !claves.contains(ultimo)) continue;
+                out.fila(valores);
+                if ((++filas & 255) == 0) {
+                  verificar(progreso);
+                  progreso.avance(filas, total);
+                }
+              }
+            }
+          }
+        }
+        progreso.avance(filas, total);
+        if (n == 0) break; // el servidor puede limitar la página por debajo de BLOQUE: seguir hasta vaciar
+      }
+      ok = true;
+    } finally {
+      if (!ok) Files.deleteIfExists(parcial);
+    }
+    Files.move(parcial, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return filas;
+  }
+
+  /** Total para la barra de progreso (-1 si el servidor no lo informa). */
+  private long contar(Consulta c) throws IOException, InterruptedException {
+    String path = c.tabla() + "?select=" + ApiClient.urlEncode(c.select()) + (c.filtros() == null ? "" : c.filtros()) + "&limit=1";
+    var resp = api.getRespWithCount(path);
+    ApiClient.require2xx(resp, "GET " + c.tabla() + " (contar)");
+    String cr = resp.headers().firstValue("Content-Range").orElse("");
+    int i = cr.indexOf('/');
+    try {
+      return i < 0 ? -1 : Long.parseLong(cr.substring(i + 1).trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /** Recorre un objeto JSON; los objetos embebidos se aplanan como "padre.campo". Arreglos se ignoran. */
+  private static void leerObjeto(JsonParser p, String prefijo, Map<String, Integer> indice, String[] valores)
+      throws IOException {
+    while (p.nextToken() == JsonToken.FIELD_NAME) {
+      String nombre = prefijo == null ? p.currentName() : prefijo + "." + p.currentName();
+      JsonToken t = p.nextToken();
+      if (t == JsonToken.START_OBJECT) {
+        leerObjeto(p, nombre, indice, valores);
+      } else if (t == JsonToken.START_ARRAY) {
+        p.skipChildren();
+      } else {
+        Integer i = indice.get(nombre);
+        if (i != null) valores[i] = (t == JsonToken.VALUE_NULL) ? null : p.getText();
+      }
+    }
+  }
+
+  private static void verificar(Progreso progreso) throws InterruptedException {
+    if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+    if (progreso.cancelado()) throw new CancellationException("Exportación cancelada");
+  }
+
+  /* ===================== Helpers para los escritores ===================== */
+
+  /** timestamp/timestamptz ISO -> fecha-hora local (null si no parsea). */
+  static LocalDateTime fechaHora(String iso) {
+    long ms = Fechas.epochMs(iso);
+    return ms == Fechas.SIN_FECHA ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(ms), ZONA);
+  }
+
+  /** date ISO (o el día de un timestamp) -> LocalDate (null si no parsea). */
+  static LocalDate fecha(String iso) {
+    return Fechas.fecha(iso);
+  }
+
+  /** ¿Texto numérico simple ("-12", "12.50")? Sin exponentes ni separadores de miles. */
+  static boolean esNumero(String s) {
+    if (s == null || s.isEmpty()) return false;
+    int i = (s.charAt(0) == '-') ? 1 : 0;
+    if (i == s.length()) return false;
+    boolean punto = false;
+    for (; i < s.length(); i++) {
+      char ch = s.charAt(i);
+      if (ch == '.' && !punto) punto = true;
+      else if (ch < '0' || ch > '9') return false;
+    }
+    return true;
+  }
+}
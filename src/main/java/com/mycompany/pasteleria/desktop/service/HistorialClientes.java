@@ -0,0 +1,300 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/HistorialClientes.java
+package com.mycompany.pasteleria.desktop.service;
+
+import javafx.application.Platform;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Historial por cliente (pedidos, gasto, ticket promedio, productos favoritos) en memoria.
+ * - Se alimenta del almacén columnar de Reportes (AlmacenReportes): no consulta pedidos aparte.
+ * - Incremental: cada sincronización sólo suma las filas nuevas de pedidos/detalle y, para las
+ *   que ya estaban, aplica la diferencia si cambió su estado o total (p.ej. un pedido CANCELADO
+ *   resta su importe y sus unidades). Comparar columnas locales no hace HTTP.
+ * - Las consultas (resumen, pedidos) leen el agregado bajo lock; no recorren todos los pedidos.
+ */
+public final class HistorialClientes {
+
+  private static final Logger LOG = Logger.getLogger(HistorialClientes.class.getName());
+  private static final HistorialClientes INSTANCE = new HistorialClientes();
+
+  private static final long SYNC_MIN = 2;
+  /** No suman gasto ni favoritos (igual que Reportes). */
+  private static final Set<String> ANULADOS = Set.of("CANCELADO", "PAGO_NO_VALIDO");
+  private static final int MAX_RECIENTES = 50;
+  private static final int MAX_FAVORITOS = 5;
+
+  public record PedidoCliente(int idPedido, LocalDate fecha, String estado, long totalCent) {}
+
+  public record Favorito(int idProducto, int unidades) {}
+
+  /** ticketPromedioCent sobre pedidos no anulados; recientes primero. */
+  public record Resumen(int pedidos, int anulados, long gastoCent, long ticketPromedioCent, LocalDate ultimo,
+                        List<PedidoCliente> recientes, List<Favorito> favoritos) {
+    public static final Resumen VACIO = new Resumen(0, 0, 0, 0, null, List.of(), List.of());
+  }
+
+  private final AlmacenReportes almacen = AlmacenReportes.get();
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "historial-clientes");
+    t.setDaemon(true);
+    return t;
+  });
+  private final AtomicBoolean iniciado = new AtomicBoolean(false);
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+  // ===== agregado (bajo this; sólo el hilo del historial escribe) =====
+  private static final class Agregado {
+    int pedidos, anulados;
+    long gasto;
+    int ultimoDia = AlmacenReportes.SIN_DIA;
+    int[] filas = new int[4];            // filas de pedido en el almacén (orden de id)
+    int nFilas;
+    final Map<Integer, Integer> unidades = new HashMap<>(); // id_producto -> unidades
+
+    void agregarFila(int f) {
+      if (nFilas == filas.length) filas = Arrays.copyOf(filas, nFilas * 2);
+      filas[nFilas++] = f;
+    }
+  }
+  private final Map<Integer, Agregado> porCliente = new HashMap<>();
+
+  // lo ya aplicado por fila de pedido (para detectar cambios de estado/total)
+  private int nPedidos;
+  private int[] aEstado = new int[0];
+  private long[] aTotal = new long[0];
+  private boolean[] aCuenta = new boolean[0];
+  // detalle enlazado por fila de pedido: cabeza[fila] -> sig[detalle] -> ... -> -1
+  private int[] cabeza = new int[0];
+  private int nDetalle;
+  private int[] sig = new int[0];
+  private final List<Integer> huerfanos = new ArrayList<>(); // detalle cuyo pedido aún no llegó
+  private AlmacenReportes.Vista vista;
+  private boolean cargado = false;
+
+  private HistorialClientes() {}
+
+  public static HistorialClientes get() { return INSTANCE; }
+
+  /** Lo guardado en disco + sincronización periódica (idempotente). */
+  public void iniciar() {
+    if (!iniciado.compareAndSet(false, true)) return;
+    scheduler.execute(() -> {
+      try {
+        aplicar(almacen.cargarLocal().join()); // pintar lo guardado sin esperar a la red
+      } catch (Exception ex) {
+        LOG.log(Level.WARNING, "No se pudo leer el historial local", ex);
+      }
+    });
+    scheduler.scheduleWithFixedDelay(this::sincronizarSilencioso, 0, SYNC_MIN, TimeUnit.MINUTES);
+  }
+
+  /** Sincroniza ya (p.ej. tras registrar un pedido). Completa en el hilo del historial. */
+  public CompletableFuture<Void> actualizar() {
+    iniciar();
+    return almacen.sincronizar(null).thenAcceptAsync(this::aplicar, scheduler);
+  }
+
+  public synchronized boolean isCargado() { return cargado; }
+
+  /** Se llama en el hilo FX cuando cambia algún agregado. */
+  public void addListener(Runnable r) { listeners.add(Objects.requireNonNull(r)); }
+
+  public void removeListener(Runnable r) { listeners.remove(r); }
+
+  /** Pedidos no anulados del cliente (O(1); para la columna de la tabla). */
+  public synchronized int pedidos(Integer idCliente) {
+    Agregado a = idCliente == null ? null : porCliente.get(idCliente);
+    return a == null ? 0 : a.pedidos;
+  }
+
+  public synchronized Resumen resumen(Integer idCliente) {
+    Agregado a = idCliente == null ? null : porCliente.get(idCliente);
+    if (a == null || vista == null) return Resumen.VACIO;
+
+    int[] pId = vista.pId(), pDia = vista.pDia(), pEstado = vista.pEstado();
+    List<PedidoCliente> recientes = new ArrayList<>(Math.min(a.nFilas, MAX_RECIENTES));
+    for (int k = a.nFilas - 1; k >= 0 && recientes.size() < MAX_RECIENTES; k--) {
+      int f = a.filas[k];
+      int d = pDia[f];
+      recientes.add(new PedidoCliente(pId[f], d == AlmacenReportes.SIN_DIA ? null : LocalDate.ofEpochDay(d),
+          almacen.estados.valor(pEstado[f]), aTotal[f]));
+    }
+
+    List<Favorito> favoritos = new ArrayList<>(a.unidades.size());
+    a.unidades.forEach((p, u) -> favoritos.add(new Favorito(p, u)));
+    favoritos.sort((x, y) -> y.unidades() != x.unidades()
+        ? Integer.compare(y.unidades(), x.unidades()) : Integer.compare(x.idProducto(), y.idProducto()));
+
+    return new Resumen(a.pedidos, a.anulados, a.gasto, a.pedidos == 0 ? 0 : a.gasto / a.pedidos,
+        a.ultimoDia == AlmacenReportes.SIN_DIA ? null : LocalDate.ofEpochDay(a.ultimoDia),
+        recientes, List.copyOf(favoritos.subList(0, Math.min(MAX_FAVORITOS, favoritos.size()))));
+  }
+
+  /* ===================== Aplicar cambios del almacén ===================== */
+
+  private void sincronizarSilencioso() {
+    try {
+      aplicar(almacen.sincronizar(null).join());
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo sincronizar el historial de clientes", ex);
+    }
+  }
+
+  private void aplicar(AlmacenReportes.Vista v) {
+    boolean cambio;
+    synchronized (this) {
+      if (v.nPedidos() < nPedidos || v.nDetalle() < nDetalle) limpiar(); // el almacén se rehízo
+      vista = v;
+      cambio = !cargado;
+      cambio |= revisar(v);
+      cambio |= pedidosNuevos(v);
+      cambio |= detalleNuevo(v);
+      cargado = true;
+    }
+    if (cambio) Platform.runLater(() -> listeners.forEach(Runnable::run));
+  }
+
+  /** Pedidos ya aplicados cuyo estado o total cambió: se quita lo viejo y se pone lo nuevo. */
+  private boolean revisar(AlmacenReportes.Vista v) {
+    int[] pEstado = v.pEstado();
+    long[] pTotal = v.pTotal();
+    boolean cambio = false;
+    for (int f = 0; f < nPedidos; f++) {
+      if (pEstado[f] == aEstado[f] && pTotal[f] == aTotal[f]) continue;
+      Agregado a = porCliente.get(v.pCliente()[f]);
+      if (a != null) {
+        quitar(a, f, v);
+        poner(a, f, v, pEstado[f], pTotal[f]);
+      } else {
+        aEstado[f] = pEstado[f];
+        aTotal[f] = pTotal[f];
+      }
+      cambio = true;
+    }
+    return cambio;
+  }
+
+  private boolean pedidosNuevos(AlmacenReportes.Vista v) {
+    int n = v.nPedidos();
+    if (n == nPedidos) return false;
+    crecerPedidos(n);
+    int[] pCliente = v.pCliente(), pDia = v.pDia(), pEstado = v.pEstado();
+    long[] pTotal = v.pTotal();
+    for (int f = nPedidos; f < n; f++) {
+      aEstado[f] = pEstado[f];
+      aTotal[f] = pTotal[f];
+      if (pCliente[f] <= 0) continue; // pedido sin cliente
+      Agregado a = porCliente.computeIfAbsent(pCliente[f], k -> new Agregado());
+      a.agregarFila(f);
+      if (pDia[f] != AlmacenReportes.SIN_DIA && (a.ultimoDia == AlmacenReportes.SIN_DIA || pDia[f] > a.ultimoDia)) {
+        a.ultimoDia = pDia[f];
+      }
+      poner(a, f, v, pEstado[f], pTotal[f]);
+    }
+    nPedidos = n;
+    return true;
+  }
+
+  private boolean detalleNuevo(AlmacenReportes.Vista v) {
+    int n = v.nDetalle();
+    int[] dFila = v.dFila();
+    boolean cambio = false;
+
+    // los que esperaban a su pedido
+    for (int k = huerfanos.size() - 1; k >= 0; k--) {
+      int d = huerfanos.get(k);
+      if (dFila[d] >= 0 && dFila[d] < nPedidos) {
+        enlazar(d, v);
+        huerfanos.remove(k);
+        cambio = true;
+      }
+    }
+    if (n == nDetalle) return cambio;
+
+    if (sig.length < n) sig = Arrays.copyOf(sig, Math.max(n, sig.length + (sig.length >> 1)));
+    for (int d = nDetalle; d < n; d++) {
+      sig[d] = -1;
+      if (dFila[d] >= 0 && dFila[d] < nPedidos) enlazar(d, v); else huerfanos.add(d);
+    }
+    nDetalle = n;
+    return true;
+  }
+
+  private void enlazar(int d, AlmacenReportes.Vista v) {
+    int f = v.dFila()[d];
+    sig[d] = cabeza[f];
+    cabeza[f] = d;
+    if (!aCuenta[f]) return;
+    Agregado a = porCliente.get(v.pCliente()[f]);
+    if (a != null) a.unidades.merge(v.dProducto()[d], v.dCantidad()[d], Integer::sum);
+  }
+
+  /** Suma el pedido (fila f) con su estado/total actual. */
+  private void poner(Agregado a, int f, AlmacenReportes.Vista v, int estado, long total) {
+    aEstado[f] = estado;
+    aTotal[f] = total;
+    aCuenta[f] = !ANULADOS.contains(almacen.estados.valor(estado));
+    if (aCuenta[f]) {
+      a.pedidos++;
+      a.gasto += total;
+      unidades(a, f, v, +1);
+    } else {
+      a.anulados++;
+    }
+  }
+
+  /** Resta lo que se había sumado por la fila f. */
+  private void quitar(Agregado a, int f, AlmacenReportes.Vista v) {
+    if (aCuenta[f]) {
+      a.pedidos--;
+      a.gasto -= aTotal[f];
+      unidades(a, f, v, -1);
+    } else {
+      a.anulados--;
+    }
+  }
+
+  private void unidades(Agregado a, int f, AlmacenReportes.Vista v, int signo) {
+    int[] dProducto = v.dProducto(), dCantidad = v.dCantidad();
+    for (int d = cabeza[f]; d >= 0; d = sig[d]) {
+      int p = dProducto[d];
+      int u = a.unidades.getOrDefault(p, 0) + signo * dCantidad[d];
+      if (u > 0) a.unidades.put(p, u); else a.unidades.remove(p);
+    }
+  }
+
+  private void crecerPedidos(int n) {
+    if (aEstado.length >= n) return;
+    int c = Math.max(n, aEstado.length + (aEstado.length >> 1));
+    aEstado = Arrays.copyOf(aEstado, c);
+    aTotal = Arrays.copyOf(aTotal, c);
+    aCuenta = Arrays.copyOf(aCuenta, c);
+    int viejo = cabeza.length;
+    cabeza = Arrays.copyOf(cabeza, c);
+    Arrays.fill(cabeza, viejo, c, -1);
+  }
+
+  private void limpiar() {
+    porCliente.clear();
+    huerfanos.clear();
+    nPedidos = nDetalle = 0;
+    Arrays.fill(cabeza, -1);
+  }
+}
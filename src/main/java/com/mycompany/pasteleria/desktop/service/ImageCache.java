@@ -0,0 +1,459 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/ImageCache.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.mycompany.pasteleria.desktop.util.Rutas;
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché de imágenes de dos niveles (tarjetas de productos, miniaturas).
+ * - Memoria: LRU acotado por BYTES (ancho*alto*4 por imagen decodificada), no por cantidad.
+ * - Disco: carpeta de caché del usuario, clave = sha256(url + "@" + ancho + "x" + alto);
+ *   guarda la MINIATURA (ver {@link Miniaturas}), no el original de varios MB.
+ *   Acotado a {@value #MAX_MB_DISCO} MB: al pasarse se borran los menos usados
+ *   (la fecha de modificación se renueva en cada lectura) hasta bajar al 75 %.
+ * - Descarga y decodificación fuera del hilo FX, en un pool de 4 hilos con cola
+ *   por prioridad (distancia al viewport); peticiones iguales en vuelo se comparten y las que
+ *   ya no interesan (celda reciclada) se cancelan antes de empezar.
+ * Buscar o re-filtrar productos no vuelve a descargar nada que ya esté en alguno de los niveles.
+ * Una url que falló (404, imagen ilegible) no se vuelve a pedir durante {@value #REINTENTO_FALLIDA_MIN} min:
+ * se responde el fallback al instante en lugar de ocupar el pool cada vez que la tarjeta reaparece.
+ *
+ * Los comprobantes de pago van aparte ({@link #comprobantes()}): sólo memoria, con su propio
+ * tope, para que dos o tres imágenes de 1600 px (~10 MB decodificadas cada una) no expulsen
+ * las miniaturas del catálogo ni queden datos de clientes en claro en el disco.
+ */
+public final class ImageCache {
+
+  private static final Logger LOG = Logger.getLogger(ImageCache.class.getName());
+  private static final ImageCache INSTANCE =
+      new ImageCache("img-cache", 64L * 1024 * 1024, Rutas.cache("img"), 4);
+  private static final ImageCache COMPROBANTES =
+      new ImageCache("img-comprobante", 40L * 1024 * 1024, null, 2);
+
+  /** Imagen por defecto (una sola instancia compartida). */
+  private static final String URL_FALLBACK = "https://picsum.photos/seed/pasteleria-noimage/512/512";
+  private static final int MAX_MB_DISCO = 256;
+  private static final long MAX_BYTES_DISCO = MAX_MB_DISCO * 1024L * 1024;
+  private static final String PROP_CLAVE = "imagecache.clave";
+  private static final int REINTENTO_FALLIDA_MIN = 10;
+  private static final long REINTENTO_FALLIDA_MS = Duration.ofMinutes(REINTENTO_FALLIDA_MIN).toMillis();
+  private static final int MAX_FALLIDAS = 2048;
+
+  private static volatile Image fallback;
+
+  private final long maxBytesMemoria;
+  // pool acotado con cola por prioridad (0 = visible; mayor = más lejos del viewport)
+  private final ThreadPoolExecutor pool;
+
+  private final Path dirDisco;    // null = sin nivel de disco
+  private final Object discoLock = new Object();
+  private long bytesDisco = -1;   // -1 = sin medir todavía; protegido por discoLock
+
+  // LRU en orden de acceso; protegido por "this"
+  private final LinkedHashMap<String, Image> memoria = new LinkedHashMap<>(256, 0.75f, true);
+  private long bytesMemoria = 0;
+
+  // solicitudes pendientes o en curso por clave; protegido por sí mismo
+  private final Map<String, Solicitud> enVuelo = new HashMap<>();
+  private final AtomicLong secuencia = new AtomicLong();
+
+  // url normalizada -> hasta cuándo no reintentar (ms)
+  private final ConcurrentHashMap<String, Long> fallidas = new ConcurrentHashMap<>();
+
+  private ImageCache(String nombre, long maxBytesMemoria, Path dirDisco, int hilos) {
+    this.maxBytesMemoria = maxBytesMemoria;
+    this.dirDisco = dirDisco;
+    this.pool = new ThreadPoolExecutor(
+        hilos, hilos, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(), new ThreadFactory() {
+          private final AtomicInteger n = new AtomicInteger();
+          @Override public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, nombre + "-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+          }
+        });
+    pool.allowCoreThreadTimeOut(true);
+  }
+
+  /** Caché de miniaturas de productos (memoria 64 MB + disco). */
+  public static ImageCache get() { return INSTANCE; }
+
+  /** Caché de comprobantes de pago: sólo memoria (40 MB), nunca se escriben a disco. */
+  public static ImageCache comprobantes() { return COMPROBANTES; }
+
+  /** Imagen por defecto compartida (se carga una vez, en segundo plano). */
+  public Image fallback() {
+    Image f = fallback;
+    if (f == null) {
+      synchronized (ImageCache.class) {
+        if (fallback == null) fallback = new Image(URL_FALLBACK, 200, 200, true, true, true);
+        f = fallback;
+      }
+    }
+    return f;
+  }
+
+  /** Sólo memoria: la imagen si ya está decodificada, o null. No bloquea. */
+  public synchronized Image enMemoria(String url, int w, int h) {
+    return memoria.get(clave(normalizar(url), w, h));
+  }
+
+  /**
+   * Pone la imagen en el ImageView: al instante si está en memoria; si no, el fallback
+   * y luego la imagen real cuando llegue (sólo si el ImageView sigue apuntando a la misma url).
+   * La prioridad es la distancia al viewport (0 = visible). Si el ImageView se re-enlaza
+   * a otra url (celda reciclada), la carga anterior se suelta y, si nadie más la espera
+   * y aún no empezó, se cancela.
+   */
+  public void cargarEn(ImageView iv, String url, int w, int h, int prioridad) {
+    String u = normalizar(url);
+    Object prev = iv.getProperties().get(PROP_CLAVE);
+    if (u.isEmpty()) {
+      if (prev instanceof String pk) soltar(pk);
+      iv.getProperties().remove(PROP_CLAVE);
+      iv.setImage(fallback());
+      return;
+    }
+    String k = clave(u, w, h);
+    Image ya;
+    synchronized (this) { ya = memoria.get(k); }
+    if (k.equals(prev)) {
+      // misma url (p.ej. refresh de la grilla): sólo actualizar prioridad
+      if (ya != null) { if (iv.getImage() != ya) iv.setImage(ya); }
+      else repriorizar(k, prioridad);
+      return;
+    }
+    if (prev instanceof String pk) soltar(pk);
+    iv.getProperties().put(PROP_CLAVE, k);
+    if (ya != null) {
+      iv.setImage(ya);
+      return;
+    }
+    iv.setImage(fallback());
+    pedir(k, u, w, h, prioridad).thenAccept(img -> Platform.runLater(() -> {
+      if (k.equals(iv.getProperties().get(PROP_CLAVE))) iv.setImage(img);
+    }));
+  }
+
+  /** Como {@link #cargarEn(ImageView, String, int, int, int)} con un tamaño predefinido. */
+  public void cargarEn(ImageView iv, String url, Miniaturas.Tamano t, int prioridad) {
+    cargarEn(iv, url, t.lado, t.lado, prioridad);
+  }
+
+  /** Como la anterior, con prioridad 0 (visible). */
+  public void cargarEn(ImageView iv, String url, Miniaturas.Tamano t) {
+    cargarEn(iv, url, t, 0);
+  }
+
+  /** Carga asíncrona: memoria -> disco -> red. Nunca falla: ante error devuelve el fallback. */
+  public CompletableFuture<Image> cargar(String url, int w, int h) {
+    String u = normalizar(url);
+    if (u.isEmpty()) return CompletableFuture.completedFuture(fallback());
+    String k = clave(u, w, h);
+    synchronized (this) {
+      Image img = memoria.get(k);
+      if (img != null) return CompletableFuture.completedFuture(img);
+    }
+    return pedir(k, u, w, h, 0);
+  }
+
+  /**
+   * Precarga (sin ImageView) con la prioridad dada. Devuelve la clave para poder
+   * soltarla con {@link #soltar(String)} si deja de interesar, o null si ya está en memoria.
+   */
+  public String precargar(String url, Miniaturas.Tamano t, int prioridad) {
+    String u = normalizar(url);
+    if (u.isEmpty() || fallida(u)) return null;
+    String k = clave(u, t.lado, t.lado);
+    synchronized (this) {
+      if (memoria.containsKey(k)) return null;
+    }
+    pedir(k, u, t.lado, t.lado, prioridad);
+    return k;
+  }
+
+  /** Ya no interesa la clave: si nadie más la espera y no empezó, se cancela. */
+  public void soltar(String k) {
+    Solicitud s;
+    synchronized (enVuelo) {
+      s = enVuelo.get(k);
+      if (s == null || --s.interesados > 0 || s.iniciada) return;
+      enVuelo.remove(k);
+    }
+    pool.remove(s);
+    s.futuro.cancel(false);
+  }
+
+  /** Vacía la memoria (el disco se conserva) y olvida las urls fallidas. */
+  public synchronized void limpiarMemoria() {
+    memoria.clear();
+    bytesMemoria = 0;
+    fallidas.clear();
+  }
+
+  /* ===================== Cola por prioridad ===================== */
+
+  private CompletableFuture<Image> pedir(String k, String u, int w, int h, int prioridad) {
+    if (fallida(u)) return CompletableFuture.completedFuture(fallback());
+    Solicitud s;
+    boolean nueva = false;
+    synchronized (enVuelo) {
+      s = enVuelo.get(k);
+      if (s == null) {
+        s = new Solicitud(k, u, w, h, prioridad, secuencia.incrementAndGet());
+        enVuelo.put(k, s);
+        nueva = true;
+      }
+      s.interesados++;
+    }
+    if (nueva) pool.execute(s);
+    else if (prioridad < s.prioridad) repriorizar(k, prioridad);
+    return s.futuro;
+  }
+
+  /** Sube la prioridad de una solicitud aún en cola (la re-encola en su nueva posición). */
+  private void repriorizar(String k, int prioridad) {
+    Solicitud s;
+    synchronized (enVuelo) {
+      s = enVuelo.get(k);
+      if (s == null || s.iniciada || prioridad >= s.prioridad) return;
+    }
+    if (pool.remove(s)) {
+      s.prioridad = prioridad;
+      pool.execute(s);
+    }
+  }
+
+  private final class Solicitud implements Runnable, Comparable<Solicitud> {
+    final String clave, url;
+    final int w, h;
+    final long orden;
+    final CompletableFuture<Image> futuro = new CompletableFuture<>();
+    volatile int prioridad;
+    int interesados;          // protegido por enVuelo
+    boolean iniciada;         // protegido por enVuelo
+
+    Solicitud(String clave, String url, int w, int h, int prioridad, long orden) {
+      this.clave = clave;
+      this.url = url;
+      this.w = w;
+      this.h = h;
+      this.prioridad = prioridad;
+      this.orden = orden;
+    }
+
+    @Override public void run() {
+      synchronized (enVuelo) {
+        if (futuro.isDone() || enVuelo.get(clave) != this) return;
+        iniciada = true;
+      }
+      try {
+        futuro.complete(resolver(url, w, h, clave));
+      } finally {
+        synchronized (enVuelo) { enVuelo.remove(clave, this); }
+      }
+    }
+
+    @Override public int compareTo(Solicitud o) {
+      int c = Integer.compare(prioridad, o.prioridad);
+      return c != 0 ? c : Long.compare(orden, o.orden);
+    }
+  }
+
+  /* ===================== Urls fallidas ===================== */
+
+  private boolean fallida(String u) {
+    Long hasta = fallidas.get(u);
+    if (hasta == null) return false;
+    if (System.currentTimeMillis() < hasta) return true;
+    fallidas.remove(u, hasta);
+    return false;
+  }
+
+  /** Recuerda el fallo y devuelve el fallback (para usar en los return de resolver). */
+  private Image fallo(String u) {
+    if (fallidas.size() >= MAX_FALLIDAS) fallidas.clear();
+    fallidas.put(u, System.currentTimeMillis() + REINTENTO_FALLIDA_MS);
+    return fallback();
+  }
+
+  /* ===================== Internos ===================== */
+
+  private Image resolver(String url, int w, int h, String k) {
+    try {
+      Image img;
+      if (url.matches("^[A-Za-z]:\\\\.*") || url.startsWith("file:")) {
+        // ruta local: no pasa por el disco de caché
+        String uri = url.startsWith("file:") ? url : new File(url).toURI().toString();
+        img = new Image(uri, w, h, true, true, false);
+      } else if (!url.startsWith("http://") && !url.startsWith("https://")) {
+        // recurso del classpath
+        var res = ImageCache.class.getResource(url.startsWith("/") ? url : "/" + url);
+        if (res == null) return fallo(url);
+        img = new Image(res.toExternalForm(), w, h, true, true, false);
+      } else {
+        byte[] bytes = leerDisco(k);
+        if (bytes == null) {
+          bytes = Miniaturas.get().generar(url, Math.max(w, h));
+          if (bytes == null) return fallo(url);
+          guardarDisco(k, bytes);
+        }
+        img = decodificar(bytes, w, h);
+      }
+      if (img == null || img.isError()) return fallo(url);
+      poner(k, img);
+      return img;
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo cargar imagen " + url, ex);
+      return fallo(url);
+    }
+  }
+
+  private static Image decodificar(byte[] bytes, int w, int h) {
+    try (InputStream in = new ByteArrayInputStream(bytes)) {
+      return new Image(in, w, h, true, true);
+    } catch (Exception ex) {
+      return null;
+    }
+  }
+
+  private synchronized void poner(String k, Image img) {
+    Image prev = memoria.put(k, img);
+    if (prev != null) bytesMemoria -= peso(prev);
+    bytesMemoria += peso(img);
+    Iterator<Map.Entry<String, Image>> it = memoria.entrySet().iterator();
+    while (bytesMemoria > maxBytesMemoria && it.hasNext()) {
+      Map.Entry<String, Image> e = it.next();
+      if (e.getKey().equals(k)) continue; // no expulsar la recién puesta
+      bytesMemoria -= peso(e.getValue());
+      it.remove();
+    }
+  }
+
+  private static long peso(Image img) {
+    return (long) Math.max(1, img.getWidth()) * (long) Math.max(1, img.getHeight()) * 4L;
+  }
+
+  private byte[] leerDisco(String k) {
+    if (dirDisco == null) return null;
+    try {
+      Path p = dirDisco.resolve(k);
+      if (!Files.isRegularFile(p)) return null;
+      byte[] bytes = Files.readAllBytes(p);
+      try {
+        Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis())); // último uso (LRU)
+      } catch (Exception ignored) {
+        // sólo afecta el orden de poda
+      }
+      return bytes;
+    } catch (Exception ex) {
+      return null;
+    }
+  }
+
+  private void guardarDisco(String k, byte[] bytes) {
+    if (dirDisco == null) return;
+    try {
+      // escribe a temporal y mueve: nunca deja un archivo a medias con el nombre final
+      Path tmp = Files.createTempFile(dirDisco, k, ".tmp");
+      Files.write(tmp, bytes);
+      Files.move(tmp, dirDisco.resolve(k), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo guardar imagen en disco", ex);
+      return;
+    }
+    sumarDisco(bytes.length);
+  }
+
+  /** Cuenta lo escrito; la primera vez mide la carpeta. Si pasa el tope, poda. */
+  private void sumarDisco(long n) {
+    synchronized (discoLock) {
+      if (bytesDisco < 0) bytesDisco = podarDisco(Long.MAX_VALUE); // sólo mide (ya incluye lo recién escrito)
+      else bytesDisco += n;
+      if (bytesDisco > MAX_BYTES_DISCO) bytesDisco = podarDisco(MAX_BYTES_DISCO / 4 * 3);
+    }
+  }
+
+  /** Borra los archivos menos usados (mtime más viejo) hasta quedar en {@code objetivo}; devuelve el total. */
+  private long podarDisco(long objetivo) {
+    record Archivo(Path p, long ms, long bytes) {}
+    List<Archivo> archivos = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> ds = Files.newDirectoryStream(dirDisco)) {
+      for (Path p : ds) {
+        if (p.getFileName().toString().endsWith(".tmp")) continue;
+        try {
+          BasicFileAttributes a = Files.readAttributes(p, BasicFileAttributes.class);
+          if (!a.isRegularFile()) continue;
+          archivos.add(new Archivo(p, a.lastModifiedTime().toMillis(), a.size()));
+          total += a.size();
+        } catch (Exception ignored) {
+          // borrado en paralelo: no cuenta
+        }
+      }
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo recorrer la caché de imágenes", ex);
+      return 0;
+    }
+    if (total <= objetivo) return total;
+    archivos.sort(Comparator.comparingLong(Archivo::ms));
+    for (Archivo a : archivos) {
+      if (total <= objetivo) break;
+      try {
+        Files.deleteIfExists(a.p());
+        total -= a.bytes();
+      } catch (Exception ignored) {
+        // en uso (Windows): se intenta en la próxima poda
+      }
+    }
+    return total;
+  }
+
+  private static String normalizar(String raw) {
+    String u = raw == null ? "" : raw.trim();
+    return (u.startsWith("http://") || u.startsWith("https://")) ? u.replace(" ", "%20") : u;
+  }
+
+  private static String clave(String url, int w, int h) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] d = md.digest((url + "@" + w + "x" + h).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(d);
+    } catch (Exception ex) {
+      return Integer.toHexString((url + "@" + w + "x" + h).hashCode());
+    }
+  }
+}
@@ -0,0 +1,451 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/ImportadorProductos.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mycompany.pasteleria.desktop.model.Producto;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Textos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Importación masiva de productos desde CSV (mismas columnas que la exportación:
+ * ID, Nombre, Categoría, Precio, Stock, Estado, Descripción, ImagenURL).
+ * - El CSV se lee en streaming (separador "," o ";", comillas RFC 4180, BOM opcional) y se procesa
+ *   por bloques de {@value #BLOQUE} filas: nunca está el archivo entero en memoria.
+ * - Las filas de cada bloque se validan en paralelo; la categoría se resuelve por nombre con una caché de /categorias.
+ * - Stock, Estado, Descripción e ImagenURL son opcionales: si la columna no está en la cabecera,
+ *   al actualizar ese campo no se envía y el producto conserva su valor (al crear se usa el valor por defecto).
+ * - Sin ID: si el nombre ya existe en el catálogo se actualiza ese producto; si no, se crea.
+ * - Se envía en lotes de {@value #LOTE} con Prefer: resolution=merge-duplicates.
+ *   Si un lote falla, se reintenta fila por fila para reportar el error exacto de cada una.
+ */
+public final class ImportadorProductos {
+
+  private static final int LOTE = 200;
+  private static final int BLOQUE = 5 * LOTE;
+  private static final long TTL_CATEGORIAS_MS = 5 * 60_000L;
+
+  /** Error de una fila del archivo (linea = línea del CSV, 1 = cabecera). */
+  public record Problema(int linea, String nombre, String mensaje) {}
+
+  public record Informe(int leidas, int creadas, int actualizadas, List<Problema> problemas) {}
+
+  /** Fila válida, lista para enviar. id = null -> producto nuevo. */
+  private record Fila(int linea, Integer id, String nombre, int idCategoria, BigDecimal precio, int stock,
+                      String estado, String descripcion, String imagenUrl) {}
+
+  private record Cruda(int linea, String[] valores) {}
+
+  /** Resultado de validar: exactamente uno de los dos. */
+  private record Validada(Fila fila, Problema problema) {}
+
+  // caché de categorías compartida entre importaciones (nombre normalizado -> id)
+  private static volatile Map<String, Integer> categorias = Map.of();
+  private static volatile long categoriasMs = 0;
+
+  private final ApiClient api;
+  private final JsonFactory jf = new JsonFactory();
+
+  public ImportadorProductos(ApiClient api) {
+    this.api = api;
+  }
+
+  public Informe importar(Path csv) throws IOException, InterruptedException {
+    try (BufferedReader br = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+      LectorCsv lector = new LectorCsv(br);
+      String[] cab = lector.siguiente();
+      if (cab == null) return new Informe(0, 0, 0, List.of());
+      Map<String, Integer> col = columnas(cab);
+      for (String req : List.of("nombre", "categoria", "precio")) {
+        if (!col.containsKey(req)) throw new IOException("Falta la columna \"" + req + "\" en la cabecera");
+      }
+
+      // catálogo (para IDs y nombres existentes) y categorías
+      CatalogoProductos catalogo = CatalogoProductos.get();
+      if (!catalogo.isCargado()) catalogo.recargar().join();
+      Map<String, Integer> porNombre = new HashMap<>();
+      for (Producto p : catalogo.todos()) {
+        if (p.nombre != null && p.id_producto != null) porNombre.putIfAbsent(Textos.paraBusqueda(p.nombre), p.id_producto);
+      }
+      Map<String, Integer> cats = categorias(false);
+      boolean recargadas = false;
+
+      List<Problema> problemas = new ArrayList<>();
+      Set<Integer> ids = new HashSet<>();
+      Set<String> nombres = new HashSet<>();
+      int leidas = 0, creadas = 0, actualizadas = 0;
+      List<Cruda> bloque = new ArrayList<>(BLOQUE);
+      boolean fin = false;
+      while (!fin) {
+        // 1) leer un bloque
+        bloque.clear();
+        String[] v;
+        while (bloque.size() < BLOQUE && (v = lector.siguiente()) != null) {
+          if (v.length == 1 && v[0].isBlank()) continue; // línea vacía
+          bloque.add(new Cruda(lector.lineaRegistro(), v));
+        }
+        fin = bloque.size() < BLOQUE;
+        if (bloque.isEmpty()) break;
+        leidas += bloque.size();
+
+        // 2) categoría desconocida: quizá se creó hace poco (se recarga una sola vez por importación)
+        if (!recargadas) {
+          Map<String, Integer> actuales = cats;
+          boolean faltaCategoria = bloque.stream().anyMatch(c -> {
+            String n = Textos.paraBusqueda(celda(c.valores(), col, "categoria"));
+            return !n.isEmpty() && !actuales.containsKey(n);
+          });
+          if (faltaCategoria) {
+            cats = categorias(true);
+            recargadas = true;
+          }
+        }
+
+        // 3) validar en paralelo (el orden del archivo se conserva)
+        Map<String, Integer> catsBloque = cats;
+        List<Validada> validadas = bloque.parallelStream()
+            .map(c -> validar(c, col, catsBloque, porNombre, catalogo))
+            .toList();
+
+        // 4) duplicados dentro del archivo (secuencial: el primero gana)
+        List<Fila> nuevas = new ArrayList<>(), existentes = new ArrayList<>();
+        for (Validada val : validadas) {
+          if (val.problema() != null) { problemas.add(val.problema()); continue; }
+          Fila f = val.fila();
+          if (f.id() != null && !ids.add(f.id())) {
+            problemas.add(new Problema(f.linea(), f.nombre(), "ID " + f.id() + " repetido en el archivo"));
+          } else if (!nombres.add(Textos.paraBusqueda(f.nombre()))) {
+            problemas.add(new Problema(f.linea(), f.nombre(), "Nombre repetido en el archivo"));
+          } else {
+            (f.id() == null ? nuevas : existentes).add(f);
+          }
+        }
+
+        // 5) enviar por lotes
+        actualizadas += enviar("/productos?on_conflict=id_producto", existentes, true, col, problemas);
+        creadas += enviar("/productos", nuevas, false, col, problemas);
+      }
+
+      if (creadas + actualizadas > 0) catalogo.recargar();
+      problemas.sort(Comparator.comparingInt(Problema::linea));
+      return new Informe(leidas, creadas, actualizadas, problemas);
+    }
+  }
+
+  /* ===================== Validación ===================== */
+
+  private static Validada validar(Cruda c, Map<String, Integer> col, Map<String, Integer> cats,
+                                  Map<String, Integer> porNombre, CatalogoProductos catalogo) {
+    String[] v = c.valores();
+    String nombre = celda(v, col, "nombre").trim();
+    if (nombre.isEmpty()) return error(c, nombre, "Nombre vacío");
+
+    Integer id = null;
+    String idTxt = celda(v, col, "id").trim();
+    if (!idTxt.isEmpty()) {
+      try {
+        id = Integer.valueOf(idTxt);
+      } catch (NumberFormatException e) {
+        return error(c, nombre, "ID inválido: " + idTxt);
+      }
+      if (catalogo.porId(id) == null) return error(c, nombre, "ID " + id + " no existe (deja el ID vacío para crear)");
+    } else {
+      id = porNombre.get(Textos.paraBusqueda(nombre)); // mismo nombre: actualizar, no duplicar
+    }
+
+    String catTxt = celda(v, col, "categoria").trim();
+    Integer idCat = cats.get(Textos.paraBusqueda(catTxt));
+    if (idCat == null && catTxt.chars().allMatch(Character::isDigit) && !catTxt.isEmpty()) {
+      int n = Integer.parseInt(catTxt);
+      if (cats.containsValue(n)) idCat = n;
+    }
+    if (idCat == null) return error(c, nombre, catTxt.isEmpty() || "—".equals(catTxt)
+        ? "Categoría vacía" : "Categoría desconocida: " + catTxt);
+
+    BigDecimal precio = precio(celda(v, col, "precio"));
+    if (precio == null) return error(c, nombre, "Precio inválido: " + celda(v, col, "precio"));
+    if (precio.signum() < 0) return error(c, nombre, "Precio negativo");
+
+    int stock = 0;
+    String stockTxt = celda(v, col, "stock").trim();
+    if (!stockTxt.isEmpty()) {
+      try {
+        stock = Integer.parseInt(stockTxt);
+      } catch (NumberFormatException e) {
+        return error(c, nombre, "Stock inválido: " + stockTxt);
+      }
+      if (stock < 0) return error(c, nombre, "Stock negativo");
+    }
+
+    String estado = celda(v, col, "estado").trim().toUpperCase(Locale.ROOT);
+    if (estado.isEmpty()) estado = "ACTIVO";
+    if (!estado.equals("ACTIVO") && !estado.equals("INACTIVO")) {
+      return error(c, nombre, "Estado inválido: " + estado + " (ACTIVO / INACTIVO)");
+    }
+
+    String img = celda(v, col, "imagenurl").trim();
+    return new Validada(new Fila(c.linea(), id, nombre, idCat, precio, stock, estado,
+        celda(v, col, "descripcion").trim(), img), null);
+  }
+
+  private static Validada error(Cruda c, String nombre, String msg) {
+    return new Validada(null, new Problema(c.linea(), nombre, msg));
+  }
+
+  /** "S/ 1,234.50", "12,5", "12.50" -> 2 decimales. null si no es número. */
+  private static BigDecimal precio(String s) {
+    String t = s == null ? "" : s.replace("S/", "").replace(" ", "").trim();
+    if (t.isEmpty()) return null;
+    if (t.indexOf(',') >= 0) t = t.indexOf('.') >= 0 ? t.replace(",", "") : t.replace(',', '.');
+    try {
+      return new BigDecimal(t).setScale(2, RoundingMode.HALF_UP);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /** Cabecera normalizada (sin tildes, sólo letras) -> índice. */
+  private static Map<String, Integer> columnas(String[] cab) {
+    Map<String, Integer> m = new HashMap<>();
+    for (int i = 0; i < cab.length; i++) {
+      String k = Textos.paraBusqueda(cab[i]).replaceAll("[^a-z]", "");
+      if (k.equals("imagen") || k.equals("imagenes")) k = "imagenurl";
+      if (k.equals("idproducto")) k = "id";
+      m.putIfAbsent(k, i);
+    }
+    return m;
+  }
+
+  private static String celda(String[] v, Map<String, Integer> col, String nombre) {
+    Integer i = col.get(nombre);
+    return (i == null || i >= v.length || v[i] == null) ? "" : v[i];
+  }
+
+  /* ===================== Categorías (caché) ===================== */
+
+  private Map<String, Integer> categorias(boolean forzar) throws IOException, InterruptedException {
+    Map<String, Integer> m = categorias;
+    if (!forzar && !m.isEmpty() && System.currentTimeMillis() - categoriasMs < TTL_CATEGORIAS_MS) return m;
+
+    var resp = api.getResp("/categorias?select=" + ApiClient.urlEncode("id_categoria,nombre") + "&limit=1000");
+    ApiClient.require2xx(resp, "GET /categorias");
+    Map<String, Integer> nuevo = new HashMap<>();
+    try (JsonParser p = jf.createParser(resp.body())) {
+      if (p.nextToken() == JsonToken.START_ARRAY) {
+        while (p.nextToken() == JsonToken.START_OBJECT) {
+          Integer id = null;
+          String nombre = null;
+          while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String f = p.currentName();
+            JsonToken t = p.nextToken();
+            if ("id_categoria".equals(f) && t != JsonToken.VALUE_NULL) id = p.getValueAsInt();
+            else if ("nombre".equals(f) && t != JsonToken.VALUE_NULL) nombre = p.getText();
+            else p.skipChildren();
+          }
+          if (id != null && nombre != null) nuevo.putIfAbsent(Textos.paraBusqueda(nombre), id);
+        }
+      }
+    }
+    categorias = Map.copyOf(nuevo);
+    categoriasMs = System.currentTimeMillis();
+    return categorias;
+  }
+
+  /* ===================== Envío por lotes ===================== */
+
+  /** Envía las filas en lotes; devuelve cuántas quedaron guardadas y agrega los errores a problemas. */
+  private int enviar(String path, List<Fila> filas, boolean conId, Map<String, Integer> col,
+                     List<Problema> problemas)
+      throws IOException, InterruptedException {
+    int ok = 0;
+    for (int i = 0; i < filas.size(); i += LOTE) {
+      if (Thread.currentThread().isInterrupted()) throw new InterruptedException();
+      List<Fila> lote = filas.subList(i, Math.min(filas.size(), i + LOTE));
+      String fallo = post(path, lote, conId, col);
+      if (fallo == null) {
+        ok += lote.size();
+        continue;
+      }
+      // el lote entero se rechaza: fila por fila para saber cuál falla
+      for (Fila f : lote) {
+        String e = post(path, List.of(f), conId, col);
+        if (e == null) ok++;
+        else problemas.add(new Problema(f.linea(), f.nombre(), e));
+      }
+    }
+    return ok;
+  }
+
+  /** null si se guardó; si no, el mensaje del servidor. */
+  private String post(String path, List<Fila> lote, boolean conId, Map<String, Integer> col)
+      throws InterruptedException {
+    try {
+      var resp = api.upsertJson(path, json(lote, conId, col));
+      int sc = resp.statusCode();
+      return (sc >= 200 && sc < 300) ? null : "HTTP " + sc + ": " + mensaje(resp.body());
+    } catch (IOException e) {
+      return e.getMessage();
+    }
+  }
+
+  /**
+   * Todas las filas del lote con las mismas claves (requisito de PostgREST para inserts masivos).
+   * Al actualizar, los campos opcionales sólo se envían si su columna está en la cabecera: así un CSV
+   * sin "Stock" no deja el stock en 0 ni un CSV sin "Descripción" la borra.
+   */
+  private String json(List<Fila> lote, boolean conId, Map<String, Integer> col) throws IOException {
+    boolean stock = !conId || col.containsKey("stock"), estado = !conId || col.containsKey("estado");
+    boolean descripcion = !conId || col.containsKey("descripcion"), imagen = !conId || col.containsKey("imagenurl");
+    StringWriter sw = new StringWriter(lote.size() * 160);
+    try (JsonGenerator g = jf.createGenerator(sw)) {
+      g.writeStartArray();
+      for (Fila f : lote) {
+        g.writeStartObject();
+        if (conId) g.writeNumberField("id_producto", f.id());
+        g.writeStringField("nombre", f.nombre());
+        g.writeNumberField("id_categoria", f.idCategoria());
+        g.writeNumberField("precio", f.precio());
+        if (stock) g.writeNumberField("stock", f.stock());
+        if (estado) g.writeStringField("estado", f.estado());
+        if (descripcion) g.writeStringField("descripcion", f.descripcion());
+        if (imagen) g.writeStringField("imagen_url", f.imagenUrl());
+        g.writeEndObject();
+      }
+      g.writeEndArray();
+    }
+    return sw.toString();
+  }
+
+  /** "message" del error JSON de PostgREST, o el cuerpo tal cual. */
+  private String mensaje(String body) {
+    if (body == null || body.isBlank()) return "";
+    try (JsonParser p = jf.createParser(body)) {
+      if (p.nextToken() == JsonToken.START_OBJECT) {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String f = p.currentName();
+          p.nextToken();
+          if ("message".equals(f)) return p.getText();
+          p.skipChildren();
+        }
+      }
+    } catch (IOException ignore) {
+      // no era JSON
+    }
+    return body;
+  }
+
+  /* ===================== Lector CSV ===================== */
+
+  /**
+   * Lector RFC 4180 en streaming: comillas dobles, "" escapado y saltos de línea dentro de comillas.
+   * El separador (',' o ';') se deduce de la cabecera; se ignora el BOM inicial.
+   */
+  private static final class LectorCsv {
+    private final Reader in;
+    private char sep = 0;
+    private int linea = 1, lineaRegistro = 1;
+    private int pendiente = -2; // carácter leído de más (-2 = ninguno)
+
+    LectorCsv(Reader in) {
+      this.in = in;
+    }
+
+    int lineaRegistro() { return lineaRegistro; }
+
+    private int leer() throws IOException {
+      if (pendiente != -2) { int c = pendiente; pendiente = -2; return c; }
+      return in.read();
+    }
+
+    /** Siguiente registro o null al final. */
+    String[] siguiente() throws IOException {
+      int c = leer();
+      if (c == '\uFEFF') c = leer();
+      if (c == -1) return null;
+      lineaRegistro = linea;
+
+      List<String> campos = new ArrayList<>();
+      StringBuilder sb = new StringBuilder();
+      boolean comillas = false;
+      List<Character> candidatos = (sep == 0) ? new ArrayList<>() : null;
+
+      while (c != -1) {
+        char ch = (char) c;
+        if (comillas) {
+          if (ch == '"') {
+            int n = leer();
+            if (n == '"') sb.append('"');
+            else { comillas = false; pendiente = n; }
+          } else {
+            if (ch == '\n') linea++;
+            sb.append(ch);
+          }
+        } else if (ch == '"' && sb.length() == 0) {
+          comillas = true;
+        } else if (ch == '\r' || ch == '\n') {
+          if (ch == '\r') {
+            int n = leer();
+            if (n != '\n') pendiente = n;
+          }
+          linea++;
+          break;
+        } else if (sep == 0 ? (ch == ',' || ch == ';') : ch == sep) {
+          if (candidatos != null) candidatos.add(ch);
+          campos.add(sb.toString());
+          sb.setLength(0);
+        } else {
+          sb.append(ch);
+        }
+        c = leer();
+      }
+      campos.add(sb.toString());
+
+      // cabecera: el separador es el que aparece más; si hubo del otro, volver a partir
+      if (candidatos != null) {
+        long comas = candidatos.stream().filter(x -> x == ',').count();
+        sep = (candidatos.size() - comas > comas) ? ';' : ',';
+        if (comas != 0 && comas != candidatos.size()) {
+          return volverAPartir(campos, candidatos);
+        }
+      }
+      return campos.toArray(String[]::new);
+    }
+
+    /** Une los campos que se partieron por el separador equivocado (sólo en la cabecera). */
+    private String[] volverAPartir(List<String> campos, List<Character> seps) {
+      List<String> out = new ArrayList<>();
+      StringBuilder sb = new StringBuilder(campos.get(0));
+      for (int i = 0; i < seps.size(); i++) {
+        if (seps.get(i) == sep) {
+          out.add(sb.toString());
+          sb.setLength(0);
+        } else {
+          sb.append(seps.get(i));
+        }
+        sb.append(campos.get(i + 1));
+      }
+      out.add(sb.toString());
+      return out.toArray(String[]::new);
+    }
+  }
+}
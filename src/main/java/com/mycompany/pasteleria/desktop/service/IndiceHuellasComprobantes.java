@@ -0,0 +1,330 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/IndiceHuellasComprobantes.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.mycompany.pasteleria.desktop.util.Rutas;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Índice local de huellas perceptuales (pHash 64 bits) de comprobantes, para detectar
+ * la misma captura de transferencia subida en dos pedidos.
+ * - Cada comprobante se descarga UNA vez (miniatura pequeña) y se indexa en segundo plano
+ *   con un pool acotado de 2 hilos; nunca en el hilo FX.
+ * - Persistencia: archivo binario de sólo-agregar (id_pago, id_pedido, monto, hash) en la caché
+ *   del usuario; si el monto del pago cambia se agrega otro registro y al leer gana el último.
+ * - Búsqueda: BK-tree por distancia de Hamming; sublineal en la práctica.
+ * - Criterio: capturas de la misma app bancaria comparten plantilla y caen a 4–6 bits entre sí
+ *   aunque sean transferencias distintas. Por eso hasta {@value #UMBRAL_IDENTICO} bits se marca
+ *   siempre, y hasta {@value #UMBRAL} sólo si además el monto registrado del pago coincide.
+ */
+public final class IndiceHuellasComprobantes {
+
+  /** Otro pago con un comprobante casi idéntico. */
+  public record Coincidencia(long idPago, long idPedido, int distancia) {}
+
+  private static final Logger LOG = Logger.getLogger(IndiceHuellasComprobantes.class.getName());
+
+  /** Monto desconocido (pago sin monto registrado). */
+  public static final long SIN_MONTO = Long.MIN_VALUE;
+  /** Distancia a la que se considera la misma imagen sin mirar el monto. */
+  public static final int UMBRAL_IDENTICO = 2;
+  /** Distancia máxima si el monto coincide. */
+  public static final int UMBRAL = 6;
+  private static final int LADO_DESCARGA = 128;   // miniatura suficiente para el hash
+  private static final int N = 32;                // DCT 32x32 -> bloque 8x8 de baja frecuencia
+
+  private static final double[][] COS = new double[N][N];
+  static {
+    for (int u = 0; u < N; u++)
+      for (int x = 0; x < N; x++)
+        COS[u][x] = Math.cos((2 * x + 1) * u * Math.PI / (2.0 * N));
+  }
+
+  private static final AtomicInteger HILO = new AtomicInteger();
+  // después de las constantes: el constructor ya usa el pool
+  private static final IndiceHuellasComprobantes INSTANCE = new IndiceHuellasComprobantes();
+
+  private final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+      2, 2, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(10_000), r -> {
+        Thread t = new Thread(r, "huellas-" + HILO.incrementAndGet());
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+      });
+
+  private final Path archivo;
+  private final CompletableFuture<Void> cargado;
+
+  // protegido por "this"
+  private final BkTree arbol = new BkTree();
+  private final Map<Long, Long> hashPorPago = new HashMap<>();
+  private final Map<Long, Long> pedidoPorPago = new HashMap<>();
+  private final Map<Long, Long> montoPorPago = new HashMap<>();
+
+  private final Map<Long, CompletableFuture<Long>> enCurso = new ConcurrentHashMap<>();
+
+  private IndiceHuellasComprobantes() {
+    pool.allowCoreThreadTimeOut(true);
+    Path dir = Rutas.cache("huellas");
+    archivo = (dir == null) ? null : dir.resolve("comprobantes-v2.bin");
+    cargado = CompletableFuture.runAsync(this::cargarArchivo, pool);
+  }
+
+  public static IndiceHuellasComprobantes get() { return INSTANCE; }
+
+  /* ===================== API ===================== */
+
+  /**
+   * Encola la indexación (no bloquea). Ignora pagos sin url; de los ya indexados sólo
+   * actualiza el monto si cambió. {@code montoCent} en céntimos o {@link #SIN_MONTO}.
+   */
+  public void indexar(long idPago, long idPedido, String url, long montoCent) {
+    if (idPago <= 0 || url == null || url.isBlank()) return;
+    huella(idPago, idPedido, url, montoCent);
+  }
+
+  /**
+   * Indexa (si hace falta) y busca comprobantes parecidos de OTROS pedidos (ver criterio arriba).
+   * Completa en un hilo del pool; lista vacía si no hay coincidencias o no se pudo leer la imagen.
+   */
+  public CompletableFuture<List<Coincidencia>> buscarDuplicados(long idPago, long idPedido, String url, long montoCent) {
+    if (idPago <= 0 || url == null || url.isBlank()) return CompletableFuture.completedFuture(List.of());
+    return huella(idPago, idPedido, url, montoCent).thenApply(h -> {
+      if (h == null) return List.<Coincidencia>of();
+      List<Coincidencia> out = new ArrayList<>();
+      synchronized (this) {
+        arbol.buscar(h, UMBRAL, (otro, d) -> {
+          Long ped = pedidoPorPago.get(otro);
+          if (otro == idPago || (ped != null && ped == idPedido)) return;
+          if (d > UMBRAL_IDENTICO && !mismoMonto(montoCent, montoPorPago.get(otro))) return;
+          out.add(new Coincidencia(otro, ped == null ? 0 : ped, d));
+        });
+      }
+      out.sort((a, b) -> Integer.compare(a.distancia(), b.distancia()));
+      return out;
+    });
+  }
+
+  public synchronized int tamano() { return hashPorPago.size(); }
+
+  private static boolean mismoMonto(long a, Long b) {
+    return a != SIN_MONTO && b != null && b == a;
+  }
+
+  /**
+   * Si el pago ya está indexado, registra su monto actual (y lo persiste si cambió) y
+   * devuelve true. Llamar con el lock tomado y desde el pool (puede escribir a disco).
+   */
+  private boolean actualizarMonto(long idPago, long montoCent) {
+    Long h = hashPorPago.get(idPago);
+    if (h == null) return false;
+    Long antes = montoPorPago.put(idPago, montoCent);
+    if (antes == null || antes != montoCent) anexar(idPago, pedidoPorPago.getOrDefault(idPago, 0L), montoCent, h);
+    return true;
+  }
+
+  /* ===================== Huella ===================== */
+
+  /**
+   * Huella del pago (null si no se pudo). Todo corre en el pool, también el caso ya indexado:
+   * actualizar el monto puede anexar al archivo y no debe hacerlo el hilo que llama (FX).
+   */
+  private CompletableFuture<Long> huella(long idPago, long idPedido, String url, long montoCent) {
+    return cargado.thenComposeAsync(v -> {
+      synchronized (this) {
+        if (actualizarMonto(idPago, montoCent)) return CompletableFuture.completedFuture(hashPorPago.get(idPago));
+      }
+      CompletableFuture<Long> nuevo = new CompletableFuture<>();
+      CompletableFuture<Long> ya = enCurso.putIfAbsent(idPago, nuevo);
+      if (ya != null) return ya;
+      nuevo.whenComplete((h, ex) -> enCurso.remove(idPago, nuevo));
+      try {
+        pool.execute(() -> nuevo.complete(calcularYGuardar(idPago, idPedido, url, montoCent)));
+      } catch (RejectedExecutionException cola) {
+        nuevo.complete(null); // cola llena: se reintentará la próxima vez que se pida
+      }
+      return nuevo;
+    }, pool).exceptionally(ex -> null); // el pool rechazó el paso inicial: igual que cola llena
+  }
+
+  private Long calcularYGuardar(long idPago, long idPedido, String url, long montoCent) {
+    try {
+      byte[] bytes = Miniaturas.get().generar(url, LADO_DESCARGA);
+      if (bytes == null) return null;
+      BufferedImage img = ImageIO.read(new ByteArrayInputStream(bytes));
+      if (img == null) return null;  // formato no soportado (p.ej. PDF)
+      long h = phash(img);
+      synchronized (this) {
+        if (hashPorPago.putIfAbsent(idPago, h) != null) return hashPorPago.get(idPago);
+        pedidoPorPago.put(idPago, idPedido);
+        montoPorPago.put(idPago, montoCent);
+        arbol.agregar(h, idPago);
+        anexar(idPago, idPedido, montoCent, h);
+      }
+      return h;
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo calcular huella de " + url, ex);
+      return null;
+    }
+  }
+
+  /** pHash: gris 32x32 -> DCT 2D -> 8x8 de baja frecuencia (sin DC) -> bit = valor > mediana. */
+  static long phash(BufferedImage src) {
+    BufferedImage g = new BufferedImage(N, N, BufferedImage.TYPE_BYTE_GRAY);
+    Graphics2D gr = g.createGraphics();
+    try {
+      gr.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+      gr.drawImage(src, 0, 0, N, N, null);
+    } finally {
+      gr.dispose();
+    }
+    double[][] px = new double[N][N];
+    var raster = g.getRaster();
+    for (int y = 0; y < N; y++)
+      for (int x = 0; x < N; x++)
+        px[y][x] = raster.getSample(x, y, 0);
+
+    // DCT separable, sólo los 8x8 coeficientes que se usan
+    double[][] filas = new double[N][8];
+    for (int y = 0; y < N; y++)
+      for (int u = 0; u < 8; u++) {
+        double s = 0;
+        for (int x = 0; x < N; x++) s += px[y][x] * COS[u][x];
+        filas[y][u] = s;
+      }
+    double[] coef = new double[64];
+    for (int v = 0; v < 8; v++)
+      for (int u = 0; u < 8; u++) {
+        double s = 0;
+        for (int y = 0; y < N; y++) s += filas[y][u] * COS[v][y];
+        coef[v * 8 + u] = s;
+      }
+
+    double[] orden = Arrays.copyOfRange(coef, 1, 64); // sin DC
+    Arrays.sort(orden);
+    double mediana = orden[orden.length / 2];
+    long h = 0;
+    for (int i = 0; i < 64; i++) if (coef[i] > mediana) h |= (1L << i);
+    return h;
+  }
+
+  /* ===================== Persistencia ===================== */
+
+  private void cargarArchivo() {
+    if (archivo == null) return;
+    try {
+      Files.deleteIfExists(archivo.resolveSibling("comprobantes.bin")); // formato anterior, sin monto
+    } catch (Exception ignore) {}
+    if (!Files.isRegularFile(archivo)) return;
+    int n = 0;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(archivo)))) {
+      while (true) {
+        long idPago, idPedido, monto, h;
+        try {
+          idPago = in.readLong();
+          idPedido = in.readLong();
+          monto = in.readLong();
+          h = in.readLong();
+        } catch (EOFException eof) {
+          break; // fin (o registro incompleto por un cierre abrupto: se ignora)
+        }
+        synchronized (this) {
+          montoPorPago.put(idPago, monto); // el último registro del pago trae el monto vigente
+          if (hashPorPago.putIfAbsent(idPago, h) == null) {
+            pedidoPorPago.put(idPago, idPedido);
+            arbol.agregar(h, idPago);
+            n++;
+          }
+        }
+      }
+      LOG.fine("Huellas de comprobantes cargadas: " + n);
+    } catch (Exception ex) {
+      LOG.log(Level.WARNING, "No se pudo leer el índice de huellas", ex);
+    }
+  }
+
+  /** Agrega un registro de 32 bytes al final del archivo (llamar con el lock tomado). */
+  private void anexar(long idPago, long idPedido, long montoCent, long h) {
+    if (archivo == null) return;
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(archivo.toFile(), true))) {
+      out.writeLong(idPago);
+      out.writeLong(idPedido);
+      out.writeLong(montoCent);
+      out.writeLong(h);
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo persistir huella", ex);
+    }
+  }
+
+  /* ===================== BK-tree (Hamming) ===================== */
+
+  private interface Visitante { void visitar(long idPago, int distancia); }
+
+  private static final class BkTree {
+    private static final class Nodo {
+      final long hash;
+      long[] ids = new long[1];
+      int nIds;
+      final Nodo[] hijos = new Nodo[65]; // distancia 0..64
+
+      Nodo(long hash, long id) { this.hash = hash; this.ids[0] = id; this.nIds = 1; }
+
+      void agregarId(long id) {
+        if (nIds == ids.length) ids = Arrays.copyOf(ids, ids.length * 2);
+        ids[nIds++] = id;
+      }
+    }
+
+    private Nodo raiz;
+
+    void agregar(long h, long id) {
+      if (raiz == null) { raiz = new Nodo(h, id); return; }
+      Nodo n = raiz;
+      while (true) {
+        int d = Long.bitCount(n.hash ^ h);
+        if (d == 0) { n.agregarId(id); return; }
+        Nodo c = n.hijos[d];
+        if (c == null) { n.hijos[d] = new Nodo(h, id); return; }
+        n = c;
+      }
+    }
+
+    void buscar(long h, int umbral, Visitante v) {
+      if (raiz == null) return;
+      ArrayList<Nodo> pila = new ArrayList<>();
+      pila.add(raiz);
+      while (!pila.isEmpty()) {
+        Nodo n = pila.remove(pila.size() - 1);
+        int d = Long.bitCount(n.hash ^ h);
+        if (d <= umbral) for (int i = 0; i < n.nIds; i++) v.visitar(n.ids[i], d);
+        int lo = Math.max(0, d - umbral), hi = Math.min(64, d + umbral);
+        for (int k = lo; k <= hi; k++) if (n.hijos[k] != null) pila.add(n.hijos[k]);
+      }
+    }
+  }
+}
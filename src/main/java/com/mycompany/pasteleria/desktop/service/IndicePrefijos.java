@@ -0,0 +1,82 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/IndicePrefijos.java
+package com.mycompany.pasteleria.desktop.service;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Índice invertido inmutable por prefijo de token.
+ * - Tokens únicos ordenados en un String[] (búsqueda binaria del rango del prefijo).
+ * - Por token, los ids (posiciones en la lista original) en un int[] ordenado.
+ * Se arma una vez por carga; las consultas no hacen HTTP ni crean objetos por token.
+ */
+public final class IndicePrefijos {
+
+  public static final IndicePrefijos VACIO = new Builder().build();
+
+  private final String[] tokens;
+  private final int[][] ids;
+
+  private IndicePrefijos(String[] tokens, int[][] ids) {
+    this.tokens = tokens;
+    this.ids = ids;
+  }
+
+  public int tokens() { return tokens.length; }
+
+  /** Marca en {@code out} todos los ids con algún token que empiece por {@code prefijo}. */
+  public void prefijo(String prefijo, BitSet out) {
+    if (prefijo == null || prefijo.isEmpty()) return;
+    int i = desde(prefijo);
+    while (i < tokens.length && tokens[i].startsWith(prefijo)) {
+      for (int id : ids[i]) out.set(id);
+      i++;
+    }
+  }
+
+  /** true si algún token empieza por el prefijo. */
+  public boolean contienePrefijo(String prefijo) {
+    int i = desde(prefijo);
+    return i < tokens.length && tokens[i].startsWith(prefijo);
+  }
+
+  /** Primer índice con token >= prefijo. */
+  private int desde(String prefijo) {
+    int i = Arrays.binarySearch(tokens, prefijo);
+    return i >= 0 ? i : -(i + 1);
+  }
+
+  /* ===================== Builder ===================== */
+
+  public static final class Builder {
+    private final Map<String, int[]> acc = new HashMap<>();   // token -> [n, id0, id1, ...]
+
+    /** Agrega (token, id). Los ids deben llegar en orden no decreciente. */
+    public Builder add(String token, int id) {
+      if (token == null || token.isEmpty()) return this;
+      int[] arr = acc.get(token);
+      if (arr == null) {
+        arr = new int[] { 0, 0, 0, 0 };
+      } else if (arr[0] > 0 && arr[arr[0]] == id) {
+        return this; // mismo id repetido en el mismo documento
+      }
+      if (arr[0] + 1 >= arr.length) arr = Arrays.copyOf(arr, arr.length * 2);
+      arr[++arr[0]] = id;
+      acc.put(token, arr);
+      return this;
+    }
+
+    public IndicePrefijos build() {
+      String[] toks = acc.keySet().toArray(new String[0]);
+      Arrays.sort(toks);
+      int[][] posts = new int[toks.length][];
+      for (int i = 0; i < toks.length; i++) {
+        int[] arr = acc.get(toks[i]);
+        posts[i] = Arrays.copyOfRange(arr, 1, arr[0] + 1);
+      }
+      return new IndicePrefijos(toks, posts);
+    }
+  }
+}
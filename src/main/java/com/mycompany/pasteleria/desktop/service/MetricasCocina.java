@@ -0,0 +1,274 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/MetricasCocina.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Métricas de cocina por estación (KDS: COCINA→COCINANDO→COCINADO; Cocina: EN_COCINA→EN_PREPARACION→SERVIDO).
+ * - Cada transición observada se guarda en un buffer circular de primitivos (hora, pedido, estación, etapa, duración).
+ * - Los pedidos en curso se siguen en arreglos paralelos (pocos cientos al día: búsqueda lineal).
+ * - resumen(...) calcula p50/p90 de preparación, cola y pedidos/hora de la última hora
+ *   sobre arreglos preasignados: se puede llamar cada segundo sin generar basura.
+ * Las transiciones llegan de sondear() (estado de los pedidos recientes) y de registrar() cuando
+ * esta PC cambia un estado; la hora es la de la primera observación.
+ */
+public final class MetricasCocina {
+
+  public enum Estacion { KDS, COCINA }
+
+  /** Etapas: en cola, en preparación, listo. */
+  public static final int COLA = 0, PREPARACION = 1, LISTO = 2;
+
+  private static final int CAP_EVENTOS = 8192;   // potencia de 2
+  private static final int CAP_PEDIDOS = 2048;
+  private static final long VENTANA_MS = 60 * 60_000L;
+
+  private static final MetricasCocina INSTANCE = new MetricasCocina();
+
+  public static MetricasCocina get() { return INSTANCE; }
+
+  /** Resumen reutilizable (el llamador conserva una instancia por estación). */
+  public static final class Resumen {
+    public int enCola, enPreparacion, listosUltimaHora, muestras;
+    /** -1 = sin muestras. */
+    public long p50Ms = -1, p90Ms = -1;
+
+    /** ¿Cambió algo visible (segundos) respecto a otro resumen? */
+    public boolean distinto(Resumen o) {
+      return enCola != o.enCola || enPreparacion != o.enPreparacion || listosUltimaHora != o.listosUltimaHora
+          || p50Ms / 1000 != o.p50Ms / 1000 || p90Ms / 1000 != o.p90Ms / 1000;
+    }
+
+    public void copiarDe(Resumen o) {
+      enCola = o.enCola; enPreparacion = o.enPreparacion; listosUltimaHora = o.listosUltimaHora;
+      muestras = o.muestras; p50Ms = o.p50Ms; p90Ms = o.p90Ms;
+    }
+  }
+
+  // ===== buffer circular de transiciones =====
+  private final long[] evHora = new long[CAP_EVENTOS];
+  private final int[] evPedido = new int[CAP_EVENTOS];
+  private final byte[] evEstacion = new byte[CAP_EVENTOS];
+  private final byte[] evEtapa = new byte[CAP_EVENTOS];
+  private final long[] evDuracion = new long[CAP_EVENTOS]; // sólo en LISTO; -1 si no se vio el inicio
+  private long escritos = 0;
+
+  // ===== pedidos en curso =====
+  private final int[] pid = new int[CAP_PEDIDOS];
+  private final byte[] pEstacion = new byte[CAP_PEDIDOS];
+  private final byte[] pEtapa = new byte[CAP_PEDIDOS];
+  private final long[] pDesde = new long[CAP_PEDIDOS];   // inicio de la preparación (o de la cola); 0 = desconocido
+  private final int[] pRonda = new int[CAP_PEDIDOS];
+  private int n = 0;
+  private int ronda = 0;
+
+  // ===== temporal para percentiles =====
+  private final long[] tmp = new long[CAP_EVENTOS];
+
+  // ===== lectura del sondeo (un sondeo a la vez) =====
+  private final Object lecturaLock = new Object();
+  private final int[] lId = new int[CAP_PEDIDOS];
+  private final byte[] lEstacion = new byte[CAP_PEDIDOS];
+  private final byte[] lEtapa = new byte[CAP_PEDIDOS];
+
+  private final JsonFactory jf = new JsonFactory();
+  private final ZoneId zona = ZoneId.systemDefault();
+  private boolean primeraRonda = true;
+
+  private MetricasCocina() {}
+
+  /** Etapa de un estado de pedido; -1 si no es de cocina. */
+  private static int etapa(String estado) {
+    if (estado == null) return -1;
+    return switch (estado) {
+      case "COCINA", "EN_COCINA" -> COLA;
+      case "COCINANDO", "EN_PREPARACION" -> PREPARACION;
+      case "COCINADO", "SERVIDO" -> LISTO;
+      default -> -1;
+    };
+  }
+
+  private static int estacion(String estado) {
+    return switch (estado) {
+      case "EN_COCINA", "EN_PREPARACION", "SERVIDO" -> Estacion.COCINA.ordinal();
+      default -> Estacion.KDS.ordinal();
+    };
+  }
+
+  /** Cambio de estado hecho desde esta PC (hora exacta). */
+  public synchronized void registrar(int idPedido, String estado) {
+    int et = etapa(estado);
+    if (et < 0) return;
+    observar(idPedido, estacion(estado), et, System.currentTimeMillis(), false);
+  }
+
+  /**
+   * Lee id/estado de los pedidos de cocina recientes (respuesta pequeña, en streaming) y registra
+   * las transiciones nuevas. Los pedidos que dejan de aparecer salen del seguimiento.
+   */
+  public void sondear(ApiClient api) throws IOException, InterruptedException {
+    String desde = LocalDate.now(zona).minusDays(1).toString(); // incluye pedidos de anoche
+    String path = "/pedidos?select=id_pedido,estado"
+        + "&estado=in.(COCINA,COCINANDO,COCINADO,EN_COCINA,EN_PREPARACION,SERVIDO)"
+        + "&fecha_pedido=gte." + desde
+        + "&limit=2000";
+    synchronized (lecturaLock) {
+      // 1) leer fuera del candado principal: resumen() (hilo FX) nunca espera a la red
+      int leidos = 0;
+      var resp = api.getRespStream(path);
+      try (InputStream in = resp.body()) {
+        if (resp.statusCode() < 200 || resp.statusCode() >= 300) {
+          throw new IOException("HTTP " + resp.statusCode() + " en GET /pedidos (métricas): "
+              + new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (JsonParser p = jf.createParser(in)) {
+          if (p.nextToken() == JsonToken.START_ARRAY) {
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+              int id = 0;
+              String estado = null;
+              while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String f = p.currentName();
+                JsonToken t = p.nextToken();
+                if ("id_pedido".equals(f)) id = p.getValueAsInt();
+                else if ("estado".equals(f) && t == JsonToken.VALUE_STRING) estado = p.getText();
+                else p.skipChildren();
+              }
+              int et = etapa(estado);
+              if (id > 0 && et >= 0 && leidos < CAP_PEDIDOS) {
+                lId[leidos] = id;
+                lEstacion[leidos] = (byte) estacion(estado);
+                lEtapa[leidos] = (byte) et;
+                leidos++;
+              }
+            }
+          }
+        }
+      }
+
+      // 2) aplicar
+      long ahora = System.currentTimeMillis();
+      synchronized (this) {
+        ronda++;
+        for (int j = 0; j < leidos; j++) observar(lId[j], lEstacion[j], lEtapa[j], ahora, primeraRonda);
+        // fuera de cocina (entregado, cancelado, otro día): dejar de seguir
+        for (int i = n - 1; i >= 0; i--) {
+          if (pRonda[i] != ronda) quitar(i);
+        }
+        primeraRonda = false;
+      }
+    }
+  }
+
+  /** inicial = primera lectura: se toma el estado como punto de partida sin inventar duraciones. */
+  private void observar(int id, int est, int et, long hora, boolean inicial) {
+    int i = buscar(id);
+    if (i < 0) {
+      if (n == CAP_PEDIDOS) quitar(0); // el más antiguo
+      i = n++;
+      pid[i] = id;
+      pEstacion[i] = (byte) est;
+      pEtapa[i] = (byte) et;
+      pDesde[i] = inicial ? 0 : hora;
+      pRonda[i] = ronda;
+      if (!inicial) evento(hora, id, est, et, -1);
+      return;
+    }
+    pRonda[i] = ronda;
+    if (pEtapa[i] == et && pEstacion[i] == est) return;
+
+    long dur = -1;
+    if (et == PREPARACION) {
+      pDesde[i] = hora;
+    } else if (et == LISTO && pEtapa[i] != LISTO && pDesde[i] > 0) {
+      dur = hora - pDesde[i];
+    }
+    pEstacion[i] = (byte) est;
+    pEtapa[i] = (byte) et;
+    evento(hora, id, est, et, dur);
+  }
+
+  private void evento(long hora, int id, int est, int et, long dur) {
+    int k = (int) (escritos & (CAP_EVENTOS - 1));
+    evHora[k] = hora;
+    evPedido[k] = id;
+    evEstacion[k] = (byte) est;
+    evEtapa[k] = (byte) et;
+    evDuracion[k] = dur;
+    escritos++;
+  }
+
+  private int buscar(int id) {
+    for (int i = 0; i < n; i++) if (pid[i] == id) return i;
+    return -1;
+  }
+
+  private void quitar(int i) {
+    int u = --n;
+    pid[i] = pid[u];
+    pEstacion[i] = pEstacion[u];
+    pEtapa[i] = pEtapa[u];
+    pDesde[i] = pDesde[u];
+    pRonda[i] = pRonda[u];
+  }
+
+  /* ===================== Resumen (sin asignaciones) ===================== */
+
+  public synchronized void resumen(Estacion e, long ahora, Resumen out) {
+    int est = e.ordinal();
+    int cola = 0, prep = 0;
+    for (int i = 0; i < n; i++) {
+      if (pEstacion[i] != est) continue;
+      if (pEtapa[i] == COLA) cola++;
+      else if (pEtapa[i] == PREPARACION) prep++;
+    }
+
+    int listos = 0, m = 0;
+    long limite = ahora - VENTANA_MS;
+    long total = Math.min(escritos, CAP_EVENTOS);
+    for (long j = 1; j <= total; j++) {
+      int k = (int) ((escritos - j) & (CAP_EVENTOS - 1));
+      if (evHora[k] < limite) break; // más viejo que la ventana (el buffer está en orden de llegada)
+      if (evEstacion[k] != est || evEtapa[k] != LISTO) continue;
+      listos++;
+      if (evDuracion[k] >= 0) tmp[m++] = evDuracion[k];
+    }
+
+    out.enCola = cola;
+    out.enPreparacion = prep;
+    out.listosUltimaHora = listos;
+    out.muestras = m;
+    out.p50Ms = m == 0 ? -1 : seleccionar(tmp, m, (m - 1) / 2);
+    out.p90Ms = m == 0 ? -1 : seleccionar(tmp, m, (int) Math.ceil(0.9 * m) - 1);
+  }
+
+  /** k-ésimo menor de a[0..n) (quickselect in situ; reordena a). */
+  private static long seleccionar(long[] a, int n, int k) {
+    int lo = 0, hi = n - 1;
+    while (lo < hi) {
+      long piv = a[(lo + hi) >>> 1];
+      int i = lo, j = hi;
+      while (i <= j) {
+        while (a[i] < piv) i++;
+        while (a[j] > piv) j--;
+        if (i <= j) {
+          long t = a[i]; a[i] = a[j]; a[j] = t;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) hi = j;
+      else if (k >= i) lo = i;
+      else return a[k];
+    }
+    return a[k];
+  }
+}
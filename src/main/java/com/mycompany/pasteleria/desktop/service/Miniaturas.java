@@ -0,0 +1,189 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/Miniaturas.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.mycompany.pasteleria.desktop.config.AppConfig;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.IIOImage;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Miniaturas de tamaño fijo para imágenes de productos (fotos de celular de 4–8 MB).
+ * - Si la imagen está en Supabase Storage, pide la versión transformada
+ *   (/storage/v1/render/image/public/...?width=&height=&resize=contain).
+ * - Si no hay transformación disponible, descarga el original y lo reduce localmente
+ *   (ImageIO con submuestreo al leer + escalado bilineal), UNA sola vez.
+ * El resultado (bytes JPEG/PNG pequeños) lo guarda ImageCache en su nivel de disco.
+ */
+public final class Miniaturas {
+
+  /** Tamaños usados en la app (lado máximo en px). */
+  public enum Tamano {
+    CARD(200), TABLE(48), DETAIL(640), COMPROBANTE(1600);
+
+    public final int lado;
+
+    Tamano(int lado) { this.lado = lado; }
+  }
+
+  private static final Logger LOG = Logger.getLogger(Miniaturas.class.getName());
+  private static final Miniaturas INSTANCE = new Miniaturas();
+
+  private static final String OBJ_PUBLIC = "/storage/v1/object/public/";
+  private static final String RENDER_PUBLIC = "/storage/v1/render/image/public/";
+  private static final int CALIDAD = 80;
+
+  private final HttpClient http = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(10))
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .build();
+
+  // 400/403 seguidos antes de dar por deshabilitadas las transformaciones; una sola
+  // respuesta así puede ser una imagen puntual (formato no soportado, objeto borrado)
+  private static final int FALLOS_PARA_DESACTIVAR = 3;
+  // tras desactivar se vuelve a probar pasado este tiempo (el plan puede cambiar)
+  private static final long REINTENTO_MS = Duration.ofMinutes(10).toMillis();
+
+  private final AtomicInteger fallosSeguidos = new AtomicInteger();
+  // 0 = transformaciones activas; si no, instante hasta el que se reduce localmente
+  private volatile long desactivadoHastaMs = 0;
+
+  private Miniaturas() {}
+
+  public static Miniaturas get() { return INSTANCE; }
+
+  /** URL de Supabase con transformación de imagen, o null si la url no es de Storage. */
+  public static String urlTransformada(String url, int lado) {
+    if (url == null || !url.startsWith(AppConfig.SUPABASE_URL) || !url.contains(OBJ_PUBLIC)) return null;
+    String base = url.replace(OBJ_PUBLIC, RENDER_PUBLIC);
+    String sep = base.contains("?") ? "&" : "?";
+    return base + sep + "width=" + lado + "&height=" + lado + "&resize=contain&quality=" + CALIDAD;
+  }
+
+  /**
+   * Bytes de la miniatura (lado máximo = {@code lado}). Bloqueante: llamar fuera del hilo FX.
+   * Devuelve null si no se pudo descargar.
+   */
+  public byte[] generar(String url, int lado) throws Exception {
+    String tr = transformDisponible() ? urlTransformada(url, lado) : null;
+    if (tr != null) {
+      HttpResponse<byte[]> r = descargar(tr);
+      int sc = r.statusCode();
+      if (sc >= 200 && sc < 300 && r.body() != null && r.body().length > 0) {
+        fallosSeguidos.set(0);
+        return r.body();
+      }
+      // 400/403 repetidos: transformaciones no habilitadas en el plan -> pausar un rato
+      if ((sc == 400 || sc == 403) && fallosSeguidos.incrementAndGet() >= FALLOS_PARA_DESACTIVAR) {
+        fallosSeguidos.set(0);
+        desactivadoHastaMs = System.currentTimeMillis() + REINTENTO_MS;
+        LOG.info("Transformación de imágenes no disponible (HTTP " + sc + "); se reduce localmente "
+            + "durante " + (REINTENTO_MS / 60_000) + " min");
+      }
+    }
+    HttpResponse<byte[]> r = descargar(url);
+    int sc = r.statusCode();
+    if (sc < 200 || sc >= 300 || r.body() == null || r.body().length == 0) return null;
+    return reducir(r.body(), lado);
+  }
+
+  private boolean transformDisponible() {
+    long hasta = desactivadoHastaMs;
+    if (hasta == 0) return true;
+    if (System.currentTimeMillis() < hasta) return false;
+    desactivadoHastaMs = 0; // volver a probar
+    return true;
+  }
+
+  private HttpResponse<byte[]> descargar(String url) throws Exception {
+    HttpRequest req = HttpRequest.newBuilder(URI.create(url))
+        .timeout(Duration.ofSeconds(30))
+        .GET()
+        .build();
+    return http.send(req, HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  /**
+   * Reduce la imagen a {@code lado} px por el lado mayor. Si ImageIO no reconoce el formato
+   * (p.ej. webp) devuelve los bytes originales y JavaFX la escala al decodificar.
+   */
+  public static byte[] reducir(byte[] original, int lado) {
+    try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(original))) {
+      Iterator<ImageReader> it = ImageIO.getImageReaders(in);
+      if (!it.hasNext()) return original;
+      ImageReader reader = it.next();
+      try {
+        reader.setInput(in, true, true);
+        int w = reader.getWidth(0);
+        int h = reader.getHeight(0);
+        if (w <= lado && h <= lado) return original;
+
+        // submuestreo al leer: no decodifica los 12+ MP completos en memoria
+        ImageReadParam param = reader.getDefaultReadParam();
+        int paso = Math.max(1, Math.min(w, h) / (lado * 2));
+        if (paso > 1) param.setSourceSubsampling(paso, paso, 0, 0);
+        BufferedImage src = reader.read(0, param);
+
+        double k = Math.min((double) lado / src.getWidth(), (double) lado / src.getHeight());
+        int tw = Math.max(1, (int) Math.round(src.getWidth() * k));
+        int th = Math.max(1, (int) Math.round(src.getHeight() * k));
+        boolean alfa = src.getColorModel().hasAlpha();
+        BufferedImage dst = new BufferedImage(tw, th, alfa ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = dst.createGraphics();
+        try {
+          g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+          g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+          g.drawImage(src, 0, 0, tw, th, null);
+        } finally {
+          g.dispose();
+        }
+        return alfa ? png(dst) : jpeg(dst);
+      } finally {
+        reader.dispose();
+      }
+    } catch (Exception ex) {
+      LOG.log(Level.FINE, "No se pudo reducir imagen; se usa el original", ex);
+      return original;
+    }
+  }
+
+  private static byte[] png(BufferedImage img) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(img, "png", out);
+    return out.toByteArray();
+  }
+
+  private static byte[] jpeg(BufferedImage img) throws Exception {
+    ImageWriter w = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+      w.setOutput(ios);
+      ImageWriteParam p = w.getDefaultWriteParam();
+      p.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      p.setCompressionQuality(CALIDAD / 100f);
+      w.write(null, new IIOImage(img, null, null), p);
+    } finally {
+      w.dispose();
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,402 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/service/PlanificadorReparto.java
+package com.mycompany.pasteleria.desktop.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.mycompany.pasteleria.desktop.model.Pedido;
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.util.Json;
+import com.mycompany.pasteleria.desktop.util.Rutas;
+import com.mycompany.pasteleria.desktop.util.Textos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Plan de reparto: todos los pedidos APROBADO/SERVIDO con dirección, repartidos entre varios repartidores.
+ * 1) Ubicar cada parada con una tabla local (distritos.csv + geocodigos.csv opcional): sin red.
+ * 2) Agrupar por distrito y repartir los grupos en barrido angular alrededor de la tienda,
+ *    con carga pareja y sin partir un distrito salvo que no quede otra.
+ * 3) Ordenar cada ruta (vecino más cercano + 2-opt) en paralelo, una ruta por hilo.
+ * 4) confirmar(): PATCH de estado por lotes y luego una inserción en bloque en delivery_asignacion
+ *    sólo para los pedidos que el PATCH realmente marcó; si algo falla, los marcados vuelven a su estado.
+ */
+public final class PlanificadorReparto {
+
+  private static final String RECURSO_DISTRITOS = "/com/mycompany/pasteleria/desktop/distritos.csv";
+  private static final String ARCHIVO_LOCAL = "geocodigos.csv";
+  private static final String CLAVE_TIENDA = "tienda";
+  private static final int BLOQUE_PATCH = 200;
+  private static final List<String> ESTADOS_POR_REPARTIR = List.of("APROBADO", "SERVIDO");
+  private static final int MAX_PASADAS_2OPT = 50;
+
+  /** Parada de reparto; lat/lon NaN si no se pudo ubicar. */
+  public record Parada(int idPedido, String cliente, String telefono, String direccion,
+                       String distrito, String referencia, double lat, double lon) {
+    public boolean ubicada() { return !Double.isNaN(lat); }
+  }
+
+  public record Repartidor(int id, String nombre) {
+    @Override public String toString() { return nombre; }
+  }
+
+  /** Paradas en orden de visita; km = recorrido en línea recta desde la tienda (aproximado). */
+  public record Ruta(Repartidor repartidor, List<Parada> paradas, double km) {}
+
+  /**
+   * Resultado de confirmar(). omitidos = pedidos que otro puesto movió antes de asignar (no se tocaron).
+   * error != null: no se asignó nada; sinRevertir = pedidos que quedaron ASIGNADO sin repartidor.
+   */
+  public record Confirmacion(int asignados, List<Integer> omitidos, List<Integer> sinRevertir, String error) {
+    public boolean ok() { return error == null; }
+  }
+
+  public record Plan(List<Ruta> rutas, int sinUbicar) {
+    public int paradas() {
+      int n = 0;
+      for (Ruta r : rutas) n += r.paradas().size();
+      return n;
+    }
+  }
+
+  private final ApiClient api;
+  private final Map<String, double[]> tabla = new HashMap<>();
+  private double[] tienda;
+
+  public PlanificadorReparto(ApiClient api) {
+    this.api = api;
+    cargarTabla();
+  }
+
+  /* ===================== Lectura ===================== */
+
+  public List<Parada> cargarParadas() throws IOException, InterruptedException {
+    String select = "id_pedido,direccion,distrito,referencia,cliente:cliente(nombre,apellido,telefono)";
+    var resp = api.getResp("/pedidos?select=" + ApiClient.urlEncode(select)
+        + "&estado=in.(APROBADO,SERVIDO)&order=distrito.asc,id_pedido.asc");
+    ApiClient.require2xx(resp, "GET /pedidos (reparto)");
+    List<Pedido> pedidos = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Pedido>>(){});
+
+    List<Parada> out = new ArrayList<>(pedidos.size());
+    for (Pedido p : pedidos) {
+      if (p.id_pedido == null || (blank(p.direccion) && blank(p.distrito))) continue; // recojo en tienda
+      double[] pos = ubicar(p.direccion, p.distrito);
+      out.add(new Parada(p.id_pedido, p.getNombreCliente(),
+          p.cliente == null ? "" : safe(p.cliente.telefono),
+          safe(p.direccion), safe(p.distrito), safe(p.referencia),
+          pos == null ? Double.NaN : pos[0], pos == null ? Double.NaN : pos[1]));
+    }
+    return out;
+  }
+
+  public List<Repartidor> cargarRepartidores() throws IOException, InterruptedException {
+    var resp = api.getResp("/delivery_person?select=id_delivery,nombre,apellido&activo=eq.true&order=nombre.asc");
+    ApiClient.require2xx(resp, "GET /delivery_person");
+    List<Map<String, Object>> filas = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Map<String, Object>>>(){});
+    List<Repartidor> out = new ArrayList<>(filas.size());
+    for (Map<String, Object> m : filas) {
+      Object id = m.get("id_delivery");
+      if (!(id instanceof Number n)) continue;
+      String nombre = (safe(m.get("nombre")) + " " + safe(m.get("apellido"))).trim();
+      out.add(new Repartidor(n.intValue(), nombre.isEmpty() ? "#" + n : nombre));
+    }
+    return out;
+  }
+
+  /* ===================== Plan ===================== */
+
+  /** Reparte y ordena. No toca la red: se puede recalcular al cambiar la selección de repartidores. */
+  public Plan planificar(List<Parada> paradas, List<Repartidor> repartidores) {
+    if (repartidores.isEmpty()) throw new IllegalArgumentException("Selecciona al menos un repartidor.");
+    int k = repartidores.size();
+
+    // grupos por distrito (en orden de barrido); las paradas sin ubicar van al final
+    Map<String, List<Parada>> grupos = new LinkedHashMap<>();
+    List<Parada> sinUbicar = new ArrayList<>();
+    for (Parada p : paradas) {
+      if (p.ubicada()) grupos.computeIfAbsent(Textos.paraBusqueda(p.distrito()), x -> new ArrayList<>()).add(p);
+      else sinUbicar.add(p);
+    }
+    List<List<Parada>> orden = new ArrayList<>(grupos.values());
+    orden.sort(Comparator.comparingDouble(this::angulo));
+
+    List<List<Parada>> asignadas = new ArrayList<>(k);
+    for (int i = 0; i < k; i++) asignadas.add(new ArrayList<>());
+    int ubicadas = paradas.size() - sinUbicar.size();
+    int objetivo = Math.max(1, (ubicadas + k - 1) / k);
+
+    int c = 0;
+    for (List<Parada> grupo : orden) {
+      List<Parada> resto = grupo;
+      while (!resto.isEmpty()) {
+        int libre = objetivo - asignadas.get(c).size();
+        if (resto.size() <= libre || c == k - 1) {
+          asignadas.get(c).addAll(resto);
+          break;
+        }
+        // el distrito no entra: si este repartidor ya va medio lleno, el distrito completo pasa al siguiente
+        if (asignadas.get(c).size() >= objetivo / 2 && resto.size() <= objetivo) {
+          c++;
+          continue;
+        }
+        asignadas.get(c).addAll(resto.subList(0, libre));
+        resto = resto.subList(libre, resto.size());
+        c++;
+      }
+    }
+    // sin ubicar: al que lleve menos, al final de su ruta
+    for (Parada p : sinUbicar) {
+      int menor = 0;
+      for (int i = 1; i < k; i++) if (asignadas.get(i).size() < asignadas.get(menor).size()) menor = i;
+      asignadas.get(menor).add(p);
+    }
+
+    // una ruta por hilo (pool común); cada una es independiente
+    Ruta[] rutas = new Ruta[k];
+    IntStream.range(0, k).parallel()
+        .forEach(i -> rutas[i] = ordenar(repartidores.get(i), asignadas.get(i)));
+    List<Ruta> out = new ArrayList<>(k);
+    for (Ruta r : rutas) if (!r.paradas().isEmpty()) out.add(r);
+    return new Plan(out, sinUbicar.size());
+  }
+
+  private double angulo(List<Parada> grupo) {
+    double lat = 0, lon = 0;
+    for (Parada p : grupo) { lat += p.lat(); lon += p.lon(); }
+    return Math.atan2(lat / grupo.size() - tienda[0], lon / grupo.size() - tienda[1]);
+  }
+
+  /** Vecino más cercano desde la tienda y luego 2-opt sobre el camino abierto (no vuelve a la tienda). */
+  private Ruta ordenar(Repartidor rep, List<Parada> paradas) {
+    List<Parada> ubicadas = new ArrayList<>(paradas.size());
+    List<Parada> resto = new ArrayList<>();
+    for (Parada p : paradas) (p.ubicada() ? ubicadas : resto).add(p);
+    int m = ubicadas.size();
+
+    // matriz de distancias; índice 0 = tienda
+    double[][] d = new double[m + 1][m + 1];
+    for (int i = 0; i <= m; i++) {
+      for (int j = i + 1; j <= m; j++) {
+        d[i][j] = d[j][i] = km(lat(ubicadas, i), lon(ubicadas, i), lat(ubicadas, j), lon(ubicadas, j));
+      }
+    }
+
+    int[] ruta = new int[m + 1];
+    boolean[] visto = new boolean[m + 1];
+    visto[0] = true;
+    for (int pos = 1; pos <= m; pos++) {
+      int prev = ruta[pos - 1], mejor = -1;
+      for (int j = 1; j <= m; j++) {
+        if (!visto[j] && (mejor < 0 || d[prev][j] < d[prev][mejor])) mejor = j;
+      }
+      ruta[pos] = mejor;
+      visto[mejor] = true;
+    }
+
+    // 2-opt: invertir ruta[i..j] si acorta; el extremo final queda libre
+    boolean mejoro = true;
+    for (int pasada = 0; mejoro && pasada < MAX_PASADAS_2OPT; pasada++) {
+      mejoro = false;
+      for (int i = 1; i < m; i++) {
+        for (int j = i + 1; j <= m; j++) {
+          double antes = d[ruta[i - 1]][ruta[i]] + (j < m ? d[ruta[j]][ruta[j + 1]] : 0);
+          double despues = d[ruta[i - 1]][ruta[j]] + (j < m ? d[ruta[i]][ruta[j + 1]] : 0);
+          if (despues + 1e-9 < antes) {
+            for (int a = i, b = j; a < b; a++, b--) { int t = ruta[a]; ruta[a] = ruta[b]; ruta[b] = t; }
+            mejoro = true;
+          }
+        }
+      }
+    }
+
+    double total = 0;
+    List<Parada> orden = new ArrayList<>(paradas.size());
+    for (int pos = 1; pos <= m; pos++) {
+      total += d[ruta[pos - 1]][ruta[pos]];
+      orden.add(ubicadas.get(ruta[pos] - 1));
+    }
+    orden.addAll(resto);
+    return new Ruta(rep, Collections.unmodifiableList(orden), total);
+  }
+
+  private double lat(List<Parada> ps, int i) { return i == 0 ? tienda[0] : ps.get(i - 1).lat(); }
+  private double lon(List<Parada> ps, int i) { return i == 0 ? tienda[1] : ps.get(i - 1).lon(); }
+
+  /** Distancia en línea recta (haversine), km. */
+  static double km(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1), dLon = Math.toRadians(lon2 - lon1);
+    double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    return 2 * 6371.0 * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /* ===================== Confirmar ===================== */
+
+  /**
+   * Marca los pedidos ASIGNADO por lotes y luego inserta sus asignaciones en un solo POST.
+   * El PATCH va por estado (APROBADO, luego SERVIDO) y devuelve los ids que cambió: así se sabe a qué
+   * estado volver. Si otro puesto movió un pedido mientras se armaba el plan, ese pedido se omite.
+   * Si falla un lote o el POST, los pedidos ya marcados se revierten y se informa cuáles no se pudo.
+   */
+  public Confirmacion confirmar(Plan plan, String horaSalida) throws InterruptedException {
+    List<Integer> ids = new ArrayList<>();
+    for (Ruta r : plan.rutas()) {
+      for (Parada p : r.paradas()) ids.add(p.idPedido());
+    }
+    if (ids.isEmpty()) return new Confirmacion(0, List.of(), List.of(), null);
+
+    Map<Integer, String> previo = new LinkedHashMap<>(); // id -> estado antes del PATCH
+    int[] porRuta = new int[plan.rutas().size()];
+    try {
+      for (int i = 0; i < ids.size(); i += BLOQUE_PATCH) {
+        String in = lista(ids.subList(i, Math.min(ids.size(), i + BLOQUE_PATCH)));
+        for (String estado : ESTADOS_POR_REPARTIR) {
+          for (Integer id : cambiarEstado(in, estado, "ASIGNADO")) previo.put(id, estado);
+        }
+      }
+      List<Integer> omitidos = new ArrayList<>();
+      for (Integer id : ids) if (!previo.containsKey(id)) omitidos.add(id);
+      if (previo.isEmpty()) return new Confirmacion(0, omitidos, List.of(), null);
+
+      StringBuilder json = new StringBuilder("[");
+      for (int i = 0; i < porRuta.length; i++) {
+        Ruta r = plan.rutas().get(i);
+        for (Parada p : r.paradas()) {
+          if (!previo.containsKey(p.idPedido())) continue;
+          if (json.length() > 1) json.append(',');
+          json.append(String.format(Locale.ROOT,
+              "{\"id_pedido\":%d,\"id_delivery\":%d,\"hora_salida\":\"%s\",\"estado\":\"ASIGNADO\"}",
+              p.idPedido(), r.repartidor().id(), horaSalida));
+          porRuta[i]++;
+        }
+      }
+      json.append(']');
+      ApiClient.require2xx(api.postJson("/delivery_asignacion", json.toString()), "POST /delivery_asignacion (plan)");
+
+      EstadoRepartidores estado = EstadoRepartidores.get();
+      for (int i = 0; i < porRuta.length; i++) {
+        if (porRuta[i] > 0) estado.registrar(plan.rutas().get(i).repartidor().id(), horaSalida, porRuta[i]);
+      }
+      return new Confirmacion(previo.size(), omitidos, List.of(), null);
+    } catch (IOException e) {
+      return new Confirmacion(0, List.of(), revertir(previo), e.getMessage());
+    }
+  }
+
+  /** PATCH de estado para los ids de {@code in} que siguen en {@code desde}; devuelve los que cambiaron. */
+  private List<Integer> cambiarEstado(String in, String desde, String hacia) throws IOException, InterruptedException {
+    var resp = api.patchJson("/pedidos?id_pedido=in.(" + in + ")&estado=eq." + desde + "&select=id_pedido",
+        "{\"estado\":\"" + hacia + "\"}");
+    ApiClient.require2xx(resp, "PATCH /pedidos (plan de reparto)");
+    List<Map<String, Object>> filas = Json.MAPPER.readValue(resp.body(), new TypeReference<List<Map<String, Object>>>(){});
+    List<Integer> out = new ArrayList<>(filas.size());
+    for (Map<String, Object> m : filas) {
+      if (m.get("id_pedido") instanceof Number n) out.add(n.intValue());
+    }
+    return out;
+  }
+
+  /** Devuelve cada pedido marcado a su estado anterior; la lista es lo que no se pudo revertir. */
+  private List<Integer> revertir(Map<Integer, String> previo) throws InterruptedException {
+    Set<Integer> pendientes = new LinkedHashSet<>(previo.keySet());
+    for (String estado : ESTADOS_POR_REPARTIR) {
+      List<Integer> grupo = new ArrayList<>();
+      for (Map.Entry<Integer, String> e : previo.entrySet()) if (estado.equals(e.getValue())) grupo.add(e.getKey());
+      for (int i = 0; i < grupo.size(); i += BLOQUE_PATCH) {
+        try {
+          pendientes.removeAll(cambiarEstado(lista(grupo.subList(i, Math.min(grupo.size(), i + BLOQUE_PATCH))),
+              "ASIGNADO", estado));
+        } catch (IOException ignore) {
+          // quedan en pendientes: se informan al usuario
+        }
+      }
+    }
+    return List.copyOf(pendientes);
+  }
+
+  private static String lista(List<Integer> ids) {
+    StringBuilder sb = new StringBuilder();
+    for (Integer id : ids) {
+      if (sb.length() > 0) sb.append(',');
+      sb.append(id);
+    }
+    return sb.toString();
+  }
+
+  /** Hoja de ruta en texto (para imprimir o enviar por mensaje al repartidor). */
+  public static String hojaDeRuta(Ruta r, String horaSalida) {
+    StringBuilder sb = new StringBuilder()
+        .append(r.repartidor().nombre()).append(" — salida ").append(horaSalida)
+        .append(String.format(Locale.ROOT, " (%d paradas, ~%.1f km)%n", r.paradas().size(), r.km()));
+    int n = 1;
+    for (Parada p : r.paradas()) {
+      sb.append(n++).append(". #").append(p.idPedido()).append(' ').append(p.cliente());
+      if (!p.telefono().isBlank()) sb.append(" · ").append(p.telefono());
+      sb.append(System.lineSeparator()).append("   ").append(p.direccion());
+      if (!p.distrito().isBlank()) sb.append(", ").append(p.distrito());
+      if (!p.referencia().isBlank()) sb.append(" (").append(p.referencia()).append(')');
+      if (!p.ubicada()) sb.append("  [sin ubicar]");
+      sb.append(System.lineSeparator());
+    }
+    return sb.toString();
+  }
+
+  /* ===================== Geocodificación local ===================== */
+
+  /** Dirección exacta primero, luego distrito; null si no está en la tabla. */
+  private double[] ubicar(String direccion, String distrito) {
+    if (!blank(direccion)) {
+      double[] p = tabla.get(Textos.paraBusqueda(direccion));
+      if (p != null) return p;
+    }
+    return blank(distrito) ? null : tabla.get(Textos.paraBusqueda(distrito));
+  }
+
+  private void cargarTabla() {
+    try (InputStream in = PlanificadorReparto.class.getResourceAsStream(RECURSO_DISTRITOS)) {
+      if (in != null) leerTabla(new InputStreamReader(in, StandardCharsets.UTF_8));
+    } catch (IOException ignore) {}
+    Path dir = Rutas.cache("reparto");
+    Path local = dir == null ? null : dir.resolve(ARCHIVO_LOCAL);
+    if (local != null && Files.isRegularFile(local)) {
+      try (Reader r = Files.newBufferedReader(local, StandardCharsets.UTF_8)) {
+        leerTabla(r); // pisa lo del recurso
+      } catch (IOException ignore) {}
+    }
+    tienda = tabla.getOrDefault(CLAVE_TIENDA, new double[]{-12.0464, -77.0428});
+  }
+
+  private void leerTabla(Reader r) throws IOException {
+    BufferedReader br = new BufferedReader(r);
+    String linea;
+    while ((linea = br.readLine()) != null) {
+      linea = linea.strip();
+      if (linea.isEmpty() || linea.startsWith("#")) continue;
+      String[] c = linea.split(";");
+      if (c.length < 3) continue;
+      try {
+        double lat = Double.parseDouble(c[1].trim()), lon = Double.parseDouble(c[2].trim());
+        tabla.put(Textos.paraBusqueda(c[0]), new double[]{lat, lon});
+      } catch (NumberFormatException ignore) {}
+    }
+  }
+
+  private static boolean blank(String s) { return s == null || s.isBlank(); }
+  private static String safe(Object o) { return o == null ? "" : String.valueOf(o).trim(); }
+}
@@ -0,0 +1,225 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/CardGrid.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.Skin;
+import javafx.scene.control.skin.VirtualFlow;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Grilla de tarjetas virtualizada: un ListView cuyas filas son trozos de N ítems.
+ * - Sólo existen las tarjetas de las filas visibles (el VirtualFlow recicla las celdas).
+ * - Cada celda guarda un pool de tarjetas y sólo las re-enlaza (bind) al ítem nuevo.
+ * - Al cambiar el ancho se recalculan columnas y se re-trocea la lista plana.
+ */
+public final class CardGrid<T> extends ListView<List<T>> {
+
+  /** Tarjeta reutilizable: se crea una vez y se re-enlaza a distintos ítems. */
+  public interface Carta<T> {
+    Node nodo();
+
+    /** Muestra el ítem con el ancho de tarjeta dado. */
+    void mostrar(T item, double ancho);
+
+    /** Igual, sabiendo la fila (para priorizar cargas por distancia al viewport). */
+    default void mostrar(T item, double ancho, int fila) { mostrar(item, ancho); }
+  }
+
+  private static final double ANCHO_SCROLLBAR = 18;
+
+  private Supplier<? extends Carta<T>> fabrica;
+  private List<T> plano = List.of();
+
+  private double minAncho = 200;
+  private double maxAncho = 380;
+  private double gap = 12;
+  private double padding = 10;
+
+  private int columnas = 1;
+  private double anchoCarta = 200;
+
+  // desplazamiento: se avisa con +1 (abajo) / -1 (arriba) cuando cambia la primera fila visible
+  private IntConsumer onDesplazamiento;
+  private int ultimaPrimera = -1;
+  private boolean enlazada = false;
+
+  public CardGrid() {
+    getStyleClass().add("card-grid");
+    setFocusTraversable(false);
+  }
+
+  /** Celdas y listeners se enganchan al crear el skin (antes de la primera celda), no en el constructor. */
+  @Override
+  protected Skin<?> createDefaultSkin() {
+    if (!enlazada) {
+      enlazada = true;
+      setCellFactory(lv -> new Fila());
+      widthProperty().addListener((o, old, w) -> relayout(false));
+      skinProperty().addListener((o, old, sk) -> {
+        VirtualFlow<?> f = flujo();
+        if (f != null) f.positionProperty().addListener((ob, a, b) -> avisarDesplazamiento());
+      });
+    }
+    return super.createDefaultSkin();
+  }
+
+  /* ===================== Configuración ===================== */
+
+  public void setCardFactory(Supplier<? extends Carta<T>> fabrica) {
+    this.fabrica = Objects.requireNonNull(fabrica);
+    refresh();
+  }
+
+  public void setAnchos(double min, double max) {
+    this.minAncho = min;
+    this.maxAncho = Math.max(min, max);
+    relayout(true);
+  }
+
+  public void setGap(double gap) {
+    this.gap = gap;
+    relayout(true);
+  }
+
+  public int getColumnas() { return columnas; }
+
+  public double getAnchoCarta() { return anchoCarta; }
+
+  /* ===================== Datos ===================== */
+
+  /** Reemplaza la lista plana de ítems (no crea nodos: sólo re-trocea). */
+  public void setItemsPlano(List<T> items) {
+    this.plano = (items == null) ? List.of() : items;
+    trocear();
+  }
+
+  public List<T> getItemsPlano() { return plano; }
+
+  /** Desplaza hasta la fila del ítem (si está en la lista). */
+  public void scrollToItem(T item) {
+    int i = plano.indexOf(item);
+    if (i >= 0) scrollTo(i / Math.max(1, columnas));
+  }
+
+  /* ===================== Viewport ===================== */
+
+  public void setOnDesplazamiento(IntConsumer c) { this.onDesplazamiento = c; }
+
+  public int primeraFilaVisible() {
+    VirtualFlow<?> f = flujo();
+    IndexedCell<?> c = (f == null) ? null : f.getFirstVisibleCell();
+    return (c == null) ? 0 : Math.max(0, c.getIndex());
+  }
+
+  public int ultimaFilaVisible() {
+    VirtualFlow<?> f = flujo();
+    IndexedCell<?> c = (f == null) ? null : f.getLastVisibleCell();
+    return (c == null) ? primeraFilaVisible() : Math.max(0, c.getIndex());
+  }
+
+  /** 0 si la fila está en pantalla; si no, cuántas filas la separan del viewport. */
+  public int distanciaAlViewport(int fila) {
+    int a = primeraFilaVisible(), b = ultimaFilaVisible();
+    if (fila < a) return a - fila;
+    if (fila > b) return fila - b;
+    return 0;
+  }
+
+  /** Ítems de la fila (vacío si no existe). */
+  public List<T> fila(int i) {
+    var filas = getItems();
+    return (filas == null || i < 0 || i >= filas.size()) ? List.of() : filas.get(i);
+  }
+
+  private VirtualFlow<?> flujo() {
+    return (lookup(".virtual-flow") instanceof VirtualFlow<?> f) ? f : null;
+  }
+
+  private void avisarDesplazamiento() {
+    int p = primeraFilaVisible();
+    if (p == ultimaPrimera) return;
+    int dir = (ultimaPrimera < 0 || p > ultimaPrimera) ? 1 : -1;
+    ultimaPrimera = p;
+    if (onDesplazamiento != null) onDesplazamiento.accept(dir);
+  }
+
+  /* ===================== Layout ===================== */
+
+  private void relayout(boolean forzar) {
+    double usable = Math.max(0, getWidth() - 2 * padding - ANCHO_SCROLLBAR);
+    if (usable <= 0) return;
+    int cols = Math.max(1, (int) Math.floor((usable + gap) / (minAncho + gap)));
+    double ancho = (usable - (cols - 1) * gap) / cols;
+    ancho = Math.max(minAncho, Math.min(maxAncho, ancho));
+
+    boolean cambioCols = cols != columnas;
+    boolean cambioAncho = Math.abs(ancho - anchoCarta) >= 1;
+    columnas = cols;
+    anchoCarta = ancho;
+    if (cambioCols || forzar) trocear();
+    else if (cambioAncho) refresh();
+  }
+
+  private void trocear() {
+    int cols = Math.max(1, columnas);
+    ObservableList<List<T>> filas = FXCollections.observableArrayList();
+    for (int i = 0; i < plano.size(); i += cols) {
+      filas.add(plano.subList(i, Math.min(plano.size(), i + cols)));
+    }
+    setItems(filas);
+    ultimaPrimera = -1;
+  }
+
+  /* ===================== Celda (fila) ===================== */
+
+  private final class Fila extends ListCell<List<T>> {
+    private final HBox caja = new HBox();
+    private final List<Carta<T>> pool = new ArrayList<>();
+
+    Fila() {
+      getStyleClass().add("card-grid-row");
+      caja.setFillHeight(false);
+      setText(null);
+    }
+
+    @Override
+    protected void updateItem(List<T> fila, boolean empty) {
+      super.updateItem(fila, empty);
+      if (empty || fila == null || fabrica == null) {
+        setGraphic(null);
+        return;
+      }
+      caja.setSpacing(gap);
+      caja.setStyle("-fx-padding:" + (gap / 2) + " " + padding + " " + (gap / 2) + " " + padding + ";");
+      while (pool.size() < fila.size()) {
+        Carta<T> c = fabrica.get();
+        pool.add(c);
+        caja.getChildren().add(c.nodo());
+      }
+      for (int i = 0; i < pool.size(); i++) {
+        Carta<T> c = pool.get(i);
+        Node n = c.nodo();
+        boolean usa = i < fila.size();
+        n.setVisible(usa);
+        n.setManaged(usa);
+        if (usa) {
+          if (n instanceof Region r) r.setPrefWidth(anchoCarta);
+          c.mostrar(fila.get(i), anchoCarta, getIndex());
+        }
+      }
+      setGraphic(caja);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/CicloVida.java
+package com.mycompany.pasteleria.desktop.ui;
+
+/**
+ * Ciclo de vida de una vista del Shell (lo implementa el controller).
+ * - onShow: la vista pasa a estar visible (también la primera vez).
+ * - onHide: deja de verse; pausar polling y cancelar lecturas en curso.
+ * - onDispose: el Shell la saca de su caché (p.ej. por memoria); liberar todo.
+ * El Shell encuentra el controller en {@code view.getProperties().get(CicloVida.PROP_CONTROLLER)}.
+ */
+public interface CicloVida {
+
+  String PROP_CONTROLLER = "controller";
+
+  /** Tras cuánto tiempo oculta una vista se considera desactualizada al volver. */
+  long VIGENCIA_MS = 30_000;
+
+  default void onShow() {}
+
+  default void onHide() {}
+
+  default void onDispose() { onHide(); }
+
+  /** true si la vista estuvo oculta más de {@link #VIGENCIA_MS} (0 = nunca se ocultó). */
+  static boolean vencida(long ocultaDesdeMs) {
+    return ocultaDesdeMs > 0 && System.currentTimeMillis() - ocultaDesdeMs > VIGENCIA_MS;
+  }
+}
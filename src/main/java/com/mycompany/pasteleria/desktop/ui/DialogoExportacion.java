@@ -0,0 +1,121 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/DialogoExportacion.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import com.mycompany.pasteleria.desktop.net.ApiClient;
+import com.mycompany.pasteleria.desktop.service.Exportador;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+
+import javafx.concurrent.Task;
+import javafx.geometry.Insets;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+
+/**
+ * Flujo de exportación compartido por las vistas: elegir archivo (XLSX/CSV), exportar en segundo plano
+ * con barra de progreso y botón Cancelar. La vista sólo arma la {@link Exportador.Consulta} con sus filtros.
+ */
+public final class DialogoExportacion {
+
+  private DialogoExportacion() {}
+
+  public static void exportar(Window owner, ApiClient api, String nombreBase, Exportador.Consulta consulta) {
+    FileChooser fc = new FileChooser();
+    fc.setTitle("Exportar " + nombreBase);
+    FileChooser.ExtensionFilter xlsx = new FileChooser.ExtensionFilter("Excel (*.xlsx)", "*.xlsx");
+    FileChooser.ExtensionFilter csv = new FileChooser.ExtensionFilter("CSV (*.csv)", "*.csv");
+    fc.getExtensionFilters().addAll(xlsx, csv);
+    fc.setSelectedExtensionFilter(xlsx);
+    fc.setInitialFileName(nombreBase + ".xlsx");
+    File f = fc.showSaveDialog(owner);
+    if (f == null) return;
+
+    // la extensión escrita manda; si no hay, la del filtro elegido
+    String nombre = f.getName().toLowerCase(Locale.ROOT);
+    Exportador.Formato formato;
+    if (nombre.endsWith(".csv") || nombre.endsWith(".xlsx")) {
+      formato = Exportador.Formato.de(f.toPath());
+    } else {
+      formato = fc.getSelectedExtensionFilter() == csv ? Exportador.Formato.CSV : Exportador.Formato.XLSX;
+      f = new File(f.getParentFile(), f.getName() + "." + formato.extension);
+    }
+    Path destino = f.toPath();
+    Exportador.Formato fmt = formato;
+
+    Task<Long> t = new Task<>() {
+      @Override protected Long call() throws Exception {
+        updateMessage("Contando filas…");
+        return new Exportador(api).exportar(consulta, fmt, destino, new Exportador.Progreso() {
+          @Override public void avance(long filas, long total) {
+            if (total > 0) {
+              updateProgress(filas, total);
+              updateMessage(filas + " de " + total + " filas");
+            } else {
+              updateProgress(-1, 1);
+              updateMessage(filas + " filas");
+            }
+          }
+          @Override public boolean cancelado() { return isCancelled(); }
+        });
+      }
+    };
+
+    ProgressBar barra = new ProgressBar();
+    barra.setPrefWidth(360);
+    barra.progressProperty().bind(t.progressProperty());
+    Label lbl = new Label("Preparando…");
+    lbl.getStyleClass().add("label-muted");
+    lbl.textProperty().bind(t.messageProperty());
+    VBox box = new VBox(10, new Label(destino.getFileName().toString()), barra, lbl);
+    box.setPadding(new Insets(12));
+
+    Dialog<Void> d = new Dialog<>();
+    d.setTitle("Exportando " + nombreBase);
+    if (owner != null) d.initOwner(owner);
+    d.getDialogPane().setContent(box);
+    d.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+    d.setOnCloseRequest(e -> {
+      if (t.isRunning()) t.cancel(true);
+    });
+
+    t.setOnSucceeded(e -> {
+      cerrar(d);
+      info("Exportadas " + t.getValue() + " filas en:\n" + destino);
+    });
+    t.setOnFailed(e -> {
+      cerrar(d);
+      Throwable ex = t.getException();
+      if (ex instanceof CancellationException || ex instanceof InterruptedException) return;
+      Alert a = new Alert(Alert.AlertType.ERROR, "Error al exportar: " + (ex == null ? "desconocido" : ex.getMessage()), ButtonType.OK);
+      a.showAndWait();
+    });
+    t.setOnCancelled(e -> cerrar(d));
+
+    Thread th = new Thread(t, "exportar-" + nombreBase);
+    th.setDaemon(true);
+    th.start();
+    d.show();
+  }
+
+  private static void cerrar(Dialog<?> d) {
+    if (d.isShowing()) {
+      d.setOnCloseRequest(null);
+      d.close();
+    }
+  }
+
+  private static void info(String msg) {
+    Alert a = new Alert(Alert.AlertType.INFORMATION, msg, ButtonType.OK);
+    a.setHeaderText(null);
+    a.showAndWait();
+  }
+}
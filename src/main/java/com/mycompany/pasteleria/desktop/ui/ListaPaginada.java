@@ -0,0 +1,206 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/ListaPaginada.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lista virtual para tablas con desplazamiento continuo.
+ * - size() es el total del servidor; los datos se piden en bloques de {@code tamBloque} filas
+ *   sólo cuando la tabla pide una fila visible (get). Mientras llega, se devuelve {@code marcador}.
+ * - Al acercarse al final (o al inicio) de un bloque se precarga el vecino en segundo plano.
+ * - Se guardan a lo sumo {@code maxBloques} bloques (LRU): los lejanos vuelven a ser marcador
+ *   y se piden de nuevo si el usuario regresa.
+ * - Sólo el primer bloque pide el total (count=exact); el resto son consultas simples.
+ * Todo el estado vive en el hilo FX; el {@link Cargador} corre en hilos de fondo.
+ */
+public class ListaPaginada<T> extends ObservableListBase<T> {
+
+  private static final Logger LOG = Logger.getLogger(ListaPaginada.class.getName());
+
+  private static final ExecutorService POOL = Executors.newFixedThreadPool(2, r -> {
+    Thread t = new Thread(r, "lista-paginada");
+    t.setDaemon(true);
+    return t;
+  });
+
+  /** Un bloque leído del servidor; {@code total < 0} si la consulta no lo informa. */
+  public record Bloque<T>(List<T> filas, int total) {}
+
+  @FunctionalInterface
+  public interface Cargador<T> {
+    /** Corre fuera del hilo FX. {@code conTotal}: la consulta debe informar el total (count=exact). */
+    Bloque<T> cargar(int offset, int limit, boolean conTotal) throws Exception;
+  }
+
+  private final Cargador<T> cargador;
+  private final T marcador;
+  private final int tamBloque;
+  private final int maxBloques;
+
+  private final Map<Integer, List<T>> bloques = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<Integer> pendientes = new HashSet<>();
+
+  private int total = 0;
+  private int generacion = 0;
+  private Consumer<Throwable> onError = ex -> {};
+  private Runnable onTotal = () -> {};
+
+  public ListaPaginada(Cargador<T> cargador, T marcador, int tamBloque, int maxBloques) {
+    this.cargador = Objects.requireNonNull(cargador);
+    this.marcador = Objects.requireNonNull(marcador);
+    this.tamBloque = Math.max(1, tamBloque);
+    this.maxBloques = Math.max(2, maxBloques);
+  }
+
+  public void setOnError(Consumer<Throwable> c) { onError = (c == null) ? ex -> {} : c; }
+
+  /** Se llama (hilo FX) cuando cambia el total conocido. */
+  public void setOnTotal(Runnable r) { onTotal = (r == null) ? () -> {} : r; }
+
+  public T getMarcador() { return marcador; }
+
+  public boolean isCargada(int index) { return bloques.containsKey(index / tamBloque); }
+
+  public int bloquesEnMemoria() { return bloques.size(); }
+
+  /** Vacía la lista, descarta respuestas en vuelo y pide el primer bloque (con total). */
+  public void reiniciar() {
+    generacion++;
+    pendientes.clear();
+    bloques.clear();
+    cambiarTotal(0);
+    pedir(0, true);
+  }
+
+  /**
+   * Vuelve a leer los bloques en memoria sin vaciar la lista (se conserva el desplazamiento):
+   * las filas viejas siguen visibles hasta que llega su reemplazo.
+   */
+  public void recargar() {
+    generacion++;
+    pendientes.clear();
+    if (bloques.isEmpty()) {
+      pedir(0, true);
+      return;
+    }
+    boolean primero = true;
+    for (int b : new ArrayList<>(bloques.keySet())) {
+      pedir(b, primero);
+      primero = false;
+    }
+  }
+
+  @Override
+  public T get(int index) {
+    Objects.checkIndex(index, total);
+    int b = index / tamBloque;
+    List<T> filas = bloques.get(b);
+    if (filas == null) {
+      solicitar(b);
+      return marcador;
+    }
+    // precarga del vecino según hacia dónde se acerca el usuario
+    int dentro = index - b * tamBloque;
+    if (dentro >= tamBloque * 3 / 4) solicitar(b + 1);
+    else if (dentro < tamBloque / 4 && b > 0) solicitar(b - 1);
+    return dentro < filas.size() ? filas.get(dentro) : marcador;
+  }
+
+  @Override
+  public int size() { return total; }
+
+  /* ===================== Carga ===================== */
+
+  private void solicitar(int b) {
+    if (b < 0 || bloques.containsKey(b) || pendientes.contains(b)) return;
+    if (b > 0 && b * tamBloque >= total) return;
+    pedir(b, false);
+  }
+
+  private void pedir(int b, boolean conTotal) {
+    pendientes.add(b);
+    int gen = generacion;
+    POOL.execute(() -> {
+      try {
+        Bloque<T> r = cargador.cargar(b * tamBloque, tamBloque, conTotal);
+        Platform.runLater(() -> recibir(gen, b, r));
+      } catch (Exception ex) {
+        Platform.runLater(() -> fallo(gen, b, ex));
+      }
+    });
+  }
+
+  private void recibir(int gen, int b, Bloque<T> r) {
+    if (gen != generacion) return;
+    pendientes.remove(b);
+    List<T> filas = List.copyOf(r.filas());
+    List<T> previas = bloques.put(b, filas);
+
+    int nuevoTotal = r.total() >= 0 ? r.total() : total;
+    if (filas.size() < tamBloque) nuevoTotal = Math.min(nuevoTotal, b * tamBloque + filas.size());
+    nuevoTotal = Math.max(nuevoTotal, b * tamBloque + filas.size());
+    cambiarTotal(nuevoTotal);
+
+    // reemplazar marcadores (o filas de una recarga) por las filas nuevas
+    int desde = b * tamBloque;
+    int hasta = Math.min(total, desde + filas.size());
+    if (hasta > desde) {
+      beginChange();
+      for (int i = desde; i < hasta; i++) {
+        int k = i - desde;
+        nextSet(i, (previas != null && k < previas.size()) ? previas.get(k) : marcador);
+      }
+      endChange();
+    }
+    desalojar(b);
+  }
+
+  private void fallo(int gen, int b, Exception ex) {
+    if (gen != generacion) return;
+    pendientes.remove(b);
+    LOG.log(Level.WARNING, "No se pudo cargar bloque " + b, ex);
+    onError.accept(ex);
+  }
+
+  /** Mantiene maxBloques en memoria; los desalojados vuelven a ser marcador. */
+  private void desalojar(int actual) {
+    while (bloques.size() > maxBloques) {
+      var it = bloques.entrySet().iterator();
+      var eldest = it.next();
+      if (eldest.getKey() == actual) break;
+      it.remove();
+      int desde = eldest.getKey() * tamBloque;
+      int hasta = Math.min(total, desde + eldest.getValue().size());
+      if (hasta <= desde) continue;
+      beginChange();
+      for (int i = desde; i < hasta; i++) nextSet(i, eldest.getValue().get(i - desde));
+      endChange();
+    }
+  }
+
+  private void cambiarTotal(int nuevo) {
+    if (nuevo == total) return;
+    int viejo = total;
+    total = nuevo;
+    beginChange();
+    if (nuevo > viejo) nextAdd(viejo, nuevo);
+    else nextRemove(nuevo, Collections.nCopies(viejo - nuevo, marcador));
+    endChange();
+    onTotal.run();
+  }
+}
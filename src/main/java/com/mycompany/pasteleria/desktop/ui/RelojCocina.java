@@ -0,0 +1,65 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/RelojCocina.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javafx.animation.AnimationTimer;
+
+/**
+ * Reloj único para los contadores en vivo (tarjetas KDS, tira de métricas).
+ * - Un AnimationTimer ligado al pulso de JavaFX; avisa a los oyentes sólo cuando cambia el segundo.
+ * - Sin oyentes se detiene (ningún costo con la vista oculta).
+ * Sólo desde el hilo FX.
+ */
+public final class RelojCocina {
+
+  /** Recibe la hora actual (epoch ms) una vez por segundo. */
+  public interface Oyente {
+    void tick(long ahoraMs);
+  }
+
+  private static final RelojCocina INSTANCE = new RelojCocina();
+
+  public static RelojCocina get() { return INSTANCE; }
+
+  private final List<Oyente> oyentes = new ArrayList<>();
+  private long ultimoSegundo = -1;
+  private boolean corriendo = false;
+
+  private final AnimationTimer timer = new AnimationTimer() {
+    @Override
+    public void handle(long now) {
+      long ms = System.currentTimeMillis();
+      long seg = ms / 1000;
+      if (seg == ultimoSegundo) return;
+      ultimoSegundo = seg;
+      // al revés: un oyente puede quitarse dentro de tick()
+      for (int i = oyentes.size() - 1; i >= 0; i--) {
+        if (i < oyentes.size()) oyentes.get(i).tick(ms);
+      }
+    }
+  };
+
+  private RelojCocina() {}
+
+  /** Agrega el oyente y le da un tick inmediato (para no mostrar valores viejos hasta el próximo segundo). */
+  public void agregar(Oyente o) {
+    if (oyentes.contains(o)) return;
+    oyentes.add(o);
+    o.tick(System.currentTimeMillis());
+    if (!corriendo) {
+      corriendo = true;
+      timer.start();
+    }
+  }
+
+  public void quitar(Oyente o) {
+    oyentes.remove(o);
+    if (oyentes.isEmpty() && corriendo) {
+      corriendo = false;
+      timer.stop();
+      ultimoSegundo = -1;
+    }
+  }
+}
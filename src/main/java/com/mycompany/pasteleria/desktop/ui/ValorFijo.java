@@ -0,0 +1,66 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/ValorFijo.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import javafx.beans.InvalidationListener;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+
+import java.util.function.Supplier;
+
+/**
+ * ObservableValue constante para celdas de tablas con filas inmutables.
+ * - No guarda listeners (el valor nunca cambia): la celda se suscribe y desuscribe sin costo
+ *   y no queda nada retenido al reciclar celdas.
+ * - null y "" comparten una instancia única.
+ * Con {@link Celdas} cada fila crea su valor por columna una sola vez (la primera vez que
+ * se pinta); al desplazar la tabla se reutiliza el mismo objeto en vez de crear una propiedad.
+ */
+public final class ValorFijo<T> implements ObservableValue<T> {
+
+  private static final ValorFijo<?> NULO = new ValorFijo<>(null);
+  private static final ValorFijo<String> VACIO = new ValorFijo<>("");
+
+  private final T valor;
+
+  private ValorFijo(T valor) { this.valor = valor; }
+
+  @SuppressWarnings("unchecked")
+  public static <T> ValorFijo<T> de(T valor) {
+    if (valor == null) return (ValorFijo<T>) NULO;
+    if ("".equals(valor)) return (ValorFijo<T>) VACIO;
+    return new ValorFijo<>(valor);
+  }
+
+  @Override public T getValue() { return valor; }
+
+  @Override public void addListener(ChangeListener<? super T> listener) {}
+  @Override public void removeListener(ChangeListener<? super T> listener) {}
+  @Override public void addListener(InvalidationListener listener) {}
+  @Override public void removeListener(InvalidationListener listener) {}
+
+  @Override public String toString() { return "ValorFijo[" + valor + "]"; }
+
+  /* ===================== Caché por fila ===================== */
+
+  /** Un ValorFijo por columna, creado a demanda. Sólo se usa desde el hilo FX. */
+  public static final class Celdas {
+    private final ValorFijo<?>[] celdas;
+
+    public Celdas(int columnas) { this.celdas = new ValorFijo<?>[columnas]; }
+
+    @SuppressWarnings("unchecked")
+    public <T> ValorFijo<T> get(int columna, T valor) {
+      ValorFijo<?> v = celdas[columna];
+      if (v == null) celdas[columna] = v = de(valor);
+      return (ValorFijo<T>) v;
+    }
+
+    /** Igual que {@link #get(int, Object)} pero el valor (p.ej. un formateo) se calcula una sola vez. */
+    @SuppressWarnings("unchecked")
+    public <T> ValorFijo<T> get(int columna, Supplier<T> valor) {
+      ValorFijo<?> v = celdas[columna];
+      if (v == null) celdas[columna] = v = de(valor.get());
+      return (ValorFijo<T>) v;
+    }
+  }
+}
@@ -0,0 +1,193 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/VisorComprobante.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import com.mycompany.pasteleria.desktop.service.ImageCache;
+import com.mycompany.pasteleria.desktop.service.Miniaturas;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.web.WebView;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Visor de comprobantes de pago.
+ * - Imágenes (JPG/PNG/WEBP...): se decodifican fuera del hilo FX vía
+ *   {@link ImageCache#comprobantes()} (sólo memoria, nada en disco) y se muestran en un
+ *   ImageView con zoom (Ctrl+rueda, botones) y paneo.
+ * - Sólo HTML/PDF (o una imagen que no se pudo decodificar) usan WebView, creado a demanda.
+ *   WebView sólo se referencia desde {@link Web}: javafx-web (WebKit nativo) no se carga
+ *   al arrancar ni al abrir Pagos, sólo la primera vez que llega un comprobante web.
+ * Se crea con {@link #crear()} (en FXML: {@code fx:factory="crear"}).
+ */
+public final class VisorComprobante extends StackPane {
+
+  private static final Set<String> WEB = Set.of("html", "htm", "pdf");
+  private static final double ZOOM_MIN = 0.1, ZOOM_MAX = 6, PASO = 1.25;
+  private static final Miniaturas.Tamano TAM = Miniaturas.Tamano.COMPROBANTE;
+
+  private final ImageCache cache = ImageCache.comprobantes();
+
+  private final ImageView iv = new ImageView();
+  private final ScrollPane scroll = new ScrollPane(new StackPane(iv));
+  private final Label vacio = new Label("Sin comprobante");
+  private final Button menos = new Button("−");
+  private final Button ajustar = new Button("Ajustar");
+  private final Button mas = new Button("+");
+  private final HBox barra = new HBox(4, menos, ajustar, mas);
+  private Node web;               // WebView, sólo si hace falta
+
+  private String urlActual = "";
+  private double zoom = 1;
+
+  /** Sólo arma los nodos; los manejadores se enganchan en {@link #init()}. */
+  private VisorComprobante() {
+    iv.setPreserveRatio(true);
+    iv.setSmooth(true);
+    scroll.setPannable(true);
+    scroll.setFitToWidth(true);
+    scroll.setFitToHeight(true);
+    vacio.getStyleClass().add("label-muted");
+
+    for (Button b : new Button[] { menos, ajustar, mas }) {
+      b.getStyleClass().add("btn-ghost");
+      b.setFocusTraversable(false);
+    }
+    barra.setAlignment(Pos.TOP_RIGHT);
+    barra.setPickOnBounds(false);
+    barra.setPadding(new Insets(6));
+    StackPane.setAlignment(barra, Pos.TOP_RIGHT);
+  }
+
+  public static VisorComprobante crear() {
+    VisorComprobante v = new VisorComprobante();
+    v.init();
+    return v;
+  }
+
+  private void init() {
+    menos.setOnAction(e -> setZoom(zoom / PASO));
+    mas.setOnAction(e -> setZoom(zoom * PASO));
+    ajustar.setOnAction(e -> ajustar());
+
+    // Ctrl + rueda = zoom; rueda sola = scroll normal
+    scroll.addEventFilter(ScrollEvent.SCROLL, e -> {
+      if (!e.isControlDown() || iv.getImage() == null) return;
+      setZoom(e.getDeltaY() > 0 ? zoom * PASO : zoom / PASO);
+      e.consume();
+    });
+    iv.setOnMouseClicked(e -> { if (e.getClickCount() == 2) ajustar(); });
+    scroll.viewportBoundsProperty().addListener((o, a, b) -> { if (zoom == 1) ajustar(); });
+
+    getChildren().setAll(vacio);
+  }
+
+  /** Muestra el comprobante de la url (vacía = "Sin comprobante"). */
+  public void mostrar(String url) {
+    String u = (url == null) ? "" : url.trim();
+    urlActual = u;
+    if (u.isEmpty()) {
+      iv.setImage(null);
+      getChildren().setAll(vacio);
+      return;
+    }
+    if (esWeb(u)) {
+      mostrarWeb(u);
+      return;
+    }
+    Image ya = cache.enMemoria(u, TAM.lado, TAM.lado);
+    if (ya != null) {
+      mostrarImagen(ya);
+      return;
+    }
+    iv.setImage(null);
+    Label cargando = new Label("Cargando comprobante...");
+    cargando.getStyleClass().add("label-muted");
+    getChildren().setAll(cargando);
+    cache.cargar(u, TAM.lado, TAM.lado).thenAccept(img -> Platform.runLater(() -> {
+      if (!u.equals(urlActual)) return;                 // el usuario ya pasó a otra fila
+      if (img == null || img == cache.fallback()) mostrarWeb(u); // no es imagen decodificable
+      else mostrarImagen(img);
+    }));
+  }
+
+  /** Decodifica en segundo plano (fila anterior/siguiente) sin mostrar. */
+  public void precargar(String url) {
+    String u = (url == null) ? "" : url.trim();
+    if (u.isEmpty() || esWeb(u)) return;
+    cache.precargar(u, TAM, 1);
+  }
+
+  public String getUrl() { return urlActual; }
+
+  /* ===================== Internos ===================== */
+
+  private void mostrarImagen(Image img) {
+    iv.setImage(img);
+    getChildren().setAll(scroll, barra);
+    ajustar();
+  }
+
+  private void mostrarWeb(String url) {
+    if (web == null) web = Web.crear();
+    iv.setImage(null);
+    getChildren().setAll(web);
+    Web.cargar(web, url);
+  }
+
+  /** Única referencia a javafx.scene.web: la clase se inicializa recién en el primer uso. */
+  private static final class Web {
+    static Node crear() { return new WebView(); }
+
+    static void cargar(Node n, String url) { ((WebView) n).getEngine().load(url); }
+  }
+
+  /** Encaja la imagen en el viewport (zoom 1). */
+  private void ajustar() {
+    zoom = 1;
+    Image img = iv.getImage();
+    if (img == null) return;
+    double vw = Math.max(50, scroll.getViewportBounds().getWidth());
+    double vh = Math.max(50, scroll.getViewportBounds().getHeight());
+    double k = Math.min(vw / img.getWidth(), vh / img.getHeight());
+    k = Math.min(k, 1.0); // no agrandar por encima del tamaño real al ajustar
+    iv.setFitWidth(img.getWidth() * k);
+    iv.setFitHeight(img.getHeight() * k);
+    scroll.setFitToWidth(true);
+    scroll.setFitToHeight(true);
+  }
+
+  private void setZoom(double z) {
+    Image img = iv.getImage();
+    if (img == null) return;
+    if (zoom == 1) ajustar();
+    double base = iv.getFitWidth() / zoom;
+    double baseH = iv.getFitHeight() / zoom;
+    zoom = Math.max(ZOOM_MIN, Math.min(ZOOM_MAX, z));
+    iv.setFitWidth(base * zoom);
+    iv.setFitHeight(baseH * zoom);
+    // con zoom > 1 el contenido es más grande que el viewport: dejar que el ScrollPane desplace
+    scroll.setFitToWidth(zoom <= 1);
+    scroll.setFitToHeight(zoom <= 1);
+  }
+
+  private static boolean esWeb(String url) {
+    String u = url.toLowerCase(Locale.ROOT);
+    int q = u.indexOf('?');
+    if (q >= 0) u = u.substring(0, q);
+    int dot = u.lastIndexOf('.');
+    int slash = u.lastIndexOf('/');
+    if (dot < 0 || dot < slash) return false;
+    return WEB.contains(u.substring(dot + 1));
+  }
+}
@@ -0,0 +1,98 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/ui/Vistas.java
+package com.mycompany.pasteleria.desktop.ui;
+
+import com.mycompany.pasteleria.desktop.controller.AsignarDeliveryController;
+import com.mycompany.pasteleria.desktop.controller.CategoriasController;
+import com.mycompany.pasteleria.desktop.controller.ClientesController;
+import com.mycompany.pasteleria.desktop.controller.CocinaController;
+import com.mycompany.pasteleria.desktop.controller.DashboardController;
+import com.mycompany.pasteleria.desktop.controller.ImagenesProductoController;
+import com.mycompany.pasteleria.desktop.controller.KDSController;
+import com.mycompany.pasteleria.desktop.controller.NuevoPedidoController;
+import com.mycompany.pasteleria.desktop.controller.PagosController;
+import com.mycompany.pasteleria.desktop.controller.PedidosController;
+import com.mycompany.pasteleria.desktop.controller.PlanRepartoController;
+import com.mycompany.pasteleria.desktop.controller.ProductoFormController;
+import com.mycompany.pasteleria.desktop.controller.ProductosController;
+import com.mycompany.pasteleria.desktop.controller.ReportesController;
+import com.mycompany.pasteleria.desktop.controller.ShellController;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.util.Callback;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carga única de vistas.
+ * - Las vistas más abiertas (Pedidos, Cocina) se arman en código: sin parseo XML, sin
+ *   reflexión para inyectar campos ni resolver handlers. Se piden con {@link #PEDIDOS} y {@link #COCINA}.
+ * - El resto sigue en FXML; sus controladores se crean con {@code new} desde una tabla fija
+ *   (sin newInstance reflexivo) y los .fxml importan cada clase explícitamente.
+ * Un controlador que no esté en la tabla se sigue creando como lo haría FXMLLoader.
+ */
+public final class Vistas {
+
+  public static final String BASE = "/com/mycompany/pasteleria/desktop/view/";
+
+  /** Vistas armadas en código (no son rutas de recurso). */
+  public static final String PEDIDOS = "Pedidos";
+  public static final String COCINA = "Cocina";
+
+  private static final Map<String, Supplier<Vista<?>>> EN_CODIGO = Map.of(
+      PEDIDOS, PedidosController::crearVista,
+      COCINA, CocinaController::crearVista
+  );
+
+  private static final Map<Class<?>, Supplier<Object>> CONTROLADORES = Map.ofEntries(
+      Map.entry(ShellController.class, ShellController::new),
+      Map.entry(DashboardController.class, DashboardController::new),
+      Map.entry(PagosController.class, PagosController::new),
+      Map.entry(KDSController.class, KDSController::new),
+      Map.entry(ProductosController.class, ProductosController::new),
+      Map.entry(ProductoFormController.class, ProductoFormController::new),
+      Map.entry(ImagenesProductoController.class, ImagenesProductoController::new),
+      Map.entry(CategoriasController.class, CategoriasController::new),
+      Map.entry(ClientesController.class, ClientesController::new),
+      Map.entry(NuevoPedidoController.class, NuevoPedidoController::new),
+      Map.entry(AsignarDeliveryController.class, AsignarDeliveryController::new),
+      Map.entry(PlanRepartoController.class, PlanRepartoController::new),
+      Map.entry(ReportesController.class, ReportesController::new)
+  );
+
+  private static final Callback<Class<?>, Object> FABRICA = Vistas::crearControlador;
+
+  private Vistas() {}
+
+  /** Vista cargada con su controlador. */
+  public record Vista<C>(Parent root, C controller) {}
+
+  /**
+   * Carga una vista armada en código ({@link #PEDIDOS}, {@link #COCINA}), o una FXML por ruta
+   * de recurso ("/com/.../Pagos.fxml") o nombre corto ("Pagos.fxml").
+   */
+  @SuppressWarnings("unchecked")
+  public static <C> Vista<C> cargar(String recurso) throws IOException {
+    Supplier<Vista<?>> enCodigo = EN_CODIGO.get(recurso);
+    if (enCodigo != null) return (Vista<C>) enCodigo.get();
+    String ruta = recurso.startsWith("/") ? recurso : BASE + recurso;
+    URL url = Vistas.class.getResource(ruta);
+    if (url == null) throw new IllegalStateException("No se encontró FXML: " + ruta);
+    FXMLLoader loader = new FXMLLoader(url);
+    loader.setControllerFactory(FABRICA);
+    Parent root = loader.load();
+    return new Vista<>(root, loader.getController());
+  }
+
+  private static Object crearControlador(Class<?> tipo) {
+    Supplier<Object> s = CONTROLADORES.get(tipo);
+    if (s != null) return s.get();
+    try {
+      return tipo.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException ex) {
+      throw new IllegalStateException("No se pudo crear el controlador " + tipo.getName(), ex);
+    }
+  }
+}
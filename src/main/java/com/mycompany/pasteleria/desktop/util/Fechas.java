@@ -0,0 +1,140 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/util/Fechas.java
+package com.mycompany.pasteleria.desktop.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fechas compartidas por modelos y vistas:
+ * - Decodificar una sola vez lo que manda PostgREST (timestamp/timestamptz -> epoch ms, date, time).
+ * - Formatear para la UI con cachés: "23 oct", "16:30", "2025-10-23 16:30" sin recortar Strings por celda.
+ * Sin zona en el texto = hora local de la PC (igual que la conciliación de pagos).
+ * 0 = sin fecha (ninguna fecha real del negocio cae en 1970).
+ */
+public final class Fechas {
+
+  public static final long SIN_FECHA = 0L;
+
+  private static final ZoneId ZONA = ZoneId.systemDefault();
+  private static final String[] MES = {
+      "ene", "feb", "mar", "abr", "may", "jun", "jul", "ago", "sep", "oct", "nov", "dic"
+  };
+
+  /** "2025-10-23", "2025-10-23T15:30[:00[.123456]]", con ' ' o 'T', con o sin "+00[:00]"/"Z". */
+  private static final DateTimeFormatter ISO = new DateTimeFormatterBuilder()
+      .append(DateTimeFormatter.ISO_LOCAL_DATE)
+      .optionalStart().appendLiteral('T').append(DateTimeFormatter.ISO_LOCAL_TIME).optionalEnd()
+      .optionalStart().appendOffset("+HH:mm", "Z").optionalEnd()
+      .parseDefaulting(ChronoField.HOUR_OF_DAY, 0)
+      .parseDefaulting(ChronoField.MINUTE_OF_HOUR, 0)
+      .toFormatter();
+
+  /** "HH:mm" por minuto del día (1440 textos, se llenan a demanda). */
+  private static final String[] HHMM = new String[24 * 60];
+  /** epochDay -> "dd mmm" y "yyyy-MM-dd " (pocos días distintos por pantalla). */
+  private static final ConcurrentHashMap<Long, String> DIA_MES = new ConcurrentHashMap<>();
+  private static final ConcurrentHashMap<Long, String> DIA_ISO = new ConcurrentHashMap<>();
+  private static final int MAX_CACHE = 4096;
+
+  private Fechas() {}
+
+  /* ===================== Decodificar ===================== */
+
+  /** timestamp/timestamptz ISO -> epoch ms ({@link #SIN_FECHA} si viene vacío o no parsea). */
+  public static long epochMs(String iso) {
+    if (iso == null || iso.isBlank()) return SIN_FECHA;
+    String s = iso.trim();
+    if (s.length() > 10 && s.charAt(10) == ' ') s = s.substring(0, 10) + 'T' + s.substring(11);
+    try {
+      TemporalAccessor t = ISO.parse(s);
+      LocalDateTime ldt = LocalDateTime.of(LocalDate.from(t), LocalTime.from(t));
+      if (t.isSupported(ChronoField.OFFSET_SECONDS)) {
+        return ldt.toInstant(ZoneOffset.ofTotalSeconds(t.get(ChronoField.OFFSET_SECONDS))).toEpochMilli();
+      }
+      return ldt.atZone(ZONA).toInstant().toEpochMilli();
+    } catch (Exception e) {
+      return SIN_FECHA;
+    }
+  }
+
+  /** date ISO (o el inicio de un timestamp) -> LocalDate; null si no parsea. */
+  public static LocalDate fecha(String iso) {
+    if (iso == null || iso.length() < 10) return null;
+    try {
+      return LocalDate.parse(iso.length() == 10 ? iso : iso.substring(0, 10));
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /** time ISO ("16:30" o "16:30:00[.000]") -> LocalTime; null si no parsea. */
+  public static LocalTime hora(String iso) {
+    if (iso == null || iso.isBlank()) return null;
+    try {
+      return LocalTime.parse(iso.trim());
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  public static LocalDate dia(long epochMs) {
+    return Instant.ofEpochMilli(epochMs).atZone(ZONA).toLocalDate();
+  }
+
+  /* ===================== Formatear (UI) ===================== */
+
+  /** "23 oct" o "—". */
+  public static String diaMes(LocalDate d) {
+    if (d == null) return "—";
+    String s = DIA_MES.get(d.toEpochDay());
+    if (s != null) return s;
+    int dd = d.getDayOfMonth();
+    s = (dd < 10 ? "0" : "") + dd + " " + MES[d.getMonthValue() - 1];
+    guardar(DIA_MES, d.toEpochDay(), s);
+    return s;
+  }
+
+  /** "23 oct" (hora local) o "—". */
+  public static String diaMes(long epochMs) {
+    return epochMs == SIN_FECHA ? "—" : diaMes(dia(epochMs));
+  }
+
+  /** "16:30" o "—". */
+  public static String hhmm(LocalTime t) {
+    if (t == null) return "—";
+    int m = t.getHour() * 60 + t.getMinute();
+    String s = HHMM[m];
+    if (s == null) {
+      int h = t.getHour(), mi = t.getMinute();
+      HHMM[m] = s = (h < 10 ? "0" : "") + h + (mi < 10 ? ":0" : ":") + mi;
+    }
+    return s;
+  }
+
+  /** "2025-10-23 16:30" (hora local) o "—". */
+  public static String fechaHora(long epochMs) {
+    if (epochMs == SIN_FECHA) return "—";
+    LocalDateTime dt = LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZONA);
+    long dia = dt.toLocalDate().toEpochDay();
+    String pre = DIA_ISO.get(dia);
+    if (pre == null) {
+      pre = dt.toLocalDate() + " ";
+      guardar(DIA_ISO, dia, pre);
+    }
+    return pre + hhmm(dt.toLocalTime());
+  }
+
+  private static void guardar(ConcurrentHashMap<Long, String> cache, long clave, String valor) {
+    if (cache.size() >= MAX_CACHE) cache.clear();
+    cache.put(clave, valor);
+  }
+}
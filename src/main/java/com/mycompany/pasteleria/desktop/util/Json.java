@@ -0,0 +1,47 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/util/Json.java
+package com.mycompany.pasteleria.desktop.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+
+/**
+ * ObjectMapper compartido para leer modelos (model/*):
+ * - JavaTimeModule: columnas date/time llegan como LocalDate/LocalTime ya decodificados.
+ * - {@link EpochMs}: timestamp/timestamptz -> long epoch ms al deserializar (una vez por fila).
+ * ObjectMapper es thread-safe una vez configurado: se comparte entre hilos de carga.
+ */
+public final class Json {
+
+  public static final ObjectMapper MAPPER = JsonMapper.builder()
+      .addModule(new JavaTimeModule())
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  private Json() {}
+
+  /** Uso: {@code @JsonDeserialize(using = Json.EpochMs.class) public long fecha_registro;} (0 = sin fecha). */
+  public static final class EpochMs extends StdDeserializer<Long> {
+    private static final long serialVersionUID = 1L;
+
+    public EpochMs() { super(Long.class); }
+
+    @Override
+    public Long deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
+      if (p.currentToken() == JsonToken.VALUE_NUMBER_INT) return p.getLongValue();
+      return Fechas.epochMs(p.getValueAsString());
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext ctx) { return Fechas.SIN_FECHA; }
+  }
+}
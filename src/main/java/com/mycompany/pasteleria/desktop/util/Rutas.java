@@ -0,0 +1,45 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/util/Rutas.java
+package com.mycompany.pasteleria.desktop.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Carpetas locales de la app (caché en disco).
+ * - Windows: %LOCALAPPDATA%\pasteleria-desktop
+ * - macOS:   ~/Library/Caches/pasteleria-desktop
+ * - Linux:   $XDG_CACHE_HOME (o ~/.cache)/pasteleria-desktop
+ */
+public final class Rutas {
+
+  private static final String APP = "pasteleria-desktop";
+
+  private Rutas() {}
+
+  /** Carpeta de caché de la app; se crea si no existe. Devuelve null si no se puede crear. */
+  public static Path cache(String sub) {
+    Path dir = baseCache().resolve(APP);
+    if (sub != null && !sub.isBlank()) dir = dir.resolve(sub);
+    try {
+      Files.createDirectories(dir);
+      return dir;
+    } catch (Exception ex) {
+      return null;
+    }
+  }
+
+  private static Path baseCache() {
+    String home = System.getProperty("user.home", ".");
+    String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+    if (os.contains("win")) {
+      String local = System.getenv("LOCALAPPDATA");
+      return Path.of(local != null && !local.isBlank() ? local : home);
+    }
+    if (os.contains("mac")) {
+      return Path.of(home, "Library", "Caches");
+    }
+    String xdg = System.getenv("XDG_CACHE_HOME");
+    return (xdg != null && !xdg.isBlank()) ? Path.of(xdg) : Path.of(home, ".cache");
+  }
+}
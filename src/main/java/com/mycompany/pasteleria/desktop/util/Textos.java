@@ -0,0 +1,58 @@
+// RUTA: src/main/java/com/mycompany/pasteleria/desktop/util/Textos.java
+package com.mycompany.pasteleria.desktop.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de texto compartida:
+ * - sin tildes (NFD + quitar marcas), igual que el Dashboard.
+ * - minúsculas + tokens alfanuméricos para los índices de búsqueda en memoria.
+ */
+public final class Textos {
+
+  private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+
+  private Textos() {}
+
+  /** Quita tildes/diacríticos. Atajo sin Normalizer si el texto ya es ASCII. */
+  public static String sinTildes(String s) {
+    if (s == null || s.isEmpty()) return "";
+    if (esAscii(s)) return s;
+    return MARCAS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("");
+  }
+
+  /** Minúsculas y sin tildes ("Torta Selva Négra" -> "torta selva negra"). */
+  public static String paraBusqueda(String s) {
+    return sinTildes(s).toLowerCase(Locale.ROOT).trim();
+  }
+
+  /** Tokens alfanuméricos normalizados (separa por cualquier otro carácter). */
+  public static List<String> tokens(String s) {
+    String n = paraBusqueda(s);
+    List<String> out = new ArrayList<>();
+    int ini = -1;
+    for (int i = 0; i < n.length(); i++) {
+      char c = n.charAt(i);
+      boolean alnum = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9');
+      if (alnum) {
+        if (ini < 0) ini = i;
+      } else if (ini >= 0) {
+        out.add(n.substring(ini, i));
+        ini = -1;
+      }
+    }
+    if (ini >= 0) out.add(n.substring(ini));
+    return out;
+  }
+
+  private static boolean esAscii(String s) {
+    for (int i = 0; i < s.length(); i++) {
+      if (s.charAt(i) > 0x7F) return false;
+    }
+    return true;
+  }
+}